@@ -25,9 +25,11 @@ import org.openstreetmap.josm.gui.io.importexport.GpxImporter;
 import org.openstreetmap.josm.gui.io.importexport.ImageImporter;
 import org.openstreetmap.josm.gui.io.importexport.NMEAImporter;
 import org.openstreetmap.josm.gui.io.importexport.NoteImporter;
+import org.openstreetmap.josm.gui.io.importexport.OsmBinaryImporter;
 import org.openstreetmap.josm.gui.io.importexport.OsmChangeImporter;
 import org.openstreetmap.josm.gui.io.importexport.OsmImporter;
 import org.openstreetmap.josm.gui.io.importexport.OziWptImporter;
+import org.openstreetmap.josm.gui.io.importexport.PbfImporter;
 import org.openstreetmap.josm.gui.io.importexport.RtkLibImporter;
 import org.openstreetmap.josm.gui.io.importexport.WMSLayerImporter;
 import org.openstreetmap.josm.gui.widgets.AbstractFileChooser;
@@ -64,6 +66,8 @@ public class ExtensionFileFilter extends FileFilter implements java.io.FileFilte
 
         final List<Class<? extends FileImporter>> importerNames = Arrays.asList(
                 OsmImporter.class,
+                PbfImporter.class,
+                OsmBinaryImporter.class,
                 OsmChangeImporter.class,
                 GeoJSONImporter.class,
                 GpxImporter.class,
@@ -110,6 +114,8 @@ public class ExtensionFileFilter extends FileFilter implements java.io.FileFilte
                 org.openstreetmap.josm.gui.io.importexport.OsmGzipExporter.class,
                 org.openstreetmap.josm.gui.io.importexport.OsmBzip2Exporter.class,
                 org.openstreetmap.josm.gui.io.importexport.OsmXzExporter.class,
+                org.openstreetmap.josm.gui.io.importexport.OsmPbfExporter.class,
+                org.openstreetmap.josm.gui.io.importexport.OsmBinaryExporter.class,
                 org.openstreetmap.josm.gui.io.importexport.GeoJSONExporter.class,
                 org.openstreetmap.josm.gui.io.importexport.WMSLayerExporter.class,
                 org.openstreetmap.josm.gui.io.importexport.NoteExporter.class,
@@ -138,6 +138,7 @@ public abstract class SaveActionBase extends DiskAccessAction {
         try {
             boolean exported = false;
             boolean canceled = false;
+            boolean complete = true;
             for (FileExporter exporter : ExtensionFileFilter.getExporters()) {
                 if (exporter.acceptFile(file, layer)) {
                     if (quiet) {
@@ -147,6 +148,7 @@ public abstract class SaveActionBase extends DiskAccessAction {
                     }
                     exported = true;
                     canceled = exporter.isCanceled();
+                    complete = exporter.isCompleteSave(layer);
                     break;
                 }
             }
@@ -158,12 +160,15 @@ public abstract class SaveActionBase extends DiskAccessAction {
             } else if (canceled) {
                 return false;
             }
-            if (!layer.isRenamed()) {
-                layer.setName(file.getName());
-            }
-            layer.setAssociatedFile(file);
-            if (layer instanceof AbstractModifiableLayer) {
-                ((AbstractModifiableLayer) layer).onPostSaveToFile();
+            // a partial export (e.g. to a format which cannot store the local modifications) does not save the layer
+            if (complete) {
+                if (!layer.isRenamed()) {
+                    layer.setName(file.getName());
+                }
+                layer.setAssociatedFile(file);
+                if (layer instanceof AbstractModifiableLayer) {
+                    ((AbstractModifiableLayer) layer).onPostSaveToFile();
+                }
             }
         } catch (IOException | InvalidPathException e) {
             showAndLogException(e);
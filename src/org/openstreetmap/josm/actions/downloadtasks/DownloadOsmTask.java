@@ -11,6 +11,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -25,9 +26,11 @@ import org.openstreetmap.josm.data.ProjectionBounds;
 import org.openstreetmap.josm.data.ViewportData;
 import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.DataSetMerger;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.Relation;
 import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
 import org.openstreetmap.josm.data.osm.visitor.BoundingXYVisitor;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.MapFrame;
@@ -36,6 +39,7 @@ import org.openstreetmap.josm.gui.io.UpdatePrimitivesTask;
 import org.openstreetmap.josm.gui.layer.OsmDataLayer;
 import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.gui.util.GuiHelper;
 import org.openstreetmap.josm.io.BoundingBoxDownloader;
 import org.openstreetmap.josm.io.Compression;
 import org.openstreetmap.josm.io.OsmServerLocationReader;
@@ -55,6 +59,12 @@ import org.xml.sax.SAXException;
  */
 public class DownloadOsmTask extends AbstractDownloadTask<DataSet> {
 
+    /**
+     * Whether the data downloaded by bounding box is merged into the layer while downloading, and displayed progressively.
+     * @since xxx
+     */
+    public static final BooleanProperty PROGRESSIVE = new BooleanProperty("download.osm.progressive", false);
+
     protected Bounds currentBounds;
     protected DownloadTask downloadTask;
 
@@ -366,13 +376,23 @@ public class DownloadOsmTask extends AbstractDownloadTask<DataSet> {
             return null;
         }
 
+        /**
+         * Returns the existing layer the downloaded data is merged into, when no new layer is required.
+         * @return the edit layer if it is downloadable, the first modifiable data layer otherwise
+         * @since xxx
+         */
+        protected OsmDataLayer getTargetLayer() {
+            OsmDataLayer layer = getEditLayer();
+            if (layer == null || !layer.isDownloadable()) {
+                layer = getFirstModifiableDataLayer();
+            }
+            return layer;
+        }
+
         protected void loadData(String newLayerName, Bounds bounds) {
             OsmDataLayer layer = addNewLayerIfRequired(newLayerName);
             if (layer == null) {
-                layer = getEditLayer();
-                if (layer == null || !layer.isDownloadable()) {
-                    layer = getFirstModifiableDataLayer();
-                }
+                layer = getTargetLayer();
                 Collection<OsmPrimitive> primitivesToUpdate = searchPrimitivesToUpdate(bounds, layer.getDataSet());
                 layer.mergeFrom(dataSet);
                 MapFrame map = MainApplication.getMap();
@@ -422,6 +442,10 @@ public class DownloadOsmTask extends AbstractDownloadTask<DataSet> {
     protected class DownloadTask extends AbstractInternalTask {
         protected final OsmServerReader reader;
         protected final Compression compression;
+        /** the layer the downloaded batches are merged into, in progressive mode (see {@link #PROGRESSIVE}) */
+        private OsmDataLayer progressiveLayer;
+        /** the data sources of the merged batches, only added once the download is complete */
+        private final List<DataSource> progressiveDataSources = new ArrayList<>();
 
         /**
          * Constructs a new {@code DownloadTask}.
@@ -474,7 +498,17 @@ public class DownloadOsmTask extends AbstractDownloadTask<DataSet> {
             try {
                 if (isCanceled())
                     return;
-                dataSet = parseDataSet();
+                if (PROGRESSIVE.get() && reader instanceof BoundingBoxDownloader) {
+                    dataSet = new DataSet();
+                    ((BoundingBoxDownloader) reader).setBatchConsumer(this::mergeBatch);
+                }
+                DataSet ds = parseDataSet();
+                if (progressiveLayer == null) {
+                    dataSet = ds;
+                } else if (ds != null) {
+                    mergeBatch(ds);
+                    dataSet.setRemark(ds.getRemark());
+                }
             } catch (OsmTransferException e) {
                 if (isCanceled()) {
                     Logging.info(tr("Ignoring exception because download has been canceled. Exception was: {0}", e.toString()));
@@ -490,12 +524,79 @@ public class DownloadOsmTask extends AbstractDownloadTask<DataSet> {
             }
         }
 
+        /**
+         * Merges a batch of downloaded primitives into the target layer, in progressive mode. Called in the downloading thread.
+         * @param batch the downloaded primitives
+         */
+        private void mergeBatch(DataSet batch) {
+            GuiHelper.runInEDTAndWait(() -> {
+                if (progressiveLayer == null) {
+                    progressiveLayer = addNewLayerIfRequired(newLayerName);
+                    if (progressiveLayer == null) {
+                        progressiveLayer = getTargetLayer();
+                    }
+                }
+                DataSet target = progressiveLayer.getDataSet();
+                boolean locked = target.isLocked();
+                if (locked) {
+                    target.unlock();
+                }
+                try {
+                    progressiveLayer.mergeFrom(batch, null, false);
+                } finally {
+                    if (locked) {
+                        target.lock();
+                    }
+                }
+            });
+            if (progressiveLayer.getDataSet() != dataSet) {
+                // keep all the downloaded data, as in non-progressive mode
+                new DataSetMerger(dataSet, batch).merge(null, false);
+            }
+            // the area is only marked as downloaded once the download is complete, not if it fails or is canceled
+            progressiveDataSources.addAll(batch.getDataSources());
+        }
+
+        /**
+         * Completes a progressive download, once all batches have been merged into the target layer.
+         * @param bounds download bounds
+         */
+        private void finishProgressive(Bounds bounds) {
+            OsmDataLayer layer = progressiveLayer;
+            if (layer.getDataSet() != dataSet) {
+                DataSet target = layer.getDataSet();
+                boolean locked = target.isLocked();
+                if (locked) {
+                    target.unlock();
+                }
+                try {
+                    target.addDataSources(progressiveDataSources);
+                } finally {
+                    if (locked) {
+                        target.lock();
+                    }
+                }
+                Collection<OsmPrimitive> primitivesToUpdate = searchPrimitivesToUpdate(bounds, layer.getDataSet());
+                if (!primitivesToUpdate.isEmpty()) {
+                    MainApplication.worker.submit(new UpdatePrimitivesTask(layer, primitivesToUpdate));
+                }
+            }
+            MapFrame map = MainApplication.getMap();
+            if (map != null && zoomAfterDownload) {
+                computeBbox(bounds).map(ViewportData::new).ifPresent(map.mapView::zoomTo);
+            }
+            layer.onPostDownloadFromServer();
+        }
+
         @Override
         protected void finish() {
             if (isFailed() || isCanceled())
                 return;
             if (dataSet == null)
                 return; // user canceled download or error occurred
+            if (progressiveLayer != null) {
+                dataSet.addDataSources(progressiveDataSources);
+            }
             if (dataSet.allPrimitives().isEmpty()) {
                 if (warnAboutEmptyArea) {
                     rememberErrorMessage(NO_DATA_FOUND);
@@ -514,7 +615,11 @@ public class DownloadOsmTask extends AbstractDownloadTask<DataSet> {
 
             rememberDownloadedBounds(currentBounds);
             rememberDownloadedData(dataSet);
-            loadData(newLayerName, currentBounds);
+            if (progressiveLayer != null) {
+                finishProgressive(currentBounds);
+            } else {
+                loadData(newLayerName, currentBounds);
+            }
         }
 
         @Override
@@ -489,6 +489,8 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
      * In short this means that you should not rely on this variable being the same value when read again and your should always
      * copy it on writes.
      * <p>
+     * The array is shared by all primitives having the same tags, see {@link TagArrayPool}. It must never be modified in place.
+     * <p>
      * Further reading:
      * <ul>
      * <li>{@link java.util.concurrent.CopyOnWriteArrayList}</li>
@@ -547,7 +549,7 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
             newKeys[index++] = Objects.requireNonNull(entry.getKey());
             newKeys[index++] = Objects.requireNonNull(entry.getValue());
         }
-        this.keys = newKeys;
+        this.keys = TagArrayPool.intern(newKeys);
         keysChangedImpl(originalKeys);
     }
 
@@ -560,12 +562,7 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
         if (keys == null) {
             this.keys = null;
         } else {
-            String[] arr = keys.getTagsArray();
-            if (arr.length == 0) {
-                this.keys = null;
-            } else {
-                this.keys = arr;
-            }
+            this.keys = TagArrayPool.intern(keys.getTagsArray());
         }
         keysChangedImpl(originalKeys);
     }
@@ -590,7 +587,7 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
         else if (value == null) {
             remove(key);
         } else if (keys == null) {
-            keys = new String[] {key, value};
+            keys = TagArrayPool.intern(new String[] {key, value});
             keysChangedImpl(originalKeys);
         } else {
             int keyIndex = indexOfKey(keys, key);
@@ -607,7 +604,7 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
             String[] newKeys = Arrays.copyOf(keys, tagArrayLength);
             newKeys[keyIndex] = key;
             newKeys[keyIndex + 1] = value;
-            keys = newKeys;
+            keys = TagArrayPool.intern(newKeys);
             keysChangedImpl(originalKeys);
         }
     }
@@ -617,8 +614,8 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
         if (tags == null || tags.isEmpty()) {
             return;
         }
-        // Defensive copy of keys
-        String[] newKeys = keys;
+        // Defensive copy of keys, the array may be shared with other primitives
+        String[] newKeys = keys != null ? keys.clone() : null;
         Map<String, String> originalKeys = getKeys();
         List<Map.Entry<String, String>> tagsToAdd = new ArrayList<>(tags.size());
         for (Map.Entry<String, String> tag : tags.entrySet()) {
@@ -639,8 +636,8 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
                 newKeys[index++] = tag.getKey();
                 newKeys[index++] = tag.getValue();
             }
-            keys = newKeys;
         }
+        keys = TagArrayPool.intern(newKeys);
         keysChangedImpl(originalKeys);
     }
 
@@ -689,7 +686,7 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
                 newKeys[j++] = keys[i+1];
             }
         }
-        keys = newKeys;
+        keys = TagArrayPool.intern(newKeys);
         keysChangedImpl(originalKeys);
     }
 
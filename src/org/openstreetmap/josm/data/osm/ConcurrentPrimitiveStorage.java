@@ -0,0 +1,316 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A set of primitives that can be looked up by id and type without locking.
+ * <p>
+ * This is an alternative to a {@link Storage} using {@link Storage.PrimitiveIdHash}, for sets where lookups are much
+ * more frequent than modifications, like the primitives of a {@link DataSet}. The primitives are kept in an
+ * open-addressing table keyed by their unique id and type:
+ * <ul>
+ * <li>lookups never block and never allocate, in particular no {@link SimplePrimitiveId} is needed to find a primitive,</li>
+ * <li>modifications are serialized and become visible to concurrent lookups as soon as they are done,</li>
+ * <li>removed entries are marked, so that lookups running concurrently to a removal never miss another entry.
+ * The marks are dropped the next time the table is rebuilt.</li>
+ * </ul>
+ * Iterators return a snapshot, like the safe iterators of {@link Storage}: they never throw a
+ * {@link ConcurrentModificationException} and do not reflect the modifications made after their creation, as the
+ * table is copied on the first modification after an iterator has been created.
+ * <p>
+ * Two primitives are considered equal by this set if they have the same unique id and type.
+ *
+ * @param <T> type of stored primitives
+ * @since xxx
+ */
+public final class ConcurrentPrimitiveStorage<T extends PrimitiveId> extends AbstractSet<T> {
+
+    private static final Object REMOVED = new Object();
+    private static final double LOAD_FACTOR = 0.6d;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The slots, containing either {@code null}, {@link #REMOVED} or an element. Replaced as a whole when rebuilt. */
+    private volatile AtomicReferenceArray<Object> table;
+    private volatile int size;
+    /** Number of slots that are not {@code null}, including the removed ones. Guarded by {@code this} */
+    private int used;
+    /** Whether the table is referenced by an iterator, and must be copied before being modified. Guarded by {@code this} */
+    private boolean shared;
+
+    /**
+     * Constructs a new empty {@code ConcurrentPrimitiveStorage}.
+     */
+    public ConcurrentPrimitiveStorage() {
+        this(0);
+    }
+
+    /**
+     * Constructs a new empty {@code ConcurrentPrimitiveStorage} that can hold the given number of elements without
+     * being rebuilt.
+     * @param capacity the expected number of elements
+     */
+    public ConcurrentPrimitiveStorage(int capacity) {
+        table = new AtomicReferenceArray<>(capacityFor(capacity));
+    }
+
+    private static int capacityFor(int elements) {
+        int cap = DEFAULT_CAPACITY;
+        while (cap < MAXIMUM_CAPACITY && cap * LOAD_FACTOR <= elements) {
+            cap <<= 1;
+        }
+        return cap;
+    }
+
+    private static int hash(long id, OsmPrimitiveType type) {
+        long h = (id * 3 + type.ordinal()) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static boolean matches(Object e, long id, OsmPrimitiveType type) {
+        PrimitiveId p = (PrimitiveId) e;
+        return p.getUniqueId() == id && p.getType() == type;
+    }
+
+    /**
+     * Returns the element with the given unique id and type. This method never blocks.
+     * @param id the unique id
+     * @param type the primitive type
+     * @return the element with the given unique id and type, or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public T get(long id, OsmPrimitiveType type) {
+        AtomicReferenceArray<Object> tab = table;
+        int mask = tab.length() - 1;
+        // terminates, as the load factor guarantees that there is at least one empty slot
+        for (int i = hash(id, type) & mask; ; i = (i + 1) & mask) {
+            Object e = tab.get(i);
+            if (e == null) {
+                return null;
+            } else if (e != REMOVED && matches(e, id, type)) {
+                return (T) e;
+            }
+        }
+    }
+
+    /**
+     * Returns the element with the same unique id and type as the given primitive id. This method never blocks.
+     * @param id the primitive id
+     * @return the element with the same unique id and type, or {@code null}
+     */
+    public T get(PrimitiveId id) {
+        return get(id.getUniqueId(), id.getType());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof PrimitiveId && get((PrimitiveId) o) != null;
+    }
+
+    @Override
+    public boolean add(T t) {
+        return putUnique(t) == t;
+    }
+
+    /**
+     * Adds the given element, replacing an element with the same unique id and type.
+     * @param t the element to add
+     * @return the replaced element, or {@code null}
+     */
+    public synchronized T put(T t) {
+        return insert(t, true);
+    }
+
+    /**
+     * Adds the given element, unless there is already an element with the same unique id and type.
+     * @param t the element to add
+     * @return the element with the same unique id and type that is contained in this set afterwards,
+     * i.e. either {@code t} or the already contained element
+     */
+    public synchronized T putUnique(T t) {
+        T old = insert(t, false);
+        return old != null ? old : t;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T insert(T t, boolean replace) {
+        long id = t.getUniqueId();
+        OsmPrimitiveType type = t.getType();
+        AtomicReferenceArray<Object> tab = writableTable();
+        int mask = tab.length() - 1;
+        int free = -1;
+        for (int i = hash(id, type) & mask; ; i = (i + 1) & mask) {
+            Object e = tab.get(i);
+            if (e == null) {
+                if (free < 0) {
+                    if (used + 1 > tab.length() * LOAD_FACTOR) {
+                        rebuild(capacityFor(2 * (size + 1)));
+                        return insert(t, replace);
+                    }
+                    used++;
+                    free = i;
+                }
+                tab.set(free, t);
+                size++;
+                return null;
+            } else if (e == REMOVED) {
+                if (free < 0) {
+                    free = i;
+                }
+            } else if (matches(e, id, type)) {
+                if (replace) {
+                    tab.set(i, t);
+                }
+                return (T) e;
+            }
+        }
+    }
+
+    /**
+     * Copies all elements into a new table, dropping the removed slots. Concurrent lookups still using the previous
+     * table see the state before the rebuild, as the previous table is not modified anymore.
+     * @param capacity the capacity of the new table
+     */
+    private void rebuild(int capacity) {
+        AtomicReferenceArray<Object> tab = table;
+        AtomicReferenceArray<Object> newTab = new AtomicReferenceArray<>(capacity);
+        int mask = capacity - 1;
+        int count = 0;
+        for (int j = 0; j < tab.length(); j++) {
+            Object e = tab.get(j);
+            if (e != null && e != REMOVED) {
+                PrimitiveId p = (PrimitiveId) e;
+                int i = hash(p.getUniqueId(), p.getType()) & mask;
+                while (newTab.get(i) != null) {
+                    i = (i + 1) & mask;
+                }
+                newTab.set(i, e);
+                count++;
+            }
+        }
+        used = count;
+        shared = false;
+        table = newTab;
+    }
+
+    /**
+     * Returns the table, after copying it if it is referenced by an iterator.
+     * @return the table, which may be modified
+     */
+    private AtomicReferenceArray<Object> writableTable() {
+        if (shared) {
+            rebuild(table.length());
+        }
+        return table;
+    }
+
+    /**
+     * Makes sure this set can hold the given number of elements without being rebuilt again.
+     * Use this before adding many elements at once.
+     * @param capacity the expected number of elements
+     */
+    public synchronized void ensureCapacity(int capacity) {
+        int cap = capacityFor(capacity);
+        if (cap > table.length()) {
+            rebuild(cap);
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof PrimitiveId && removeElem((PrimitiveId) o) != null;
+    }
+
+    /**
+     * Removes the element with the same unique id and type as the given primitive id.
+     * @param id the primitive id
+     * @return the removed element, or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized T removeElem(PrimitiveId id) {
+        long uniqueId = id.getUniqueId();
+        OsmPrimitiveType type = id.getType();
+        if (get(uniqueId, type) == null) {
+            return null;
+        }
+        AtomicReferenceArray<Object> tab = writableTable();
+        int mask = tab.length() - 1;
+        for (int i = hash(uniqueId, type) & mask; ; i = (i + 1) & mask) {
+            Object e = tab.get(i);
+            if (e == null) {
+                return null;
+            } else if (e != REMOVED && matches(e, uniqueId, type)) {
+                tab.set(i, REMOVED);
+                size--;
+                return (T) e;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        table = new AtomicReferenceArray<>(DEFAULT_CAPACITY);
+        used = 0;
+        size = 0;
+        shared = false;
+    }
+
+    @Override
+    public synchronized Iterator<T> iterator() {
+        shared = true;
+        return new Iter(table);
+    }
+
+    private final class Iter implements Iterator<T> {
+        private final AtomicReferenceArray<Object> tab;
+        private int slot;
+        private T next;
+        private T last;
+
+        Iter(AtomicReferenceArray<Object> tab) {
+            this.tab = tab;
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (next == null && slot < tab.length()) {
+                Object e = tab.get(slot++);
+                if (e != null && e != REMOVED) {
+                    next = (T) e;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (next == null) throw new NoSuchElementException();
+            last = next;
+            advance();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) throw new IllegalStateException();
+            ConcurrentPrimitiveStorage.this.remove(last);
+            last = null;
+        }
+    }
+}
@@ -18,8 +18,9 @@ import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -54,6 +55,7 @@ import org.openstreetmap.josm.data.osm.event.RelationMembersChangedEvent;
 import org.openstreetmap.josm.data.osm.event.TagsChangedEvent;
 import org.openstreetmap.josm.data.osm.event.WayNodesChangedEvent;
 import org.openstreetmap.josm.data.osm.visitor.BoundingXYVisitor;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
 import org.openstreetmap.josm.data.projection.Projection;
 import org.openstreetmap.josm.data.projection.ProjectionChangeListener;
 import org.openstreetmap.josm.data.projection.ProjectionRegistry;
@@ -105,6 +107,15 @@ import org.openstreetmap.josm.tools.SubclassFilteredCollection;
  * Note that locks cannot be upgraded - if one threads use read lock and and then write lock, dead lock will occur - see #5814 for
  * sample ticket
  *
+ * The bounding box searches ({@link #searchNodes}, {@link #searchWays}, {@link #searchRelations}) returning a list do not take
+ * the read lock, but a lighter lock which only excludes the writes to the data set. The searches calling back a visitor
+ * hold the read lock while doing so.
+ *
+ * The collections returned by {@link #getNodes}, {@link #getWays}, {@link #getRelations}, {@link #allPrimitives} and
+ * {@link #getPrimitives} are views of the data set. Their iterators return a snapshot of the primitives at the time of
+ * their creation, so the data set can be modified while iterating. Iterating without the read lock is safe,
+ * but the snapshot may then be taken in the middle of a bulk modification.
+ *
  * @author imi
  */
 public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>, ProjectionChangeListener {
@@ -119,12 +130,17 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
      */
     private static final int MAX_EVENTS = 1000;
 
-    private final QuadBucketPrimitiveStore<Node, Way, Relation> store = new QuadBucketPrimitiveStore<>();
+    /**
+     * Indicates that the nodes and ways of new data sets are indexed by a {@link PackedRTree} instead of {@link QuadBuckets}
+     * @since xxx
+     */
+    public static final BooleanProperty PACKED_RTREE_INDEX = new BooleanProperty("dataset.index.packed-rtree", false);
+
+    private final QuadBucketPrimitiveStore<Node, Way, Relation> store = createStore();
 
-    private final Storage<OsmPrimitive> allPrimitives = new Storage<>(new Storage.PrimitiveIdHash(), true);
-    private final Map<PrimitiveId, OsmPrimitive> primitivesMap = allPrimitives
-            .foreignKey(new Storage.PrimitiveIdHash());
+    private final ConcurrentPrimitiveStorage<OsmPrimitive> allPrimitives = new ConcurrentPrimitiveStorage<>();
     private final CopyOnWriteArrayList<DataSetListener> listeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<DataSetSnapshot> snapshots = new CopyOnWriteArrayList<>();
 
     // provide means to highlight map elements that are not osm primitives
     private Collection<WaySegment> highlightedVirtualNodes = new LinkedList<>();
@@ -142,7 +158,16 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
     /** Flag used to know if the dataset should not be editable */
     private final AtomicBoolean isReadOnly = new AtomicBoolean(false);
 
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Excludes the bounding box searches from the writes. It is write-locked for the whole outermost
+     * {@link #beginUpdate()}/{@link #endUpdate()} block, after {@link #lock} is locked for writing.
+     * Its read lock is not reentrant and does not track the holding threads, so it is cheaper than the read lock of
+     * {@link #lock}. It must only be held while no code outside of the data set is called.
+     */
+    private final StampedLock searchLock = new StampedLock();
+    private long searchWriteStamp;
 
     /**
      * The mutex lock that is used to synchronize selection changes.
@@ -184,6 +209,13 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
      */
     private List<XMLNamespace> gpxNamespaces;
 
+    private static QuadBucketPrimitiveStore<Node, Way, Relation> createStore() {
+        if (Config.getPref() != null && PACKED_RTREE_INDEX.get()) {
+            return new QuadBucketPrimitiveStore<>(new PackedRTree<>(), new PackedRTree<>());
+        }
+        return new QuadBucketPrimitiveStore<>();
+    }
+
     /**
      * Constructs a new {@code DataSet}.
      */
@@ -242,11 +274,14 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
      */
     public Map<OsmPrimitive, OsmPrimitive> clonePrimitives(Iterable<Node> nodes, Iterable<Way> ways, Iterable<Relation> relations) {
         Map<OsmPrimitive, OsmPrimitive> primMap = new HashMap<>();
+        List<OsmPrimitive> newPrimitives = new ArrayList<>();
         for (Node n : nodes) {
             Node newNode = new Node(n);
             primMap.put(n, newNode);
-            addPrimitive(newNode);
+            newPrimitives.add(newNode);
         }
+        addPrimitives(newPrimitives);
+        newPrimitives.clear();
         for (Way w : ways) {
             Way newWay = new Way(w, false, false);
             primMap.put(w, newWay);
@@ -254,15 +289,18 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
                     .map(n -> (Node) primMap.get(n))
                     .collect(Collectors.toList());
             newWay.setNodes(newNodes);
-            addPrimitive(newWay);
+            newPrimitives.add(newWay);
         }
+        addPrimitives(newPrimitives);
+        newPrimitives.clear();
         // Because relations can have other relations as members we first clone all relations
         // and then get the cloned members
         for (Relation r : relations) {
             Relation newRelation = new Relation(r, false, false);
             primMap.put(r, newRelation);
-            addPrimitive(newRelation);
+            newPrimitives.add(newRelation);
         }
+        addPrimitives(newPrimitives);
         for (Relation r : relations) {
             ((Relation) primMap.get(r)).setMembers(r.getMembers().stream()
                     .map(rm -> new RelationMember(rm.getRole(), primMap.get(rm.getMember())))
@@ -304,6 +342,58 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
         return lock.readLock();
     }
 
+    /**
+     * Takes a snapshot of this dataset, that can be read in background without the read lock while the dataset is
+     * edited. Taking a snapshot only copies the lists of primitives, the state of a primitive is copied when it is
+     * first modified. The snapshot must be closed once it is not needed anymore.
+     * <pre>
+     * try (DataSetSnapshot snapshot = ds.snapshot()) {
+     *     ...
+     * }
+     * </pre>
+     * @return a new snapshot of this dataset
+     * @since xxx
+     */
+    public DataSetSnapshot snapshot() {
+        lock.readLock().lock();
+        try {
+            DataSetSnapshot snapshot = new DataSetSnapshot(this);
+            snapshots.add(snapshot);
+            return snapshot;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void removeSnapshot(DataSetSnapshot snapshot) {
+        snapshots.remove(snapshot);
+    }
+
+    /**
+     * Saves the state of the given primitive for all open snapshots, before it is modified.
+     * @param primitive the primitive about to be modified
+     */
+    void preserveForSnapshots(OsmPrimitive primitive) {
+        if (!snapshots.isEmpty()) {
+            for (DataSetSnapshot snapshot : snapshots) {
+                snapshot.preserve(primitive);
+            }
+        }
+    }
+
+    /**
+     * Saves the state of the given primitive and of its referrers for all open snapshots, before it is removed
+     * from this dataset. The referrers are saved too, as their state contains the id of the primitive,
+     * which may change once it is removed.
+     * @param primitive the primitive about to be removed
+     */
+    void preserveRemovedForSnapshots(OsmPrimitive primitive) {
+        if (!snapshots.isEmpty()) {
+            preserveForSnapshots(primitive);
+            primitive.forEachReferrer(OsmPrimitive.class, this::preserveForSnapshots);
+        }
+    }
+
     /**
      * History of selections - shared by plugins and SelectionListDialog
      */
@@ -406,9 +496,19 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
 
     @Override
     public List<Node> searchNodes(BBox bbox) {
+        return readSearch(() -> store.searchNodes(bbox));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The visitor is called while holding the read lock.
+     */
+    @Override
+    public void searchNodes(BBox bbox, Consumer<? super Node> visitor) {
         lock.readLock().lock();
         try {
-            return store.searchNodes(bbox);
+            store.searchNodes(bbox, visitor);
         } finally {
             lock.readLock().unlock();
         }
@@ -421,9 +521,19 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
 
     @Override
     public List<Way> searchWays(BBox bbox) {
+        return readSearch(() -> store.searchWays(bbox));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The visitor is called while holding the read lock.
+     */
+    @Override
+    public void searchWays(BBox bbox, Consumer<? super Way> visitor) {
         lock.readLock().lock();
         try {
-            return store.searchWays(bbox);
+            store.searchWays(bbox, visitor);
         } finally {
             lock.readLock().unlock();
         }
@@ -431,12 +541,7 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
 
     @Override
     public List<Relation> searchRelations(BBox bbox) {
-        lock.readLock().lock();
-        try {
-            return store.searchRelations(bbox);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return readSearch(() -> store.searchRelations(bbox));
     }
 
     /**
@@ -522,6 +627,48 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
         });
     }
 
+    /**
+     * Adds many primitives to this dataset at once.
+     * <p>
+     * This is the bulk-load counterpart of {@link #addPrimitive(OsmPrimitive)}, meant for readers and other code that
+     * fills a dataset with a large number of primitives: the primitive storage is sized only once, the spatial index
+     * is built in a single pass and only one {@link DataChangedEvent} is fired for the whole collection.
+     * Ways and relations are indexed with their current bounding box, so they should be added after their members.
+     *
+     * @param primitives the primitives to add
+     * @throws IllegalStateException if the dataset is read-only
+     * @throws DataIntegrityProblemException if one of the primitives is already included in this or another dataset,
+     * or is contained twice in {@code primitives}. In this case, none of the primitives is added
+     * @since xxx
+     */
+    public void addPrimitives(Collection<? extends OsmPrimitive> primitives) {
+        Objects.requireNonNull(primitives, "primitives");
+        checkModifiable();
+        if (primitives.isEmpty())
+            return;
+        update(() -> {
+            Set<PrimitiveId> ids = new HashSet<>(primitives.size());
+            for (OsmPrimitive primitive : primitives) {
+                if (primitive.getDataSet() != null && primitive.getDataSet() != this)
+                    throw new DataIntegrityProblemException("Primitive cannot be included in more than one Dataset",
+                            null, primitive);
+                if (getPrimitiveById(primitive) != null || !ids.add(primitive.getPrimitiveId()))
+                    throw new DataIntegrityProblemException(
+                            tr("Unable to add primitive {0} to the dataset because it is already included", primitive.toString()),
+                            null, primitive);
+            }
+            allPrimitives.ensureCapacity(allPrimitives.size() + primitives.size());
+            for (OsmPrimitive primitive : primitives) {
+                allPrimitives.add(primitive);
+                primitive.setDataset(this);
+                primitive.updatePosition(); // Set cached bbox for way and relation
+            }
+            store.addPrimitives(primitives);
+            fireEvent(new DataChangedEvent(this,
+                    Collections.singletonList(new PrimitivesAddedEvent(this, primitives, false))));
+        });
+    }
+
     /**
      * Adds recursively a primitive, and all its children, to the dataset.
      *
@@ -796,7 +943,17 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
 
     @Override
     public OsmPrimitive getPrimitiveById(PrimitiveId primitiveId) {
-        return primitiveId != null ? primitivesMap.get(primitiveId) : null;
+        return primitiveId != null ? allPrimitives.get(primitiveId) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This lookup does not lock the dataset and does not allocate.
+     */
+    @Override
+    public OsmPrimitive getPrimitiveById(long id, OsmPrimitiveType type) {
+        return allPrimitives.get(id, type);
     }
 
     /**
@@ -942,7 +1099,9 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
      */
     public void beginUpdate() {
         lock.writeLock().lock();
-        updateCount++;
+        if (updateCount++ == 0) {
+            searchWriteStamp = searchLock.writeLock();
+        }
     }
 
     /**
@@ -964,6 +1123,7 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
             updateCount--;
             List<AbstractDatasetChangedEvent> eventsToFire = Collections.emptyList();
             if (updateCount == 0) {
+                searchLock.unlockWrite(searchWriteStamp);
                 eventsToFire = new ArrayList<>(cachedEvents);
                 cachedEvents.clear();
             }
@@ -1040,6 +1200,26 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
         }
     }
 
+    /**
+     * Performs a read-only operation on the internal data structures while holding the read lock of {@link #searchLock}.
+     * The reader must not call code outside of the data set, such as listeners or callbacks given by the caller.
+     * @param reader read-only operation
+     * @param <R> result type
+     * @return reader result
+     */
+    private <R> R readSearch(Supplier<R> reader) {
+        if (lock.isWriteLockedByCurrentThread()) {
+            // the current thread holds the search write lock as well
+            return reader.get();
+        }
+        long stamp = searchLock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            searchLock.unlockRead(stamp);
+        }
+    }
+
     private void fireEventToListeners(AbstractDatasetChangedEvent event) {
         for (DataSetListener listener : listeners) {
             Logging.trace("Firing {0} to {1} (dataset)", event, listener);
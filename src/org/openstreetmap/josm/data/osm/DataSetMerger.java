@@ -6,12 +6,10 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 import java.awt.geom.Area;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.openstreetmap.josm.data.DataSource;
@@ -20,6 +18,7 @@ import org.openstreetmap.josm.data.conflict.ConflictCollection;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
 import org.openstreetmap.josm.tools.CheckParameterUtil;
 import org.openstreetmap.josm.tools.JosmRuntimeException;
+import org.openstreetmap.josm.tools.collections.LongSet;
 
 /**
  * A dataset merger which takes a target and a source dataset and merges the source data set
@@ -40,11 +39,11 @@ public class DataSetMerger {
      * A map of all primitives that got replaced with other primitives.
      * Key is the PrimitiveId in their dataset, the value is the PrimitiveId in my dataset
      */
-    private final Map<PrimitiveId, PrimitiveId> mergedMap;
-    /** a set of primitive ids for which we have to fix references (to nodes and
-     * to relation members) after the first phase of merging
-     */
-    private final Set<PrimitiveId> objectsWithChildrenToMerge;
+    private final PrimitiveIdMap<PrimitiveId> mergedMap;
+    /** the unique ids of the ways for which we have to fix references to nodes after the first phase of merging */
+    private final LongSet waysWithChildrenToMerge;
+    /** the unique ids of the relations for which we have to fix references to members after the first phase of merging */
+    private final LongSet relationsWithChildrenToMerge;
     private final Set<OsmPrimitive> objectsToDelete;
 
     /**
@@ -61,8 +60,9 @@ public class DataSetMerger {
         this.targetDataSet = targetDataSet;
         this.sourceDataSet = sourceDataSet;
         conflicts = new ConflictCollection();
-        mergedMap = new HashMap<>();
-        objectsWithChildrenToMerge = new HashSet<>();
+        mergedMap = new PrimitiveIdMap<>();
+        waysWithChildrenToMerge = new LongSet();
+        relationsWithChildrenToMerge = new LongSet();
         objectsToDelete = new HashSet<>();
     }
 
@@ -98,13 +98,13 @@ public class DataSetMerger {
                     continue;
                 }
                 if (target.hasEqualSemanticAttributes(source)) {
-                    mergedMap.put(source.getPrimitiveId(), target.getPrimitiveId());
+                    mergedMap.put(source.getUniqueId(), source.getType(), target.getPrimitiveId());
                     // copy the technical attributes from other version
                     target.setVisible(source.isVisible());
                     target.setUser(source.getUser());
                     target.setRawTimestamp(source.getRawTimestamp());
                     target.setModified(source.isModified());
-                    objectsWithChildrenToMerge.add(source.getPrimitiveId());
+                    markChildrenToMerge(source);
                     return;
                 }
             }
@@ -122,12 +122,20 @@ public class DataSetMerger {
         }
         target.mergeFrom(source);
         targetDataSet.addPrimitive(target);
-        mergedMap.put(source.getPrimitiveId(), target.getPrimitiveId());
-        objectsWithChildrenToMerge.add(source.getPrimitiveId());
+        mergedMap.put(source.getUniqueId(), source.getType(), target.getPrimitiveId());
+        markChildrenToMerge(source);
+    }
+
+    private void markChildrenToMerge(OsmPrimitive source) {
+        if (source instanceof Way) {
+            waysWithChildrenToMerge.add(source.getUniqueId());
+        } else if (source instanceof Relation) {
+            relationsWithChildrenToMerge.add(source.getUniqueId());
+        }
     }
 
     protected OsmPrimitive getMergeTarget(OsmPrimitive mergeSource) {
-        PrimitiveId targetId = mergedMap.get(mergeSource.getPrimitiveId());
+        PrimitiveId targetId = mergedMap.get(mergeSource.getUniqueId(), mergeSource.getType());
         if (targetId == null)
             return null;
         return targetDataSet.getPrimitiveById(targetId);
@@ -154,13 +162,13 @@ public class DataSetMerger {
      */
     public void fixReferences() {
         for (Way w : sourceDataSet.getWays()) {
-            if (!conflicts.hasConflictForTheir(w) && objectsWithChildrenToMerge.contains(w.getPrimitiveId())) {
+            if (!conflicts.hasConflictForTheir(w) && waysWithChildrenToMerge.contains(w.getUniqueId())) {
                 mergeNodeList(w);
                 fixIncomplete(w);
             }
         }
         for (Relation r : sourceDataSet.getRelations()) {
-            if (!conflicts.hasConflictForTheir(r) && objectsWithChildrenToMerge.contains(r.getPrimitiveId())) {
+            if (!conflicts.hasConflictForTheir(r) && relationsWithChildrenToMerge.contains(r.getUniqueId())) {
                 mergeRelationMembers(r);
             }
         }
@@ -178,7 +186,7 @@ public class DataSetMerger {
             flag = false;
             for (Iterator<OsmPrimitive> it = objectsToDelete.iterator(); it.hasNext();) {
                 OsmPrimitive target = it.next();
-                OsmPrimitive source = sourceDataSet.getPrimitiveById(target.getPrimitiveId());
+                OsmPrimitive source = sourceDataSet.getPrimitiveById(target);
                 if (source == null)
                     throw new JosmRuntimeException(
                             tr("Object of type {0} with id {1} was marked to be deleted, but it''s missing in the source dataset",
@@ -215,7 +223,7 @@ public class DataSetMerger {
             }
             for (OsmPrimitive osm: objectsToDelete) {
                 osm.setDeleted(true);
-                osm.mergeFrom(sourceDataSet.getPrimitiveById(osm.getPrimitiveId()));
+                osm.mergeFrom(sourceDataSet.getPrimitiveById(osm));
             }
         }
     }
@@ -287,7 +295,7 @@ public class DataSetMerger {
         if (target == null)
             return false;
         // found a corresponding target, remember it
-        mergedMap.put(source.getPrimitiveId(), target.getPrimitiveId());
+        mergedMap.put(source.getUniqueId(), source.getType(), target.getPrimitiveId());
 
         if (target.getVersion() > source.getVersion())
             // target.version > source.version => keep target version
@@ -332,7 +340,7 @@ public class DataSetMerger {
             // or, if source has a referrer that is not in the target dataset there is a conflict
             // If target dataset refers to the deleted primitive, conflict will be added in fixReferences method
             for (OsmPrimitive referrer: source.getReferrers()) {
-                if (targetDataSet.getPrimitiveById(referrer.getPrimitiveId()) == null) {
+                if (targetDataSet.getPrimitiveById(referrer) == null) {
                     addConflict(new Conflict<>(target, source, true));
                     target.setDeleted(false);
                     break;
@@ -371,7 +379,7 @@ public class DataSetMerger {
         }
         if (mergeFromSource) {
             target.mergeFrom(source);
-            objectsWithChildrenToMerge.add(source.getPrimitiveId());
+            markChildrenToMerge(source);
         }
         return true;
     }
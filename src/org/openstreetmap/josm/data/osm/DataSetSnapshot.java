@@ -0,0 +1,194 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * An immutable view of the contents of a {@link DataSet} at the time it was taken, see {@link DataSet#snapshot()}.
+ * <p>
+ * A snapshot is cheap to take: it shares the primitives with the dataset and only records which primitives belong
+ * to it. While the snapshot is open, the dataset saves the state of each primitive before it is first modified or
+ * removed (copy-on-write), so that the snapshot keeps returning the state the primitive had when the snapshot was
+ * taken. Reading a snapshot does not need the dataset lock, so that long-running readers like exports or autosave
+ * can work in background while the dataset is edited.
+ * <p>
+ * Snapshots must be closed once they are not needed anymore, as the dataset keeps saving the state of modified
+ * primitives for all open snapshots.
+ * @since xxx
+ */
+public final class DataSetSnapshot implements AutoCloseable {
+
+    /**
+     * Orders by id, new primitives first: {@code -1} &rarr; {@code -infinity}, then {@code +1} &rarr; {@code +infinity}
+     */
+    private static final Comparator<OsmPrimitive> BY_ID = (o1, o2) -> {
+        final long i1 = o1.getUniqueId();
+        final long i2 = o2.getUniqueId();
+        if (i1 < 0 && i2 < 0) {
+            return Long.compare(i2, i1);
+        } else {
+            return Long.compare(i1, i2);
+        }
+    };
+
+    private final DataSet dataSet;
+    private final List<Node> nodes;
+    private final List<Way> ways;
+    private final List<Relation> relations;
+    private final List<DataSource> dataSources;
+    private final String version;
+    private final DownloadPolicy downloadPolicy;
+    private final UploadPolicy uploadPolicy;
+    private final boolean locked;
+    /** The saved state of the primitives modified since the snapshot was taken, by identity as ids can change */
+    private final Map<OsmPrimitive, PrimitiveData> preserved = new IdentityHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new snapshot. Must be called with the read lock of the dataset held.
+     * @param dataSet the dataset
+     */
+    DataSetSnapshot(DataSet dataSet) {
+        this.dataSet = dataSet;
+        this.nodes = sortedById(dataSet.getNodes());
+        this.ways = sortedById(dataSet.getWays());
+        this.relations = sortedById(dataSet.getRelations());
+        this.dataSources = new ArrayList<>(dataSet.getDataSources());
+        this.version = dataSet.getVersion();
+        this.downloadPolicy = dataSet.getDownloadPolicy();
+        this.uploadPolicy = dataSet.getUploadPolicy();
+        this.locked = dataSet.isLocked();
+    }
+
+    private static <T extends OsmPrimitive> List<T> sortedById(Collection<T> primitives) {
+        List<T> result = new ArrayList<>(primitives);
+        result.sort(BY_ID);
+        return result;
+    }
+
+    /**
+     * Saves the current state of the given primitive, unless it is already saved. Called by the dataset before
+     * the primitive is modified.
+     * @param primitive the primitive
+     */
+    void preserve(OsmPrimitive primitive) {
+        synchronized (preserved) {
+            if (!closed) {
+                preserved.computeIfAbsent(primitive, OsmPrimitive::save);
+            }
+        }
+    }
+
+    /**
+     * Returns the state of the given primitive at the time the snapshot was taken.
+     * @param primitive the primitive
+     * @return the state of the primitive
+     */
+    private PrimitiveData getState(OsmPrimitive primitive) {
+        if (closed)
+            throw new IllegalStateException("Snapshot is closed");
+        // the lock makes sure that the primitive is not modified while being saved
+        synchronized (preserved) {
+            PrimitiveData data = preserved.get(primitive);
+            return data != null ? data : primitive.save();
+        }
+    }
+
+    /**
+     * Returns the nodes of the snapshot, ordered by id with the new nodes first.
+     * The state of each node is saved again for each call of {@link List#get}, so the list should be read only once.
+     * @return the nodes, as they were when the snapshot was taken
+     * @throws IllegalStateException when reading the list after the snapshot is closed
+     */
+    public List<NodeData> getNodes() {
+        return Utils.transform(nodes, n -> (NodeData) getState(n));
+    }
+
+    /**
+     * Returns the ways of the snapshot, ordered by id with the new ways first.
+     * The state of each way is saved again for each call of {@link List#get}, so the list should be read only once.
+     * @return the ways, as they were when the snapshot was taken
+     * @throws IllegalStateException when reading the list after the snapshot is closed
+     */
+    public List<WayData> getWays() {
+        return Utils.transform(ways, w -> (WayData) getState(w));
+    }
+
+    /**
+     * Returns the relations of the snapshot, ordered by id with the new relations first.
+     * The state of each relation is saved again for each call of {@link List#get}, so the list should be read only once.
+     * @return the relations, as they were when the snapshot was taken
+     * @throws IllegalStateException when reading the list after the snapshot is closed
+     */
+    public List<RelationData> getRelations() {
+        return Utils.transform(relations, r -> (RelationData) getState(r));
+    }
+
+    /**
+     * Returns the data sources of the dataset at the time the snapshot was taken.
+     * @return the data sources
+     * @see DataSet#getDataSources()
+     */
+    public List<DataSource> getDataSources() {
+        return Collections.unmodifiableList(dataSources);
+    }
+
+    /**
+     * Returns the API version of the dataset at the time the snapshot was taken.
+     * @return the API version, can be {@code null}
+     * @see DataSet#getVersion()
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the download policy of the dataset at the time the snapshot was taken.
+     * @return the download policy
+     * @see DataSet#getDownloadPolicy()
+     */
+    public DownloadPolicy getDownloadPolicy() {
+        return downloadPolicy;
+    }
+
+    /**
+     * Returns the upload policy of the dataset at the time the snapshot was taken.
+     * @return the upload policy
+     * @see DataSet#getUploadPolicy()
+     */
+    public UploadPolicy getUploadPolicy() {
+        return uploadPolicy;
+    }
+
+    /**
+     * Determines if the dataset was read-only at the time the snapshot was taken.
+     * @return {@code true} if the dataset was read-only
+     * @see DataSet#isLocked()
+     */
+    public boolean isLocked() {
+        return locked;
+    }
+
+    /**
+     * Closes this snapshot. The dataset stops saving the state of modified primitives for it.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            dataSet.removeSnapshot(this);
+            synchronized (preserved) {
+                preserved.clear();
+            }
+        }
+    }
+}
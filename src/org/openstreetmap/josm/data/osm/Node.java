@@ -2,10 +2,10 @@
 package org.openstreetmap.josm.data.osm;
 
 import java.awt.geom.Area;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.coor.EastNorth;
@@ -363,7 +363,9 @@ public final class Node extends OsmPrimitive implements INode {
      * @since 12031
      */
     public List<Way> getParentWays() {
-        return referrers(Way.class).collect(Collectors.toList());
+        List<Way> result = new ArrayList<>();
+        forEachReferrer(Way.class, result::add);
+        return result;
     }
 
     /**
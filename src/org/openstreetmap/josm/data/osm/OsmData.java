@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import org.openstreetmap.josm.data.Data;
@@ -72,6 +73,16 @@ public interface OsmData<O extends IPrimitive, N extends INode, W extends IWay<N
      */
     List<N> searchNodes(BBox bbox);
 
+    /**
+     * Visits the nodes in the given bounding box, without allocating a result list.
+     * @param bbox the bounding box
+     * @param visitor called once for each node in the given bbox. It must not modify the data
+     * @since xxx
+     */
+    default void searchNodes(BBox bbox, Consumer<? super N> visitor) {
+        searchNodes(bbox).forEach(visitor);
+    }
+
     /**
      * Determines if the given node can be retrieved in the data set through its bounding box. Useful for dataset consistency test.
      * @param n The node to search
@@ -86,6 +97,16 @@ public interface OsmData<O extends IPrimitive, N extends INode, W extends IWay<N
      */
     List<W> searchWays(BBox bbox);
 
+    /**
+     * Visits the ways in the given bounding box, without allocating a result list.
+     * @param bbox the bounding box
+     * @param visitor called once for each way in the given bbox. It must not modify the data
+     * @since xxx
+     */
+    default void searchWays(BBox bbox, Consumer<? super W> visitor) {
+        searchWays(bbox).forEach(visitor);
+    }
+
     /**
      * Determines if the given way can be retrieved in the data set through its bounding box. Useful for dataset consistency test.
      * @param w The way to search
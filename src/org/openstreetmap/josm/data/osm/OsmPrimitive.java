@@ -4,6 +4,7 @@ package org.openstreetmap.josm.data.osm;
 import static org.openstreetmap.josm.tools.I18n.tr;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -14,6 +15,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -182,6 +184,9 @@ public abstract class OsmPrimitive extends AbstractPrimitive implements Template
     void setDataset(DataSet dataSet) {
         if (this.dataSet != null && dataSet != null && this.dataSet != dataSet)
             throw new DataIntegrityProblemException("Primitive cannot be included in more than one Dataset");
+        if (this.dataSet != null && dataSet == null) {
+            this.dataSet.preserveRemovedForSnapshots(this);
+        }
         this.dataSet = dataSet;
     }
 
@@ -209,6 +214,7 @@ public abstract class OsmPrimitive extends AbstractPrimitive implements Template
     protected boolean writeLock() {
         if (dataSet != null) {
             dataSet.beginUpdate();
+            dataSet.preserveForSnapshots(this);
             return true;
         } else
             return false;
@@ -728,10 +734,73 @@ public abstract class OsmPrimitive extends AbstractPrimitive implements Template
         return referrers(false, filter);
     }
 
+    /**
+     * Calls {@code visitor} for all primitives in the current dataset that reference this primitive.
+     * <p>
+     * Unlike {@link #referrers(Class)} and {@link #getReferrers()}, this method does not allocate.
+     * @param filter restrict primitives to subclasses
+     * @param visitor called once for each referrer
+     * @param <T> type of primitives
+     * @since xxx
+     */
+    public final <T extends OsmPrimitive> void forEachReferrer(Class<T> filter, Consumer<? super T> visitor) {
+        checkDataset();
+        Object refs = referrers;
+        if (refs instanceof OsmPrimitive) {
+            OsmPrimitive ref = (OsmPrimitive) refs;
+            if (ref.dataSet == dataSet && filter.isInstance(ref)) {
+                visitor.accept(filter.cast(ref));
+            }
+        } else if (refs != null) {
+            for (OsmPrimitive ref : (OsmPrimitive[]) refs) {
+                if (ref.dataSet == dataSet && filter.isInstance(ref)) {
+                    visitor.accept(filter.cast(ref));
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the first primitive in the current dataset that references this primitive and matches the predicate.
+     * <p>
+     * Unlike {@link #referrers(Class)} and {@link #getReferrers()}, this method does not allocate.
+     * @param filter restrict primitives to subclasses
+     * @param predicate the predicate to match
+     * @param <T> type of primitives
+     * @return the first matching referrer, or {@code null}
+     * @since xxx
+     */
+    public final <T extends OsmPrimitive> T findReferrer(Class<T> filter, Predicate<? super T> predicate) {
+        checkDataset();
+        Object refs = referrers;
+        if (refs instanceof OsmPrimitive) {
+            return matchReferrer((OsmPrimitive) refs, filter, predicate);
+        } else if (refs != null) {
+            for (OsmPrimitive ref : (OsmPrimitive[]) refs) {
+                T match = matchReferrer(ref, filter, predicate);
+                if (match != null)
+                    return match;
+            }
+        }
+        return null;
+    }
+
+    private <T extends OsmPrimitive> T matchReferrer(OsmPrimitive ref, Class<T> filter, Predicate<? super T> predicate) {
+        if (ref.dataSet == dataSet && filter.isInstance(ref)) {
+            T t = filter.cast(ref);
+            if (predicate.test(t))
+                return t;
+        }
+        return null;
+    }
+
     @Override
     public final List<OsmPrimitive> getReferrers(boolean allowWithoutDataset) {
-        return referrers(allowWithoutDataset, OsmPrimitive.class)
-                .collect(Collectors.toList());
+        List<OsmPrimitive> result = new ArrayList<>();
+        if (dataSet != null || !allowWithoutDataset) {
+            forEachReferrer(OsmPrimitive.class, result::add);
+        }
+        return result;
     }
 
     @Override
@@ -0,0 +1,513 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import org.openstreetmap.josm.data.IQuadBucketType;
+
+/**
+ * A spatial index based on a packed Hilbert R-tree, an alternative to {@link QuadBuckets}.
+ * <p>
+ * The objects are sorted along a Hilbert curve (by the center of their bbox) and packed into a static tree
+ * of fixed fan-out. All node bboxes are kept in a single flat {@code double[]} array, so that the tree consists
+ * of a handful of arrays instead of one object per bucket. Objects added after the tree has been built go into a small
+ * append-only buffer which is scanned linearly; removed objects are only cleared from their slot. The tree is rebuilt
+ * when the buffer is full or too many slots have been cleared. Adding many objects at once with {@link #addAll}
+ * builds the tree only once. A {@link DataSet} uses it when {@link DataSet#PACKED_RTREE_INDEX} is enabled.
+ * <p>
+ * Modifications must be done by one thread at a time (e.g. while holding the {@link DataSet} write lock).
+ * Searches never lock and may run concurrently to modifications: they work on the tree that was current when
+ * the search started, and objects added or removed during the search may or may not be returned.
+ * @param <T> type of object extending {@link IQuadBucketType}
+ * @since xxx
+ */
+public class PackedRTree<T extends IQuadBucketType> extends AbstractCollection<T> implements SpatialIndex<T> {
+    private static final int NODE_SIZE = 16;
+    private static final int MIN_BUFFER = 256;
+    private static final int MAX_BUFFER = 8192;
+    private static final int HILBERT_MAX = (1 << 16) - 1;
+
+    /**
+     * One generation of the tree. Apart from cleared slots and the buffer, it is immutable once published.
+     */
+    private static final class Tree {
+        /** leaf slots, in Hilbert order; {@code null} once removed */
+        final Object[] items;
+        /** minLon, minLat, maxLon, maxLat of each node, leaves first */
+        final double[] boxes;
+        /** index of the first child of each inner node */
+        final int[] children;
+        /** end (exclusive) of each level in the node arrays, leaves first */
+        final int[] levelBounds;
+        final Object[] buffer;
+        final double[] bufferBoxes;
+        volatile int bufferSize;
+
+        Tree(Object[] items, double[] boxes, int[] children, int[] levelBounds, int bufferCapacity) {
+            this.items = items;
+            this.boxes = boxes;
+            this.children = children;
+            this.levelBounds = levelBounds;
+            this.buffer = new Object[bufferCapacity];
+            this.bufferBoxes = new double[4 * bufferCapacity];
+        }
+    }
+
+    private volatile Tree tree;
+    private Collection<T> invalidBBoxPrimitives;
+    private int size;
+    private int clearedSlots;
+
+    /**
+     * Constructs a new, empty {@code PackedRTree}.
+     */
+    public PackedRTree() {
+        clear();
+    }
+
+    @Override
+    public final void clear() {
+        tree = build(new Object[0], new double[0], 0);
+        invalidBBoxPrimitives = new LinkedHashSet<>();
+        size = 0;
+        clearedSlots = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(T o) {
+        BBox bbox = o.getBBox();
+        if (!bbox.isValid()) {
+            invalidBBoxPrimitives.add(o);
+        } else {
+            Tree t = tree;
+            int pos = t.bufferSize;
+            if (pos == t.buffer.length) {
+                rebuild(Collections.singletonList(o));
+            } else {
+                t.buffer[pos] = o;
+                setBox(t.bufferBoxes, pos, bbox);
+                t.bufferSize = pos + 1; // publish to concurrent searches
+            }
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the objects do not fit into the insertion buffer, the tree is rebuilt once with all of them.
+     */
+    @Override
+    public boolean addAll(Collection<? extends T> objects) {
+        Tree t = tree;
+        if (objects.size() <= t.buffer.length - t.bufferSize) {
+            objects.forEach(this::add);
+        } else {
+            List<T> valid = new ArrayList<>(objects.size());
+            for (T o : objects) {
+                if (o.getBBox().isValid()) {
+                    valid.add(o);
+                } else {
+                    invalidBBoxPrimitives.add(o);
+                }
+            }
+            rebuild(valid);
+            size += objects.size();
+        }
+        return !objects.isEmpty();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        @SuppressWarnings("unchecked")
+        BBox bbox = ((T) o).getBBox();
+        if (!bbox.isValid()) {
+            if (invalidBBoxPrimitives.remove(o)) {
+                size--;
+                return true;
+            }
+            return false;
+        }
+        Tree t = tree;
+        int pos = find(t, o, bbox);
+        if (pos >= 0) {
+            t.items[pos] = null;
+        } else {
+            pos = findInBuffer(t, o, bbox);
+            if (pos < 0)
+                return false;
+            t.buffer[pos] = null;
+        }
+        size--;
+        clearedSlots++;
+        if (clearedSlots > Math.max(MIN_BUFFER, (size - invalidBBoxPrimitives.size()) / 4)) {
+            rebuild(null);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        @SuppressWarnings("unchecked")
+        BBox bbox = ((T) o).getBBox();
+        if (!bbox.isValid()) {
+            return invalidBBoxPrimitives.contains(o);
+        }
+        Tree t = tree;
+        return find(t, o, bbox) >= 0 || findInBuffer(t, o, bbox) >= 0;
+    }
+
+    @Override
+    public void search(BBox searchBbox, Consumer<? super T> visitor) {
+        if (searchBbox == null || !searchBbox.isValid()) {
+            return;
+        }
+        double minLon = searchBbox.getMinLon();
+        double minLat = searchBbox.getMinLat();
+        double maxLon = searchBbox.getMaxLon();
+        double maxLat = searchBbox.getMaxLat();
+        Tree t = tree;
+        int root = t.boxes.length / 4 - 1;
+        if (root > 0 && intersects(t.boxes, root, minLon, minLat, maxLon, maxLat)) {
+            search(t, root, t.levelBounds.length - 1, minLon, minLat, maxLon, maxLat, visitor);
+        }
+        int bufferSize = t.bufferSize;
+        for (int i = 0; i < bufferSize; i++) {
+            Object o = t.buffer[i];
+            if (o != null && intersects(t.bufferBoxes, i, minLon, minLat, maxLon, maxLat)) {
+                visitor.accept(cast(o));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object o) {
+        return (T) o;
+    }
+
+    private static <T> void search(Tree t, int node, int level,
+            double minLon, double minLat, double maxLon, double maxLat, Consumer<? super T> visitor) {
+        int start = t.children[node];
+        int end = Math.min(start + NODE_SIZE, t.levelBounds[level - 1]);
+        for (int pos = start; pos < end; pos++) {
+            if (intersects(t.boxes, pos, minLon, minLat, maxLon, maxLat)) {
+                if (level == 1) {
+                    Object o = t.items[pos];
+                    if (o != null) {
+                        visitor.accept(PackedRTree.<T>cast(o));
+                    }
+                } else {
+                    search(t, pos, level - 1, minLon, minLat, maxLon, maxLat, visitor);
+                }
+            }
+        }
+    }
+
+    private static boolean intersects(double[] boxes, int pos, double minLon, double minLat, double maxLon, double maxLat) {
+        int i = 4 * pos;
+        return boxes[i] <= maxLon && boxes[i + 2] >= minLon && boxes[i + 1] <= maxLat && boxes[i + 3] >= minLat;
+    }
+
+    private static boolean sameBox(double[] boxes, int pos, BBox bbox) {
+        int i = 4 * pos;
+        return boxes[i] == bbox.getMinLon() && boxes[i + 1] == bbox.getMinLat()
+                && boxes[i + 2] == bbox.getMaxLon() && boxes[i + 3] == bbox.getMaxLat();
+    }
+
+    private static void setBox(double[] boxes, int pos, BBox bbox) {
+        int i = 4 * pos;
+        boxes[i] = bbox.getMinLon();
+        boxes[i + 1] = bbox.getMinLat();
+        boxes[i + 2] = bbox.getMaxLon();
+        boxes[i + 3] = bbox.getMaxLat();
+    }
+
+    /**
+     * Finds the leaf slot of the given object.
+     * @return the leaf slot, or -1
+     */
+    private static int find(Tree t, Object o, BBox bbox) {
+        int root = t.boxes.length / 4 - 1;
+        if (root <= 0)
+            return -1;
+        return find(t, root, t.levelBounds.length - 1, o, bbox);
+    }
+
+    private static int find(Tree t, int node, int level, Object o, BBox bbox) {
+        int start = t.children[node];
+        int end = Math.min(start + NODE_SIZE, t.levelBounds[level - 1]);
+        double minLon = bbox.getMinLon();
+        double minLat = bbox.getMinLat();
+        double maxLon = bbox.getMaxLon();
+        double maxLat = bbox.getMaxLat();
+        for (int pos = start; pos < end; pos++) {
+            if (level == 1) {
+                if (o.equals(t.items[pos]) && sameBox(t.boxes, pos, bbox))
+                    return pos;
+            } else if (contains(t.boxes, pos, minLon, minLat, maxLon, maxLat)) {
+                int found = find(t, pos, level - 1, o, bbox);
+                if (found >= 0)
+                    return found;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean contains(double[] boxes, int pos, double minLon, double minLat, double maxLon, double maxLat) {
+        int i = 4 * pos;
+        return boxes[i] <= minLon && boxes[i + 2] >= maxLon && boxes[i + 1] <= minLat && boxes[i + 3] >= maxLat;
+    }
+
+    private static int findInBuffer(Tree t, Object o, BBox bbox) {
+        int bufferSize = t.bufferSize;
+        for (int i = 0; i < bufferSize; i++) {
+            if (o.equals(t.buffer[i]) && sameBox(t.bufferBoxes, i, bbox))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Rebuilds the tree from all objects currently in the tree and the given additional objects.
+     * @param additional objects with a valid bbox to add, can be {@code null}
+     */
+    private void rebuild(Collection<? extends T> additional) {
+        Tree t = tree;
+        int bufferSize = t.bufferSize;
+        int capacity = t.items.length + bufferSize + (additional != null ? additional.size() : 0);
+        Object[] items = new Object[capacity];
+        double[] boxes = new double[4 * capacity];
+        int n = 0;
+        for (int pos = 0; pos < t.items.length; pos++) {
+            if (t.items[pos] != null) {
+                items[n] = t.items[pos];
+                System.arraycopy(t.boxes, 4 * pos, boxes, 4 * n, 4);
+                n++;
+            }
+        }
+        for (int i = 0; i < bufferSize; i++) {
+            if (t.buffer[i] != null) {
+                items[n] = t.buffer[i];
+                System.arraycopy(t.bufferBoxes, 4 * i, boxes, 4 * n, 4);
+                n++;
+            }
+        }
+        if (additional != null) {
+            for (T o : additional) {
+                items[n] = o;
+                setBox(boxes, n, o.getBBox());
+                n++;
+            }
+        }
+        tree = build(items, boxes, n);
+        clearedSlots = 0;
+    }
+
+    /**
+     * Builds a packed tree.
+     * @param items the objects, with a valid bbox
+     * @param itemBoxes the bboxes of the objects, 4 values per object
+     * @param n the number of objects
+     * @return the tree
+     */
+    private static Tree build(Object[] items, double[] itemBoxes, int n) {
+        int bufferCapacity = Math.min(MAX_BUFFER, Math.max(MIN_BUFFER, n / 8));
+        if (n == 0) {
+            return new Tree(new Object[0], new double[0], new int[0], new int[] {0}, bufferCapacity);
+        }
+
+        // compute the number of nodes per level, up to a single root
+        int[] levelBounds = new int[32];
+        int levels = 0;
+        int count = n;
+        int numNodes = n;
+        levelBounds[levels++] = numNodes;
+        do {
+            count = (count + NODE_SIZE - 1) / NODE_SIZE;
+            numNodes += count;
+            levelBounds[levels++] = numNodes;
+        } while (count > 1);
+
+        // sort the objects along the Hilbert curve, the object index is kept in the lower bits
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            double lon = (itemBoxes[4 * i] + itemBoxes[4 * i + 2]) / 2;
+            double lat = (itemBoxes[4 * i + 1] + itemBoxes[4 * i + 3]) / 2;
+            int x = (int) Math.max(0, Math.min(HILBERT_MAX, HILBERT_MAX * (lon + 180) / 360));
+            int y = (int) Math.max(0, Math.min(HILBERT_MAX, HILBERT_MAX * (lat + 90) / 180));
+            long h = (hilbert(x, y) & 0xffffffffL) - 0x80000000L;
+            keys[i] = (h << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        Object[] leaves = new Object[n];
+        double[] boxes = new double[4 * numNodes];
+        int[] children = new int[numNodes];
+        for (int pos = 0; pos < n; pos++) {
+            int i = (int) keys[pos];
+            leaves[pos] = items[i];
+            System.arraycopy(itemBoxes, 4 * i, boxes, 4 * pos, 4);
+        }
+
+        // build the inner levels bottom-up, each node covering NODE_SIZE consecutive nodes of the level below
+        int pos = n;
+        for (int level = 1; level < levels; level++) {
+            int end = levelBounds[level - 1];
+            for (int child = level == 1 ? 0 : levelBounds[level - 2]; child < end; child += NODE_SIZE) {
+                double minLon = Double.POSITIVE_INFINITY;
+                double minLat = Double.POSITIVE_INFINITY;
+                double maxLon = Double.NEGATIVE_INFINITY;
+                double maxLat = Double.NEGATIVE_INFINITY;
+                for (int c = child; c < Math.min(child + NODE_SIZE, end); c++) {
+                    minLon = Math.min(minLon, boxes[4 * c]);
+                    minLat = Math.min(minLat, boxes[4 * c + 1]);
+                    maxLon = Math.max(maxLon, boxes[4 * c + 2]);
+                    maxLat = Math.max(maxLat, boxes[4 * c + 3]);
+                }
+                boxes[4 * pos] = minLon;
+                boxes[4 * pos + 1] = minLat;
+                boxes[4 * pos + 2] = maxLon;
+                boxes[4 * pos + 3] = maxLat;
+                children[pos] = child;
+                pos++;
+            }
+        }
+        return new Tree(leaves, boxes, children, Arrays.copyOf(levelBounds, levels), bufferCapacity);
+    }
+
+    /**
+     * Computes the position of a point on a Hilbert curve of order 16.
+     * Based on the public domain "Fast Hilbert curve" algorithm by Rawrunprotected.
+     * @param x the x coordinate, between 0 and 65535
+     * @param y the y coordinate, between 0 and 65535
+     * @return the distance along the curve, as unsigned 32 bit value
+     */
+    static int hilbert(int x, int y) {
+        int a = x ^ y;
+        int b = 0xFFFF ^ a;
+        int c = 0xFFFF ^ (x | y);
+        int d = x & (y ^ 0xFFFF);
+
+        int aa = a | (b >> 1);
+        int bb = (a >> 1) ^ a;
+        int cc = ((c >> 1) ^ (b & (d >> 1))) ^ c;
+        int dd = ((a & (c >> 1)) ^ (d >> 1)) ^ d;
+
+        a = aa; b = bb; c = cc; d = dd;
+        aa = (a & (a >> 2)) ^ (b & (b >> 2));
+        bb = (a & (b >> 2)) ^ (b & ((a ^ b) >> 2));
+        cc ^= (a & (c >> 2)) ^ (b & (d >> 2));
+        dd ^= (b & (c >> 2)) ^ ((a ^ b) & (d >> 2));
+
+        a = aa; b = bb; c = cc; d = dd;
+        aa = (a & (a >> 4)) ^ (b & (b >> 4));
+        bb = (a & (b >> 4)) ^ (b & ((a ^ b) >> 4));
+        cc ^= (a & (c >> 4)) ^ (b & (d >> 4));
+        dd ^= (b & (c >> 4)) ^ ((a ^ b) & (d >> 4));
+
+        a = aa; b = bb; c = cc; d = dd;
+        cc ^= (a & (c >> 8)) ^ (b & (d >> 8));
+        dd ^= (b & (c >> 8)) ^ ((a ^ b) & (d >> 8));
+
+        a = cc ^ (cc >> 1);
+        b = dd ^ (dd >> 1);
+
+        int i0 = x ^ y;
+        int i1 = b | (0xFFFF ^ (i0 | a));
+
+        i0 = (i0 | (i0 << 8)) & 0x00FF00FF;
+        i0 = (i0 | (i0 << 4)) & 0x0F0F0F0F;
+        i0 = (i0 | (i0 << 2)) & 0x33333333;
+        i0 = (i0 | (i0 << 1)) & 0x55555555;
+
+        i1 = (i1 | (i1 << 8)) & 0x00FF00FF;
+        i1 = (i1 | (i1 << 4)) & 0x0F0F0F0F;
+        i1 = (i1 | (i1 << 2)) & 0x33333333;
+        i1 = (i1 | (i1 << 1)) & 0x55555555;
+
+        return (i1 << 1) | i0;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new PackedRTreeIterator(tree);
+    }
+
+    private final class PackedRTreeIterator implements Iterator<T> {
+        private final Tree t;
+        private final Iterator<T> invalidBBoxIterator = invalidBBoxPrimitives.iterator();
+        private int pos = -1;
+        private int bufferPos = -1;
+        private T last;
+        private boolean lastFromInvalid;
+
+        PackedRTreeIterator(Tree t) {
+            this.t = t;
+            advance();
+        }
+
+        private void advance() {
+            do {
+                pos++;
+            } while (pos < t.items.length && t.items[pos] == null);
+            if (pos >= t.items.length) {
+                int bufferSize = t.bufferSize;
+                do {
+                    bufferPos++;
+                } while (bufferPos < bufferSize && t.buffer[bufferPos] == null);
+            }
+        }
+
+        private boolean hasNextInTree() {
+            return pos < t.items.length || bufferPos < t.bufferSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNextInTree() || invalidBBoxIterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (hasNextInTree()) {
+                last = cast(pos < t.items.length ? t.items[pos] : t.buffer[bufferPos]);
+                lastFromInvalid = false;
+                advance();
+            } else if (invalidBBoxIterator.hasNext()) {
+                last = invalidBBoxIterator.next();
+                lastFromInvalid = true;
+            } else {
+                throw new NoSuchElementException();
+            }
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null)
+                throw new IllegalStateException();
+            if (lastFromInvalid) {
+                invalidBBoxIterator.remove();
+                size--;
+            } else {
+                PackedRTree.this.remove(last);
+            }
+            last = null;
+        }
+    }
+}
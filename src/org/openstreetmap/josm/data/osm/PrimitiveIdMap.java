@@ -0,0 +1,172 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.openstreetmap.josm.tools.collections.LongObjectMap;
+
+/**
+ * A map keyed by primitive ids, that can be queried by unique id and type without creating a
+ * {@link SimplePrimitiveId}. Keys are compared by unique id and type only, so that a primitive can be used to look up
+ * the value stored for its id.
+ * <p>
+ * Keys of every {@link OsmPrimitiveType} are supported. This map does not support {@code null} values.
+ *
+ * @param <V> the type of values
+ * @since xxx
+ */
+public class PrimitiveIdMap<V> extends AbstractMap<PrimitiveId, V> {
+
+    private static final OsmPrimitiveType[] TYPES = OsmPrimitiveType.values();
+
+    private final LongObjectMap<V> nodes = new LongObjectMap<>();
+    private final LongObjectMap<V> ways = new LongObjectMap<>();
+    private final LongObjectMap<V> relations = new LongObjectMap<>();
+    /** maps of the other types, created when needed */
+    private final Map<OsmPrimitiveType, LongObjectMap<V>> others = new EnumMap<>(OsmPrimitiveType.class);
+
+    /**
+     * Returns the map of unique ids to values for the given type.
+     * @param type the primitive type
+     * @return the map of unique ids to values for the given type, or {@code null} if no value was ever stored for
+     * another type than node, way or relation
+     */
+    public LongObjectMap<V> getMap(OsmPrimitiveType type) {
+        switch (type) {
+        case NODE: return nodes;
+        case WAY: return ways;
+        case RELATION: return relations;
+        default: return others.get(type);
+        }
+    }
+
+    private LongObjectMap<V> getOrCreateMap(OsmPrimitiveType type) {
+        LongObjectMap<V> map = getMap(type);
+        return map != null ? map : others.computeIfAbsent(type, t -> new LongObjectMap<>());
+    }
+
+    /**
+     * Returns the value for the given unique id and type.
+     * @param uniqueId the unique id
+     * @param type the primitive type
+     * @return the value, or {@code null}
+     */
+    public V get(long uniqueId, OsmPrimitiveType type) {
+        LongObjectMap<V> map = getMap(type);
+        return map != null ? map.get(uniqueId) : null;
+    }
+
+    /**
+     * Maps the given unique id and type to the given value.
+     * @param uniqueId the unique id
+     * @param type the primitive type
+     * @param value the value, must not be {@code null}
+     * @return the previous value, or {@code null}
+     */
+    public V put(long uniqueId, OsmPrimitiveType type, V value) {
+        return getOrCreateMap(type).put(uniqueId, value);
+    }
+
+    @Override
+    public V get(Object key) {
+        if (!(key instanceof PrimitiveId))
+            return null;
+        PrimitiveId id = (PrimitiveId) key;
+        return get(id.getUniqueId(), id.getType());
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(PrimitiveId key, V value) {
+        return put(key.getUniqueId(), key.getType(), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!(key instanceof PrimitiveId))
+            return null;
+        PrimitiveId id = (PrimitiveId) key;
+        LongObjectMap<V> map = getMap(id.getType());
+        return map != null ? map.remove(id.getUniqueId()) : null;
+    }
+
+    @Override
+    public int size() {
+        int size = nodes.size() + ways.size() + relations.size();
+        for (LongObjectMap<V> map : others.values()) {
+            size += map.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        nodes.clear();
+        ways.clear();
+        relations.clear();
+        others.clear();
+    }
+
+    /**
+     * Returns a view of the entries. The keys of the entries are new {@link SimplePrimitiveId}s.
+     * The values cannot be changed through the entries.
+     */
+    @Override
+    public Set<Map.Entry<PrimitiveId, V>> entrySet() {
+        return new AbstractSet<Map.Entry<PrimitiveId, V>>() {
+            @Override
+            public Iterator<Map.Entry<PrimitiveId, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return PrimitiveIdMap.this.size();
+            }
+        };
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<PrimitiveId, V>> {
+        private int type = -1;
+        private Iterator<LongObjectMap.Entry<V>> it;
+        private Iterator<LongObjectMap.Entry<V>> last;
+
+        @Override
+        public boolean hasNext() {
+            while (it == null || !it.hasNext()) {
+                if (type + 1 >= TYPES.length)
+                    return false;
+                LongObjectMap<V> map = getMap(TYPES[++type]);
+                it = map != null ? map.entries().iterator() : null;
+            }
+            return true;
+        }
+
+        @Override
+        public Map.Entry<PrimitiveId, V> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            last = it;
+            LongObjectMap.Entry<V> e = it.next();
+            return new SimpleImmutableEntry<>(new SimplePrimitiveId(e.getKey(), TYPES[type]), e.getValue());
+        }
+
+        @Override
+        public void remove() {
+            if (last == null)
+                throw new IllegalStateException();
+            last.remove();
+            last = null;
+        }
+    }
+}
@@ -12,6 +12,9 @@ import org.openstreetmap.josm.tools.JosmRuntimeException;
 /**
  * Stores primitives in quad buckets. This can be used to hold a collection of primitives, e.g. in a {@link DataSet}
  *
+ * Nodes and ways are indexed by {@link QuadBuckets} by default; another {@link SpatialIndex} implementation
+ * such as {@link PackedRTree} can be given to the constructor.
+ *
  * This class does not do any synchronization.
  * @author Michael Zangl
  * @param <N> type representing OSM nodes
@@ -24,20 +27,40 @@ public class QuadBucketPrimitiveStore<N extends INode, W extends IWay<N>, R exte
      * All nodes goes here, even when included in other data (ways etc). This enables the instant
      * conversion of the whole DataSet by iterating over this data structure.
      */
-    private final QuadBuckets<N> nodes = new QuadBuckets<>();
+    private final SpatialIndex<N> nodes;
 
     /**
      * All ways (Streets etc.) in the DataSet.
      *
      * The way nodes are stored only in the way list.
      */
-    private final QuadBuckets<W> ways = new QuadBuckets<>();
+    private final SpatialIndex<W> ways;
 
     /**
      * All relations/relationships
      */
     private final Collection<R> relations = new ArrayList<>();
 
+    /**
+     * Constructs a new {@code QuadBucketPrimitiveStore} using {@link QuadBuckets} for nodes and ways.
+     */
+    public QuadBucketPrimitiveStore() {
+        this(new QuadBuckets<>(), new QuadBuckets<>());
+    }
+
+    /**
+     * Constructs a new {@code QuadBucketPrimitiveStore} using the given spatial indexes.
+     * @param nodeIndex the empty spatial index for nodes
+     * @param wayIndex the empty spatial index for ways
+     * @since xxx
+     */
+    public QuadBucketPrimitiveStore(SpatialIndex<N> nodeIndex, SpatialIndex<W> wayIndex) {
+        if (!nodeIndex.isEmpty() || !wayIndex.isEmpty())
+            throw new IllegalArgumentException("Spatial indexes must be empty");
+        this.nodes = nodeIndex;
+        this.ways = wayIndex;
+    }
+
     /**
      * Searches for nodes in the given bounding box.
      * @param bbox the bounding box
@@ -47,6 +70,16 @@ public class QuadBucketPrimitiveStore<N extends INode, W extends IWay<N>, R exte
         return nodes.search(bbox);
     }
 
+    /**
+     * Visits the nodes in the given bounding box, without allocating a result list.
+     * @param bbox the bounding box
+     * @param visitor called once for each node in the given bbox
+     * @since xxx
+     */
+    public void searchNodes(BBox bbox, Consumer<? super N> visitor) {
+        nodes.search(bbox, visitor);
+    }
+
     /**
      * Determines if the given node can be retrieved in the store through its bounding box. Useful for dataset consistency test.
      * @param n The node to search
@@ -65,6 +98,16 @@ public class QuadBucketPrimitiveStore<N extends INode, W extends IWay<N>, R exte
         return ways.search(bbox);
     }
 
+    /**
+     * Visits the ways in the given bounding box, without allocating a result list.
+     * @param bbox the bounding box
+     * @param visitor called once for each way in the given bbox
+     * @since xxx
+     */
+    public void searchWays(BBox bbox, Consumer<? super W> visitor) {
+        ways.search(bbox, visitor);
+    }
+
     /**
      * Determines if the given way can be retrieved in the store through its bounding box. Useful for dataset consistency test.
      * @param w The way to search
@@ -115,6 +158,32 @@ public class QuadBucketPrimitiveStore<N extends INode, W extends IWay<N>, R exte
         }
     }
 
+    /**
+     * Adds many primitives to this quad bucket store at once.
+     * This is faster than calling {@link #addPrimitive(IPrimitive)} for each of them, in particular when the store is empty.
+     *
+     * @param primitives the primitives.
+     * @since xxx
+     */
+    @SuppressWarnings("unchecked")
+    public void addPrimitives(Collection<? extends IPrimitive> primitives) {
+        List<N> newNodes = new ArrayList<>();
+        List<W> newWays = new ArrayList<>();
+        for (IPrimitive primitive : primitives) {
+            if (primitive instanceof INode) {
+                newNodes.add((N) primitive);
+            } else if (primitive instanceof IWay) {
+                newWays.add((W) primitive);
+            } else if (primitive instanceof IRelation) {
+                relations.add((R) primitive);
+            } else {
+                throw new JosmRuntimeException("failed to add primitive: "+primitive);
+            }
+        }
+        nodes.addAll(newNodes);
+        ways.addAll(newWays);
+    }
+
     protected void removePrimitive(IPrimitive primitive) {
         boolean success = false;
         if (primitive instanceof INode) {
@@ -4,10 +4,12 @@ package org.openstreetmap.josm.data.osm;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
 import org.openstreetmap.josm.data.IQuadBucketType;
@@ -21,11 +23,11 @@ import org.openstreetmap.josm.tools.Utils;
  * Note: bbox of primitives added to QuadBuckets has to stay the same. In case of coordinate change, primitive must
  * be removed and re-added.
  *
- * This class is (no longer) thread safe.
+ * This class is (no longer) thread safe. Searches may run concurrently with each other, but not with modifications.
  * @param <T> type of object extending {@link IQuadBucketType}.
  * @since 2165 ({@link IPrimitive} only), 17459 for {@link IQuadBucketType}
  */
-public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
+public class QuadBuckets<T extends IQuadBucketType> implements SpatialIndex<T> {
     private static final boolean CONSISTENCY_TESTING = false;
     private static final byte NW_INDEX = 1;
     private static final byte NE_INDEX = 3;
@@ -181,7 +183,7 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
             return o.getBBox().intersects(searchBbox);
         }
 
-        private void searchContents(BBox searchBbox, List<T> result) {
+        private void searchContents(BBox searchBbox, Consumer<? super T> visitor) {
             /*
              * It is possible that this was created in a split
              * but never got any content populated.
@@ -189,9 +191,11 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
             if (content == null)
                 return;
 
-            for (T o : content) {
+            // indexed loop, no iterator allocation on the hot search path
+            for (int i = 0; i < content.size(); i++) {
+                T o = content.get(i);
                 if (matches(o, searchBbox)) {
-                    result.add(o);
+                    visitor.accept(o);
                 }
             }
         }
@@ -295,7 +299,44 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
             findBucket(o.getBBox()).doAdd(o);
         }
 
-        private void search(QuadBuckets<T> buckets, BBox searchBbox, List<T> result) {
+        /**
+         * Fills this empty bucket and its subtree with the given objects in one pass.
+         * The resulting tree is the same as the one built by adding the objects one by one,
+         * but the content of each bucket is only distributed once.
+         * @param objects the objects to add, all with a valid bbox contained in this bucket
+         */
+        void doAddAll(List<T> objects) {
+            if (level >= QuadTiling.NR_LEVELS || objects.size() <= MAX_OBJECTS_PER_NODE) {
+                if (content == null) {
+                    content = new ArrayList<>(objects);
+                } else {
+                    content.addAll(objects);
+                }
+                return;
+            }
+            List<List<T>> parts = new ArrayList<>(Collections.nCopies(QuadTiling.TILES_PER_LEVEL, null));
+            for (T o : objects) {
+                byte idx = o.getBBox().getIndex(level);
+                if (idx == -1) {
+                    doAddContent(o);
+                } else {
+                    List<T> part = parts.get(idx);
+                    if (part == null) {
+                        part = new ArrayList<>();
+                        parts.set(idx, part);
+                    }
+                    part.add(o);
+                }
+            }
+            isLeaf = false;
+            for (byte idx = 0; idx < parts.size(); idx++) {
+                if (parts.get(idx) != null) {
+                    getChild(idx).doAddAll(parts.get(idx));
+                }
+            }
+        }
+
+        private void search(QuadBuckets<T> buckets, BBox searchBbox, Consumer<? super T> visitor) {
             if (!this.intersects(searchBbox))
                 return;
             else if (this.bounds(searchBbox)) {
@@ -303,22 +344,22 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
             }
 
             if (this.hasContent()) {
-                searchContents(searchBbox, result);
+                searchContents(searchBbox, visitor);
             }
 
             //TODO Coincidence vector should be calculated here and only buckets that match search_bbox should be checked
 
             if (nw != null) {
-                nw.search(buckets, searchBbox, result);
+                nw.search(buckets, searchBbox, visitor);
             }
             if (ne != null) {
-                ne.search(buckets, searchBbox, result);
+                ne.search(buckets, searchBbox, visitor);
             }
             if (se != null) {
-                se.search(buckets, searchBbox, result);
+                se.search(buckets, searchBbox, visitor);
             }
             if (sw != null) {
-                sw.search(buckets, searchBbox, result);
+                sw.search(buckets, searchBbox, visitor);
             }
         }
 
@@ -362,7 +403,8 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
     }
 
     private QBLevel<T> root;
-    private QBLevel<T> searchCache;
+    /** the bucket where the last search started, written by concurrent searches */
+    private volatile QBLevel<T> searchCache;
     private int size;
     private Collection<T> invalidBBoxPrimitives;
 
@@ -413,9 +455,28 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
         return objects.stream().map(this::remove).reduce(false, (a, b) -> a || b);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If this collection is empty, the tree is built in a single top-down pass instead of adding the objects one by one.
+     */
     @Override
     public boolean addAll(Collection<? extends T> objects) {
-        return objects.stream().map(this::add).reduce(false, (a, b) -> a || b);
+        if (!isEmpty() || objects.size() <= MAX_OBJECTS_PER_NODE) {
+            return objects.stream().map(this::add).reduce(false, (a, b) -> a || b);
+        }
+        List<T> valid = new ArrayList<>(objects.size());
+        for (T o : objects) {
+            if (o.getBBox().isValid()) {
+                valid.add(o);
+            } else {
+                invalidBBoxPrimitives.add(o);
+            }
+        }
+        searchCache = null;
+        root.doAddAll(valid);
+        size += objects.size();
+        return true;
     }
 
     @Override
@@ -571,42 +632,38 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
         return size == 0;
     }
 
-    /**
-     * Search the tree for objects in the bbox (or crossing the bbox if they are ways)
-     * @param searchBbox the bbox
-     * @return List of primitives within the bbox (or crossing the bbox if they are ways). Can be empty, but not null.
-     */
-    public List<T> search(BBox searchBbox) {
-        List<T> ret = new ArrayList<>();
+    @Override
+    public void search(BBox searchBbox, Consumer<? super T> visitor) {
         if (searchBbox == null || !searchBbox.isValid()) {
-            return ret;
+            return;
         }
 
         // Doing this cuts down search cost on a real-life data set by about 25%
-        if (searchCache == null) {
-            searchCache = root;
+        QBLevel<T> start = searchCache;
+        if (start == null) {
+            start = root;
         }
         // Walk back up the tree when the last search spot can not cover the current search
-        while (searchCache != null && !searchCache.bounds(searchBbox)) {
-            searchCache = searchCache.parent;
+        while (start != null && !start.bounds(searchBbox)) {
+            start = start.parent;
         }
 
-        if (searchCache == null) {
-            searchCache = root;
+        if (start == null) {
+            start = root;
             Logging.info("bbox: " + searchBbox + " is out of the world");
         }
+        searchCache = start;
 
         // Save parent because searchCache might change during search call
-        QBLevel<T> tmp = searchCache.parent;
+        QBLevel<T> tmp = start.parent;
 
-        searchCache.search(this, searchBbox, ret);
+        start.search(this, searchBbox, visitor);
 
         // A way that spans this bucket may be stored in one
         // of the nodes which is a parent of the search cache
         while (tmp != null) {
-            tmp.searchContents(searchBbox, ret);
+            tmp.searchContents(searchBbox, visitor);
             tmp = tmp.parent;
         }
-        return ret;
     }
 }
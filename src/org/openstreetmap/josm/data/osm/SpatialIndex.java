@@ -0,0 +1,42 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.openstreetmap.josm.data.IQuadBucketType;
+
+/**
+ * A collection of objects that can be searched by bounding box.
+ * <p>
+ * The bbox of an object must not change while it is part of the index. In case of coordinate change,
+ * the object must be removed and re-added.
+ * <p>
+ * Objects with an invalid bbox (e.g. incomplete primitives) can be added, but are never returned by a search.
+ * @param <T> type of object extending {@link IQuadBucketType}
+ * @see QuadBuckets
+ * @see PackedRTree
+ * @since xxx
+ */
+public interface SpatialIndex<T extends IQuadBucketType> extends Collection<T> {
+
+    /**
+     * Search the index for objects in the bbox (or crossing the bbox if they are ways)
+     * @param searchBbox the bbox
+     * @return List of objects within the bbox (or crossing the bbox if they are ways). Can be empty, but not null.
+     */
+    default List<T> search(BBox searchBbox) {
+        List<T> result = new ArrayList<>();
+        search(searchBbox, result::add);
+        return result;
+    }
+
+    /**
+     * Search the index for objects in the bbox (or crossing the bbox if they are ways), without allocating a result list.
+     * @param searchBbox the bbox. Nothing is found if it is {@code null} or invalid
+     * @param visitor called once for each object found
+     */
+    void search(BBox searchBbox, Consumer<? super T> visitor);
+}
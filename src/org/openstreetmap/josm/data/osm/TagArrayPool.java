@@ -0,0 +1,225 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A global pool of canonical tag arrays, as used by {@link AbstractPrimitive#keys}.
+ * <p>
+ * Many primitives share identical tag sets ({@code building=yes}, {@code highway=residential}, ...). Instead of
+ * one key/value array per primitive, primitives with the same tags (in the same order) share a single array.
+ * Pooled arrays must never be modified: all writers of {@link AbstractPrimitive#keys} copy on write.
+ * <p>
+ * The pool only holds weak references to the arrays, so that tag sets no longer used by any primitive can be
+ * garbage collected.
+ *
+ * @since xxx
+ */
+public final class TagArrayPool {
+
+    private static final ConcurrentHashMap<Object, PooledArray> POOL = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<String[]> QUEUE = new ReferenceQueue<>();
+
+    /**
+     * A weak reference to a pooled array, with its content hash cached so that it can be removed once cleared.
+     */
+    private static final class PooledArray extends WeakReference<String[]> {
+        private final int hash;
+
+        PooledArray(String[] tags, int hash) {
+            super(tags, QUEUE);
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            String[] tags = get();
+            if (tags == null)
+                return false;
+            if (obj instanceof Lookup)
+                return Arrays.equals(tags, ((Lookup) obj).tags);
+            return obj instanceof PooledArray && Arrays.equals(tags, ((PooledArray) obj).get());
+        }
+    }
+
+    /**
+     * A temporary key used to look up an array by content.
+     */
+    private static final class Lookup {
+        private final String[] tags;
+        private final int hash;
+
+        Lookup(String[] tags) {
+            this.tags = tags;
+            this.hash = Arrays.hashCode(tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PooledArray))
+                return false;
+            String[] other = ((PooledArray) obj).get();
+            return other != null && Arrays.equals(tags, other);
+        }
+    }
+
+    private TagArrayPool() {
+        // Hide default constructor for utility classes
+    }
+
+    /**
+     * Returns the canonical instance of the given tag array.
+     * <p>
+     * The given array must not be modified by the caller afterwards, as it may become the canonical instance.
+     * @param tags the key/value array, may be {@code null}
+     * @return an array with the same content as {@code tags}, shared by all callers, or {@code null} if {@code tags}
+     * is {@code null} or empty
+     */
+    static String[] intern(String[] tags) {
+        if (tags == null || tags.length == 0)
+            return null;
+        expungeStaleEntries();
+        Lookup lookup = new Lookup(tags);
+        while (true) {
+            PooledArray existing = POOL.get(lookup);
+            if (existing != null) {
+                String[] canonical = existing.get();
+                if (canonical != null)
+                    return canonical;
+                POOL.remove(existing, existing);
+            }
+            PooledArray added = new PooledArray(tags, lookup.hash);
+            if (POOL.putIfAbsent(added, added) == null)
+                return tags;
+        }
+    }
+
+    private static void expungeStaleEntries() {
+        for (Reference<? extends String[]> ref; (ref = QUEUE.poll()) != null;) {
+            POOL.remove(ref, ref);
+        }
+    }
+
+    /**
+     * Returns the number of distinct tag arrays currently pooled.
+     * @return the number of distinct tag arrays currently pooled
+     */
+    public static int size() {
+        expungeStaleEntries();
+        return POOL.size();
+    }
+
+    /**
+     * Estimates the heap used by a tag array (not counting the strings, which are usually shared).
+     * @param tags the tag array
+     * @return the estimated size in bytes
+     */
+    private static long arraySize(String[] tags) {
+        // 16 bytes header (incl. length) + 4 bytes per compressed reference, aligned to 8 bytes
+        return (16 + 4L * tags.length + 7) & ~7L;
+    }
+
+    /**
+     * Heap usage of the tag arrays of a {@link DataSet}.
+     * @see TagArrayPool#getStatistics(DataSet)
+     */
+    public static final class Statistics {
+        private final int taggedPrimitives;
+        private final int distinctArrays;
+        private final long sharedBytes;
+        private final long unsharedBytes;
+
+        Statistics(int taggedPrimitives, int distinctArrays, long sharedBytes, long unsharedBytes) {
+            this.taggedPrimitives = taggedPrimitives;
+            this.distinctArrays = distinctArrays;
+            this.sharedBytes = sharedBytes;
+            this.unsharedBytes = unsharedBytes;
+        }
+
+        /**
+         * Returns the number of tagged primitives.
+         * @return the number of tagged primitives
+         */
+        public int getTaggedPrimitives() {
+            return taggedPrimitives;
+        }
+
+        /**
+         * Returns the number of distinct tag array instances used by the primitives.
+         * @return the number of distinct tag array instances
+         */
+        public int getDistinctArrays() {
+            return distinctArrays;
+        }
+
+        /**
+         * Returns the estimated heap used by the distinct tag arrays.
+         * @return the estimated heap used by the distinct tag arrays, in bytes
+         */
+        public long getSharedBytes() {
+            return sharedBytes;
+        }
+
+        /**
+         * Returns the estimated heap the tag arrays would use without sharing.
+         * @return the estimated heap used with one tag array per primitive, in bytes
+         */
+        public long getUnsharedBytes() {
+            return unsharedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "TagArrayPool.Statistics [taggedPrimitives=" + taggedPrimitives + ", distinctArrays=" + distinctArrays
+                    + ", sharedBytes=" + sharedBytes + ", unsharedBytes=" + unsharedBytes + ']';
+        }
+    }
+
+    /**
+     * Computes the heap usage of the tag arrays of all primitives of the given data set.
+     * @param ds the data set
+     * @return the heap usage statistics
+     */
+    public static Statistics getStatistics(DataSet ds) {
+        Set<String[]> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        int tagged = 0;
+        long shared = 0;
+        long unshared = 0;
+        ds.getReadLock().lock();
+        try {
+            for (OsmPrimitive p : ds.allPrimitives()) {
+                String[] tags = p.keys;
+                if (tags != null) {
+                    tagged++;
+                    long size = arraySize(tags);
+                    unshared += size;
+                    if (distinct.add(tags)) {
+                        shared += size;
+                    }
+                }
+            }
+        } finally {
+            ds.getReadLock().unlock();
+        }
+        return new Statistics(tagged, distinct.size(), shared, unshared);
+    }
+}
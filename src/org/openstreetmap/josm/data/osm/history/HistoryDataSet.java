@@ -4,16 +4,14 @@ package org.openstreetmap.josm.data.osm.history;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
 
 import org.openstreetmap.josm.data.osm.Changeset;
 import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
 import org.openstreetmap.josm.data.osm.PrimitiveId;
+import org.openstreetmap.josm.data.osm.PrimitiveIdMap;
 import org.openstreetmap.josm.data.osm.SimplePrimitiveId;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.layer.LayerManager.LayerAddEvent;
@@ -21,6 +19,8 @@ import org.openstreetmap.josm.gui.layer.LayerManager.LayerChangeListener;
 import org.openstreetmap.josm.gui.layer.LayerManager.LayerOrderChangeEvent;
 import org.openstreetmap.josm.gui.layer.LayerManager.LayerRemoveEvent;
 import org.openstreetmap.josm.tools.CheckParameterUtil;
+import org.openstreetmap.josm.tools.collections.LongObjectMap;
+import org.openstreetmap.josm.tools.collections.LongSet;
 
 /**
  * A data set holding histories of OSM primitives.
@@ -45,17 +45,17 @@ public class HistoryDataSet implements LayerChangeListener {
     }
 
     /** the history data */
-    private final Map<PrimitiveId, ArrayList<HistoryOsmPrimitive>> data;
+    private final PrimitiveIdMap<ArrayList<HistoryOsmPrimitive>> data;
     private final CopyOnWriteArrayList<HistoryDataSetListener> listeners;
-    private final Map<Long, Changeset> changesets;
+    private final LongObjectMap<Changeset> changesets;
 
     /**
      * Constructs a new {@code HistoryDataSet}.
      */
     public HistoryDataSet() {
-        data = new HashMap<>();
+        data = new PrimitiveIdMap<>();
         listeners = new CopyOnWriteArrayList<>();
-        changesets = new HashMap<>();
+        changesets = new LongObjectMap<>();
     }
 
     /**
@@ -105,8 +105,7 @@ public class HistoryDataSet implements LayerChangeListener {
         if (version <= 0)
             throw new IllegalArgumentException(MessageFormat.format("Parameter ''{0}'' > 0 expected, got {1}", "version", version));
 
-        SimplePrimitiveId pid = new SimplePrimitiveId(id, type);
-        List<HistoryOsmPrimitive> versions = data.get(pid);
+        List<HistoryOsmPrimitive> versions = data.get(id, type);
         if (versions == null)
             return null;
         return versions.stream()
@@ -164,8 +163,8 @@ public class HistoryDataSet implements LayerChangeListener {
      * @throws NullPointerException if pid is null
      */
     public History getHistory(PrimitiveId pid) {
-        PrimitiveId key = new SimplePrimitiveId(pid.getUniqueId(), pid.getType());
-        List<HistoryOsmPrimitive> versions = data.get(Objects.requireNonNull(key, "key"));
+        Objects.requireNonNull(pid, "pid");
+        List<HistoryOsmPrimitive> versions = data.get(pid.getUniqueId(), pid.getType());
         if (versions == null)
             return null;
         for (HistoryOsmPrimitive i : versions) {
@@ -192,10 +191,13 @@ public class HistoryDataSet implements LayerChangeListener {
      * @return The ids
      */
     public Collection<Long> getChangesetIds() {
-        return data.values().stream()
-                .flatMap(Collection::stream)
-                .map(HistoryOsmPrimitive::getChangesetId)
-                .collect(Collectors.toSet());
+        LongSet ids = new LongSet();
+        for (List<HistoryOsmPrimitive> versions : data.values()) {
+            for (HistoryOsmPrimitive version : versions) {
+                ids.add(version.getChangesetId());
+            }
+        }
+        return ids;
     }
 
     /* ------------------------------------------------------------------------------ */
@@ -0,0 +1,314 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.visitor.paint;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.INode;
+import org.openstreetmap.josm.data.osm.IWay;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataSetListener;
+import org.openstreetmap.josm.data.osm.event.NodeMovedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesAddedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesRemovedEvent;
+import org.openstreetmap.josm.data.osm.event.RelationMembersChangedEvent;
+import org.openstreetmap.josm.data.osm.event.TagsChangedEvent;
+import org.openstreetmap.josm.data.osm.event.WayNodesChangedEvent;
+import org.openstreetmap.josm.data.preferences.AbstractProperty;
+import org.openstreetmap.josm.data.preferences.DoubleProperty;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.data.projection.ProjectionChangeListener;
+import org.openstreetmap.josm.data.projection.ProjectionRegistry;
+
+/**
+ * A memory cache for simplified geometries of long ways, used to draw them faster when zoomed out.
+ * <p>
+ * The ways are simplified with the Douglas-Peucker algorithm in east/north space, once per zoom band, i.e. per
+ * power of two of the scale. The tolerance is chosen so that the simplified way does not differ from the way
+ * by more than {@link #PROP_MAX_ERROR} pixels on the screen.
+ * <p>
+ * The cache listens to the data sets of the {@link org.openstreetmap.josm.gui.layer.OsmDataLayer}s, which clear their
+ * data set from the cache when they are destroyed.
+ * @since xxx
+ */
+public final class SimplifiedGeometryCache implements DataSetListener, ProjectionChangeListener {
+
+    /**
+     * The maximum distance in pixels between a way and its simplified geometry. The ways are not simplified if {@code 0}.
+     */
+    public static final AbstractProperty<Double> PROP_MAX_ERROR = new DoubleProperty("mappaint.simplify.max-error", 0).cached();
+
+    /**
+     * The minimum number of nodes of the simplified ways
+     */
+    static final int MIN_NODES = 32;
+
+    private static final SimplifiedGeometryCache INSTANCE = new SimplifiedGeometryCache();
+
+    private final Map<DataSet, Map<Way, Map<Double, double[]>>> cache = new ConcurrentHashMap<>();
+
+    private SimplifiedGeometryCache() {
+        ProjectionRegistry.addProjectionChangeListener(this);
+    }
+
+    /**
+     * Replies the unique instance.
+     * @return the unique instance
+     */
+    public static SimplifiedGeometryCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the tolerance used to simplify the geometries for the given scale.
+     * @param scale the scale of the view, in east/north units per pixel
+     * @return the tolerance in east/north units, or {@code 0} if the geometries are not simplified
+     */
+    public static double getTolerance(double scale) {
+        double maxError = PROP_MAX_ERROR.get();
+        if (maxError <= 0 || !(scale > 0) || Double.isInfinite(scale)) {
+            return 0;
+        }
+        // the lower bound of the zoom band, so that the error is below the maximum in the whole band
+        return maxError * Math.scalb(1.0, Math.getExponent(scale));
+    }
+
+    /**
+     * Returns the simplified geometry of a way.
+     * @param w the way
+     * @param scale the scale of the view, in east/north units per pixel
+     * @return the east/north coordinates of the simplified way, as x, y pairs,
+     * or {@code null} if the way is not simplified or has less than two nodes with known coordinates
+     */
+    public double[] get(IWay<?> w, double scale) {
+        if (!(w instanceof Way) || w.getNodesCount() < MIN_NODES) {
+            return null;
+        }
+        Way way = (Way) w;
+        DataSet ds = way.getDataSet();
+        double tolerance = getTolerance(scale);
+        if (ds == null || tolerance <= 0) {
+            return null;
+        }
+        double[] simplified = cache.computeIfAbsent(ds, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(way, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(tolerance, t -> simplify(way.getNodes(), t));
+        return simplified.length >= 4 ? simplified : null;
+    }
+
+    /**
+     * Simplifies a list of nodes. Nodes with unknown coordinates are skipped.
+     * @param nodes the nodes
+     * @param tolerance the tolerance in east/north units
+     * @return the east/north coordinates of the simplified list, as x, y pairs
+     */
+    static double[] simplify(List<? extends INode> nodes, double tolerance) {
+        double[] coords = new double[2 * nodes.size()];
+        int size = 0;
+        for (INode n : nodes) {
+            EastNorth en = n.getEastNorth();
+            if (en != null) {
+                coords[size++] = en.east();
+                coords[size++] = en.north();
+            }
+        }
+        return simplify(coords, size / 2, tolerance);
+    }
+
+    /**
+     * Simplifies a path, i.e. each of its sub-paths.
+     * @param path the path in east/north space, made of straight lines only
+     * @param tolerance the tolerance in east/north units
+     * @return the simplified path
+     */
+    public static Path2D.Double simplify(Path2D.Double path, double tolerance) {
+        Path2D.Double simplified = new Path2D.Double(path.getWindingRule());
+        double[] coords = new double[16];
+        int size = 0;
+        double[] segment = new double[6];
+        for (PathIterator it = path.getPathIterator(null); !it.isDone(); it.next()) {
+            int type = it.currentSegment(segment);
+            if (type == PathIterator.SEG_MOVETO) {
+                append(simplified, coords, size, tolerance, false);
+                size = 0;
+            }
+            if (type == PathIterator.SEG_CLOSE) {
+                append(simplified, coords, size, tolerance, true);
+                size = 0;
+            } else {
+                if (size + 2 > coords.length) {
+                    coords = Arrays.copyOf(coords, 2 * coords.length);
+                }
+                coords[size++] = segment[0];
+                coords[size++] = segment[1];
+            }
+        }
+        append(simplified, coords, size, tolerance, false);
+        return simplified;
+    }
+
+    private static void append(Path2D.Double path, double[] coords, int size, double tolerance, boolean close) {
+        if (size == 0) {
+            return;
+        }
+        double[] simplified = simplify(coords, size / 2, tolerance);
+        path.moveTo(simplified[0], simplified[1]);
+        for (int i = 2; i < simplified.length; i += 2) {
+            path.lineTo(simplified[i], simplified[i + 1]);
+        }
+        if (close) {
+            path.closePath();
+        }
+    }
+
+    /**
+     * Simplifies a polyline with the Douglas-Peucker algorithm. The first and the last points are always kept.
+     * @param coords the coordinates of the points, as x, y pairs
+     * @param count the number of points
+     * @param tolerance the maximum distance between the polyline and the simplified one
+     * @return the coordinates of the kept points, as x, y pairs
+     */
+    static double[] simplify(double[] coords, int count, double tolerance) {
+        if (count <= 2) {
+            return Arrays.copyOf(coords, 2 * count);
+        }
+        boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[count - 1] = true;
+        int kept = 2;
+        int[] stack = new int[2 * count];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count - 1;
+        double toleranceSq = tolerance * tolerance;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            double x1 = coords[2 * first];
+            double y1 = coords[2 * first + 1];
+            double dx = coords[2 * last] - x1;
+            double dy = coords[2 * last + 1] - y1;
+            double lengthSq = dx * dx + dy * dy;
+            double maxDistSq = 0;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                double px = coords[2 * i] - x1;
+                double py = coords[2 * i + 1] - y1;
+                double distSq;
+                if (lengthSq == 0) {
+                    distSq = px * px + py * py;
+                } else {
+                    double t = Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSq));
+                    double ex = px - t * dx;
+                    double ey = py - t * dy;
+                    distSq = ex * ex + ey * ey;
+                }
+                if (distSq > maxDistSq) {
+                    maxDistSq = distSq;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0 && maxDistSq > toleranceSq) {
+                keep[farthest] = true;
+                kept++;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+        double[] result = new double[2 * kept];
+        int j = 0;
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                result[j++] = coords[2 * i];
+                result[j++] = coords[2 * i + 1];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Clears the cache for the given dataset.
+     * @param ds the data set
+     */
+    public void clear(DataSet ds) {
+        if (ds != null) {
+            cache.remove(ds);
+        }
+    }
+
+    /**
+     * Clears the whole cache.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    private void removeWays(AbstractDatasetChangedEvent event, boolean referrers) {
+        Map<Way, Map<Double, double[]>> ways = event.getDataset() != null ? cache.get(event.getDataset()) : null;
+        if (ways != null) {
+            for (OsmPrimitive p : event.getPrimitives()) {
+                if (p instanceof Way) {
+                    ways.remove(p);
+                } else if (referrers) {
+                    p.forEachReferrer(Way.class, ways::remove);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void primitivesAdded(PrimitivesAddedEvent event) {
+        // Do nothing
+    }
+
+    @Override
+    public void primitivesRemoved(PrimitivesRemovedEvent event) {
+        removeWays(event, false);
+    }
+
+    @Override
+    public void tagsChanged(TagsChangedEvent event) {
+        // Do nothing
+    }
+
+    @Override
+    public void nodeMoved(NodeMovedEvent event) {
+        removeWays(event, true);
+    }
+
+    @Override
+    public void wayNodesChanged(WayNodesChangedEvent event) {
+        removeWays(event, false);
+    }
+
+    @Override
+    public void relationMembersChanged(RelationMembersChangedEvent event) {
+        // Do nothing
+    }
+
+    @Override
+    public void otherDatasetChange(AbstractDatasetChangedEvent event) {
+        // Do nothing
+    }
+
+    @Override
+    public void dataChanged(DataChangedEvent event) {
+        clear(event.getDataset());
+    }
+
+    @Override
+    public void projectionChanged(Projection oldValue, Projection newValue) {
+        clear();
+    }
+}
@@ -0,0 +1,170 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.visitor.paint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+import org.openstreetmap.josm.data.osm.BBox;
+import org.openstreetmap.josm.data.osm.IPrimitive;
+import org.openstreetmap.josm.data.osm.IRelation;
+import org.openstreetmap.josm.data.osm.OsmData;
+import org.openstreetmap.josm.data.osm.visitor.paint.StyledMapRenderer.StyleRecord;
+import org.openstreetmap.josm.gui.mappaint.ElemStyles;
+import org.openstreetmap.josm.spi.preferences.Config;
+
+/**
+ * Retains the sorted style records of the last painted view of a dataset, so that they are not computed again
+ * when the view is only moved.
+ * <p>
+ * The records are valid for a given style generation, "circum" (see {@link StyledMapRenderer#getCircum()})
+ * and value of the area, multipolygon and restriction drawing preferences, which the styles are computed with. The circum is measured at the center of the view, so it also changes when
+ * the view is moved north or south. When the view is moved, only the primitives of the area which was not painted
+ * before are searched and styled, and merged into the sorted records.
+ * The owner of the dataset must call {@link #clear()} when the data, the selection or the highlighting changes.
+ * @since xxx
+ */
+public final class StyleRecordCache {
+
+    private OsmData<?, ?, ?, ?> data;
+    private BBox bbox;
+    private double circum;
+    private ElemStyles styles;
+    private short styleCacheIndex;
+    private int fillAreas;
+    private boolean drawMultipolygon;
+    private boolean drawRestriction;
+    private StyleRecord[] records;
+
+    /**
+     * Discards the retained style records.
+     */
+    public synchronized void clear() {
+        data = null;
+        bbox = null;
+        styles = null;
+        records = null;
+    }
+
+    /**
+     * Returns the sorted style records of the primitives in the given area, computing only the missing ones.
+     * @param data the dataset
+     * @param bbox the painted area
+     * @param circum the distance on the map in meters that 100 screen pixels represent
+     * @param styles the styles
+     * @param compute computes the sorted style records of nodes and ways, and of relations
+     * @return the sorted style records, or {@code null} if {@code compute} returned {@code null}
+     */
+    synchronized StyleRecord[] get(OsmData<?, ?, ?, ?> data, BBox bbox, double circum, ElemStyles styles,
+            BiFunction<List<IPrimitive>, List<? extends IRelation<?>>, StyleRecord[]> compute) {
+        // the preferences read by ComputeStyleListWorker
+        int fillAreas = Config.getPref().getInt("mappaint.fillareas", 10_000_000);
+        boolean drawMultipolygon = Config.getPref().getBoolean("mappaint.multipolygon", true);
+        boolean drawRestriction = Config.getPref().getBoolean("mappaint.restriction", true);
+        if (records == null || this.data != data || Double.compare(this.circum, circum) != 0 || this.styles != styles
+                || styleCacheIndex != styles.getCacheIndex() || this.fillAreas != fillAreas
+                || this.drawMultipolygon != drawMultipolygon || this.drawRestriction != drawRestriction
+                || !this.bbox.intersects(bbox)) {
+            List<IPrimitive> nodesAndWays = new ArrayList<>();
+            data.searchNodes(bbox, nodesAndWays::add);
+            data.searchWays(bbox, nodesAndWays::add);
+            records = compute.apply(nodesAndWays, data.searchRelations(bbox));
+        } else if (!this.bbox.equals(bbox)) {
+            StyleRecord[] added = compute(data, this.bbox, bbox, compute);
+            records = added != null ? merge(keep(records, bbox), added) : null;
+        }
+        if (records == null) {
+            clear();
+            return null;
+        }
+        this.data = data;
+        this.bbox = new BBox(bbox);
+        this.circum = circum;
+        this.styles = styles;
+        this.styleCacheIndex = styles.getCacheIndex();
+        this.fillAreas = fillAreas;
+        this.drawMultipolygon = drawMultipolygon;
+        this.drawRestriction = drawRestriction;
+        return records;
+    }
+
+    /**
+     * Computes the style records of the primitives which are in the new area, but not in the old one.
+     */
+    private static StyleRecord[] compute(OsmData<?, ?, ?, ?> data, BBox oldBBox, BBox newBBox,
+            BiFunction<List<IPrimitive>, List<? extends IRelation<?>>, StyleRecord[]> compute) {
+        Set<IPrimitive> nodesAndWays = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<IRelation<?>> relations = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (BBox strip : getStrips(oldBBox, newBBox)) {
+            data.searchNodes(strip, n -> {
+                if (!n.getBBox().intersects(oldBBox)) {
+                    nodesAndWays.add(n);
+                }
+            });
+            data.searchWays(strip, w -> {
+                if (!w.getBBox().intersects(oldBBox)) {
+                    nodesAndWays.add(w);
+                }
+            });
+            for (IRelation<?> r : data.searchRelations(strip)) {
+                if (!r.getBBox().intersects(oldBBox)) {
+                    relations.add(r);
+                }
+            }
+        }
+        return compute.apply(new ArrayList<>(nodesAndWays), new ArrayList<>(relations));
+    }
+
+    /**
+     * Returns the areas which cover the part of the new area outside of the old one.
+     */
+    private static List<BBox> getStrips(BBox oldBBox, BBox newBBox) {
+        List<BBox> strips = new ArrayList<>(4);
+        double minLon = Math.max(oldBBox.getMinLon(), newBBox.getMinLon());
+        double maxLon = Math.min(oldBBox.getMaxLon(), newBBox.getMaxLon());
+        if (newBBox.getMinLon() < oldBBox.getMinLon()) {
+            strips.add(new BBox(newBBox.getMinLon(), newBBox.getMinLat(), oldBBox.getMinLon(), newBBox.getMaxLat()));
+        }
+        if (newBBox.getMaxLon() > oldBBox.getMaxLon()) {
+            strips.add(new BBox(oldBBox.getMaxLon(), newBBox.getMinLat(), newBBox.getMaxLon(), newBBox.getMaxLat()));
+        }
+        if (newBBox.getMinLat() < oldBBox.getMinLat()) {
+            strips.add(new BBox(minLon, newBBox.getMinLat(), maxLon, oldBBox.getMinLat()));
+        }
+        if (newBBox.getMaxLat() > oldBBox.getMaxLat()) {
+            strips.add(new BBox(minLon, oldBBox.getMaxLat(), maxLon, newBBox.getMaxLat()));
+        }
+        return strips;
+    }
+
+    /**
+     * Returns the style records of the primitives which are still in the area, in the same order.
+     */
+    private static StyleRecord[] keep(StyleRecord[] records, BBox bbox) {
+        StyleRecord[] kept = new StyleRecord[records.length];
+        int size = 0;
+        for (StyleRecord record : records) {
+            if (record.getPrimitive().getBBox().intersects(bbox)) {
+                kept[size++] = record;
+            }
+        }
+        return Arrays.copyOf(kept, size);
+    }
+
+    /**
+     * Merges two sorted arrays of style records.
+     */
+    private static StyleRecord[] merge(StyleRecord[] a, StyleRecord[] b) {
+        StyleRecord[] merged = new StyleRecord[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < merged.length; k++) {
+            merged[k] = j >= b.length || (i < a.length && a[i].compareTo(b[j]) <= 0) ? a[i++] : b[j++];
+        }
+        return merged;
+    }
+}
@@ -28,13 +28,16 @@ import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.function.BiConsumer;
@@ -46,6 +49,7 @@ import javax.swing.FocusManager;
 
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.osm.BBox;
 import org.openstreetmap.josm.data.osm.INode;
 import org.openstreetmap.josm.data.osm.IPrimitive;
@@ -70,18 +74,22 @@ import org.openstreetmap.josm.gui.draw.MapViewPath;
 import org.openstreetmap.josm.gui.draw.MapViewPositionAndRotation;
 import org.openstreetmap.josm.gui.mappaint.ElemStyles;
 import org.openstreetmap.josm.gui.mappaint.MapPaintStyles;
+import org.openstreetmap.josm.gui.mappaint.styleelement.AreaElement;
+import org.openstreetmap.josm.gui.mappaint.styleelement.AreaIconElement;
 import org.openstreetmap.josm.gui.mappaint.styleelement.BoxTextElement;
 import org.openstreetmap.josm.gui.mappaint.styleelement.BoxTextElement.HorizontalTextAlignment;
 import org.openstreetmap.josm.gui.mappaint.styleelement.BoxTextElement.VerticalTextAlignment;
 import org.openstreetmap.josm.gui.mappaint.styleelement.DefaultStyles;
 import org.openstreetmap.josm.gui.mappaint.styleelement.MapImage;
+import org.openstreetmap.josm.gui.mappaint.styleelement.NodeElement;
+import org.openstreetmap.josm.gui.mappaint.styleelement.RepeatImageElement;
 import org.openstreetmap.josm.gui.mappaint.styleelement.RepeatImageElement.LineImageAlignment;
 import org.openstreetmap.josm.gui.mappaint.styleelement.StyleElement;
 import org.openstreetmap.josm.gui.mappaint.styleelement.Symbol;
+import org.openstreetmap.josm.gui.mappaint.styleelement.TextElement;
 import org.openstreetmap.josm.gui.mappaint.styleelement.TextLabel;
 import org.openstreetmap.josm.gui.mappaint.styleelement.placement.PositionForAreaStrategy;
 import org.openstreetmap.josm.spi.preferences.Config;
-import org.openstreetmap.josm.tools.CompositeList;
 import org.openstreetmap.josm.tools.Geometry;
 import org.openstreetmap.josm.tools.Geometry.AreaAndPerimeter;
 import org.openstreetmap.josm.tools.HiDPISupport;
@@ -218,6 +226,15 @@ public class StyledMapRenderer extends AbstractMapRenderer {
             return style;
         }
 
+        /**
+         * Get the primitive painted with the style.
+         * @return The primitive
+         * @since xxx
+         */
+        public IPrimitive getPrimitive() {
+            return osm;
+        }
+
         /**
          * Paints the primitive with the style.
          * @param paintSettings The settings to use.
@@ -240,7 +257,7 @@ public class StyledMapRenderer extends AbstractMapRenderer {
         }
     }
 
-    private static final Map<Font, Boolean> IS_GLYPH_VECTOR_DOUBLE_TRANSLATION_BUG = new HashMap<>();
+    private static final Map<Font, Boolean> IS_GLYPH_VECTOR_DOUBLE_TRANSLATION_BUG = new ConcurrentHashMap<>();
 
     /**
      * Check, if this System has the GlyphVector double translation bug.
@@ -341,6 +358,21 @@ public class StyledMapRenderer extends AbstractMapRenderer {
      */
     public static final AbstractProperty<String> PREFERENCE_TEXT_ANTIALIASING
             = new StringProperty("mappaint.text-antialiasing", "default").cached();
+    /**
+     * Indicates that the renderer should draw the view in tiles, in parallel
+     * @since xxx
+     */
+    public static final AbstractProperty<Boolean> PREFERENCE_TILED_DRAW
+            = new BooleanProperty("mappaint.renderer.tiled", false).cached();
+    /**
+     * The distance in pixels by which the primitives are assumed to extend their bounds when drawn, e.g. by wide lines.
+     * A primitive is only drawn in the tiles which intersect its extended bounds. Labels and images are not drawn in tiles.
+     */
+    private static final AbstractProperty<Integer> TILE_MARGIN = new IntegerProperty("mappaint.renderer.tile-margin", 128).cached();
+    /**
+     * The minimum number of consecutive style records which are drawn in tiles
+     */
+    private static final int TILED_DRAW_MIN_RECORDS = 1000;
 
     /**
      * The line with to use for highlighting
@@ -364,6 +396,7 @@ public class StyledMapRenderer extends AbstractMapRenderer {
     private Object antialiasing;
 
     private Supplier<RenderBenchmarkCollector> benchmarkFactory = RenderBenchmarkCollector.defaultBenchmarkSupplier();
+    private StyleRecordCache styleRecordCache;
 
     /**
      * Constructs a new {@code StyledMapRenderer}.
@@ -382,6 +415,19 @@ public class StyledMapRenderer extends AbstractMapRenderer {
         this.styles = MapPaintStyles.getStyles();
     }
 
+    /**
+     * Constructs a new {@code StyledMapRenderer} drawing one tile of the view of the given renderer.
+     * @param g the graphics context of the tile
+     * @param parent the renderer of the whole view
+     */
+    private StyledMapRenderer(Graphics2D g, StyledMapRenderer parent) {
+        super(g, parent.nc, parent.isInactiveMode);
+        useWiderHighlight = parent.useWiderHighlight;
+        styles = parent.styles;
+        doSlowOperations = parent.doSlowOperations;
+        highlightWaySegments = parent.highlightWaySegments;
+    }
+
     /**
      * Set the {@link ElemStyles} instance to use for this renderer.
      * @param styles the {@code ElemStyles} instance to use
@@ -515,7 +561,7 @@ public class StyledMapRenderer extends AbstractMapRenderer {
                 if (!isAreaVisible(pd.get())) {
                     continue;
                 }
-                MapViewPath p = shapeEastNorthToMapView(pd.get());
+                MapViewPath p = shapeEastNorthToMapView(getPolygon(pd));
                 MapViewPath pfClip = null;
                 if (extent != null) {
                     if (!usePartialFill(pd.getAreaAndPerimeter(null), extent, extentThreshold)) {
@@ -531,6 +577,19 @@ public class StyledMapRenderer extends AbstractMapRenderer {
         }
     }
 
+    /**
+     * Returns the outline of a polygon, simplified for the current scale if it is long enough.
+     * @param pd the polygon
+     * @return the polygon outline in east/north space
+     */
+    private Path2D.Double getPolygon(PolyData pd) {
+        double tolerance = SimplifiedGeometryCache.getTolerance(scale);
+        if (tolerance > 0 && pd.getNodes().size() >= SimplifiedGeometryCache.MIN_NODES) {
+            return pd.getSimplified(tolerance);
+        }
+        return pd.get();
+    }
+
     /**
      * Convert shape in EastNorth coordinates to MapViewPath and remove invisible parts.
      * For complex shapes this improves performance drastically because the methods in Graphics2D.clip() and Graphics2D.draw() are rather slow.
@@ -1305,7 +1364,8 @@ public class StyledMapRenderer extends AbstractMapRenderer {
         }
 
         MapViewPoint lastPoint = null;
-        Iterator<MapViewPoint> it = new OffsetIterator(mapState, wayNodes, offset);
+        double[] simplified = offset == 0 && !showOrientation ? SimplifiedGeometryCache.getInstance().get(way, scale) : null;
+        Iterator<MapViewPoint> it = simplified != null ? getPoints(simplified).iterator() : new OffsetIterator(mapState, wayNodes, offset);
         boolean initialMoveToNeeded = true;
         ArrowPaintHelper drawArrowHelper = null;
         double minSegmentLenSq = 0;
@@ -1457,7 +1517,17 @@ public class StyledMapRenderer extends AbstractMapRenderer {
 
     private MapViewPath getPath(IWay<?> w) {
         MapViewPath path = new MapViewPath(mapState);
-        if (w.isClosed()) {
+        double[] simplified = SimplifiedGeometryCache.getInstance().get(w, scale);
+        if (simplified != null) {
+            List<MapViewPoint> points = getPoints(simplified);
+            path.moveTo(points.get(0));
+            for (int i = 1; i < points.size(); i++) {
+                path.lineTo(points.get(i));
+            }
+            if (w.isClosed()) {
+                path.closePath();
+            }
+        } else if (w.isClosed()) {
             path.appendClosed(w.getNodes(), false);
         } else {
             path.append(w.getNodes(), false);
@@ -1465,6 +1535,19 @@ public class StyledMapRenderer extends AbstractMapRenderer {
         return path;
     }
 
+    /**
+     * Converts east/north coordinates to points of the view.
+     * @param coords the coordinates, as x, y pairs
+     * @return the points
+     */
+    private List<MapViewPoint> getPoints(double[] coords) {
+        List<MapViewPoint> points = new ArrayList<>(coords.length / 2);
+        for (int i = 0; i < coords.length; i += 2) {
+            points.add(mapState.getPointFor(new EastNorth(coords[i], coords[i + 1])));
+        }
+        return points;
+    }
+
     private static Path2D.Double getPFClip(IWay<?> w, double extent) {
         Path2D.Double clip = new Path2D.Double();
         buildPFClip(clip, w.getNodes(), extent);
@@ -1633,6 +1716,15 @@ public class StyledMapRenderer extends AbstractMapRenderer {
         this.benchmarkFactory = benchmarkFactory;
     }
 
+    /**
+     * Sets the cache retaining the style records of the last painted view of the data.
+     * @param styleRecordCache the cache, or {@code null} to compute the style records at each paint
+     * @since xxx
+     */
+    public void setStyleRecordCache(StyleRecordCache styleRecordCache) {
+        this.styleRecordCache = styleRecordCache;
+    }
+
     @Override
     public void render(final OsmData<?, ?, ?, ?> data, boolean renderVirtualNodes, Bounds bounds) {
         RenderBenchmarkCollector benchmark = benchmarkFactory.get();
@@ -1661,39 +1753,50 @@ public class StyledMapRenderer extends AbstractMapRenderer {
 
             benchmark.renderStart(circum);
 
-            List<? extends INode> nodes = data.searchNodes(bbox);
-            List<? extends IWay<?>> ways = data.searchWays(bbox);
-            List<? extends IRelation<?>> relations = data.searchRelations(bbox);
-
-            final List<StyleRecord> allStyleElems = new ArrayList<>(nodes.size()+ways.size()+relations.size());
-
-            // Need to process all relations first.
-            // Reason: Make sure, ElemStyles.getStyleCacheWithRange is not called for the same primitive in parallel threads.
-            // (Could be synchronized, but try to avoid this for performance reasons.)
-            if (THREAD_POOL != null) {
-                THREAD_POOL.invoke(new ComputeStyleListWorker(circum, nc, relations, allStyleElems,
-                        Math.max(20, relations.size() / THREAD_POOL.getParallelism() / 3), styles));
-                THREAD_POOL.invoke(new ComputeStyleListWorker(circum, nc, new CompositeList<>(nodes, ways), allStyleElems,
-                        Math.max(100, (nodes.size() + ways.size()) / THREAD_POOL.getParallelism() / 3), styles));
+            StyleRecord[] sorted;
+            if (styleRecordCache != null) {
+                boolean[] computed = {false};
+                sorted = styleRecordCache.get(data, bbox, circum, styles, (nodesAndWays, relations) -> {
+                    computed[0] = true;
+                    return computeSorted(nodesAndWays, relations, benchmark);
+                });
+                if (!computed[0] && !benchmark.renderSort()) {
+                    return;
+                }
             } else {
-                new ComputeStyleListWorker(circum, nc, relations, allStyleElems, 0, styles).computeDirectly();
-                new ComputeStyleListWorker(circum, nc, new CompositeList<>(nodes, ways), allStyleElems, 0, styles).computeDirectly();
+                // nodes first, then ways, collected into a single list without intermediate search results
+                List<IPrimitive> nodesAndWays = new ArrayList<>();
+                data.searchNodes(bbox, nodesAndWays::add);
+                data.searchWays(bbox, nodesAndWays::add);
+                sorted = computeSorted(nodesAndWays, data.searchRelations(bbox), benchmark);
             }
-
-            if (!benchmark.renderSort()) {
+            if (sorted == null || !benchmark.renderDraw(Arrays.asList(sorted))) {
                 return;
             }
 
-            // We use parallel sort here. This is only available for arrays.
-            StyleRecord[] sorted = allStyleElems.toArray(new StyleRecord[0]);
-            Arrays.parallelSort(sorted, null);
-
-            if (!benchmark.renderDraw(allStyleElems)) {
-                return;
-            }
-
-            for (StyleRecord record : sorted) {
-                paintRecord(record);
+            if (useTiledDraw(sorted.length)) {
+                // the runs of records between the labels and images are drawn in tiles, the labels and images in
+                // between are drawn directly, which keeps the z-order
+                int start = 0;
+                while (start < sorted.length) {
+                    int end = start;
+                    while (end < sorted.length && !isPaintedInOrder(sorted[end].style)) {
+                        end++;
+                    }
+                    if (end - start >= TILED_DRAW_MIN_RECORDS) {
+                        paintTiled(sorted, start, end, renderVirtualNodes);
+                    } else {
+                        paintRecords(sorted, start, end);
+                    }
+                    start = end;
+                    while (end < sorted.length && isPaintedInOrder(sorted[end].style)) {
+                        end++;
+                    }
+                    paintRecords(sorted, start, end);
+                    start = end;
+                }
+            } else {
+                paintRecords(sorted, 0, sorted.length);
             }
 
             drawVirtualNodes(data, bbox);
@@ -1709,6 +1812,40 @@ public class StyledMapRenderer extends AbstractMapRenderer {
         }
     }
 
+    /**
+     * Computes the style records of the given primitives, and sorts them.
+     * @param nodesAndWays the nodes and ways
+     * @param relations the relations
+     * @param benchmark the benchmark data receiver
+     * @return the sorted style records, or {@code null} if the benchmark aborted the rendering
+     */
+    private StyleRecord[] computeSorted(List<IPrimitive> nodesAndWays, List<? extends IRelation<?>> relations,
+            RenderBenchmarkCollector benchmark) {
+        final List<StyleRecord> allStyleElems = new ArrayList<>(nodesAndWays.size()+relations.size());
+
+        // Need to process all relations first.
+        // Reason: Make sure, ElemStyles.getStyleCacheWithRange is not called for the same primitive in parallel threads.
+        // (Could be synchronized, but try to avoid this for performance reasons.)
+        if (THREAD_POOL != null) {
+            THREAD_POOL.invoke(new ComputeStyleListWorker(circum, nc, relations, allStyleElems,
+                    Math.max(20, relations.size() / THREAD_POOL.getParallelism() / 3), styles));
+            THREAD_POOL.invoke(new ComputeStyleListWorker(circum, nc, nodesAndWays, allStyleElems,
+                    Math.max(100, nodesAndWays.size() / THREAD_POOL.getParallelism() / 3), styles));
+        } else {
+            new ComputeStyleListWorker(circum, nc, relations, allStyleElems, 0, styles).computeDirectly();
+            new ComputeStyleListWorker(circum, nc, nodesAndWays, allStyleElems, 0, styles).computeDirectly();
+        }
+
+        if (!benchmark.renderSort()) {
+            return null;
+        }
+
+        // We use parallel sort here. This is only available for arrays.
+        StyleRecord[] sorted = allStyleElems.toArray(new StyleRecord[0]);
+        Arrays.parallelSort(sorted, null);
+        return sorted;
+    }
+
     private void paintRecord(StyleRecord record) {
         try {
             record.paintPrimitive(paintSettings, this);
@@ -1716,4 +1853,157 @@ public class StyledMapRenderer extends AbstractMapRenderer {
             throw BugReport.intercept(e).put("record", record);
         }
     }
+
+    private void paintRecords(StyleRecord[] sorted, int from, int to) {
+        for (int i = from; i < to; i++) {
+            paintRecord(sorted[i]);
+        }
+    }
+
+    private boolean useTiledDraw(int records) {
+        AffineTransform transform = g.getTransform();
+        return PREFERENCE_TILED_DRAW.get() && THREAD_POOL != null && THREAD_POOL.getParallelism() > 1
+                && records >= TILED_DRAW_MIN_RECORDS && transform.getShearX() == 0 && transform.getShearY() == 0;
+    }
+
+    /**
+     * Determines if a style element must not be drawn in tiles. Labels and icons extend beyond their primitive, and
+     * the images ({@link MapImage}) are loaded lazily, so they must not be used by several tiles at the same time.
+     * @param style the style element
+     * @return {@code true} if the style element draws a label or an image
+     */
+    private static boolean isPaintedInOrder(StyleElement style) {
+        return style instanceof TextElement || style instanceof BoxTextElement || style instanceof AreaIconElement
+                || style instanceof RepeatImageElement
+                || (style instanceof NodeElement && ((NodeElement) style).mapImage != null)
+                || (style instanceof AreaElement && ((AreaElement) style).fillImage != null);
+    }
+
+    /**
+     * Paints a range of the sorted style records in parallel. The view is split into tiles, and each tile is painted into
+     * its own image with the records which intersect it, in the same order. Since the tiles do not overlap, the z-order is
+     * preserved when the images are drawn onto the graphics context.
+     * <p>
+     * The tiles share the primitives and the caches used to draw them, which must be safe for concurrent reads:
+     * the {@link MultipolygonCache} and its {@link PolyData}. The data set is not modified meanwhile,
+     * since the read lock is held. The records using images are not painted in tiles, see {@link #isPaintedInOrder}.
+     * @param sorted the sorted style records
+     * @param from the index of the first record to paint
+     * @param to the index after the last record to paint
+     * @param renderVirtualNodes {@code true} if virtual nodes are rendered
+     */
+    private void paintTiled(StyleRecord[] sorted, int from, int to, boolean renderVirtualNodes) {
+        int count = to - from;
+        Rectangle view = new Rectangle(0, 0, (int) Math.ceil(mapState.getViewWidth()), (int) Math.ceil(mapState.getViewHeight()));
+        Rectangle clip = g.getClipBounds();
+        if (clip != null) {
+            view = view.intersection(clip);
+        }
+        if (view.isEmpty() || count == 0) {
+            return;
+        }
+
+        int margin = TILE_MARGIN.get();
+        Rectangle[] bounds = new Rectangle[count];
+        Arrays.parallelSetAll(bounds, i -> getViewBounds(sorted[from + i].osm, margin));
+
+        int tiles = THREAD_POOL.getParallelism();
+        int columns = (int) Math.ceil(Math.sqrt(tiles));
+        int rows = (tiles + columns - 1) / columns;
+        double scaleX = g.getTransform().getScaleX();
+        double scaleY = g.getTransform().getScaleY();
+        List<Rectangle> tileBounds = new ArrayList<>(columns * rows);
+        List<BufferedImage> images = new ArrayList<>(columns * rows);
+        List<Callable<Void>> tasks = new ArrayList<>(columns * rows);
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int x = view.x + view.width * column / columns;
+                int y = view.y + view.height * row / rows;
+                Rectangle tile = new Rectangle(x, y, view.x + view.width * (column + 1) / columns - x,
+                        view.y + view.height * (row + 1) / rows - y);
+                if (tile.isEmpty()) {
+                    continue;
+                }
+                BufferedImage image = new BufferedImage((int) Math.ceil(tile.width * Math.abs(scaleX)),
+                        (int) Math.ceil(tile.height * Math.abs(scaleY)), BufferedImage.TYPE_INT_ARGB_PRE);
+                Graphics2D tileGraphics = image.createGraphics();
+                tileGraphics.setRenderingHints(g.getRenderingHints());
+                tileGraphics.setFont(g.getFont());
+                tileGraphics.scale(Math.abs(scaleX), Math.abs(scaleY));
+                tileGraphics.translate(-tile.x, -tile.y);
+                tileGraphics.clip(tile);
+                StyledMapRenderer renderer = new StyledMapRenderer(tileGraphics, this);
+                renderer.getSettings(renderVirtualNodes);
+                tileBounds.add(tile);
+                images.add(image);
+                tasks.add(() -> {
+                    try {
+                        for (int i = 0; i < count; i++) {
+                            if (bounds[i] == null || bounds[i].intersects(tile)) {
+                                renderer.paintRecord(sorted[from + i]);
+                            }
+                        }
+                    } finally {
+                        tileGraphics.dispose();
+                    }
+                    return null;
+                });
+            }
+        }
+
+        try {
+            for (Future<Void> future : THREAD_POOL.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Logging.warn("Interrupted while painting tiles");
+            return;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new JosmRuntimeException(e.getCause());
+        }
+
+        for (int i = 0; i < images.size(); i++) {
+            Rectangle tile = tileBounds.get(i);
+            BufferedImage image = images.get(i);
+            g.drawImage(image, tile.x, tile.y, tile.x + tile.width, tile.y + tile.height, 0, 0, image.getWidth(), image.getHeight(), null);
+        }
+    }
+
+    /**
+     * Returns the bounds of a primitive in the view, extended by the given margin.
+     * @param osm the primitive
+     * @param margin the margin in pixels
+     * @return the extended bounds, or {@code null} if they are unknown
+     */
+    private Rectangle getViewBounds(IPrimitive osm, int margin) {
+        if (osm instanceof INode) {
+            INode node = (INode) osm;
+            if (!node.isLatLonKnown()) {
+                return null;
+            }
+            MapViewPoint p = mapState.getPointFor(node);
+            return new Rectangle((int) p.getInViewX() - margin, (int) p.getInViewY() - margin, 2 * margin, 2 * margin);
+        }
+        BBox bbox = osm.getBBox();
+        if (bbox == null || !bbox.isValid()) {
+            return null;
+        }
+        Rectangle2D.Double bounds = null;
+        for (LatLon corner : new LatLon[] {bbox.getTopLeft(), bbox.getBottomRight(),
+                new LatLon(bbox.getMinLat(), bbox.getMinLon()), new LatLon(bbox.getMaxLat(), bbox.getMaxLon())}) {
+            MapViewPoint p = mapState.getPointFor(corner);
+            if (bounds == null) {
+                bounds = new Rectangle2D.Double(p.getInViewX(), p.getInViewY(), 0, 0);
+            } else {
+                bounds.add(p.getInViewX(), p.getInViewY());
+            }
+        }
+        Rectangle result = bounds.getBounds();
+        result.grow(margin, margin);
+        return result;
+    }
 }
@@ -16,6 +16,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.coor.EastNorth;
 import org.openstreetmap.josm.data.osm.BBox;
 import org.openstreetmap.josm.data.osm.INode;
 import org.openstreetmap.josm.data.osm.IPrimitive;
@@ -167,7 +168,7 @@ public class WireframeMapRenderer extends AbstractMapRenderer implements Primiti
         List<IWay<?>> highlightedWays = new ArrayList<>();
         List<IWay<?>> untaggedWays = new ArrayList<>();
 
-        for (final IWay<?> way : data.searchWays(bbox)) {
+        data.searchWays(bbox, way -> {
             if (way.isDrawable() && !way.isSelected() && !way.isDisabledAndHidden()) {
                 if (way.isHighlighted()) {
                     highlightedWays.add(way);
@@ -177,7 +178,7 @@ public class WireframeMapRenderer extends AbstractMapRenderer implements Primiti
                     way.accept(this);
                 }
             }
-        }
+        });
         displaySegments();
 
         // Display highlighted ways after the other ones (fix #8276)
@@ -196,11 +197,11 @@ public class WireframeMapRenderer extends AbstractMapRenderer implements Primiti
         }
         displaySegments();
 
-        for (final INode osm: data.searchNodes(bbox)) {
+        data.searchNodes(bbox, osm -> {
             if (osm.isDrawable() && !osm.isSelected() && !osm.isDisabledAndHidden()) {
                 osm.accept(this);
             }
-        }
+        });
         drawVirtualNodes(data, bbox);
 
         // draw highlighted way segments over the already drawn ways. Otherwise each
@@ -311,6 +312,24 @@ public class WireframeMapRenderer extends AbstractMapRenderer implements Primiti
             wayColor = dfltWayColor;
         }
 
+        boolean showThisOrderNumber = (showOrderNumber || (showOrderNumberOnSelectedWay && w.isSelected())) && !isInactiveMode;
+        double[] simplified = showThisDirectionArrow || showThisOrderNumber ? null
+                : SimplifiedGeometryCache.getInstance().get(w, nc.getScale());
+        if (simplified != null) {
+            MapViewPoint lastP = mapState.getPointFor(new EastNorth(simplified[0], simplified[1]));
+            int lastPOutside = lastP.getOutsideRectangleFlags(viewClip);
+            for (int i = 2; i < simplified.length; i += 2) {
+                MapViewPoint p = mapState.getPointFor(new EastNorth(simplified[i], simplified[i + 1]));
+                int pOutside = p.getOutsideRectangleFlags(viewClip);
+                if ((pOutside & lastPOutside) == 0) {
+                    drawSegment(lastP, p, wayColor, false);
+                }
+                lastP = p;
+                lastPOutside = pOutside;
+            }
+            return;
+        }
+
         Iterator<? extends INode> it = w.getNodes().iterator();
         if (it.hasNext()) {
             MapViewPoint lastP = mapState.getPointFor(it.next());
@@ -321,7 +340,7 @@ public class WireframeMapRenderer extends AbstractMapRenderer implements Primiti
                 if ((pOutside & lastPOutside) == 0) {
                     drawSegment(lastP, p, wayColor,
                             showOnlyHeadArrowOnly ? !it.hasNext() : showThisDirectionArrow);
-                    if ((showOrderNumber || (showOrderNumberOnSelectedWay && w.isSelected())) && !isInactiveMode) {
+                    if (showThisOrderNumber) {
                         drawOrderNumber(lastP, p, orderNumber, g.getColor());
                     }
                 }
@@ -10,8 +10,10 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openstreetmap.josm.data.coor.EastNorth;
 import org.openstreetmap.josm.data.osm.DataSet;
@@ -22,6 +24,7 @@ import org.openstreetmap.josm.data.osm.RelationMember;
 import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.data.osm.event.NodeMovedEvent;
 import org.openstreetmap.josm.data.osm.event.WayNodesChangedEvent;
+import org.openstreetmap.josm.data.osm.visitor.paint.SimplifiedGeometryCache;
 import org.openstreetmap.josm.data.osm.visitor.paint.relations.Multipolygon.PolyData.Intersection;
 import org.openstreetmap.josm.data.projection.Projection;
 import org.openstreetmap.josm.data.projection.ProjectionRegistry;
@@ -267,8 +270,10 @@ public class Multipolygon {
         }
 
         private final Path2D.Double poly;
-        private Rectangle2D bounds;
+        /** computed when needed, possibly by several threads painting the polygon at the same time */
+        private volatile Rectangle2D bounds;
         private final List<PolyData> inners;
+        private final Map<Double, Path2D.Double> simplified = new ConcurrentHashMap<>();
 
         /**
          * Constructs a new {@code PolyData} from a closed way.
@@ -360,6 +365,7 @@ public class Multipolygon {
         public void addInner(PolyData inner) {
             inners.add(inner);
             appendInner(inner.poly);
+            simplified.clear();
         }
 
         private void appendInner(Path2D.Double inner) {
@@ -374,15 +380,27 @@ public class Multipolygon {
             return poly;
         }
 
+        /**
+         * Gets the polygon outline and interior as simplified java path.
+         * @param tolerance the tolerance in east/north units, see {@link SimplifiedGeometryCache#getTolerance}
+         * @return The path in east/north space.
+         * @since xxx
+         */
+        public Path2D.Double getSimplified(double tolerance) {
+            return simplified.computeIfAbsent(tolerance, t -> SimplifiedGeometryCache.simplify(poly, t));
+        }
+
         /**
          * Gets the bounds as {@link Rectangle2D} in east/north space.
          * @return The bounds
          */
         public Rectangle2D getBounds() {
-            if (bounds == null) {
-                bounds = poly.getBounds2D();
+            Rectangle2D b = bounds;
+            if (b == null) {
+                b = poly.getBounds2D();
+                bounds = b;
             }
-            return bounds;
+            return b;
         }
 
         /**
@@ -428,6 +446,7 @@ public class Multipolygon {
             poly.reset();
             buildPoly();
             bounds = null;
+            simplified.clear();
         }
 
         /**
@@ -150,7 +150,7 @@ public final class MultipolygonCache implements DataSetListener, LayerChangeList
                     }
                     processEvent(event, (Relation) p, maps);
 
-                } else if (p instanceof Way && p.getDataSet() != null) {
+                } else if (p instanceof Way && p.getDataSet() != null && isMultipolygonMember(p)) {
                     for (OsmPrimitive ref : p.getReferrers()) {
                         if (ref.isMultipolygon()) {
                             if (maps == null) {
@@ -159,7 +159,8 @@ public final class MultipolygonCache implements DataSetListener, LayerChangeList
                             processEvent(event, (Relation) ref, maps);
                         }
                     }
-                } else if (p instanceof Node && p.getDataSet() != null) {
+                } else if (p instanceof Node && p.getDataSet() != null
+                        && p.findReferrer(OsmPrimitive.class, MultipolygonCache::isOrIsMemberOfMultipolygon) != null) {
                     maps = updateMultipolygonsReferringTo(event, p.getReferrers(), ds, maps);
                 }
             }
@@ -167,6 +168,20 @@ public final class MultipolygonCache implements DataSetListener, LayerChangeList
         return maps;
     }
 
+    /**
+     * Determines, without allocating, if a multipolygon refers to the given primitive.
+     * Used to skip the common case of primitives unrelated to multipolygons.
+     * @param p the primitive
+     * @return {@code true} if a multipolygon of the same dataset refers to {@code p}
+     */
+    private static boolean isMultipolygonMember(OsmPrimitive p) {
+        return p.findReferrer(Relation.class, Relation::isMultipolygon) != null;
+    }
+
+    private static boolean isOrIsMemberOfMultipolygon(OsmPrimitive p) {
+        return p.isMultipolygon() || (p instanceof Way && isMultipolygonMember(p));
+    }
+
     private static void processEvent(AbstractDatasetChangedEvent event, Relation r, Collection<Map<Relation, Multipolygon>> maps) {
         if (event instanceof NodeMovedEvent || event instanceof WayNodesChangedEvent) {
             dispatchEvent(event, r, maps);
@@ -300,7 +315,7 @@ public final class MultipolygonCache implements DataSetListener, LayerChangeList
         DataSet ds = null;
         Collection<Map<Relation, Multipolygon>> maps = null;
         for (OsmPrimitive p : event.getSelection()) {
-            if (p instanceof Way && p.getDataSet() != null) {
+            if (p instanceof Way && p.getDataSet() != null && isMultipolygonMember(p)) {
                 if (ds == null) {
                     ds = p.getDataSet();
                 }
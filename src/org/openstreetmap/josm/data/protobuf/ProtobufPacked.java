@@ -3,6 +3,7 @@ package org.openstreetmap.josm.data.protobuf;
 
 import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -48,6 +49,47 @@ public class ProtobufPacked {
         return this.numbers;
     }
 
+    /**
+     * Decode packed var ints without boxing them, for large arrays of values
+     *
+     * @param bytes The packed bytes
+     * @return The values ({@code int32}, {@code int64}, {@code uint32}, {@code uint64}, {@code bool}, {@code enum})
+     * @since xxx
+     */
+    public static long[] decodeVarInts(byte[] bytes) {
+        // There are at most as many values as bytes
+        long[] values = new long[bytes.length];
+        int count = 0;
+        int location = 0;
+        while (location < bytes.length) {
+            long value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = bytes[location++];
+                value |= (long) (current & ~ProtobufParser.MOST_SIGNIFICANT_BYTE) << shift;
+                shift += ProtobufParser.VAR_INT_BYTE_SIZE;
+            } while ((current & ProtobufParser.MOST_SIGNIFICANT_BYTE) != 0);
+            values[count++] = value;
+        }
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    /**
+     * Decode packed zig-zag encoded var ints without boxing them, for large arrays of values
+     *
+     * @param bytes The packed bytes
+     * @return The values ({@code sint32} or {@code sint64})
+     * @since xxx
+     */
+    public static long[] decodeSignedVarInts(byte[] bytes) {
+        long[] values = decodeVarInts(bytes);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (values[i] >>> 1) ^ -(values[i] & 1);
+        }
+        return values;
+    }
+
     private byte[] nextVarInt(final ByteArrayOutputStream byteArrayOutputStream) {
         // In a real world test, the largest List<Byte> seen had 3 elements. Use 4 to avoid most new array allocations.
         // Memory allocations went from 368 MB to 280 MB by using an initial array allocation. When using a
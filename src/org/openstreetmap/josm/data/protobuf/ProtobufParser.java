@@ -4,6 +4,7 @@ package org.openstreetmap.josm.data.protobuf;
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -237,12 +238,19 @@ public class ProtobufParser implements AutoCloseable {
      *
      * @param size The number of bytes to read
      * @return a byte array of the specified size, filled with bytes read (unsigned)
+     * @throws EOFException - if the end of the stream is reached before {@code size} bytes have been read
      * @throws IOException - if an IO error occurs
      */
     private byte[] readNextBytes(int size) throws IOException {
         byte[] bytesRead = new byte[size];
-        for (int i = 0; i < bytesRead.length; i++) {
-            bytesRead[i] = (byte) this.nextByte();
+        // Read in bulk: large messages (e.g. OSM PBF blocks) would otherwise need one call per byte
+        int offset = 0;
+        while (offset < size) {
+            int read = this.inputStream.read(bytesRead, offset, size - offset);
+            if (read < 0) {
+                throw new EOFException("Expected " + size + " bytes, but only " + offset + " were available");
+            }
+            offset += read;
         }
         return bytesRead;
     }
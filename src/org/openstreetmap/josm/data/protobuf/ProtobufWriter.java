@@ -0,0 +1,228 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.protobuf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A basic Protobuf writer, the counterpart of {@link ProtobufParser}.
+ * <p>
+ * Messages are written to a growing buffer. Nested messages are written by another writer, then added with
+ * {@link #writeMessage(int, ProtobufWriter)}.
+ *
+ * @since xxx
+ */
+public class ProtobufWriter {
+    private byte[] buffer;
+    private int size;
+
+    /**
+     * Create a new writer
+     */
+    public ProtobufWriter() {
+        this(64);
+    }
+
+    /**
+     * Create a new writer
+     *
+     * @param capacity The initial capacity of the buffer, in bytes
+     */
+    public ProtobufWriter(int capacity) {
+        this.buffer = new byte[Math.max(capacity, 16)];
+    }
+
+    /**
+     * Get the number of bytes needed to encode a var int
+     *
+     * @param value The value
+     * @return The number of bytes, between 1 and 10
+     */
+    public static int varIntSize(long value) {
+        // 7 bits per byte, at least one byte
+        return (63 - Long.numberOfLeadingZeros(value | 1)) / ProtobufParser.VAR_INT_BYTE_SIZE + 1;
+    }
+
+    /**
+     * Encode a number to a zig-zag encoded value, without boxing
+     *
+     * @param value The number to encode
+     * @return The encoded value
+     */
+    public static long encodeZigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(size + additional, buffer.length * 2));
+        }
+    }
+
+    private void writeRawVarInt(long value) {
+        ensureCapacity(10);
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            buffer[size++] = (byte) (v | ProtobufParser.MOST_SIGNIFICANT_BYTE);
+            v >>>= ProtobufParser.VAR_INT_BYTE_SIZE;
+        }
+        buffer[size++] = (byte) v;
+    }
+
+    private void writeTag(int field, WireType type) {
+        writeRawVarInt((long) field << 3 | type.getTypeRepresentation());
+    }
+
+    /**
+     * Write a var int ({@code int32}, {@code int64}, {@code uint32}, {@code uint64}, {@code bool}, {@code enum})
+     *
+     * @param field The field number
+     * @param value The value
+     * @return this writer
+     */
+    public ProtobufWriter writeVarInt(int field, long value) {
+        writeTag(field, WireType.VARINT);
+        writeRawVarInt(value);
+        return this;
+    }
+
+    /**
+     * Write a zig-zag encoded var int ({@code sint32} or {@code sint64})
+     *
+     * @param field The field number
+     * @param value The value
+     * @return this writer
+     */
+    public ProtobufWriter writeSignedVarInt(int field, long value) {
+        return writeVarInt(field, encodeZigZag(value));
+    }
+
+    /**
+     * Write bytes ({@link WireType#LENGTH_DELIMITED})
+     *
+     * @param field The field number
+     * @param bytes The bytes
+     * @param offset The offset of the first byte to write
+     * @param length The number of bytes to write
+     * @return this writer
+     */
+    public ProtobufWriter writeBytes(int field, byte[] bytes, int offset, int length) {
+        writeTag(field, WireType.LENGTH_DELIMITED);
+        writeRawVarInt(length);
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+        return this;
+    }
+
+    /**
+     * Write bytes ({@link WireType#LENGTH_DELIMITED})
+     *
+     * @param field The field number
+     * @param bytes The bytes
+     * @return this writer
+     */
+    public ProtobufWriter writeBytes(int field, byte[] bytes) {
+        return writeBytes(field, bytes, 0, bytes.length);
+    }
+
+    /**
+     * Write a string ({@link WireType#LENGTH_DELIMITED})
+     *
+     * @param field The field number
+     * @param value The string (encoded as {@link StandardCharsets#UTF_8})
+     * @return this writer
+     */
+    public ProtobufWriter writeString(int field, String value) {
+        return writeBytes(field, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write an embedded message ({@link WireType#LENGTH_DELIMITED})
+     *
+     * @param field The field number
+     * @param message The writer holding the message
+     * @return this writer
+     */
+    public ProtobufWriter writeMessage(int field, ProtobufWriter message) {
+        return writeBytes(field, message.buffer, 0, message.size);
+    }
+
+    /**
+     * Write packed var ints ({@link WireType#LENGTH_DELIMITED}). Nothing is written if there is no value.
+     *
+     * @param field The field number
+     * @param values The values
+     * @param count The number of values to write
+     * @return this writer
+     */
+    public ProtobufWriter writePackedVarInts(int field, long[] values, int count) {
+        return writePacked(field, values, count, false);
+    }
+
+    /**
+     * Write packed zig-zag encoded var ints ({@link WireType#LENGTH_DELIMITED}). Nothing is written if there is no value.
+     *
+     * @param field The field number
+     * @param values The values
+     * @param count The number of values to write
+     * @return this writer
+     */
+    public ProtobufWriter writePackedSignedVarInts(int field, long[] values, int count) {
+        return writePacked(field, values, count, true);
+    }
+
+    private ProtobufWriter writePacked(int field, long[] values, int count, boolean zigZag) {
+        if (count == 0) {
+            return this;
+        }
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            length += varIntSize(zigZag ? encodeZigZag(values[i]) : values[i]);
+        }
+        writeTag(field, WireType.LENGTH_DELIMITED);
+        writeRawVarInt(length);
+        ensureCapacity(length);
+        for (int i = 0; i < count; i++) {
+            writeRawVarInt(zigZag ? encodeZigZag(values[i]) : values[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Get the number of bytes written
+     *
+     * @return The number of bytes written
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the bytes written
+     *
+     * @return A copy of the bytes written
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Write the bytes written so far to the given stream
+     *
+     * @param out The stream
+     * @throws IOException - if an IO error occurs
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, size);
+    }
+
+    /**
+     * Discard the bytes written, to reuse this writer
+     */
+    public void reset() {
+        size = 0;
+    }
+}
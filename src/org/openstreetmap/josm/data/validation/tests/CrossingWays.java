@@ -248,8 +248,12 @@ public abstract class CrossingWays extends Test {
             String type = w.get("boundary");
             if (type != null)
                 types.add(type);
-            w.referrers(Relation.class).filter(Relation::isMultipolygon).map(r -> r.get("boundary"))
-                    .filter(Objects::nonNull).forEach(types::add);
+            w.forEachReferrer(Relation.class, r -> {
+                String boundary = r.isMultipolygon() ? r.get("boundary") : null;
+                if (boundary != null) {
+                    types.add(boundary);
+                }
+            });
             types.remove("protected_area");
             return types;
         }
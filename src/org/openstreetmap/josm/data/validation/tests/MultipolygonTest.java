@@ -15,6 +15,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -297,14 +298,16 @@ public class MultipolygonTest extends Test {
         for (RelationMember rm : r.getMembers()) {
             if (!rm.isWay())
                 continue;
-            int numNodes = rm.getWay().getNodesCount();
+            Way w = rm.getWay();
+            Predicate<OsmPrimitive> otherReferrer = p -> p != w;
+            int numNodes = w.getNodesCount();
             for (int i = 0; i < numNodes; i++) {
-                Node n = rm.getWay().getNode(i);
-                if (n.getReferrers().size() <= 1) {
+                Node n = w.getNode(i);
+                if (n.findReferrer(OsmPrimitive.class, otherReferrer) == null) {
                     continue; // cannot be a problem node
                 }
                 List<Way> ways = nodeMap.computeIfAbsent(n, k -> new ArrayList<>());
-                ways.add(rm.getWay());
+                ways.add(w);
                 if (ways.size() > 2 || (ways.size() == 2 && i != 0 && i + 1 != numNodes)) {
                     sharedNodes.add(n);
                     intersectionWays.addAll(ways);
@@ -345,11 +348,11 @@ public class MultipolygonTest extends Test {
             Set<OsmPrimitive> prims = new HashSet<>();
             prims.add(r);
             for (Node n : sharedByPolygons) {
-                for (OsmPrimitive p : n.getReferrers()) {
-                    if (p instanceof Way && (pd1.getWayIds().contains(p.getUniqueId()) || pd2.getWayIds().contains(p.getUniqueId()))) {
+                n.forEachReferrer(Way.class, p -> {
+                    if (pd1.getWayIds().contains(p.getUniqueId()) || pd2.getWayIds().contains(p.getUniqueId())) {
                         prims.add(p);
                     }
-                }
+                });
             }
             if (errorCode == RINGS_SHARE_NODES) {
                 errors.add(TestError.builder(this, Severity.OTHER, errorCode)
@@ -101,7 +101,7 @@ public abstract class UnconnectedWays extends Test {
                     || n.hasTag("amenity", "parking_entrance", "ferry_terminal")
                     || n.isKeyTrue("noexit")
                     || n.hasKey("entrance", "barrier")
-                    || n.getParentWays().stream().anyMatch(p -> isBuilding(p) || p.hasTag(RAILWAY, "platform", "platform_edge"));
+                    || n.findReferrer(Way.class, p -> isBuilding(p) || p.hasTag(RAILWAY, "platform", "platform_edge")) != null;
         }
     }
 
@@ -341,10 +341,9 @@ public abstract class UnconnectedWays extends Test {
      * @return the wanted way
      */
     protected Way getWantedParentWay(Node endnode) {
-        for (Way w : endnode.getParentWays()) {
-            if (isWantedWay(w))
-                return w;
-        }
+        Way w = endnode.findReferrer(Way.class, this::isWantedWay);
+        if (w != null)
+            return w;
         Logging.error("end node without matching parent way");
         return null;
     }
@@ -579,7 +578,7 @@ public abstract class UnconnectedWays extends Test {
             BBox bbox = new BBox(endnode.getCoor(), llClosest);
             for (Way nearbyWay : ds.searchWays(bbox)) {
                 if (nearbyWay != w && nearbyWay.isUsable() && isObstacle(nearbyWay)
-                        && !endnode.getParentWays().contains(nearbyWay)) {
+                        && endnode.findReferrer(Way.class, p -> p == nearbyWay) == null) {
                     //make sure that the obstacle is really between endnode and the highway segment, not just close to or around them
                     Iterator<Node> iter = nearbyWay.getNodes().iterator();
                     EastNorth prev = iter.next().getEastNorth();
@@ -27,6 +27,7 @@ import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -46,6 +47,7 @@ import org.openstreetmap.josm.data.osm.event.SelectionEventManager;
 import org.openstreetmap.josm.data.osm.visitor.paint.PaintColors;
 import org.openstreetmap.josm.data.osm.visitor.paint.Rendering;
 import org.openstreetmap.josm.data.osm.visitor.paint.relations.MultipolygonCache;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
 import org.openstreetmap.josm.data.projection.ProjectionRegistry;
 import org.openstreetmap.josm.gui.MapViewState.MapViewRectangle;
 import org.openstreetmap.josm.gui.autofilter.AutoFilterManager;
@@ -94,6 +96,12 @@ public class MapView extends NavigatableComponent
 implements PropertyChangeListener, PreferenceChangedListener,
 LayerManager.LayerChangeListener, MainLayerManager.ActiveLayerChangeListener {
 
+    /**
+     * Whether each layer is painted into its own buffer, which is kept until the layer is invalidated or the view changes
+     * @since xxx
+     */
+    public static final BooleanProperty PROP_LAYER_BUFFERS = new BooleanProperty("mappaint.layer-buffers", false);
+
     static {
         MapPaintStyles.addMapPaintStylesUpdateListener(new MapPaintStylesUpdateListener() {
             @Override
@@ -178,6 +186,17 @@ LayerManager.LayerChangeListener, MainLayerManager.ActiveLayerChangeListener {
         }
     }
 
+    /**
+     * The image of a layer, painted for a given view.
+     * @since xxx
+     */
+    private static class LayerBuffer {
+        private BufferedImage image;
+        /** The area of the image which has been painted, in screen pixels */
+        private Rectangle validBounds;
+        private int viewID;
+    }
+
     /**
      * A layer painter that issues a warning when being called.
      * @author Michael Zangl
@@ -231,6 +250,8 @@ LayerManager.LayerChangeListener, MainLayerManager.ActiveLayerChangeListener {
     private transient BufferedImage offscreenBuffer;
     // Layers that wasn't changed since last paint
     private final transient List<Layer> nonChangedLayers = new ArrayList<>();
+    // Buffers of the layers, if PROP_LAYER_BUFFERS is set
+    private final transient Map<Layer, LayerBuffer> layerBuffers = new IdentityHashMap<>();
     private int lastViewID;
     private final AtomicBoolean paintPreferencesChanged = new AtomicBoolean(true);
     private Rectangle lastClipBounds = new Rectangle();
@@ -398,6 +419,7 @@ LayerManager.LayerChangeListener, MainLayerManager.ActiveLayerChangeListener {
         ProjectionRegistry.removeProjectionChangeListener(layer);
         layer.removePropertyChangeListener(this);
         invalidatedListener.removeFrom(layer);
+        layerBuffers.remove(layer);
         if (layer == getNativeScaleLayer())
             setNativeScaleLayer(null);
         layer.destroy();
@@ -523,65 +545,16 @@ LayerManager.LayerChangeListener, MainLayerManager.ActiveLayerChangeListener {
 
         List<Layer> visibleLayers = layerManager.getVisibleLayersInZOrder();
 
-        int nonChangedLayersCount = 0;
         Set<MapViewPaintable> invalidated = invalidatedListener.collectInvalidatedLayers();
-        for (Layer l: visibleLayers) {
-            if (invalidated.contains(l)) {
-                break;
-            } else {
-                nonChangedLayersCount++;
-            }
-        }
-
-        boolean canUseBuffer = !paintPreferencesChanged.getAndSet(false)
-                && nonChangedLayers.size() <= nonChangedLayersCount
-                && lastViewID == getViewID()
-                && lastClipBounds.contains(g.getClipBounds())
-                && nonChangedLayers.equals(visibleLayers.subList(0, nonChangedLayers.size()));
-
         if (null == offscreenBuffer || offscreenBuffer.getWidth() != width || offscreenBuffer.getHeight() != height) {
             offscreenBuffer = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
         }
 
-        if (!canUseBuffer || nonChangedLayersBuffer == null) {
-            if (null == nonChangedLayersBuffer
-                    || nonChangedLayersBuffer.getWidth() != width || nonChangedLayersBuffer.getHeight() != height) {
-                nonChangedLayersBuffer = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
-            }
-            Graphics2D g2 = nonChangedLayersBuffer.createGraphics();
-            g2.setClip(scaledClip);
-            g2.setTransform(trDef);
-            g2.setColor(PaintColors.getBackgroundColor());
-            g2.fillRect(0, 0, width, height);
-
-            for (int i = 0; i < nonChangedLayersCount; i++) {
-                paintLayer(visibleLayers.get(i), g2);
-            }
+        Graphics2D tempG;
+        if (PROP_LAYER_BUFFERS.get()) {
+            tempG = drawBufferedLayers(visibleLayers, invalidated, scaledClip, trDef);
         } else {
-            // Maybe there were more unchanged layers then last time - draw them to buffer
-            if (nonChangedLayers.size() != nonChangedLayersCount) {
-                Graphics2D g2 = nonChangedLayersBuffer.createGraphics();
-                g2.setClip(scaledClip);
-                g2.setTransform(trDef);
-                for (int i = nonChangedLayers.size(); i < nonChangedLayersCount; i++) {
-                    paintLayer(visibleLayers.get(i), g2);
-                }
-            }
-        }
-
-        nonChangedLayers.clear();
-        nonChangedLayers.addAll(visibleLayers.subList(0, nonChangedLayersCount));
-        lastViewID = getViewID();
-        lastClipBounds = g.getClipBounds();
-
-        Graphics2D tempG = offscreenBuffer.createGraphics();
-        tempG.setClip(scaledClip);
-        tempG.setTransform(new AffineTransform());
-        tempG.drawImage(nonChangedLayersBuffer, 0, 0, null);
-        tempG.setTransform(trDef);
-
-        for (int i = nonChangedLayersCount; i < visibleLayers.size(); i++) {
-            paintLayer(visibleLayers.get(i), tempG);
+            tempG = drawLayers(g, visibleLayers, invalidated, scaledClip, trDef);
         }
 
         try {
@@ -644,6 +617,123 @@ LayerManager.LayerChangeListener, MainLayerManager.ActiveLayerChangeListener {
         }
     }
 
+    /**
+     * Paints the layers, using one buffer for the bottom layers which have not changed since the last paint.
+     * @return the graphics of the offscreen buffer, with the layers painted
+     */
+    private Graphics2D drawLayers(Graphics2D g, List<Layer> visibleLayers, Set<MapViewPaintable> invalidated,
+            Shape scaledClip, AffineTransform trDef) {
+        int width = offscreenBuffer.getWidth();
+        int height = offscreenBuffer.getHeight();
+        layerBuffers.clear();
+
+        int nonChangedLayersCount = 0;
+        for (Layer l: visibleLayers) {
+            if (invalidated.contains(l)) {
+                break;
+            } else {
+                nonChangedLayersCount++;
+            }
+        }
+
+        boolean canUseBuffer = !paintPreferencesChanged.getAndSet(false)
+                && nonChangedLayers.size() <= nonChangedLayersCount
+                && lastViewID == getViewID()
+                && lastClipBounds.contains(g.getClipBounds())
+                && nonChangedLayers.equals(visibleLayers.subList(0, nonChangedLayers.size()));
+
+        if (!canUseBuffer || nonChangedLayersBuffer == null) {
+            if (null == nonChangedLayersBuffer
+                    || nonChangedLayersBuffer.getWidth() != width || nonChangedLayersBuffer.getHeight() != height) {
+                nonChangedLayersBuffer = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+            }
+            Graphics2D g2 = nonChangedLayersBuffer.createGraphics();
+            g2.setClip(scaledClip);
+            g2.setTransform(trDef);
+            g2.setColor(PaintColors.getBackgroundColor());
+            g2.fillRect(0, 0, width, height);
+
+            for (int i = 0; i < nonChangedLayersCount; i++) {
+                paintLayer(visibleLayers.get(i), g2);
+            }
+        } else {
+            // Maybe there were more unchanged layers then last time - draw them to buffer
+            if (nonChangedLayers.size() != nonChangedLayersCount) {
+                Graphics2D g2 = nonChangedLayersBuffer.createGraphics();
+                g2.setClip(scaledClip);
+                g2.setTransform(trDef);
+                for (int i = nonChangedLayers.size(); i < nonChangedLayersCount; i++) {
+                    paintLayer(visibleLayers.get(i), g2);
+                }
+            }
+        }
+
+        nonChangedLayers.clear();
+        nonChangedLayers.addAll(visibleLayers.subList(0, nonChangedLayersCount));
+        lastViewID = getViewID();
+        lastClipBounds = g.getClipBounds();
+
+        Graphics2D tempG = offscreenBuffer.createGraphics();
+        tempG.setClip(scaledClip);
+        tempG.setTransform(new AffineTransform());
+        tempG.drawImage(nonChangedLayersBuffer, 0, 0, null);
+        tempG.setTransform(trDef);
+
+        for (int i = nonChangedLayersCount; i < visibleLayers.size(); i++) {
+            paintLayer(visibleLayers.get(i), tempG);
+        }
+
+        return tempG;
+    }
+
+    /**
+     * Paints the layers, using one buffer per layer. A layer is only painted again if it has been invalidated,
+     * or if the view has changed since it was painted.
+     * @return the graphics of the offscreen buffer, with the layers painted
+     */
+    private Graphics2D drawBufferedLayers(List<Layer> visibleLayers, Set<MapViewPaintable> invalidated,
+            Shape scaledClip, AffineTransform trDef) {
+        int width = offscreenBuffer.getWidth();
+        int height = offscreenBuffer.getHeight();
+        boolean preferencesChanged = paintPreferencesChanged.getAndSet(false);
+        int viewID = getViewID();
+        Rectangle clip = scaledClip.getBounds();
+        // the buffer of the unchanged layers is not maintained meanwhile
+        nonChangedLayers.clear();
+        nonChangedLayersBuffer = null;
+        // hidden layers may be invalidated meanwhile
+        layerBuffers.keySet().retainAll(visibleLayers);
+        layerBuffers.keySet().removeAll(invalidated);
+
+        Graphics2D tempG = offscreenBuffer.createGraphics();
+        tempG.setClip(scaledClip);
+        tempG.setColor(PaintColors.getBackgroundColor());
+        tempG.fillRect(0, 0, width, height);
+        for (Layer layer : visibleLayers) {
+            LayerBuffer buffer = layerBuffers.computeIfAbsent(layer, l -> new LayerBuffer());
+            if (preferencesChanged || buffer.image == null
+                    || buffer.image.getWidth() != width || buffer.image.getHeight() != height
+                    || buffer.viewID != viewID || !buffer.validBounds.contains(clip)) {
+                if (buffer.image == null || buffer.image.getWidth() != width || buffer.image.getHeight() != height) {
+                    buffer.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+                }
+                Graphics2D g2 = buffer.image.createGraphics();
+                g2.setComposite(AlphaComposite.Clear);
+                g2.fillRect(0, 0, width, height);
+                g2.setPaintMode();
+                g2.setClip(scaledClip);
+                g2.setTransform(trDef);
+                paintLayer(layer, g2);
+                g2.dispose();
+                buffer.validBounds = clip;
+                buffer.viewID = viewID;
+            }
+            tempG.drawImage(buffer.image, 0, 0, null);
+        }
+        tempG.setTransform(trDef);
+        return tempG;
+    }
+
     private void drawTemporaryLayers(Graphics2D tempG, Bounds box) {
         synchronized (temporaryLayers) {
             for (MapViewPaintable mvp : temporaryLayers) {
@@ -804,6 +894,7 @@ LayerManager.LayerChangeListener, MainLayerManager.ActiveLayerChangeListener {
             mapMover.destroy();
         }
         nonChangedLayers.clear();
+        layerBuffers.clear();
         synchronized (temporaryLayers) {
             temporaryLayers.clear();
         }
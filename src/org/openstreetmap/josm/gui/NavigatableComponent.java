@@ -992,15 +992,16 @@ public class NavigatableComponent extends JComponent implements Helpful {
         DataSet ds = MainApplication.getLayerManager().getActiveDataSet();
 
         if (ds != null) {
-            double dist, snapDistanceSq = PROP_SNAP_DISTANCE.get();
-            snapDistanceSq *= snapDistanceSq;
+            double snapDistance = PROP_SNAP_DISTANCE.get();
+            double snapDistanceSq = snapDistance * snapDistance;
 
-            for (Node n : ds.searchNodes(getBBox(p, PROP_SNAP_DISTANCE.get()))) {
+            ds.searchNodes(getBBox(p, PROP_SNAP_DISTANCE.get()), n -> {
+                double dist;
                 if (predicate.test(n)
                         && (dist = getPoint2D(n).distanceSq(p)) < snapDistanceSq) {
                     nearestMap.computeIfAbsent(dist, k -> new LinkedList<>()).add(n);
                 }
-            }
+            });
         }
 
         return nearestMap;
@@ -1191,12 +1192,12 @@ public class NavigatableComponent extends JComponent implements Helpful {
         DataSet ds = MainApplication.getLayerManager().getActiveDataSet();
 
         if (ds != null) {
-            double snapDistanceSq = Config.getPref().getInt("mappaint.segment.snap-distance", 10);
-            snapDistanceSq *= snapDistanceSq;
+            int snapDistance = Config.getPref().getInt("mappaint.segment.snap-distance", 10);
+            double snapDistanceSq = (double) snapDistance * snapDistance;
 
-            for (Way w : ds.searchWays(getBBox(p, Config.getPref().getInt("mappaint.segment.snap-distance", 10)))) {
+            ds.searchWays(getBBox(p, snapDistance), w -> {
                 if (!predicate.test(w)) {
-                    continue;
+                    return;
                 }
                 Node lastN = null;
                 int i = -2;
@@ -1231,7 +1232,7 @@ public class NavigatableComponent extends JComponent implements Helpful {
 
                     lastN = n;
                 }
-            }
+            });
         }
 
         return nearestMap;
@@ -66,6 +66,17 @@ public abstract class FileExporter implements ActiveLayerChangeListener {
         exportData(file, layer); //backwards compatibility
     }
 
+    /**
+     * Determines if the given layer is completely saved by this exporter, so that it does not need to be saved again
+     * after the export. Exporters writing a format which cannot hold all the data of the layer return {@code false}.
+     * @param layer the exported layer
+     * @return {@code true} if the layer is completely saved by this exporter
+     * @since xxx
+     */
+    public boolean isCompleteSave(Layer layer) {
+        return true;
+    }
+
     /**
      * Returns the enabled state of this {@code FileExporter}. When enabled, it is listed and usable in "File-&gt;Save" dialogs.
      * @return true if this {@code FileExporter} is enabled
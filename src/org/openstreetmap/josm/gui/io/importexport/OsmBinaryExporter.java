@@ -0,0 +1,37 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.io.importexport;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.openstreetmap.josm.data.osm.DataSetSnapshot;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.io.OsmBinaryWriter;
+
+/**
+ * OSM data exporter that writes the JOSM binary format.
+ * <p>
+ * The format stores the local modifications like the .osm format, but it is much faster to write and to read,
+ * which makes it suitable for autosave. It is not meant to be exchanged with other applications.
+ * @see OsmBinaryWriter
+ * @since xxx
+ */
+public class OsmBinaryExporter extends OsmExporter {
+
+    /**
+     * Constructs a new {@code OsmBinaryExporter}.
+     */
+    public OsmBinaryExporter() {
+        super(OsmBinaryImporter.FILE_FILTER);
+    }
+
+    @Override
+    protected void doSave(File file, OsmDataLayer layer) throws IOException {
+        try (OsmBinaryWriter w = new OsmBinaryWriter(getOutputStream(file))) {
+            // write a snapshot, so that the data can be edited while it is being saved
+            try (DataSetSnapshot snapshot = layer.data.snapshot()) {
+                w.write(snapshot);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.io.importexport;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.InputStream;
+
+import org.openstreetmap.josm.actions.ExtensionFileFilter;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.io.IllegalDataException;
+import org.openstreetmap.josm.io.OsmBinaryReader;
+
+/**
+ * File importer that reads JOSM binary files (*.osmb), as written by autosave.
+ * @see OsmBinaryReader
+ * @since xxx
+ */
+public class OsmBinaryImporter extends OsmImporter {
+
+    /**
+     * The JOSM binary file filter (*.osmb files).
+     */
+    public static final ExtensionFileFilter FILE_FILTER = new ExtensionFileFilter(
+            "osmb", "osmb", tr("JOSM Binary Files") + " (*.osmb)");
+
+    /**
+     * Constructs a new {@code OsmBinaryImporter}.
+     */
+    public OsmBinaryImporter() {
+        super(FILE_FILTER);
+    }
+
+    @Override
+    protected DataSet parseDataSet(InputStream in, ProgressMonitor progressMonitor) throws IllegalDataException {
+        return OsmBinaryReader.parseDataSet(in, progressMonitor);
+    }
+}
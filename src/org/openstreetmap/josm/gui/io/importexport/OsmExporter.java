@@ -17,6 +17,7 @@ import java.text.MessageFormat;
 import javax.swing.JOptionPane;
 
 import org.openstreetmap.josm.actions.ExtensionFileFilter;
+import org.openstreetmap.josm.data.osm.DataSetSnapshot;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.layer.Layer;
 import org.openstreetmap.josm.gui.layer.OsmDataLayer;
@@ -101,7 +102,7 @@ public class OsmExporter extends FileExporter {
             if ((isAutosave || !Config.getPref().getBoolean("save.keepbackup", false)) && tmpFile != null) {
                 Utils.deleteFile(tmpFile);
             }
-            if (!isAutosave) {
+            if (!isAutosave && isCompleteSave(layer)) {
                 layer.onPostSaveToFile();
             }
         } catch (IOException | InvalidPathException e) {
@@ -134,11 +135,9 @@ public class OsmExporter extends FileExporter {
             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
             OsmWriter w = OsmWriterFactory.createOsmWriter(new PrintWriter(writer), false, layer.data.getVersion())
         ) {
-            layer.data.getReadLock().lock();
-            try {
-                w.write(layer.data);
-            } finally {
-                layer.data.getReadLock().unlock();
+            // write a snapshot, so that the data can be edited while it is being saved
+            try (DataSetSnapshot snapshot = layer.data.snapshot()) {
+                w.write(snapshot);
             }
         }
     }
@@ -128,6 +128,9 @@ public class OsmImporter extends FileImporter {
     }
 
     protected DataSet parseDataSet(InputStream in, ProgressMonitor progressMonitor) throws IllegalDataException {
+        if (OsmReader.PIPELINED.get()) {
+            return OsmReader.parseDataSetPipelined(in, progressMonitor);
+        }
         return OsmReader.parseDataSet(in, progressMonitor);
     }
 
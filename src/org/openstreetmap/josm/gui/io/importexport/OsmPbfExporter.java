@@ -0,0 +1,82 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.io.importexport;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.swing.JOptionPane;
+
+import org.openstreetmap.josm.actions.ExtensionFileFilter;
+import org.openstreetmap.josm.data.osm.DataSetSnapshot;
+import org.openstreetmap.josm.gui.ConditionalOptionPaneUtil;
+import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.gui.layer.Layer;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.io.PbfWriter;
+
+/**
+ * OSM data exporter that writes the OSM PBF format.
+ * <p>
+ * The format cannot store the local modifications (deleted and modified primitives) nor the incomplete primitives, so it
+ * should be used to export data rather than to save work which has not been uploaded yet. The user is asked to confirm
+ * such an export, and the layer still requires to be saved afterwards.
+ * @see PbfWriter
+ * @since xxx
+ */
+public class OsmPbfExporter extends OsmExporter {
+
+    /**
+     * Constructs a new {@code OsmPbfExporter}.
+     */
+    public OsmPbfExporter() {
+        super(new ExtensionFileFilter(
+            "osm.pbf", "osm.pbf", tr("OSM PBF Files") + " (*.osm.pbf)"));
+    }
+
+    /**
+     * Determines if the PBF format cannot hold all the data of the given layer.
+     * @param layer the layer
+     * @return {@code true} if the layer contains modified, deleted or incomplete primitives
+     */
+    private static boolean isLossy(OsmDataLayer layer) {
+        return layer.requiresUploadToServer()
+                || layer.data.allPrimitives().stream().anyMatch(p -> p.isModified() || p.isDeleted() || p.isIncomplete());
+    }
+
+    @Override
+    public void exportData(File file, Layer layer, boolean isAutosave) throws IOException {
+        setCanceled(false);
+        if (!isAutosave && layer instanceof OsmDataLayer && isLossy((OsmDataLayer) layer)
+                && !ConditionalOptionPaneUtil.showConfirmationDialog(
+                        "osm_pbf_export_modified",
+                        MainApplication.getMainFrame(),
+                        "<html>" + tr("Layer ''{0}'' contains local modifications or incomplete data.", layer.getName())
+                        + "<br>" + tr("The PBF format cannot store them, they will be missing from the file.")
+                        + "<br>" + tr("Do you want to export the layer anyway?") + "</html>",
+                        tr("Export to PBF"),
+                        JOptionPane.YES_NO_OPTION,
+                        JOptionPane.WARNING_MESSAGE,
+                        JOptionPane.YES_OPTION)) {
+            setCanceled(true);
+            return;
+        }
+        super.exportData(file, layer, isAutosave);
+    }
+
+    @Override
+    public boolean isCompleteSave(Layer layer) {
+        return !(layer instanceof OsmDataLayer) || !isLossy((OsmDataLayer) layer);
+    }
+
+    @Override
+    protected void doSave(File file, OsmDataLayer layer) throws IOException {
+        try (PbfWriter w = new PbfWriter(getOutputStream(file))) {
+            // write a snapshot, so that the data can be edited while it is being saved
+            try (DataSetSnapshot snapshot = layer.data.snapshot()) {
+                w.write(snapshot);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.io.importexport;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.InputStream;
+
+import org.openstreetmap.josm.actions.ExtensionFileFilter;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.io.IllegalDataException;
+import org.openstreetmap.josm.io.PbfReader;
+
+/**
+ * File importer that reads OSM PBF files (*.osm.pbf).
+ * @see <a href="https://wiki.openstreetmap.org/wiki/PBF_Format">PBF Format</a>
+ * @since xxx
+ */
+public class PbfImporter extends OsmImporter {
+
+    /**
+     * The OSM PBF file filter (*.osm.pbf and *.pbf files).
+     */
+    public static final ExtensionFileFilter FILE_FILTER = new ExtensionFileFilter(
+            "pbf", "pbf", tr("OSM PBF Files") + " (*.osm.pbf, *.pbf)");
+
+    /**
+     * Constructs a new {@code PbfImporter}.
+     */
+    public PbfImporter() {
+        super(FILE_FILTER);
+    }
+
+    @Override
+    protected DataSet parseDataSet(InputStream in, ProgressMonitor progressMonitor) throws IllegalDataException {
+        return PbfReader.parseDataSet(in, progressMonitor);
+    }
+}
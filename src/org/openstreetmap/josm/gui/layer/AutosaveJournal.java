@@ -0,0 +1,205 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.PrimitiveId;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataSetListenerAdapter;
+import org.openstreetmap.josm.data.osm.event.DataSetListenerAdapter.Listener;
+import org.openstreetmap.josm.io.IllegalDataException;
+import org.openstreetmap.josm.io.OsmBinaryReader;
+import org.openstreetmap.josm.io.OsmBinaryWriter;
+
+/**
+ * The autosave journal of a data layer. Between two full saves of the layer (checkpoints), the changes of the
+ * dataset are appended to a journal next to the last checkpoint file, so that the cost of autosave depends on the
+ * number of edits rather than on the size of the dataset.
+ * <p>
+ * The changes are recorded from the dataset events, which are also fired by undo and redo. Each journal entry holds
+ * the current state of the primitives changed since the previous entry, see {@link OsmBinaryWriter#writeJournalEntry}.
+ * @since xxx
+ */
+final class AutosaveJournal implements Listener {
+
+    private final DataSet data;
+    private final DataSetListenerAdapter adapter = new DataSetListenerAdapter(this);
+
+    private Set<PrimitiveId> changed = new HashSet<>();
+    private Set<PrimitiveId> removed = new HashSet<>();
+    /** Set when the changes cannot be known from the events, so that a checkpoint is needed */
+    private boolean checkpointNeeded = true;
+    private File checkpoint;
+    private int entries;
+    private int dataSources;
+
+    /**
+     * Constructs a new {@code AutosaveJournal} and starts recording the changes of the given dataset.
+     * @param data the dataset
+     */
+    AutosaveJournal(DataSet data) {
+        this.data = data;
+        data.addDataSetListener(adapter);
+    }
+
+    /**
+     * Stops recording the changes of the dataset.
+     */
+    void dispose() {
+        data.removeDataSetListener(adapter);
+    }
+
+    /**
+     * Returns the journal file of the given checkpoint file.
+     * @param file the checkpoint file
+     * @return the journal file
+     */
+    static File getJournalFile(File file) {
+        return new File(file.getPath() + ".journal");
+    }
+
+    @Override
+    public synchronized void processDatasetEvent(AbstractDatasetChangedEvent event) {
+        switch (event.getType()) {
+        case DATA_CHANGED:
+            List<AbstractDatasetChangedEvent> events = ((DataChangedEvent) event).getEvents();
+            if (events == null) {
+                checkpointNeeded = true;
+            } else {
+                events.forEach(this::processDatasetEvent);
+            }
+            break;
+        case FILTERS_CHANGED:
+            // not saved
+            break;
+        case PRIMITIVES_REMOVED:
+            for (OsmPrimitive p : event.getPrimitives()) {
+                if (p.getDataSet() == data) {
+                    // removed and added again in the same update, like when the id is changed after an upload.
+                    // The events are fired after the change, so the old id is unknown: a checkpoint is needed.
+                    checkpointNeeded = true;
+                }
+                changed.remove(p.getPrimitiveId());
+                removed.add(p.getPrimitiveId());
+            }
+            break;
+        default:
+            for (OsmPrimitive p : event.getPrimitives()) {
+                removed.remove(p.getPrimitiveId());
+                changed.add(p.getPrimitiveId());
+            }
+        }
+    }
+
+    /**
+     * Determines if the changes can be appended to the journal, rather than written in a new checkpoint.
+     * The journal is compacted into a new checkpoint after {@link AutosaveTask#PROP_JOURNAL_MAX_ENTRIES} entries,
+     * or when it gets larger than the checkpoint.
+     * @return {@code true} if {@link #append()} can be called
+     */
+    synchronized boolean canAppend() {
+        return !checkpointNeeded && checkpoint != null && checkpoint.exists()
+                && entries < AutosaveTask.PROP_JOURNAL_MAX_ENTRIES.get()
+                && getJournalFile(checkpoint).length() < checkpoint.length();
+    }
+
+    /**
+     * Starts a new journal for the given checkpoint file. Must be called before the checkpoint is written, so that
+     * the changes made while it is written are recorded in the journal.
+     * @param file the checkpoint file
+     * @throws IOException in case of I/O error
+     */
+    synchronized void checkpoint(File file) throws IOException {
+        changed.clear();
+        removed.clear();
+        checkpointNeeded = false;
+        checkpoint = file;
+        entries = 0;
+        dataSources = data.getDataSources().size();
+        Files.deleteIfExists(getJournalFile(file).toPath());
+    }
+
+    /**
+     * Appends the changes recorded since the previous entry or the checkpoint to the journal.
+     * @throws IOException in case of I/O error
+     */
+    void append() throws IOException {
+        Set<PrimitiveId> changedIds;
+        Set<PrimitiveId> removedIds;
+        File file;
+        synchronized (this) {
+            changedIds = changed;
+            removedIds = removed;
+            changed = new HashSet<>();
+            removed = new HashSet<>();
+            file = getJournalFile(checkpoint);
+            entries++;
+        }
+        Lock lock = data.getReadLock();
+        lock.lock();
+        try (OutputStream out = Files.newOutputStream(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            List<OsmPrimitive> primitives = new ArrayList<>(changedIds.size());
+            for (PrimitiveId id : changedIds) {
+                OsmPrimitive p = data.getPrimitiveById(id);
+                if (p != null) {
+                    primitives.add(p);
+                } else {
+                    removedIds.add(id);
+                }
+            }
+            Collection<DataSource> sources = data.getDataSources();
+            List<DataSource> newSources = new ArrayList<>(sources).subList(Math.min(dataSources, sources.size()), sources.size());
+            OsmBinaryWriter.writeJournalEntry(out, data, newSources, primitives, removedIds);
+            dataSources = sources.size();
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                checkpointNeeded = true;
+            }
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replays the journal of the given checkpoint file, if any: the checkpoint is replaced by a file holding the
+     * checkpoint and the changes of the journal, and the journal is deleted.
+     * @param file the checkpoint file
+     * @throws IOException in case of I/O error or invalid data
+     */
+    static void replay(File file) throws IOException {
+        File journal = getJournalFile(file);
+        if (!journal.exists()) {
+            return;
+        }
+        DataSet ds;
+        try (InputStream in = Files.newInputStream(file.toPath());
+             InputStream journalIn = Files.newInputStream(journal.toPath())) {
+            ds = OsmBinaryReader.parseDataSet(in, journalIn, null);
+        } catch (IllegalDataException e) {
+            throw new IOException(e);
+        }
+        File tmp = new File(file.getPath() + '~');
+        try (OsmBinaryWriter w = new OsmBinaryWriter(Files.newOutputStream(tmp.toPath()))) {
+            w.write(ds);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.delete(journal.toPath());
+    }
+}
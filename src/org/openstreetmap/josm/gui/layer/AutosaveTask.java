@@ -45,6 +45,7 @@ import org.openstreetmap.josm.data.preferences.IntegerProperty;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.Notification;
 import org.openstreetmap.josm.gui.io.importexport.NoteImporter;
+import org.openstreetmap.josm.gui.io.importexport.OsmBinaryImporter;
 import org.openstreetmap.josm.gui.io.importexport.OsmImporter;
 import org.openstreetmap.josm.gui.layer.LayerManager.LayerAddEvent;
 import org.openstreetmap.josm.gui.layer.LayerManager.LayerChangeListener;
@@ -104,12 +105,29 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
      * Defines if a notification should be displayed after each autosave
      */
     public static final BooleanProperty PROP_NOTIFICATION = new BooleanProperty("autosave.notification", false);
+    /**
+     * Defines if data layers are saved in the JOSM binary format, which is much faster to write than the .osm format
+     * @since xxx
+     */
+    public static final BooleanProperty PROP_BINARY = new BooleanProperty("autosave.binary", false);
+    /**
+     * Defines if the changes of data layers are appended to a journal between two full saves. Data layers are then
+     * saved in the JOSM binary format.
+     * @since xxx
+     */
+    public static final BooleanProperty PROP_JOURNAL = new BooleanProperty("autosave.journal", false);
+    /**
+     * Defines how many times the changes of a data layer are appended to its journal before it is saved again
+     * @since xxx
+     */
+    public static final IntegerProperty PROP_JOURNAL_MAX_ENTRIES = new IntegerProperty("autosave.journal.maxEntries", 20);
 
     protected static final class AutosaveLayerInfo<T extends AbstractModifiableLayer> {
         private final T layer;
         private String layerName;
         private String layerFileName;
         private final Deque<File> backupFiles = new LinkedList<>();
+        private AutosaveJournal journal;
 
         AutosaveLayerInfo(T layer) {
             this.layer = layer;
@@ -198,7 +216,9 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
             File result = new File(autosaveDir, filename + '.' +
                     (layer.layer instanceof NoteLayer ?
                             Config.getPref().get("autosave.notes.extension", "osn") :
-                            Config.getPref().get("autosave.extension", "osm")));
+                            // the journal can only be replayed on files in the binary format
+                            layer.journal != null ? "osmb" :
+                            Config.getPref().get("autosave.extension", PROP_BINARY.get() ? "osmb" : "osm")));
             try {
                 if (index > PROP_INDEX_LIMIT.get())
                     throw new IOException("index limit exceeded");
@@ -234,10 +254,17 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
         try {
             Data data = info.layer.getData();
             if (data != null && changedData.remove(data)) {
-                File file = getNewLayerFile(info, Instant.now(), 0);
-                if (file != null) {
-                    info.backupFiles.add(file);
-                    info.layer.autosave(file);
+                if (info.journal != null && info.journal.canAppend()) {
+                    info.journal.append();
+                } else {
+                    File file = getNewLayerFile(info, Instant.now(), 0);
+                    if (file != null) {
+                        info.backupFiles.add(file);
+                        if (info.journal != null) {
+                            info.journal.checkpoint(file);
+                        }
+                        info.layer.autosave(file);
+                    }
                 }
             }
         } catch (IOException e) {
@@ -247,6 +274,7 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
             File oldFile = info.backupFiles.remove();
             if (Utils.deleteFile(oldFile, marktr("Unable to delete old backup file {0}"))) {
                 Utils.deleteFile(getPidFile(oldFile), marktr("Unable to delete old backup file {0}"));
+                deleteJournalFile(oldFile);
             }
         }
     }
@@ -284,7 +312,11 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
     private void registerNewlayer(OsmDataLayer layer) {
         synchronized (layersLock) {
             layer.getDataSet().addDataSetListener(datasetAdapter);
-            layersInfo.add(new AutosaveLayerInfo<>(layer));
+            AutosaveLayerInfo<OsmDataLayer> info = new AutosaveLayerInfo<>(layer);
+            if (PROP_JOURNAL.get()) {
+                info.journal = new AutosaveJournal(layer.getDataSet());
+            }
+            layersInfo.add(info);
         }
     }
 
@@ -341,6 +373,9 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
             if (info.layer == removedLayer) {
 
                 savelayer(info);
+                if (info.journal != null) {
+                    info.journal.dispose();
+                }
                 File lastFile = info.backupFiles.pollLast();
                 if (lastFile != null) {
                     moveToDeletedLayersFolder(lastFile);
@@ -348,6 +383,7 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
                 for (File file: info.backupFiles) {
                     if (Utils.deleteFile(file)) {
                         Utils.deleteFile(getPidFile(file));
+                        deleteJournalFile(file);
                     }
                 }
 
@@ -386,16 +422,37 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
         return new File(autosaveDir, osmFile.getName().replaceFirst("[.][^.]+$", ".pid"));
     }
 
+    private static void deleteJournalFile(File osmFile) {
+        File journal = AutosaveJournal.getJournalFile(osmFile);
+        if (journal.exists()) {
+            Utils.deleteFile(journal, marktr("Unable to delete old backup file {0}"));
+        }
+    }
+
+    /**
+     * Replays the journal of the given file, if any, so that the file holds all the changes which have been saved.
+     * @param file the autosave file
+     */
+    private static void replayJournal(File file) {
+        try {
+            AutosaveJournal.replay(file);
+        } catch (IOException e) {
+            Logging.log(Logging.LEVEL_ERROR, tr("Unable to replay the autosave journal of {0}, the last changes are lost", file), e);
+        }
+    }
+
     /**
      * Replies the list of .osm files still present in autosave dir, that are not currently managed by another instance of JOSM.
      * These files are hence unsaved layers from an old instance of JOSM that crashed and may be recovered by this instance.
+     * The autosave journals of the files are replayed, see {@link #PROP_JOURNAL}.
      * @return The list of .osm files still present in autosave dir, that are not currently managed by another instance of JOSM
      */
     public List<File> getUnsavedLayersFiles() {
         List<File> result = new ArrayList<>();
         try {
             File[] files = autosaveDir.listFiles((FileFilter)
-                    pathname -> OsmImporter.FILE_FILTER.accept(pathname) || NoteImporter.FILE_FILTER.accept(pathname));
+                    pathname -> OsmImporter.FILE_FILTER.accept(pathname) || OsmBinaryImporter.FILE_FILTER.accept(pathname)
+                    || NoteImporter.FILE_FILTER.accept(pathname));
             if (files == null)
                 return result;
             for (File file: files) {
@@ -414,6 +471,7 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
                         }
                     }
                     if (!skipFile) {
+                        replayJournal(file);
                         result.add(file);
                     }
                 }
@@ -465,6 +523,7 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
     private void moveToDeletedLayersFolder(File f) {
         File backupFile = new File(deletedLayersDir, f.getName());
         File pidFile = getPidFile(f);
+        replayJournal(f);
 
         if (backupFile.exists()) {
             deletedLayers.remove(backupFile);
@@ -92,6 +92,9 @@ import org.openstreetmap.josm.data.osm.visitor.BoundingXYVisitor;
 import org.openstreetmap.josm.data.osm.visitor.OsmPrimitiveVisitor;
 import org.openstreetmap.josm.data.osm.visitor.paint.AbstractMapRenderer;
 import org.openstreetmap.josm.data.osm.visitor.paint.MapRendererFactory;
+import org.openstreetmap.josm.data.osm.visitor.paint.SimplifiedGeometryCache;
+import org.openstreetmap.josm.data.osm.visitor.paint.StyleRecordCache;
+import org.openstreetmap.josm.data.osm.visitor.paint.StyledMapRenderer;
 import org.openstreetmap.josm.data.osm.visitor.paint.relations.MultipolygonCache;
 import org.openstreetmap.josm.data.preferences.BooleanProperty;
 import org.openstreetmap.josm.data.preferences.IntegerProperty;
@@ -113,6 +116,8 @@ import org.openstreetmap.josm.gui.io.AbstractUploadDialog;
 import org.openstreetmap.josm.gui.io.UploadDialog;
 import org.openstreetmap.josm.gui.io.UploadLayerTask;
 import org.openstreetmap.josm.gui.io.importexport.NoteExporter;
+import org.openstreetmap.josm.gui.io.importexport.OsmBinaryExporter;
+import org.openstreetmap.josm.gui.io.importexport.OsmBinaryImporter;
 import org.openstreetmap.josm.gui.io.importexport.OsmExporter;
 import org.openstreetmap.josm.gui.io.importexport.OsmImporter;
 import org.openstreetmap.josm.gui.io.importexport.ValidatorErrorExporter;
@@ -382,6 +387,7 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
      */
     public final DataSet data;
     private final DataSetListenerAdapter dataSetListenerAdapter;
+    private final StyleRecordCache styleRecordCache = new StyleRecordCache();
 
     /**
      * a texture for non-downloaded area
@@ -439,6 +445,7 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
         this.setAssociatedFile(associatedFile);
         data.addDataSetListener(dataSetListenerAdapter);
         data.addDataSetListener(MultipolygonCache.getInstance());
+        data.addDataSetListener(SimplifiedGeometryCache.getInstance());
         data.addHighlightUpdateListener(this);
         data.addSelectionListener(this);
         if (name != null && name.startsWith(createLayerName("")) && Character.isDigit(
@@ -540,6 +547,9 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
         AbstractMapRenderer painter = MapRendererFactory.getInstance().createActiveRenderer(g, mv, inactive);
         painter.enableSlowOperations(mv.getMapMover() == null || !mv.getMapMover().movementInProgress()
                 || !PROPERTY_HIDE_LABELS_WHILE_DRAGGING.get());
+        if (painter instanceof StyledMapRenderer) {
+            ((StyledMapRenderer) painter).setStyleRecordCache(styleRecordCache);
+        }
         painter.render(data, virtual, box);
         MainApplication.getMap().conflictDialog.paintConflicts(g, mv);
     }
@@ -595,9 +605,21 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
      * @param progressMonitor the progress monitor, can be {@code null}
      */
     public void mergeFrom(final DataSet from, ProgressMonitor progressMonitor) {
+        mergeFrom(from, progressMonitor, true);
+    }
+
+    /**
+     * merges the primitives in dataset <code>from</code> into the dataset of this layer
+     *
+     * @param from  the source data set
+     * @param progressMonitor the progress monitor, can be {@code null}
+     * @param mergeBounds whether the data sources of <code>from</code> are merged too
+     * @since xxx
+     */
+    public void mergeFrom(final DataSet from, ProgressMonitor progressMonitor, boolean mergeBounds) {
         final DataSetMerger visitor = new DataSetMerger(data, from);
         try {
-            visitor.merge(progressMonitor);
+            visitor.merge(progressMonitor, mergeBounds);
         } catch (DataIntegrityProblemException e) {
             Logging.error(e);
             JOptionPane.showMessageDialog(
@@ -1143,10 +1165,13 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
         data.removeHighlightUpdateListener(this);
         data.removeDataSetListener(dataSetListenerAdapter);
         data.removeDataSetListener(MultipolygonCache.getInstance());
+        data.removeDataSetListener(SimplifiedGeometryCache.getInstance());
+        SimplifiedGeometryCache.getInstance().clear(data);
         data.clearSelection();
         validationErrors.clear();
         removeClipboardDataFor(this);
         recentRelations.clear();
+        styleRecordCache.clear();
     }
 
     protected static void removeClipboardDataFor(OsmDataLayer osm) {
@@ -1165,6 +1190,7 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
 
     @Override
     public void processDatasetEvent(AbstractDatasetChangedEvent event) {
+        styleRecordCache.clear();
         invalidate();
         setRequiresSaveToFile(true);
         setRequiresUploadToServer(event.getDataset().requiresUploadToServer());
@@ -1172,6 +1198,7 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
 
     @Override
     public void selectionChanged(SelectionChangeEvent event) {
+        styleRecordCache.clear();
         invalidate();
     }
 
@@ -1304,6 +1331,7 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
 
     @Override
     public void highlightUpdated(HighlightUpdateEvent e) {
+        styleRecordCache.clear();
         invalidate();
     }
 
@@ -1347,7 +1375,8 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
 
     @Override
     public boolean autosave(File file) throws IOException {
-        new OsmExporter().exportData(file, this, true /* no backup with appended ~ */);
+        OsmExporter exporter = OsmBinaryImporter.FILE_FILTER.acceptName(file.getName()) ? new OsmBinaryExporter() : new OsmExporter();
+        exporter.exportData(file, this, true /* no backup with appended ~ */);
         return true;
     }
 
@@ -110,6 +110,15 @@ public class ElemStyles implements PreferenceChangedListener {
         });
     }
 
+    /**
+     * Returns the index of the style cache, which is incremented each time the cached styles are cleared.
+     * @return the index of the style cache
+     * @since xxx
+     */
+    public short getCacheIndex() {
+        return cacheIdx;
+    }
+
     /**
      * Returns the list of style sources.
      * @return the list of style sources
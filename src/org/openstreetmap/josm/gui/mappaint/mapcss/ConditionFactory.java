@@ -33,6 +33,7 @@ import org.openstreetmap.josm.gui.mappaint.Environment;
 import org.openstreetmap.josm.gui.mappaint.mapcss.Condition.Context;
 import org.openstreetmap.josm.gui.mappaint.mapcss.Condition.TagCondition;
 import org.openstreetmap.josm.tools.CheckParameterUtil;
+import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.Utils;
 
 /**
@@ -67,6 +68,8 @@ public final class ConditionFactory {
             }
             if (!considerValAsKey && op == Op.EQ)
                 return new SimpleKeyValueCondition(k, v);
+            if (!considerValAsKey && KeyValueNumericCondition.SUPPORTED_OPS.contains(op) && isFloat(v))
+                return new KeyValueNumericCondition(k, v, op);
             return new KeyValueCondition(k, v, op, considerValAsKey);
         case LINK:
             if (considerValAsKey)
@@ -83,6 +86,16 @@ public final class ConditionFactory {
         }
     }
 
+    private static boolean isFloat(String v) {
+        try {
+            Float.parseFloat(v);
+            return true;
+        } catch (NumberFormatException e) {
+            Logging.trace(e);
+            return false;
+        }
+    }
+
     /**
      * Create a condition in which the key and the value need to match a given regexp
      * @param k The key regexp
@@ -356,6 +369,52 @@ public final class ConditionFactory {
         }
     }
 
+    /**
+     * A key/value condition which compares the value to a fixed number, e.g. {@code [width>=2.5]}.
+     * <p>
+     * Extra class for performance reasons: the reference value is parsed once.
+     * @since xxx
+     */
+    public static class KeyValueNumericCondition extends KeyValueCondition {
+        protected static final Set<Op> SUPPORTED_OPS = EnumSet.of(Op.GREATER_OR_EQUAL, Op.GREATER, Op.LESS_OR_EQUAL, Op.LESS);
+
+        final float reference;
+
+        /**
+         * Constructs a new {@code KeyValueNumericCondition}.
+         * @param k key
+         * @param v value
+         * @param op operation
+         * @throws NumberFormatException if the value is not a number
+         */
+        public KeyValueNumericCondition(String k, String v, Op op) {
+            super(k, v, op, false);
+            CheckParameterUtil.ensureThat(SUPPORTED_OPS.contains(op), "Op must be a numeric comparison");
+            this.reference = Float.parseFloat(v);
+        }
+
+        @Override
+        public boolean applies(Tagged osm) {
+            final String value = osm.get(k);
+            if (value == null)
+                return false;
+            float f;
+            try {
+                f = Float.parseFloat(value);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            int res = Float.compare(f, reference);
+            switch (op) {
+            case GREATER_OR_EQUAL: return res >= 0;
+            case GREATER: return res > 0;
+            case LESS_OR_EQUAL: return res <= 0;
+            case LESS: return res < 0;
+            default: throw new IllegalStateException();
+            }
+        }
+    }
+
     /**
      * This condition requires a fixed key to match a given regexp
      */
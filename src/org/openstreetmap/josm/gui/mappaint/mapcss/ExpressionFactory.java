@@ -6,12 +6,15 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.DoubleBinaryOperator;
 import java.util.function.DoubleUnaryOperator;
@@ -19,6 +22,7 @@ import java.util.function.Function;
 
 import org.openstreetmap.josm.gui.mappaint.Cascade;
 import org.openstreetmap.josm.gui.mappaint.Environment;
+import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.SubclassFilteredCollection;
 import org.openstreetmap.josm.tools.Utils;
 
@@ -50,6 +54,13 @@ public final class ExpressionFactory {
     interface Factory {
         Expression createExpression(List<Expression> args);
 
+        /**
+         * Factory of expressions which depend on the environment, and cannot be evaluated in advance.
+         */
+        @FunctionalInterface
+        interface EnvFactory extends Factory {
+        }
+
         static Factory of(DoubleUnaryOperator operator) {
             return of(Double.class, operator::applyAsDouble);
         }
@@ -118,18 +129,18 @@ public final class ExpressionFactory {
             };
         }
 
-        static <T> Factory ofEnv(Function<Environment, ?> function) {
+        static <T> EnvFactory ofEnv(Function<Environment, ?> function) {
             return args -> function::apply;
         }
 
-        static <T> Factory ofEnv(Class<T> type, BiFunction<Environment, T, ?> function) {
+        static <T> EnvFactory ofEnv(Class<T> type, BiFunction<Environment, T, ?> function) {
             return args -> env -> {
                 T v = Cascade.convertTo(args.get(0).evaluate(env), type);
                 return v == null ? null : function.apply(env, v);
             };
         }
 
-        static <T, U> Factory ofEnv(Class<T> type1, Class<U> type2,
+        static <T, U> EnvFactory ofEnv(Class<T> type1, Class<U> type2,
                                     BiFunction<Environment, T, ?> biFunction, TriFunction<Environment, T, U, ?> triFunction) {
             return args -> env -> {
                 T v1 = args.size() >= 1 ? Cascade.convertTo(args.get(0).evaluate(env), type1) : null;
@@ -141,6 +152,12 @@ public final class ExpressionFactory {
 
     static final Map<String, Factory> FACTORY_MAP = new HashMap<>();
 
+    /**
+     * Functions which are not registered with {@code Factory.ofEnv}, but which must not be evaluated in advance:
+     * they depend on the environment or on the language, or have side effects.
+     */
+    private static final Set<String> NON_CONSTANT_FUNCTIONS = new HashSet<>(Arrays.asList("count_roles", "print", "println", "tr"));
+
     static {
         initFactories();
     }
@@ -291,11 +308,77 @@ public final class ExpressionFactory {
 
         Factory factory = FACTORY_MAP.get(name);
         if (factory != null) {
-            return factory.createExpression(args);
+            Expression expression = factory.createExpression(args);
+            if (!(factory instanceof Factory.EnvFactory) && !NON_CONSTANT_FUNCTIONS.contains(name)
+                    && args.stream().allMatch(ExpressionFactory::isConstant)) {
+                return ConstantFunction.of(name, expression);
+            }
+            return expression;
         }
         return NullExpression.INSTANCE;
     }
 
+    private static boolean isConstant(Expression e) {
+        return e instanceof LiteralExpression || e instanceof ConstantFunction;
+    }
+
+    /**
+     * Function with constant arguments, evaluated once when the style is parsed.
+     * <p>
+     * Unlike a {@link LiteralExpression}, it is still handled as a function by the declarations,
+     * e.g. {@code text: concat("a", "b")} is a static text rather than a reference to a tag.
+     * @since xxx
+     */
+    public static final class ConstantFunction implements Expression {
+
+        private final String name;
+        private final Object value;
+
+        private ConstantFunction(String name, Object value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        /**
+         * Evaluates a function with constant arguments.
+         * @param name the function name
+         * @param expression the function expression
+         * @return the constant function, or {@code expression} if its value is mutable or cannot be computed
+         */
+        static Expression of(String name, Expression expression) {
+            Object value;
+            try {
+                value = expression.evaluate(null);
+            } catch (RuntimeException e) {
+                // report the error on evaluation, as without folding
+                Logging.trace(e);
+                return expression;
+            }
+            if (value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof Color) {
+                return new ConstantFunction(name, value);
+            }
+            return expression;
+        }
+
+        /**
+         * Returns the value of the function.
+         * @return the value of the function
+         */
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public Object evaluate(Environment env) {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return name + "(...)=<" + value + '>';
+        }
+    }
+
     /**
      * Expression that always evaluates to null.
      */
@@ -6,6 +6,7 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
 import java.text.MessageFormat;
 import java.time.DateTimeException;
 import java.util.ArrayList;
@@ -15,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import org.openstreetmap.josm.data.Bounds;
@@ -30,6 +32,7 @@ import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
 import org.openstreetmap.josm.data.osm.PrimitiveData;
 import org.openstreetmap.josm.data.osm.PrimitiveId;
+import org.openstreetmap.josm.data.osm.PrimitiveIdMap;
 import org.openstreetmap.josm.data.osm.Relation;
 import org.openstreetmap.josm.data.osm.RelationData;
 import org.openstreetmap.josm.data.osm.RelationMember;
@@ -47,6 +50,7 @@ import org.openstreetmap.josm.tools.CheckParameterUtil;
 import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.UncheckedParseException;
 import org.openstreetmap.josm.tools.Utils;
+import org.openstreetmap.josm.tools.collections.LongArrayList;
 import org.openstreetmap.josm.tools.date.DateUtils;
 
 /**
@@ -93,11 +97,14 @@ public abstract class AbstractReader {
 
     protected Changeset uploadChangeset;
 
+    /** the same map as {@link #externalIdMap}, that can be queried without creating a {@link SimplePrimitiveId} */
+    private final PrimitiveIdMap<OsmPrimitive> externalIds = new PrimitiveIdMap<>();
+
     /** the map from external ids to read OsmPrimitives. External ids are
      * longs too, but in contrast to internal ids negative values are used
      * to identify primitives unknown to the OSM server
      */
-    protected final Map<PrimitiveId, OsmPrimitive> externalIdMap = new HashMap<>();
+    protected final Map<PrimitiveId, OsmPrimitive> externalIdMap = externalIds;
 
     /**
      * Data structure for the remaining way objects
@@ -109,6 +116,17 @@ public abstract class AbstractReader {
      */
     protected final Map<Long, Collection<RelationMemberData>> relations = new HashMap<>();
 
+    /** Receives the batches of parsed primitives in incremental mode, see {@link #setBatchConsumer} */
+    private Consumer<DataSet> batchConsumer;
+    /** The maximal number of primitives in a batch, in incremental mode */
+    private int maxBatchSize;
+    /** The maximal delay between two batches, in nanoseconds, in incremental mode */
+    private long maxBatchDelay;
+    /** The number of primitives built since the last batch */
+    private int batchSize;
+    /** The time of the last batch, as returned by {@link System#nanoTime} */
+    private long lastBatchTime;
+
     /**
      * Replies the parsed data set
      *
@@ -118,6 +136,58 @@ public abstract class AbstractReader {
         return ds;
     }
 
+    /**
+     * Enables the incremental mode: the parsed primitives are passed to the given consumer in batches, while parsing,
+     * instead of being all returned at the end. The data set returned by the parser then only contains the last ones.
+     * <p>
+     * Each batch is a data set of its own. The primitives of other batches it refers to are incomplete primitives,
+     * completed when merging the batches with {@link org.openstreetmap.josm.data.osm.DataSetMerger}.
+     * This is only supported for data coming from the OSM server, without new primitives.
+     * @param consumer the consumer of batches, called in the parsing thread
+     * @param maxBatchSize the maximal number of primitives in a batch
+     * @param maxBatchDelay the maximal delay between two batches, in milliseconds
+     * @since xxx
+     */
+    public void setBatchConsumer(Consumer<DataSet> consumer, int maxBatchSize, long maxBatchDelay) {
+        this.batchConsumer = consumer;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelay = TimeUnit.MILLISECONDS.toNanos(maxBatchDelay);
+        this.lastBatchTime = System.nanoTime();
+    }
+
+    /**
+     * Passes the primitives parsed so far to the batch consumer, if there are enough of them or if the last batch is too old.
+     * Must be called by the parsers between two primitives.
+     * @throws IllegalDataException if a data integrity problem is detected
+     * @since xxx
+     */
+    protected final void flushBatchIfNeeded() throws IllegalDataException {
+        if (batchConsumer != null && batchSize > 0
+                && (batchSize >= maxBatchSize || System.nanoTime() - lastBatchTime >= maxBatchDelay)) {
+            boolean readOnly = ds.isLocked();
+            if (readOnly) {
+                ds.unlock();
+            }
+            prepareDataSet();
+            callPostProcessors(NullProgressMonitor.INSTANCE);
+            advanceIdGenerators();
+            DataSet batch = ds;
+            ds = new DataSet();
+            ds.setVersion(batch.getVersion());
+            ds.setDownloadPolicy(batch.getDownloadPolicy());
+            ds.setUploadPolicy(batch.getUploadPolicy());
+            if (readOnly) {
+                ds.lock();
+            }
+            externalIds.clear();
+            ways.clear();
+            relations.clear();
+            batchSize = 0;
+            batchConsumer.accept(batch);
+            lastBatchTime = System.nanoTime();
+        }
+    }
+
     /**
      * Iterate over registered postprocessors and give them each a chance to modify the dataset we have just loaded.
      * @param progressMonitor Progress monitor
@@ -136,11 +206,7 @@ public abstract class AbstractReader {
      *
      */
     protected void processNodesAfterParsing() {
-        for (OsmPrimitive primitive: externalIdMap.values()) {
-            if (primitive instanceof Node) {
-                this.ds.addPrimitive(primitive);
-            }
-        }
+        this.ds.addPrimitives(externalIds.getMap(OsmPrimitiveType.NODE).values());
     }
 
     /**
@@ -150,37 +216,53 @@ public abstract class AbstractReader {
      * @throws IllegalDataException if a data integrity problem is detected
      */
     protected void processWaysAfterParsing() throws IllegalDataException {
+        List<Way> parsedWays = new ArrayList<>(ways.size());
         for (Entry<Long, Collection<Long>> entry : ways.entrySet()) {
             Long externalWayId = entry.getKey();
-            Way w = (Way) externalIdMap.get(new SimplePrimitiveId(externalWayId, OsmPrimitiveType.WAY));
-            List<Node> wayNodes = new ArrayList<>();
-            for (long id : entry.getValue()) {
-                Node n = (Node) externalIdMap.get(new SimplePrimitiveId(id, OsmPrimitiveType.NODE));
-                if (n == null) {
-                    if (id <= 0)
-                        throw new IllegalDataException(
-                                tr("Way with external ID ''{0}'' includes missing node with external ID ''{1}''.",
-                                        Long.toString(externalWayId),
-                                        Long.toString(id)));
-                    // create an incomplete node if necessary
-                    n = (Node) ds.getPrimitiveById(id, OsmPrimitiveType.NODE);
-                    if (n == null) {
-                        n = new Node(id);
-                        ds.addPrimitive(n);
-                    }
+            Way w = (Way) externalIds.get(externalWayId, OsmPrimitiveType.WAY);
+            Collection<Long> nodeIds = entry.getValue();
+            List<Node> wayNodes = new ArrayList<>(nodeIds.size());
+            if (nodeIds instanceof LongArrayList) {
+                // avoid boxing the ids of the lists created by parseWay
+                LongArrayList ids = (LongArrayList) nodeIds;
+                for (int i = 0; i < ids.size(); i++) {
+                    addWayNode(w, externalWayId, ids.getLong(i), wayNodes);
                 }
-                if (n.isDeleted()) {
-                    Logging.info(tr("Deleted node {0} is part of way {1}", Long.toString(id), Long.toString(w.getId())));
-                } else {
-                    wayNodes.add(n);
+            } else {
+                for (long id : nodeIds) {
+                    addWayNode(w, externalWayId, id, wayNodes);
                 }
             }
             w.setNodes(wayNodes);
-            if (w.hasIncompleteNodes()) {
+            // in incremental mode, the nodes of previous batches are always incomplete
+            if (w.hasIncompleteNodes() && batchConsumer == null) {
                 Logging.info(tr("Way {0} with {1} nodes is incomplete because at least one node was missing in the loaded data.",
                         Long.toString(externalWayId), w.getNodesCount()));
             }
-            ds.addPrimitive(w);
+            parsedWays.add(w);
+        }
+        ds.addPrimitives(parsedWays);
+    }
+
+    private void addWayNode(Way w, long externalWayId, long id, List<Node> wayNodes) throws IllegalDataException {
+        Node n = (Node) externalIds.get(id, OsmPrimitiveType.NODE);
+        if (n == null) {
+            if (id <= 0)
+                throw new IllegalDataException(
+                        tr("Way with external ID ''{0}'' includes missing node with external ID ''{1}''.",
+                                Long.toString(externalWayId),
+                                Long.toString(id)));
+            // create an incomplete node if necessary
+            n = (Node) ds.getPrimitiveById(id, OsmPrimitiveType.NODE);
+            if (n == null) {
+                n = new Node(id);
+                ds.addPrimitive(n);
+            }
+        }
+        if (n.isDeleted()) {
+            Logging.info(tr("Deleted node {0} is part of way {1}", Long.toString(id), Long.toString(w.getId())));
+        } else {
+            wayNodes.add(n);
         }
     }
 
@@ -193,22 +275,20 @@ public abstract class AbstractReader {
     protected void processRelationsAfterParsing() throws IllegalDataException {
 
         // First add all relations to make sure that when relation reference other relation, the referenced will be already in dataset
+        List<Relation> parsedRelations = new ArrayList<>(relations.size());
         for (Long externalRelationId : relations.keySet()) {
-            Relation relation = (Relation) externalIdMap.get(
-                    new SimplePrimitiveId(externalRelationId, OsmPrimitiveType.RELATION)
-            );
-            ds.addPrimitive(relation);
+            Relation relation = (Relation) externalIds.get(externalRelationId, OsmPrimitiveType.RELATION);
+            parsedRelations.add(relation);
         }
+        ds.addPrimitives(parsedRelations);
 
         for (Entry<Long, Collection<RelationMemberData>> entry : relations.entrySet()) {
             Long externalRelationId = entry.getKey();
-            Relation relation = (Relation) externalIdMap.get(
-                    new SimplePrimitiveId(externalRelationId, OsmPrimitiveType.RELATION)
-            );
-            List<RelationMember> relationMembers = new ArrayList<>();
+            Relation relation = (Relation) externalIds.get(externalRelationId, OsmPrimitiveType.RELATION);
+            List<RelationMember> relationMembers = new ArrayList<>(entry.getValue().size());
             for (RelationMemberData rm : entry.getValue()) {
                 // lookup the member from the map of already created primitives
-                OsmPrimitive primitive = externalIdMap.get(new SimplePrimitiveId(rm.getMemberId(), rm.getMemberType()));
+                OsmPrimitive primitive = externalIds.get(rm.getMemberId(), rm.getMemberType());
 
                 if (primitive == null) {
                     if (rm.getMemberId() <= 0)
@@ -237,7 +317,7 @@ public abstract class AbstractReader {
                         }
 
                         ds.addPrimitive(primitive);
-                        externalIdMap.put(new SimplePrimitiveId(rm.getMemberId(), rm.getMemberType()), primitive);
+                        externalIds.put(rm.getMemberId(), rm.getMemberType(), primitive);
                     }
                 }
                 if (primitive.isDeleted()) {
@@ -286,6 +366,72 @@ public abstract class AbstractReader {
 
     protected final DataSet doParseDataSet(InputStream source, ProgressMonitor progressMonitor, ParserWorker parserWorker)
             throws IllegalDataException {
+        return doParseBinaryDataSet(source, progressMonitor, in -> {
+            try (InputStreamReader ir = UTFInputStreamReader.create(in)) {
+                parserWorker.accept(ir);
+            }
+        });
+    }
+
+    /**
+     * Parser of text formats able to decode the bytes themselves, without the copies of an {@link InputStreamReader}.
+     * @since xxx
+     */
+    @FunctionalInterface
+    protected interface ByteParserWorker {
+        /**
+         * Effectively parses the file, depending on the format (XML, etc.)
+         * @param in input stream, positioned after the byte order mark
+         * @param encoding the encoding of the stream, detected from its byte order mark (UTF-8 by default)
+         * @throws IllegalDataException in case of invalid data
+         * @throws IOException in case of I/O error
+         */
+        void accept(InputStream in, String encoding) throws IllegalDataException, IOException;
+    }
+
+    /**
+     * Parses a data set from a text format, decoded by the parser itself.
+     * @param source the source input stream
+     * @param progressMonitor the progress monitor, can be {@code null}
+     * @param parserWorker the parser reading all primitives from the stream
+     * @return the parsed data set
+     * @throws IllegalDataException in case of invalid data
+     * @since xxx
+     */
+    protected final DataSet doParseByteDataSet(InputStream source, ProgressMonitor progressMonitor, ByteParserWorker parserWorker)
+            throws IllegalDataException {
+        return doParseBinaryDataSet(source, progressMonitor, in -> {
+            PushbackInputStream pushbackStream = new PushbackInputStream(in, 4);
+            parserWorker.accept(pushbackStream, UTFInputStreamReader.detectEncoding(pushbackStream, "UTF-8"));
+        });
+    }
+
+    /**
+     * Parser of binary formats, which cannot be read through an {@link InputStreamReader}.
+     * @since xxx
+     */
+    @FunctionalInterface
+    protected interface BinaryParserWorker {
+        /**
+         * Effectively parses the file, depending on the format (PBF, etc.)
+         * @param in input stream
+         * @throws IllegalDataException in case of invalid data
+         * @throws IOException in case of I/O error
+         */
+        void accept(InputStream in) throws IllegalDataException, IOException;
+    }
+
+    /**
+     * Parses a data set from a binary format.
+     * @param source the source input stream
+     * @param progressMonitor the progress monitor, can be {@code null}
+     * @param parserWorker the parser reading all primitives from the stream
+     * @return the parsed data set
+     * @throws IllegalDataException in case of invalid data
+     * @since xxx
+     */
+    protected final DataSet doParseBinaryDataSet(InputStream source, ProgressMonitor progressMonitor, BinaryParserWorker parserWorker)
+            throws IllegalDataException {
         if (progressMonitor == null) {
             progressMonitor = NullProgressMonitor.INSTANCE;
         }
@@ -296,8 +442,8 @@ public abstract class AbstractReader {
             progressMonitor.beginTask(tr("Prepare OSM data..."), 4); // read, prepare, post-process, render
             progressMonitor.indeterminateSubTask(tr("Parsing OSM data..."));
 
-            try (InputStreamReader ir = UTFInputStreamReader.create(source)) {
-                parserWorker.accept(ir);
+            try (InputStream in = source) {
+                parserWorker.accept(in);
             }
             progressMonitor.worked(1);
 
@@ -328,21 +474,24 @@ public abstract class AbstractReader {
         } catch (IOException e) {
             throw new IllegalDataException(e);
         } finally {
-            for (OsmPrimitiveType dataType : OsmPrimitiveType.dataValues()) {
-                OptionalLong minId = externalIdMap.entrySet().parallelStream()
-                        .filter(e -> e.getKey().getType() == dataType)
-                        .mapToLong(e -> e.getValue().getUniqueId()).min();
-                synchronized (dataType.getDataClass()) {
-                    if (minId.isPresent() && minId.getAsLong() < dataType.getIdGenerator().currentUniqueId()) {
-                        dataType.getIdGenerator().advanceUniqueId(minId.getAsLong());
-                    }
-                }
-            }
+            advanceIdGenerators();
             progressMonitor.finishTask();
             progressMonitor.removeCancelListener(cancelListener);
         }
     }
 
+    private void advanceIdGenerators() {
+        for (OsmPrimitiveType dataType : OsmPrimitiveType.dataValues()) {
+            OptionalLong minId = externalIds.getMap(dataType).values().stream()
+                    .mapToLong(OsmPrimitive::getUniqueId).min();
+            synchronized (dataType.getDataClass()) {
+                if (minId.isPresent() && minId.getAsLong() < dataType.getIdGenerator().currentUniqueId()) {
+                    dataType.getIdGenerator().advanceUniqueId(minId.getAsLong());
+                }
+            }
+        }
+    }
+
     protected final long getLong(String name, String value) throws IllegalDataException {
         if (value == null) {
             throw new IllegalDataException(tr("Missing required attribute ''{0}''.", name));
@@ -637,7 +786,8 @@ public abstract class AbstractReader {
         }
         p.setVisible(pd.isVisible());
         p.load(pd);
-        externalIdMap.put(pd.getPrimitiveId(), p);
+        externalIds.put(pd.getUniqueId(), pd.getType(), p);
+        batchSize++;
         return p;
     }
 
@@ -690,11 +840,11 @@ public abstract class AbstractReader {
         WayData wd = new WayData(0);
         commonReader.accept(wd);
 
-        Collection<Long> nodeIds = new ArrayList<>();
+        LongArrayList nodeIds = new LongArrayList();
         wayReader.accept(wd, nodeIds);
         if (wd.isDeleted() && !nodeIds.isEmpty()) {
             Logging.info(tr("Deleted way {0} contains nodes", Long.toString(wd.getUniqueId())));
-            nodeIds = new ArrayList<>();
+            nodeIds = new LongArrayList();
         }
         ways.put(wd.getUniqueId(), nodeIds);
         return (Way) buildPrimitive(wd);
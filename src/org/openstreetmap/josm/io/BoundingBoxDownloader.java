@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.SocketException;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.DataSource;
@@ -37,6 +38,13 @@ public class BoundingBoxDownloader extends OsmServerReader {
     protected final double lon2;
     protected final boolean crosses180th;
 
+    /** The maximal number of primitives passed at once to the batch consumer */
+    private static final int MAX_BATCH_SIZE = 20_000;
+    /** The maximal delay between two batches passed to the batch consumer, in milliseconds */
+    private static final long MAX_BATCH_DELAY = 1000;
+
+    private Consumer<DataSet> batchConsumer;
+
     /**
      * Constructs a new {@code BoundingBoxDownloader}.
      * @param downloadArea The area to download
@@ -176,7 +184,40 @@ public class BoundingBoxDownloader extends OsmServerReader {
      * @see OsmReader#parseDataSet(InputStream, ProgressMonitor)
      */
     protected DataSet parseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
-        return OsmReader.parseDataSet(source, progressMonitor);
+        if (batchConsumer == null) {
+            return OsmReader.parseDataSet(source, progressMonitor);
+        }
+        return parseDataSet(new OsmReader(), source, progressMonitor);
+    }
+
+    /**
+     * Parse the given input source with the given reader and return the dataset.
+     * In incremental mode, the batches of primitives are passed to the consumer while parsing.
+     * @param reader the reader to use
+     * @param source input stream
+     * @param progressMonitor progress monitor
+     * @return dataset, only containing the last primitives in incremental mode
+     * @throws IllegalDataException if an error was found while parsing the OSM data
+     * @see #setBatchConsumer
+     * @since xxx
+     */
+    protected final DataSet parseDataSet(AbstractReader reader, InputStream source, ProgressMonitor progressMonitor)
+            throws IllegalDataException {
+        if (batchConsumer != null) {
+            reader.setBatchConsumer(batchConsumer, MAX_BATCH_SIZE, MAX_BATCH_DELAY);
+        }
+        return reader.doParseDataSet(source, progressMonitor);
+    }
+
+    /**
+     * Enables the incremental mode: the downloaded primitives are passed to the given consumer in batches, while
+     * downloading, so that they can be displayed before the end of large downloads.
+     * {@link #parseOsm} then only returns the last primitives. See {@link AbstractReader#setBatchConsumer}.
+     * @param consumer the consumer of batches, called in the downloading thread. {@code null} disables the incremental mode
+     * @since xxx
+     */
+    public void setBatchConsumer(Consumer<DataSet> consumer) {
+        this.batchConsumer = consumer;
     }
 
     @Override
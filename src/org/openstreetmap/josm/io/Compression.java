@@ -19,7 +19,9 @@ import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
 import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
 import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
+import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.PlatformManager;
 import org.openstreetmap.josm.tools.Utils;
 
 /**
@@ -47,6 +49,41 @@ public enum Compression {
      */
     XZ;
 
+    /**
+     * The preference holding the number of threads used to compress and decompress data. 1 disables the parallel processing.
+     * @since xxx
+     */
+    public static final String THREADS_PREF = "compression.threads";
+
+    /** The minimal size of a compressed file to decompress it with several threads */
+    private static final long PARALLEL_MIN_FILE_SIZE = 4L * 1024 * 1024;
+
+    /**
+     * The preference enabling memory mapped reading of local files. Disabled by default on Windows, where mapped files
+     * cannot be overwritten until the mapping is garbage collected.
+     * @since xxx
+     */
+    public static final String MEMORY_MAPPED_PREF = "io.mmap";
+
+    /** The minimal size of a file to read it through a memory mapping, smaller files are read faster with a stream */
+    private static final long MEMORY_MAPPED_MIN_FILE_SIZE = 1024L * 1024;
+
+    /**
+     * Determines if local files are read through a memory mapping.
+     * @return {@code true} if local files are memory mapped
+     */
+    private static boolean isMemoryMapped() {
+        return Config.getPref() != null && Config.getPref().getBoolean(MEMORY_MAPPED_PREF, !PlatformManager.isPlatformWindows());
+    }
+
+    /**
+     * Determines if data is compressed and decompressed with several threads.
+     * @return {@code true} if several threads can be used
+     */
+    private static boolean isParallel() {
+        return Config.getPref() != null && Config.getPref().getInt(THREADS_PREF, Runtime.getRuntime().availableProcessors()) > 1;
+    }
+
     /**
      * Determines the compression type depending on the suffix of {@code name}.
      * @param name File name including extension
@@ -185,15 +222,27 @@ public enum Compression {
 
     /**
      * Returns an un-compressing {@link InputStream} for the {@link Path} {@code path}.
+     * <p>
+     * Large bzip2 files, and large xz files made of several blocks, are decompressed with several threads, see {@link #THREADS_PREF}.
+     * Other large files are read through a memory mapping, see {@link #MEMORY_MAPPED_PREF}.
      * @param path path
      * @return un-compressing input stream
      * @throws IOException if any I/O error occurs
      * @since 16816
      */
     public static InputStream getUncompressedFileInputStream(Path path) throws IOException {
-        InputStream in = Files.newInputStream(path); // NOPMD
+        Compression compression = byExtension(path.getFileName().toString());
+        if ((compression == BZIP2 || compression == XZ) && isParallel() && Files.size(path) >= PARALLEL_MIN_FILE_SIZE) {
+            if (compression == BZIP2) {
+                return new ParallelBZip2InputStream(path);
+            } else if (ParallelXZInputStream.isSupported(path)) {
+                return new ParallelXZInputStream(path);
+            }
+        }
+        InputStream in = isMemoryMapped() && Files.size(path) >= MEMORY_MAPPED_MIN_FILE_SIZE
+                ? new MappedFileInputStream(path) : Files.newInputStream(path); // NOPMD
         try {
-            return byExtension(path.getFileName().toString()).getUncompressedInputStream(in);
+            return compression.getUncompressedInputStream(in);
         } catch (IOException e) {
             Utils.close(in);
             throw e;
@@ -202,6 +251,8 @@ public enum Compression {
 
     /**
      * Returns a compressing {@link OutputStream} for {@code out}.
+     * <p>
+     * The gzip and xz compressions use several threads, see {@link #THREADS_PREF}.
      * @param out raw output stream
      * @return compressing output stream
      *
@@ -212,11 +263,11 @@ public enum Compression {
             case BZIP2:
                 return new BZip2CompressorOutputStream(out);
             case GZIP:
-                return new GZIPOutputStream(out);
+                return isParallel() ? new ParallelGZIPOutputStream(out) : new GZIPOutputStream(out);
             case ZIP:
                 return new ZipOutputStream(out, StandardCharsets.UTF_8);
             case XZ:
-                return new XZCompressorOutputStream(out);
+                return isParallel() ? new ParallelXZOutputStream(out) : new XZCompressorOutputStream(out);
             case NONE:
             default:
                 return out;
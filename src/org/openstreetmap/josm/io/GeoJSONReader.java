@@ -8,32 +8,39 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import javax.json.Json;
-import javax.json.JsonArray;
-import javax.json.JsonNumber;
 import javax.json.JsonObject;
 import javax.json.JsonString;
 import javax.json.JsonValue;
 import javax.json.stream.JsonParser;
 import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParserFactory;
 import javax.json.stream.JsonParsingException;
 
 import org.openstreetmap.josm.data.coor.EastNorth;
 import org.openstreetmap.josm.data.coor.LatLon;
-import org.openstreetmap.josm.data.osm.BBox;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
 import org.openstreetmap.josm.data.osm.Relation;
 import org.openstreetmap.josm.data.osm.RelationMember;
 import org.openstreetmap.josm.data.osm.Tag;
@@ -52,6 +59,7 @@ import org.openstreetmap.josm.gui.progress.ProgressMonitor;
 import org.openstreetmap.josm.tools.CheckParameterUtil;
 import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.Utils;
+import org.openstreetmap.josm.tools.collections.LongObjectMap;
 
 /**
  * Reader that reads GeoJSON files. See <a href="https://tools.ietf.org/html/rfc7946">RFC7946</a> for more information.
@@ -67,6 +75,8 @@ public class GeoJSONReader extends AbstractReader {
     private static final String PROPERTIES = "properties";
     private static final String GEOMETRY = "geometry";
     private static final String TYPE = "type";
+    private static final String GEOMETRIES = "geometries";
+    private static final String FEATURE_COLLECTION = "FeatureCollection";
     /** The record separator is 0x1E per RFC 7464 */
     private static final byte RECORD_SEPARATOR_BYTE = 0x1E;
     /**
@@ -76,28 +86,294 @@ public class GeoJSONReader extends AbstractReader {
     private static final String CRS_GEOJSON = "EPSG:4326";
     private Projection projection = Projections.getProjectionByCode(CRS_GEOJSON); // WGS 84
 
+    /** Number of lines of newline-delimited GeoJSON read at once by a parsing thread */
+    private static final int LINE_BATCH_SIZE = 256;
+
+    private final int threads;
+    /** The nodes created so far, by coordinates, see {@link #coordinatesKey}. Values are nodes, or arrays of nodes */
+    private final LongObjectMap<Object> nodesByCoordinates = new LongObjectMap<>();
+    private JsonObject parsedCrs;
+
     GeoJSONReader() {
         // Restricts visibility
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new {@code GeoJSONReader} reading newline-delimited GeoJSON with the given number of threads.
+     * @param threads the number of parsing threads
+     */
+    GeoJSONReader(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * A GeoJSON object (feature collection, feature or geometry), read from the parser events.
+     * <p>
+     * Unlike a {@link JsonObject}, the coordinates are stored in arrays of doubles. Only the properties and the crs are
+     * kept as JSON values.
+     */
+    private static final class GeoJSONObject {
+        String type;
+        JsonObject crs;
+        boolean crsAfterFeatures;
+        JsonObject properties;
+        GeoJSONObject geometry;
+        /** The type of the features member, {@code null} if there is none */
+        JsonValue.ValueType featuresType;
+        /** The features, {@code null} if they have been streamed, see {@link #readObject} */
+        List<GeoJSONObject> features;
+        boolean streamedFeatures;
+        /** A position ({@code double[]}), positions ({@link Positions}), or a list of them */
+        Object coordinates;
+        List<GeoJSONObject> geometries;
+
+        @Override
+        public String toString() {
+            return "{type=" + type + ", properties=" + properties + '}';
+        }
+    }
+
+    /**
+     * Positions of a geometry, stored as consecutive x and y values.
+     */
+    private static final class Positions {
+        static final Positions EMPTY = new Positions(new double[0], 0);
+
+        final double[] xy;
+        final int size;
+
+        Positions(double[] xy, int size) {
+            this.xy = xy;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Receives the features of a feature collection as soon as they are read.
+     */
+    @FunctionalInterface
+    private interface FeatureConsumer {
+        void accept(GeoJSONObject collection, GeoJSONObject feature) throws IllegalDataException;
     }
 
     private void parse(final JsonParser parser) throws IllegalDataException {
         while (parser.hasNext()) {
             Event event = parser.next();
             if (event == Event.START_OBJECT) {
-                parseRoot(parser.getObject());
+                long lastNodeId = OsmPrimitiveType.NODE.getIdGenerator().currentUniqueId();
+                Projection streamingProjection = projection;
+                GeoJSONObject root = readObject(parser, this::parseStreamedFeature);
+                if (root.crsAfterFeatures) {
+                    parseCrs(root.crs);
+                    reproject(streamingProjection, lastNodeId);
+                }
+                parseRoot(root);
             }
         }
         parser.close();
     }
 
-    private void parseRoot(final JsonObject object) throws IllegalDataException {
-        parseCrs(object.getJsonObject(CRS));
-        switch (Optional.ofNullable(object.getJsonString(TYPE))
-                .orElseThrow(() -> new IllegalDataException("No type")).getString()) {
-            case "FeatureCollection":
-                JsonValue.ValueType valueType = object.get(FEATURES).getValueType();
+    private void parseStreamedFeature(GeoJSONObject collection, GeoJSONObject feature) throws IllegalDataException {
+        parseCrs(collection.crs);
+        parseFeature(feature);
+    }
+
+    /**
+     * Reads a GeoJSON object from the parser events, after its {@link Event#START_OBJECT}.
+     * Runs in the parsing threads if {@code featureConsumer} is {@code null}, so it must not modify the state of the reader.
+     * @param parser the parser
+     * @param featureConsumer if not {@code null}, the features of a feature collection are given to this consumer as soon as
+     * they are read, instead of being kept in the object
+     * @return the object
+     * @throws IllegalDataException if thrown by {@code featureConsumer}
+     */
+    private static GeoJSONObject readObject(JsonParser parser, FeatureConsumer featureConsumer) throws IllegalDataException {
+        GeoJSONObject object = new GeoJSONObject();
+        for (Event event = parser.next(); event == Event.KEY_NAME; event = parser.next()) {
+            String key = parser.getString();
+            event = parser.next();
+            switch (key) {
+                case TYPE:
+                    object.type = event == Event.VALUE_STRING ? parser.getString() : null;
+                    skipValue(parser, event);
+                    break;
+                case CRS:
+                    JsonValue crs = parser.getValue();
+                    object.crs = crs instanceof JsonObject ? (JsonObject) crs : null;
+                    object.crsAfterFeatures = object.streamedFeatures;
+                    break;
+                case PROPERTIES:
+                    JsonValue properties = parser.getValue();
+                    object.properties = properties instanceof JsonObject ? (JsonObject) properties : null;
+                    break;
+                case GEOMETRY:
+                    if (event == Event.START_OBJECT) {
+                        object.geometry = readObject(parser, null);
+                    } else {
+                        skipValue(parser, event);
+                    }
+                    break;
+                case FEATURES:
+                    readFeatures(parser, event, object, featureConsumer);
+                    break;
+                case COORDINATES:
+                    if (event == Event.START_ARRAY) {
+                        object.coordinates = readCoordinates(parser);
+                    } else {
+                        skipValue(parser, event);
+                    }
+                    break;
+                case GEOMETRIES:
+                    if (event == Event.START_ARRAY) {
+                        object.geometries = new ArrayList<>();
+                        for (Event e = parser.next(); e != Event.END_ARRAY; e = parser.next()) {
+                            if (e == Event.START_OBJECT) {
+                                object.geometries.add(readObject(parser, null));
+                            } else {
+                                skipValue(parser, e);
+                            }
+                        }
+                    } else {
+                        skipValue(parser, event);
+                    }
+                    break;
+                default:
+                    skipValue(parser, event);
+            }
+        }
+        return object;
+    }
+
+    private static void readFeatures(JsonParser parser, Event event, GeoJSONObject object, FeatureConsumer featureConsumer)
+            throws IllegalDataException {
+        object.featuresType = valueType(event);
+        if (event != Event.START_ARRAY) {
+            skipValue(parser, event);
+            return;
+        }
+        // the features of a collection are converted one by one, the others are needed by their parent feature
+        boolean stream = featureConsumer != null && FEATURE_COLLECTION.equals(object.type);
+        object.features = stream ? null : new ArrayList<>();
+        object.streamedFeatures = stream;
+        for (Event e = parser.next(); e != Event.END_ARRAY; e = parser.next()) {
+            if (e == Event.START_OBJECT) {
+                GeoJSONObject feature = readObject(parser, null);
+                if (stream) {
+                    featureConsumer.accept(object, feature);
+                } else {
+                    object.features.add(feature);
+                }
+            } else {
+                skipValue(parser, e);
+            }
+        }
+    }
+
+    /**
+     * Reads coordinates from the parser events, after their {@link Event#START_ARRAY}.
+     * @param parser the parser
+     * @return a position ({@code double[]}), positions ({@link Positions}), or a list of them
+     */
+    private static Object readCoordinates(JsonParser parser) {
+        Event event = parser.next();
+        if (event == Event.VALUE_NUMBER || event == Event.VALUE_STRING) {
+            return readPosition(parser, event);
+        }
+        List<Object> parts = null;
+        double[] xy = null;
+        int size = 0;
+        for (; event != Event.END_ARRAY; event = parser.next()) {
+            if (event != Event.START_ARRAY) {
+                throw new IllegalArgumentException("Invalid coordinates: " + event);
+            }
+            Object child = readCoordinates(parser);
+            if (child instanceof double[] && parts == null) {
+                if (xy == null) {
+                    xy = new double[16];
+                } else if (2 * size == xy.length) {
+                    xy = Arrays.copyOf(xy, 2 * xy.length);
+                }
+                xy[2 * size] = ((double[]) child)[0];
+                xy[2 * size + 1] = ((double[]) child)[1];
+                size++;
+            } else if (!(child instanceof double[]) && xy == null) {
+                if (parts == null) {
+                    parts = new ArrayList<>();
+                }
+                parts.add(child);
+            } else {
+                throw new IllegalArgumentException("Invalid coordinates: positions mixed with arrays");
+            }
+        }
+        if (xy != null) {
+            return new Positions(xy, size);
+        }
+        return parts != null ? parts : Collections.emptyList();
+    }
+
+    private static double[] readPosition(JsonParser parser, Event first) {
+        double x = parseCoordinate(parser, first);
+        Event event = parser.next();
+        if (event != Event.VALUE_NUMBER && event != Event.VALUE_STRING) {
+            throw new IllegalArgumentException("Invalid position: " + event);
+        }
+        double y = parseCoordinate(parser, event);
+        // ignore the altitude
+        for (event = parser.next(); event != Event.END_ARRAY; event = parser.next()) {
+            skipValue(parser, event);
+        }
+        return new double[] {x, y};
+    }
+
+    private static double parseCoordinate(JsonParser parser, Event event) {
+        if (event == Event.VALUE_NUMBER || event == Event.VALUE_STRING) {
+            return Double.parseDouble(parser.getString());
+        }
+        throw new IllegalArgumentException(Objects.toString(event));
+    }
+
+    private static void skipValue(JsonParser parser, Event event) {
+        if (event == Event.START_OBJECT || event == Event.START_ARRAY) {
+            int depth = 1;
+            while (depth > 0) {
+                Event e = parser.next();
+                if (e == Event.START_OBJECT || e == Event.START_ARRAY) {
+                    depth++;
+                } else if (e == Event.END_OBJECT || e == Event.END_ARRAY) {
+                    depth--;
+                }
+            }
+        }
+    }
+
+    private static JsonValue.ValueType valueType(Event event) {
+        switch (event) {
+            case START_OBJECT:
+                return JsonValue.ValueType.OBJECT;
+            case START_ARRAY:
+                return JsonValue.ValueType.ARRAY;
+            case VALUE_STRING:
+                return JsonValue.ValueType.STRING;
+            case VALUE_NUMBER:
+                return JsonValue.ValueType.NUMBER;
+            case VALUE_TRUE:
+                return JsonValue.ValueType.TRUE;
+            case VALUE_FALSE:
+                return JsonValue.ValueType.FALSE;
+            default:
+                return JsonValue.ValueType.NULL;
+        }
+    }
+
+    private void parseRoot(final GeoJSONObject object) throws IllegalDataException {
+        parseCrs(object.crs);
+        switch (Optional.ofNullable(object.type)
+                .orElseThrow(() -> new IllegalDataException("No type"))) {
+            case FEATURE_COLLECTION:
+                JsonValue.ValueType valueType = object.featuresType;
                 CheckParameterUtil.ensureThat(valueType == JsonValue.ValueType.ARRAY, "features must be ARRAY, but is " + valueType);
-                parseFeatureCollection(object.getJsonArray(FEATURES), false);
+                parseFeatureCollection(object.features, false);
                 break;
             case "Feature":
                 parseFeature(object);
@@ -120,7 +396,8 @@ public class GeoJSONReader extends AbstractReader {
      * @throws IllegalDataException in case of error
      */
     private void parseCrs(final JsonObject crs) throws IllegalDataException {
-        if (crs != null) {
+        if (crs != null && crs != parsedCrs) {
+            parsedCrs = crs;
             // Inspired by https://github.com/JOSM/geojson/commit/f13ceed4645244612a63581c96e20da802779c56
             JsonObject properties = crs.getJsonObject(PROPERTIES);
             if (properties != null) {
@@ -144,8 +421,29 @@ public class GeoJSONReader extends AbstractReader {
         }
     }
 
-    private Optional<? extends OsmPrimitive> parseFeatureCollection(final JsonArray features, boolean createRelation) {
-        List<OsmPrimitive> primitives = features.stream().filter(JsonObject.class::isInstance).map(JsonObject.class::cast)
+    /**
+     * Moves the nodes converted with the wrong projection, when the crs of a feature collection follows its features.
+     * @param streamingProjection the projection used to convert the features
+     * @param lastNodeId the unique id of the last node created before the features
+     */
+    private void reproject(Projection streamingProjection, long lastNodeId) {
+        if (!streamingProjection.toCode().equals(projection.toCode())) {
+            nodesByCoordinates.clear();
+            for (Node node : new ArrayList<>(getDataSet().getNodes())) {
+                if (node.getUniqueId() < lastNodeId) {
+                    node.setCoor(projection.eastNorth2latlon(streamingProjection.latlon2eastNorth(node.getCoor())));
+                }
+                addNode(node);
+            }
+        }
+    }
+
+    private Optional<? extends OsmPrimitive> parseFeatureCollection(final List<GeoJSONObject> features, boolean createRelation) {
+        if (features == null) {
+            // already streamed
+            return Optional.empty();
+        }
+        List<OsmPrimitive> primitives = features.stream()
                 .map(this::parseFeature).filter(Optional::isPresent).map(Optional::get).collect(Collectors.toList());
         if (createRelation && primitives.size() > 1) {
             Relation relation = new Relation();
@@ -158,14 +456,12 @@ public class GeoJSONReader extends AbstractReader {
         return Optional.empty();
     }
 
-    private Optional<? extends OsmPrimitive> parseFeature(final JsonObject feature) {
-        JsonValue geometry = feature.get(GEOMETRY);
-        if (geometry != null && geometry.getValueType() == JsonValue.ValueType.OBJECT) {
-            return parseGeometry(feature, geometry.asJsonObject());
+    private Optional<? extends OsmPrimitive> parseFeature(final GeoJSONObject feature) {
+        if (feature.geometry != null) {
+            return parseGeometry(feature, feature.geometry);
         } else {
-            JsonValue properties = feature.get(PROPERTIES);
-            if (properties != null && properties.getValueType() == JsonValue.ValueType.OBJECT) {
-                return parseNonGeometryFeature(feature, properties.asJsonObject());
+            if (feature.properties != null) {
+                return parseNonGeometryFeature(feature, feature.properties);
             } else {
                 Logging.warn(tr("Relation/non-geometry feature without properties found: {0}", feature));
             }
@@ -173,20 +469,20 @@ public class GeoJSONReader extends AbstractReader {
         return Optional.empty();
     }
 
-    private Optional<? extends OsmPrimitive> parseNonGeometryFeature(final JsonObject feature, final JsonObject properties) {
+    private Optional<? extends OsmPrimitive> parseNonGeometryFeature(final GeoJSONObject feature, final JsonObject properties) {
         // get relation type
         JsonValue type = properties.get(TYPE);
         if (type == null || properties.getValueType() == JsonValue.ValueType.STRING) {
             Logging.warn(tr("Relation/non-geometry feature without type found: {0}", feature));
-            if (!feature.containsKey(FEATURES)) {
+            if (feature.featuresType == null) {
                 return Optional.empty();
             }
         }
 
         // create misc. non-geometry feature
         OsmPrimitive primitive = null;
-        if (feature.containsKey(FEATURES) && feature.get(FEATURES).getValueType() == JsonValue.ValueType.ARRAY) {
-            Optional<? extends OsmPrimitive> osm = parseFeatureCollection(feature.getJsonArray(FEATURES), true);
+        if (feature.featuresType == JsonValue.ValueType.ARRAY) {
+            Optional<? extends OsmPrimitive> osm = parseFeatureCollection(feature.features, true);
             if (osm.isPresent()) {
                 primitive = osm.get();
                 fillTagsFromFeature(feature, primitive);
@@ -195,10 +491,12 @@ public class GeoJSONReader extends AbstractReader {
         return Optional.ofNullable(primitive);
     }
 
-    private Optional<Relation> parseGeometryCollection(final JsonObject feature, final JsonObject geometry, boolean createRelation) {
-        List<RelationMember> relationMembers = new ArrayList<>(geometry.getJsonArray("geometries").size());
-        for (JsonValue jsonValue : geometry.getJsonArray("geometries")) {
-            parseGeometry(feature, jsonValue.asJsonObject()).map(osm -> new RelationMember("", osm)).ifPresent(relationMembers::add);
+    private Optional<Relation> parseGeometryCollection(final GeoJSONObject feature, final GeoJSONObject geometry,
+            boolean createRelation) {
+        List<GeoJSONObject> geometries = geometry.geometries != null ? geometry.geometries : Collections.emptyList();
+        List<RelationMember> relationMembers = new ArrayList<>(geometries.size());
+        for (GeoJSONObject member : geometries) {
+            parseGeometry(feature, member).map(osm -> new RelationMember("", osm)).ifPresent(relationMembers::add);
         }
         if (createRelation) {
             Relation relation = new Relation();
@@ -209,23 +507,23 @@ public class GeoJSONReader extends AbstractReader {
         return Optional.empty();
     }
 
-    private Optional<? extends OsmPrimitive> parseGeometry(final JsonObject feature, final JsonObject geometry) {
+    private Optional<? extends OsmPrimitive> parseGeometry(final GeoJSONObject feature, final GeoJSONObject geometry) {
         if (geometry == null) {
             parseNullGeometry(feature);
             return Optional.empty();
         }
 
-        switch (geometry.getString(TYPE)) {
+        switch (Objects.toString(geometry.type, "")) {
             case "Point":
-                return parsePoint(feature, geometry.getJsonArray(COORDINATES));
+                return parsePoint(feature, position(geometry.coordinates));
             case "MultiPoint":
                 return parseMultiPoint(feature, geometry);
             case "LineString":
-                return parseLineString(feature, geometry.getJsonArray(COORDINATES));
+                return parseLineString(feature, positions(geometry.coordinates));
             case "MultiLineString":
                 return parseMultiLineString(feature, geometry);
             case "Polygon":
-                return parsePolygon(feature, geometry.getJsonArray(COORDINATES));
+                return parsePolygon(feature, parts(geometry.coordinates));
             case "MultiPolygon":
                 return parseMultiPolygon(feature, geometry);
             case "GeometryCollection":
@@ -236,30 +534,43 @@ public class GeoJSONReader extends AbstractReader {
         }
     }
 
-    private LatLon getLatLon(final JsonArray coordinates) {
-        return projection.eastNorth2latlon(new EastNorth(
-                parseCoordinate(coordinates.get(0)),
-                parseCoordinate(coordinates.get(1))));
+    private static double[] position(Object coordinates) {
+        if (coordinates instanceof double[]) {
+            return (double[]) coordinates;
+        }
+        throw new IllegalArgumentException("Invalid position: " + coordinates);
     }
 
-    private static double parseCoordinate(JsonValue coordinate) {
-        if (coordinate instanceof JsonString) {
-            return Double.parseDouble(((JsonString) coordinate).getString());
-        } else if (coordinate instanceof JsonNumber) {
-            return ((JsonNumber) coordinate).doubleValue();
-        } else {
-            throw new IllegalArgumentException(Objects.toString(coordinate));
+    private static Positions positions(Object coordinates) {
+        if (coordinates instanceof Positions) {
+            return (Positions) coordinates;
+        } else if (coordinates instanceof List && ((List<?>) coordinates).isEmpty()) {
+            return Positions.EMPTY;
         }
+        throw new IllegalArgumentException("Invalid positions: " + coordinates);
+    }
+
+    private static List<?> parts(Object coordinates) {
+        if (coordinates instanceof List) {
+            return (List<?>) coordinates;
+        }
+        throw new IllegalArgumentException("Invalid coordinates: " + coordinates);
+    }
+
+    private LatLon getLatLon(final double x, final double y) {
+        return projection.eastNorth2latlon(new EastNorth(x, y));
     }
 
-    private Optional<Node> parsePoint(final JsonObject feature, final JsonArray coordinates) {
-        return Optional.of(fillTagsFromFeature(feature, createNode(getLatLon(coordinates))));
+    private Optional<Node> parsePoint(final GeoJSONObject feature, final double[] position) {
+        return Optional.of(fillTagsFromFeature(feature, createNode(getLatLon(position[0], position[1]))));
     }
 
-    private Optional<Relation> parseMultiPoint(final JsonObject feature, final JsonObject geometry) {
-        List<RelationMember> nodes = new ArrayList<>(geometry.getJsonArray(COORDINATES).size());
-        for (JsonValue coordinate : geometry.getJsonArray(COORDINATES)) {
-            parsePoint(feature, coordinate.asJsonArray()).map(node -> new RelationMember("", node)).ifPresent(nodes::add);
+    private Optional<Relation> parseMultiPoint(final GeoJSONObject feature, final GeoJSONObject geometry) {
+        Positions positions = positions(geometry.coordinates);
+        List<RelationMember> nodes = new ArrayList<>(positions.size);
+        for (int i = 0; i < positions.size; i++) {
+            Node node = fillTagsFromFeature(feature, createNode(getLatLon(positions.xy[2 * i], positions.xy[2 * i + 1])));
+            nodes.add(new RelationMember("", node));
         }
         Relation returnRelation = new Relation();
         returnRelation.setMembers(nodes);
@@ -267,19 +578,20 @@ public class GeoJSONReader extends AbstractReader {
         return Optional.of(fillTagsFromFeature(feature, returnRelation));
     }
 
-    private Optional<Way> parseLineString(final JsonObject feature, final JsonArray coordinates) {
-        if (!coordinates.isEmpty()) {
-            Optional<Way> way = createWay(coordinates, false);
+    private Optional<Way> parseLineString(final GeoJSONObject feature, final Positions positions) {
+        if (positions.size > 0) {
+            Optional<Way> way = createWay(positions, false);
             way.ifPresent(tWay -> fillTagsFromFeature(feature, tWay));
             return way;
         }
         return Optional.empty();
     }
 
-    private Optional<Relation> parseMultiLineString(final JsonObject feature, final JsonObject geometry) {
-        final List<RelationMember> ways = new ArrayList<>(geometry.getJsonArray(COORDINATES).size());
-        for (JsonValue coordinate : geometry.getJsonArray(COORDINATES)) {
-            parseLineString(feature, coordinate.asJsonArray()).map(way -> new RelationMember("", way)).ifPresent(ways::add);
+    private Optional<Relation> parseMultiLineString(final GeoJSONObject feature, final GeoJSONObject geometry) {
+        final List<?> lines = parts(geometry.coordinates);
+        final List<RelationMember> ways = new ArrayList<>(lines.size());
+        for (Object line : lines) {
+            parseLineString(feature, positions(line)).map(way -> new RelationMember("", way)).ifPresent(ways::add);
         }
         final Relation relation = new Relation();
         relation.setMembers(ways);
@@ -287,20 +599,20 @@ public class GeoJSONReader extends AbstractReader {
         return Optional.of(fillTagsFromFeature(feature, relation));
     }
 
-    private Optional<? extends OsmPrimitive> parsePolygon(final JsonObject feature, final JsonArray coordinates) {
-        final int size = coordinates.size();
+    private Optional<? extends OsmPrimitive> parsePolygon(final GeoJSONObject feature, final List<?> rings) {
+        final int size = rings.size();
         if (size == 1) {
-            Optional<Way> optionalWay = createWay(coordinates.getJsonArray(0), true);
+            Optional<Way> optionalWay = createWay(positions(rings.get(0)), true);
             optionalWay.ifPresent(way -> fillTagsFromFeature(feature, way));
             return optionalWay;
         } else if (size > 1) {
             // create multipolygon
             final Relation multipolygon = new Relation();
-            createWay(coordinates.getJsonArray(0), true)
+            createWay(positions(rings.get(0)), true)
                 .ifPresent(way -> multipolygon.addMember(new RelationMember("outer", way)));
 
-            for (JsonValue interiorRing : coordinates.subList(1, size)) {
-                createWay(interiorRing.asJsonArray(), true)
+            for (Object interiorRing : rings.subList(1, size)) {
+                createWay(positions(interiorRing), true)
                     .ifPresent(way -> multipolygon.addMember(new RelationMember("inner", way)));
             }
 
@@ -312,35 +624,80 @@ public class GeoJSONReader extends AbstractReader {
         return Optional.empty();
     }
 
-    private Optional<Relation> parseMultiPolygon(final JsonObject feature, final JsonObject geometry) {
-        List<RelationMember> relationMembers = new ArrayList<>(geometry.getJsonArray(COORDINATES).size());
-        for (JsonValue coordinate : geometry.getJsonArray(COORDINATES)) {
-            parsePolygon(feature, coordinate.asJsonArray()).map(poly -> new RelationMember("", poly)).ifPresent(relationMembers::add);
+    private Optional<Relation> parseMultiPolygon(final GeoJSONObject feature, final GeoJSONObject geometry) {
+        final List<?> polygons = parts(geometry.coordinates);
+        List<RelationMember> relationMembers = new ArrayList<>(polygons.size());
+        for (Object polygon : polygons) {
+            parsePolygon(feature, parts(polygon)).map(poly -> new RelationMember("", poly)).ifPresent(relationMembers::add);
         }
         Relation relation = new Relation();
         relation.setMembers(relationMembers);
         return Optional.of(fillTagsFromFeature(feature, relation));
     }
 
+    /**
+     * Returns the key of coordinates in {@link #nodesByCoordinates}: the coordinates rounded to the precision of OSM.
+     * @param lat latitude
+     * @param lon longitude
+     * @return the key of the coordinates
+     */
+    private static long coordinatesKey(double lat, double lon) {
+        return Math.round(lat * 1e7) << 32 ^ (Math.round(lon * 1e7) & 0xffffffffL);
+    }
+
+    private static boolean isAt(Node node, LatLon latlon) {
+        return node.lat() == latlon.lat() && node.lon() == latlon.lon();
+    }
+
+    private Node findNode(final LatLon latlon) {
+        Object nodes = nodesByCoordinates.get(coordinatesKey(latlon.lat(), latlon.lon()));
+        if (nodes instanceof Node) {
+            return isAt((Node) nodes, latlon) ? (Node) nodes : null;
+        } else if (nodes != null) {
+            for (Node node : (Node[]) nodes) {
+                if (isAt(node, latlon)) {
+                    return node;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void addNode(final Node node) {
+        long key = coordinatesKey(node.lat(), node.lon());
+        Object nodes = nodesByCoordinates.get(key);
+        if (nodes == null) {
+            nodesByCoordinates.put(key, node);
+        } else if (nodes instanceof Node) {
+            nodesByCoordinates.put(key, new Node[] {(Node) nodes, node});
+        } else {
+            Node[] array = Arrays.copyOf((Node[]) nodes, ((Node[]) nodes).length + 1);
+            array[array.length - 1] = node;
+            nodesByCoordinates.put(key, array);
+        }
+    }
+
     private Node createNode(final LatLon latlon) {
-        final List<Node> existingNodes = getDataSet().searchNodes(new BBox(latlon, latlon));
-        if (!existingNodes.isEmpty()) {
+        final Node existingNode = findNode(latlon);
+        if (existingNode != null) {
             // reuse existing node, avoid multiple nodes on top of each other
-            return existingNodes.get(0);
+            return existingNode;
         }
         final Node node = new Node(latlon);
         getDataSet().addPrimitive(node);
+        addNode(node);
         return node;
     }
 
-    private Optional<Way> createWay(final JsonArray coordinates, final boolean autoClose) {
-        if (coordinates.isEmpty()) {
+    private Optional<Way> createWay(final Positions positions, final boolean autoClose) {
+        if (positions.size == 0) {
             return Optional.empty();
         }
 
-        final List<LatLon> latlons = coordinates.stream()
-                .map(coordinate -> getLatLon(coordinate.asJsonArray()))
-                .collect(Collectors.toList());
+        final List<LatLon> latlons = new ArrayList<>(positions.size);
+        for (int i = 0; i < positions.size; i++) {
+            latlons.add(getLatLon(positions.xy[2 * i], positions.xy[2 * i + 1]));
+        }
 
         final int size = latlons.size();
         final boolean doAutoclose;
@@ -380,7 +737,7 @@ public class GeoJSONReader extends AbstractReader {
      * @param <O> The primitive type
      * @return The primitive passed in as {@code primitive} for easier chaining
      */
-    private static <O extends OsmPrimitive> O fillTagsFromFeature(final JsonObject feature, final O primitive) {
+    private static <O extends OsmPrimitive> O fillTagsFromFeature(final GeoJSONObject feature, final O primitive) {
         if (feature != null) {
             TagCollection featureTags = getTags(feature);
             primitive.setKeys(new TagMap(primitive.isTagged() ? mergeAllTagValues(primitive, featureTags) : featureTags));
@@ -398,34 +755,31 @@ public class GeoJSONReader extends AbstractReader {
         return tagModel.getAllResolutions();
     }
 
-    private static void parseUnknown(final JsonObject object) {
+    private static void parseUnknown(final GeoJSONObject object) {
         Logging.warn(tr("Unknown json object found {0}", object));
     }
 
-    private static void parseNullGeometry(JsonObject feature) {
+    private static void parseNullGeometry(GeoJSONObject feature) {
         Logging.warn(tr("Geometry of feature {0} is null", feature));
     }
 
-    private static TagCollection getTags(final JsonObject feature) {
+    private static TagCollection getTags(final GeoJSONObject feature) {
         final TagCollection tags = new TagCollection();
 
-        if (feature.containsKey(PROPERTIES) && !feature.isNull(PROPERTIES)) {
-            JsonValue properties = feature.get(PROPERTIES);
-            if (properties != null && properties.getValueType() == JsonValue.ValueType.OBJECT) {
-                for (Map.Entry<String, JsonValue> stringJsonValueEntry : properties.asJsonObject().entrySet()) {
-                    final JsonValue value = stringJsonValueEntry.getValue();
-
-                    if (value instanceof JsonString) {
-                        tags.add(new Tag(stringJsonValueEntry.getKey(), ((JsonString) value).getString()));
-                    } else if (value instanceof JsonObject) {
-                        Logging.warn(
-                            "The GeoJSON contains an object with property '" + stringJsonValueEntry.getKey()
-                                + "' whose value has the unsupported type '" + value.getClass().getSimpleName()
-                                + "'. That key-value pair is ignored!"
-                        );
-                    } else if (value.getValueType() != JsonValue.ValueType.NULL) {
-                        tags.add(new Tag(stringJsonValueEntry.getKey(), value.toString()));
-                    }
+        if (feature.properties != null) {
+            for (Map.Entry<String, JsonValue> stringJsonValueEntry : feature.properties.entrySet()) {
+                final JsonValue value = stringJsonValueEntry.getValue();
+
+                if (value instanceof JsonString) {
+                    tags.add(new Tag(stringJsonValueEntry.getKey(), ((JsonString) value).getString()));
+                } else if (value instanceof JsonObject) {
+                    Logging.warn(
+                        "The GeoJSON contains an object with property '" + stringJsonValueEntry.getKey()
+                            + "' whose value has the unsupported type '" + value.getClass().getSimpleName()
+                            + "'. That key-value pair is ignored!"
+                    );
+                } else if (value.getValueType() != JsonValue.ValueType.NULL) {
+                    tags.add(new Tag(stringJsonValueEntry.getKey(), value.toString()));
                 }
             }
         }
@@ -457,14 +811,7 @@ public class GeoJSONReader extends AbstractReader {
             ds.setUploadPolicy(UploadPolicy.DISCOURAGED);
             if (isLineDelimited(markSupported)) {
                 try (BufferedReader reader = new BufferedReader(new InputStreamReader(markSupported, StandardCharsets.UTF_8))) {
-                    String line;
-                    String rs = new String(new byte[]{RECORD_SEPARATOR_BYTE}, StandardCharsets.US_ASCII);
-                    while ((line = reader.readLine()) != null) {
-                        line = Utils.strip(line, rs);
-                        try (JsonParser parser = Json.createParser(new StringReader(line))) {
-                            parse(parser);
-                        }
-                    }
+                    parseLineDelimited(reader);
                 }
             } else {
                 try (JsonParser parser = Json.createParser(markSupported)) {
@@ -478,6 +825,100 @@ public class GeoJSONReader extends AbstractReader {
         return getDataSet();
     }
 
+    /**
+     * Parses newline-delimited GeoJSON. The lines are read in batches by several threads, and converted in order.
+     * @param reader the reader
+     * @throws IOException in case of I/O error
+     * @throws IllegalDataException in case of invalid data
+     */
+    private void parseLineDelimited(BufferedReader reader) throws IOException, IllegalDataException {
+        String rs = new String(new byte[]{RECORD_SEPARATOR_BYTE}, StandardCharsets.US_ASCII);
+        // looking up the JSON provider for each line is slow
+        JsonParserFactory parserFactory = Json.createParserFactory(null);
+        String line;
+        if (threads == 1) {
+            while ((line = reader.readLine()) != null) {
+                try (JsonParser parser = parserFactory.createParser(new StringReader(Utils.strip(line, rs)))) {
+                    parse(parser);
+                }
+            }
+            return;
+        }
+        ExecutorService executor = null;
+        // bounds the memory used by the lines read ahead of the conversion
+        int maxPending = 2 * threads;
+        Deque<Future<List<GeoJSONObject>>> pending = new ArrayDeque<>(maxPending);
+        try {
+            List<String> lines = new ArrayList<>(LINE_BATCH_SIZE);
+            while ((line = reader.readLine()) != null) {
+                lines.add(Utils.strip(line, rs));
+                if (lines.size() == LINE_BATCH_SIZE) {
+                    if (executor == null) {
+                        executor = Executors.newFixedThreadPool(threads, Utils.newThreadFactory("geojson-reader-%d", Thread.NORM_PRIORITY));
+                    }
+                    final List<String> batch = lines;
+                    pending.add(executor.submit(() -> readLines(parserFactory, batch)));
+                    if (pending.size() >= maxPending) {
+                        parseRoots(pending.removeFirst());
+                    }
+                    lines = new ArrayList<>(LINE_BATCH_SIZE);
+                }
+            }
+            while (!pending.isEmpty()) {
+                parseRoots(pending.removeFirst());
+            }
+            for (GeoJSONObject root : readLines(parserFactory, lines)) {
+                parseRoot(root);
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Reads the GeoJSON objects of some lines. Runs in the parsing threads, so it must not modify the state of the reader.
+     * @param parserFactory the factory of JSON parsers
+     * @param lines the lines of newline-delimited GeoJSON
+     * @return the root objects of the lines
+     * @throws IllegalDataException never, features are not streamed
+     */
+    private static List<GeoJSONObject> readLines(JsonParserFactory parserFactory, List<String> lines) throws IllegalDataException {
+        List<GeoJSONObject> roots = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            try (JsonParser parser = parserFactory.createParser(new StringReader(line))) {
+                while (parser.hasNext()) {
+                    if (parser.next() == Event.START_OBJECT) {
+                        roots.add(readObject(parser, null));
+                    }
+                }
+            }
+        }
+        return roots;
+    }
+
+    private void parseRoots(Future<List<GeoJSONObject>> future) throws IOException, IllegalDataException {
+        try {
+            for (GeoJSONObject root : future.get()) {
+                parseRoot(root);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (InterruptedIOException) new InterruptedIOException().initCause(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IllegalDataException) {
+                throw (IllegalDataException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalDataException(cause);
+        }
+    }
+
     /**
      * Import may create duplicate ways were one is member of a multipolygon and untagged and the other is tagged.
      * Try to merge them here.
@@ -0,0 +1,157 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a local file through a memory mapping.
+ * <p>
+ * The bytes are copied directly from the page cache to the buffer of the reader, without system call nor intermediate buffer.
+ * Files larger than 1 GB are mapped region by region. The stream supports {@link #mark} and {@link #reset}.
+ * <p>
+ * The mapping is only released by the garbage collector once the stream has been closed, so that the file cannot be
+ * replaced in the meantime on Windows.
+ * @since xxx
+ */
+public class MappedFileInputStream extends InputStream {
+
+    private static final int DEFAULT_REGION_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int regionSize;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long markPosition;
+    private boolean closed;
+
+    /**
+     * Constructs a new {@code MappedFileInputStream}.
+     * @param path the file to read
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedFileInputStream(Path path) throws IOException {
+        this(path, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Constructs a new {@code MappedFileInputStream} with the given size of mapped regions.
+     * @param path the file to read
+     * @param regionSize the size of the regions mapped at once
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    MappedFileInputStream(Path path, int regionSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.regionSize = regionSize;
+        try {
+            this.size = channel.size();
+            map(0);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void map(long start) throws IOException {
+        regionStart = start;
+        region = channel.map(MapMode.READ_ONLY, start, Math.min(regionSize, size - start));
+    }
+
+    private long position() {
+        return regionStart + region.position();
+    }
+
+    private void seek(long position) throws IOException {
+        if (position >= regionStart && position <= regionStart + region.limit()) {
+            region.position((int) (position - regionStart));
+        } else {
+            map(position);
+        }
+    }
+
+    /**
+     * Makes sure that the current region has remaining bytes, maps the next one if needed.
+     * @return {@code false} at the end of the file
+     * @throws IOException if the stream is closed or the next region cannot be mapped
+     */
+    private boolean ensureRemaining() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (!region.hasRemaining()) {
+            long position = position();
+            if (position >= size) {
+                return false;
+            }
+            map(position);
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return ensureRemaining() ? region.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        } else if (len == 0) {
+            return 0;
+        } else if (!ensureRemaining()) {
+            return -1;
+        }
+        int n = Math.min(len, region.remaining());
+        region.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        long position = position();
+        long skipped = Math.max(0, Math.min(n, size - position));
+        seek(position + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return closed ? 0 : (int) Math.min(Integer.MAX_VALUE, size - position());
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        if (!closed) {
+            markPosition = position();
+        }
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        seek(markPosition);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        channel.close();
+    }
+}
@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -43,6 +44,7 @@ import org.openstreetmap.josm.gui.progress.ProgressMonitor;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.Utils;
+import org.openstreetmap.josm.tools.collections.LongSet;
 
 /**
  * Retrieves a set of {@link OsmPrimitive}s from an OSM server using the so called
@@ -245,7 +247,7 @@ public class MultiFetchServerObjectReader extends OsmServerReader {
      * @return the subset of ids
      */
     protected Set<Long> extractIdPackage(Set<Long> ids) {
-        Set<Long> pkg = new HashSet<>();
+        LongSet pkg = new LongSet(Math.min(ids.size(), MAX_IDS_PER_REQUEST));
         if (ids.isEmpty())
             return pkg;
         if (ids.size() > MAX_IDS_PER_REQUEST) {
@@ -263,6 +265,7 @@ public class MultiFetchServerObjectReader extends OsmServerReader {
 
     /**
      * builds the Multi Get request string for a set of ids and a given {@link OsmPrimitiveType}.
+     * The ids are written in ascending order.
      *
      * @param type The primitive type. Must be one of {@link OsmPrimitiveType#NODE NODE}, {@link OsmPrimitiveType#WAY WAY},
      * {@link OsmPrimitiveType#RELATION RELATION}
@@ -270,7 +273,10 @@ public class MultiFetchServerObjectReader extends OsmServerReader {
      * @return the request string
      */
     protected String buildRequestString(final OsmPrimitiveType type, Set<Long> idPackage) {
-        return type.getAPIName() + "s?" + type.getAPIName() + "s=" + idPackage.stream().map(String::valueOf).collect(Collectors.joining(","));
+        long[] ids = idPackage instanceof LongSet ? ((LongSet) idPackage).toLongArray()
+                : idPackage.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(ids);
+        return type.getAPIName() + "s?" + type.getAPIName() + "s=" + Arrays.stream(ids).mapToObj(String::valueOf).collect(Collectors.joining(","));
     }
 
     protected void rememberNodesOfIncompleteWaysToLoad(DataSet from) {
@@ -316,7 +322,7 @@ public class MultiFetchServerObjectReader extends OsmServerReader {
         progressMonitor.setTicksCount(ids.size());
         progressMonitor.setTicks(0);
         // The complete set containing all primitives to fetch
-        Set<Long> toFetch = new HashSet<>(ids);
+        Set<Long> toFetch = new LongSet(ids);
         // Build a list of fetchers that will  download smaller sets containing only MAX_IDS_PER_REQUEST (200) primitives each.
         // we will run up to MAX_DOWNLOAD_THREADS concurrent fetchers.
         int threadsNumber = Config.getPref().getInt("osm.download.threads", OsmApi.MAX_DOWNLOAD_THREADS);
@@ -336,8 +342,8 @@ public class MultiFetchServerObjectReader extends OsmServerReader {
                 if (result.rc404 != null) {
                     List<Long> toSplit = new ArrayList<>(result.rc404);
                     int n = toSplit.size() / 2;
-                    jobs.add(ecs.submit(new Fetcher(type, new HashSet<>(toSplit.subList(0, n)), progressMonitor)));
-                    jobs.add(ecs.submit(new Fetcher(type, new HashSet<>(toSplit.subList(n, toSplit.size())), progressMonitor)));
+                    jobs.add(ecs.submit(new Fetcher(type, new LongSet(toSplit.subList(0, n)), progressMonitor)));
+                    jobs.add(ecs.submit(new Fetcher(type, new LongSet(toSplit.subList(n, toSplit.size())), progressMonitor)));
                 }
                 if (result.missingPrimitives != null) {
                     missingPrimitives.addAll(result.missingPrimitives);
@@ -446,7 +452,7 @@ public class MultiFetchServerObjectReader extends OsmServerReader {
      */
     private void downloadRelations(ProgressMonitor progressMonitor) throws OsmTransferException {
         boolean removeIncomplete = outputDataSet.isEmpty();
-        Set<Long> toDownload = new LinkedHashSet<>(relations);
+        LongSet toDownload = new LongSet(relations);
         fetchPrimitives(toDownload, OsmPrimitiveType.RELATION, progressMonitor);
         if (!recurseDownRelations) {
             return;
@@ -460,10 +466,12 @@ public class MultiFetchServerObjectReader extends OsmServerReader {
             }
         }
 
-        // fetch full info for all visible relations
-        for (long id : toDownload) {
+        // fetch full info for all visible relations, in the order they were appended
+        for (long id : relations) {
             if (isCanceled())
                 return;
+            if (!toDownload.contains(id))
+                continue;
             OsmServerObjectReader reader = new OsmServerObjectReader(id, OsmPrimitiveType.RELATION, true/* full*/);
             DataSet ds = reader.parseOsm(progressMonitor.createSubTaskMonitor(1, false));
             merge(ds);
@@ -0,0 +1,377 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.openstreetmap.josm.io.OsmBinaryWriter.FLAG_COORDINATES;
+import static org.openstreetmap.josm.io.OsmBinaryWriter.FLAG_DELETED;
+import static org.openstreetmap.josm.io.OsmBinaryWriter.FLAG_INVISIBLE;
+import static org.openstreetmap.josm.io.OsmBinaryWriter.FLAG_LOCAL_USER;
+import static org.openstreetmap.josm.io.OsmBinaryWriter.FLAG_MODIFIED;
+import static org.openstreetmap.josm.io.OsmBinaryWriter.FLAG_OSM_USER;
+import static org.openstreetmap.josm.io.OsmBinaryWriter.FLAG_RAW_COORDINATES;
+import static org.openstreetmap.josm.io.OsmBinaryWriter.FORMAT_VERSION;
+import static org.openstreetmap.josm.io.OsmBinaryWriter.MAGIC;
+import static org.openstreetmap.josm.io.OsmBinaryWriter.STRING_NEW;
+import static org.openstreetmap.josm.io.OsmBinaryWriter.STRING_NULL;
+import static org.openstreetmap.josm.io.OsmBinaryWriter.STRING_OFFSET;
+import static org.openstreetmap.josm.io.OsmBinaryWriter.UNITS_PER_DEGREE;
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.NodeData;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.RelationData;
+import org.openstreetmap.josm.data.osm.RelationMemberData;
+import org.openstreetmap.josm.data.osm.SimplePrimitiveId;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.WayData;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.collections.LongArrayList;
+
+/**
+ * Parser for the JOSM binary format. Read from an input stream and construct a dataset out of it, optionally
+ * replaying the changes recorded in a journal.
+ * @see OsmBinaryWriter
+ * @since xxx
+ */
+public class OsmBinaryReader extends AbstractReader {
+
+    /** The number of primitives read between two checks of the cancellation */
+    private static final int CANCEL_CHECK_INTERVAL = 10_000;
+    private static final OsmPrimitiveType[] MEMBER_TYPES = {OsmPrimitiveType.NODE, OsmPrimitiveType.WAY, OsmPrimitiveType.RELATION};
+
+    /**
+     * Exception thrown after user cancellation.
+     */
+    private static final class OsmBinaryParsingCanceledException extends InterruptedIOException implements ImportCancelException {
+        OsmBinaryParsingCanceledException(String msg) {
+            super(msg);
+        }
+    }
+
+    private DataInputStream in;
+    private final List<String> strings = new ArrayList<>();
+    private boolean replaying;
+
+    private long lastId;
+    private long lastRef;
+    private long lastLat;
+    private long lastLon;
+    private long lastTimestamp;
+
+    /**
+     * Constructs a new {@code OsmBinaryReader}.
+     */
+    protected OsmBinaryReader() {
+        // Restricts visibility
+    }
+
+    private void parse(InputStream source) throws IOException, IllegalDataException {
+        in = new DataInputStream(new BufferedInputStream(source, 64 * 1024));
+        boolean locked = readHeader();
+        readSections();
+        if (locked) {
+            ds.lock();
+        }
+    }
+
+    private void parse(InputStream source, InputStream journal) throws IOException, IllegalDataException {
+        in = new DataInputStream(new BufferedInputStream(source, 64 * 1024));
+        boolean locked = readHeader();
+        readSections();
+        replaying = true;
+        try (DataInputStream entries = new DataInputStream(new BufferedInputStream(journal, 64 * 1024))) {
+            for (byte[] entry = readEntry(entries); entry != null; entry = readEntry(entries)) {
+                in = new DataInputStream(new ByteArrayInputStream(entry));
+                strings.clear();
+                locked = readHeader();
+                readSections();
+                readRemoved();
+            }
+        }
+        if (locked) {
+            ds.lock();
+        }
+    }
+
+    private static byte[] readEntry(DataInputStream entries) throws IOException {
+        try {
+            byte[] entry = new byte[entries.readInt()];
+            entries.readFully(entry);
+            return entry;
+        } catch (EOFException e) {
+            // end of the journal, or entry truncated by a crash while it was written
+            Logging.trace(e);
+            return null;
+        }
+    }
+
+    private boolean readHeader() throws IOException, IllegalDataException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(MAGIC, magic)) {
+            throw new IllegalDataException(tr("Not a JOSM binary file."));
+        }
+        long formatVersion = readVarInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IllegalDataException(tr("Unsupported version of the JOSM binary format: {0}", formatVersion));
+        }
+        String version = readString();
+        if (version != null) {
+            parseVersion(version);
+        }
+        parseDownloadPolicy("download", readString());
+        parseUploadPolicy("upload", readString());
+        boolean locked = in.readBoolean();
+        for (long i = readVarInt(); i > 0; i--) {
+            Bounds bounds = new Bounds(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble());
+            ds.addDataSource(new DataSource(bounds, readString()));
+        }
+        return locked;
+    }
+
+    private void readSections() throws IOException, IllegalDataException {
+        resetDeltas();
+        for (long i = readVarInt(); i > 0; i--) {
+            checkCancelled(i);
+            readNode();
+        }
+        resetDeltas();
+        for (long i = readVarInt(); i > 0; i--) {
+            checkCancelled(i);
+            readWay();
+        }
+        resetDeltas();
+        for (long i = readVarInt(); i > 0; i--) {
+            checkCancelled(i);
+            readRelation();
+        }
+    }
+
+    private void readRemoved() throws IOException, IllegalDataException {
+        resetDeltas();
+        for (long i = readVarInt(); i > 0; i--) {
+            int type = in.readUnsignedByte();
+            if (type >= MEMBER_TYPES.length) {
+                throw new IllegalDataException(tr("Invalid primitive type in JOSM binary file: {0}", type));
+            }
+            lastId += readSignedVarInt();
+            externalIdMap.remove(new SimplePrimitiveId(lastId, MEMBER_TYPES[type]));
+            if (type == OsmPrimitiveType.WAY.ordinal()) {
+                ways.remove(lastId);
+            } else if (type == OsmPrimitiveType.RELATION.ordinal()) {
+                relations.remove(lastId);
+            }
+        }
+    }
+
+    /**
+     * Adds the given primitive, or when a journal is replayed, replaces the primitive with the same id.
+     * @param pd the primitive data
+     */
+    private void addPrimitive(PrimitiveData pd) {
+        OsmPrimitive p = replaying ? externalIdMap.get(pd) : null;
+        if (p != null) {
+            p.load(pd);
+        } else {
+            buildPrimitive(pd);
+        }
+    }
+
+    private void checkCancelled(long remaining) throws OsmBinaryParsingCanceledException {
+        if (remaining % CANCEL_CHECK_INTERVAL == 0 && cancel) {
+            cancel = false;
+            throw new OsmBinaryParsingCanceledException(tr("Reading was canceled"));
+        }
+    }
+
+    private void resetDeltas() {
+        lastId = 0;
+        lastRef = 0;
+        lastLat = 0;
+        lastLon = 0;
+        lastTimestamp = 0;
+    }
+
+    private void readNode() throws IOException, IllegalDataException {
+        NodeData nd = new NodeData(0);
+        int flags = readCommon(nd);
+        if ((flags & FLAG_COORDINATES) != 0) {
+            lastLat += readSignedVarInt();
+            lastLon += readSignedVarInt();
+            nd.setCoor(latLon(lastLat / UNITS_PER_DEGREE, lastLon / UNITS_PER_DEGREE, nd));
+        } else if ((flags & FLAG_RAW_COORDINATES) != 0) {
+            nd.setCoor(latLon(in.readDouble(), in.readDouble(), nd));
+        }
+        addPrimitive(nd);
+    }
+
+    private static LatLon latLon(double lat, double lon, NodeData nd) throws IllegalDataException {
+        LatLon ll = new LatLon(lat, lon);
+        if (!ll.isValid()) {
+            throw new IllegalDataException(tr("Illegal value for attributes ''lat'', ''lon'' on node with ID {0}. Got ''{1}'', ''{2}''.",
+                    Long.toString(nd.getUniqueId()), lat, lon));
+        }
+        return ll;
+    }
+
+    private void readWay() throws IOException, IllegalDataException {
+        WayData wd = new WayData(0);
+        readCommon(wd);
+        int count = readCount();
+        LongArrayList nodeIds = new LongArrayList(count);
+        for (int i = 0; i < count; i++) {
+            lastRef += readSignedVarInt();
+            nodeIds.add(lastRef);
+        }
+        ways.put(wd.getUniqueId(), nodeIds);
+        addPrimitive(wd);
+    }
+
+    private void readRelation() throws IOException, IllegalDataException {
+        RelationData rd = new RelationData(0);
+        readCommon(rd);
+        int count = readCount();
+        List<RelationMemberData> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int type = in.readUnsignedByte();
+            if (type >= MEMBER_TYPES.length) {
+                throw new IllegalDataException(tr("Illegal value for member type on relation {0}. Got {1}.",
+                        Long.toString(rd.getUniqueId()), type));
+            }
+            lastRef += readSignedVarInt();
+            String role = readString();
+            members.add(new RelationMemberData(role != null ? role : "", MEMBER_TYPES[type], lastRef));
+        }
+        relations.put(rd.getUniqueId(), members);
+        addPrimitive(rd);
+    }
+
+    private int readCommon(PrimitiveData pd) throws IOException, IllegalDataException {
+        lastId += readSignedVarInt();
+        parseId(pd, lastId);
+        int flags = (int) readVarInt();
+        pd.setVisible((flags & FLAG_INVISIBLE) == 0);
+        pd.setDeleted((flags & FLAG_DELETED) != 0);
+        pd.setModified((flags & FLAG_MODIFIED) != 0);
+        pd.setVersion((int) readVarInt());
+        int changeset = (int) readVarInt();
+        if (changeset > 0) {
+            parseChangeset(pd, changeset);
+        }
+        lastTimestamp += readSignedVarInt();
+        pd.setRawTimestamp((int) lastTimestamp);
+        if ((flags & FLAG_OSM_USER) != 0) {
+            long uid = readVarInt();
+            pd.setUser(User.createOsmUser(uid, readString()));
+        } else if ((flags & FLAG_LOCAL_USER) != 0) {
+            pd.setUser(User.createLocalUser(readString()));
+        }
+        int tags = readCount();
+        for (int i = 0; i < tags; i++) {
+            String key = readString();
+            String value = readString();
+            parseTag(pd, key, value);
+        }
+        return flags;
+    }
+
+    private int readCount() throws IOException, IllegalDataException {
+        long count = readVarInt();
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw new IllegalDataException(tr("Invalid count in JOSM binary file: {0}", count));
+        }
+        return (int) count;
+    }
+
+    private String readString() throws IOException, IllegalDataException {
+        long ref = readVarInt();
+        if (ref == STRING_NULL) {
+            return null;
+        } else if (ref == STRING_NEW) {
+            byte[] bytes = new byte[readCount()];
+            in.readFully(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8).intern();
+            strings.add(value);
+            return value;
+        }
+        long index = ref - STRING_OFFSET;
+        if (index >= strings.size()) {
+            throw new IllegalDataException(tr("Invalid string table index in JOSM binary file: {0}", index));
+        }
+        return strings.get((int) index);
+    }
+
+    private long readSignedVarInt() throws IOException {
+        long value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readVarInt() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException(tr("Invalid variable-length integer in JOSM binary file."));
+    }
+
+    @Override
+    protected DataSet doParseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        return doParseBinaryDataSet(source, progressMonitor, this::parse);
+    }
+
+    /**
+     * Parse the given input source and return the dataset.
+     *
+     * @param source the source input stream. Must not be null.
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     *
+     * @return the dataset with the parsed data
+     * @throws IllegalDataException if an error was found while parsing the data from the source
+     * @throws IllegalArgumentException if source is null
+     */
+    public static DataSet parseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        return new OsmBinaryReader().doParseDataSet(source, progressMonitor);
+    }
+
+    /**
+     * Parse the given input source, replay the changes recorded in the given journal, and return the dataset.
+     * A last journal entry which has not been completely written is ignored.
+     *
+     * @param source the source input stream. Must not be null.
+     * @param journal the journal input stream, as written by {@link OsmBinaryWriter#writeJournalEntry}. Must not be null.
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     *
+     * @return the dataset with the parsed data
+     * @throws IllegalDataException if an error was found while parsing the data from the source or the journal
+     * @throws IllegalArgumentException if source is null
+     * @since xxx
+     */
+    public static DataSet parseDataSet(InputStream source, InputStream journal, ProgressMonitor progressMonitor)
+            throws IllegalDataException {
+        OsmBinaryReader reader = new OsmBinaryReader();
+        return reader.doParseBinaryDataSet(source, progressMonitor, in -> reader.parse(in, journal));
+    }
+}
@@ -0,0 +1,339 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.DataSetSnapshot;
+import org.openstreetmap.josm.data.osm.DownloadPolicy;
+import org.openstreetmap.josm.data.osm.NodeData;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.PrimitiveId;
+import org.openstreetmap.josm.data.osm.RelationData;
+import org.openstreetmap.josm.data.osm.RelationMemberData;
+import org.openstreetmap.josm.data.osm.UploadPolicy;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.WayData;
+
+/**
+ * Save the dataset into a stream in the JOSM binary format, a compact format meant for autosave and sessions.
+ * <p>
+ * Unlike the OSM PBF format, it stores everything the {@code .osm} format stores, including the local modifications
+ * (modified, deleted and new primitives), but it is much smaller and faster to write and to read:
+ * <ul>
+ * <li>all numbers are written as variable-length integers, the ids, coordinates and timestamps as deltas to the
+ * previous primitive of the same type;</li>
+ * <li>coordinates with the precision of the OSM API (100 nanodegrees) are written as fixed-point numbers, other
+ * coordinates are written as is, so that they are restored exactly;</li>
+ * <li>each string (key, value, role, user name) is written once, then referenced by its index in a string table.</li>
+ * </ul>
+ * The changes made to a dataset after it has been written can be appended to a journal, see
+ * {@link #writeJournalEntry}.
+ * @see OsmBinaryReader
+ * @since xxx
+ */
+public class OsmBinaryWriter implements Closeable {
+
+    /** The magic number at the start of the stream */
+    static final byte[] MAGIC = {'J', 'O', 'S', 'M', 'B'};
+    /** The version of the format */
+    static final int FORMAT_VERSION = 1;
+
+    /** The primitive is modified */
+    static final int FLAG_MODIFIED = 1;
+    /** The primitive is deleted */
+    static final int FLAG_DELETED = 1 << 1;
+    /** The primitive is not visible */
+    static final int FLAG_INVISIBLE = 1 << 2;
+    /** The primitive has an OSM user (id and name) */
+    static final int FLAG_OSM_USER = 1 << 3;
+    /** The primitive has a local user (name only) */
+    static final int FLAG_LOCAL_USER = 1 << 4;
+    /** The node has coordinates, written as fixed-point numbers */
+    static final int FLAG_COORDINATES = 1 << 5;
+    /** The node has coordinates, written as raw doubles */
+    static final int FLAG_RAW_COORDINATES = 1 << 6;
+
+    /** String reference to {@code null} */
+    static final int STRING_NULL = 0;
+    /** String reference to a string which follows, and is added to the string table */
+    static final int STRING_NEW = 1;
+    /** Offset of the indexes in the string table in string references */
+    static final int STRING_OFFSET = 2;
+
+    /** Coordinates are written with the precision of the OSM API if possible */
+    static final double UNITS_PER_DEGREE = 1e7;
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    private long lastId;
+    private long lastRef;
+    private long lastLat;
+    private long lastLon;
+    private long lastTimestamp;
+
+    /**
+     * Constructs a new {@code OsmBinaryWriter}.
+     * @param out the output stream, closed by {@link #close()}
+     */
+    public OsmBinaryWriter(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+    }
+
+    /**
+     * Writes the given dataset. The dataset is not locked while it is written, see {@link DataSet#snapshot()}.
+     * @param ds the dataset
+     * @throws IOException in case of I/O error
+     */
+    public void write(DataSet ds) throws IOException {
+        try (DataSetSnapshot snapshot = ds.snapshot()) {
+            write(snapshot);
+        }
+    }
+
+    /**
+     * Writes the given dataset snapshot: a header with the dataset properties and data sources, then the nodes,
+     * ways and relations.
+     * @param snapshot the dataset snapshot
+     * @throws IOException in case of I/O error
+     */
+    public void write(DataSetSnapshot snapshot) throws IOException {
+        writeHeader(snapshot.getVersion(), snapshot.getDownloadPolicy(), snapshot.getUploadPolicy(), snapshot.isLocked(),
+                snapshot.getDataSources());
+        writeSection(snapshot.getNodes(), this::writeNode);
+        writeSection(snapshot.getWays(), this::writeWay);
+        writeSection(snapshot.getRelations(), this::writeRelation);
+        out.flush();
+    }
+
+    /**
+     * Appends a journal entry to the given stream. The entry records the changes of a dataset since the previous
+     * entry, or since the dataset has been written: the new data sources, the current state of the primitives which
+     * have been added or changed, and the primitives which have been removed. The entry is prefixed by its length,
+     * so that {@link OsmBinaryReader} ignores an entry which has not been completely written, like after a crash.
+     * <p>
+     * The dataset must be read-locked by the caller.
+     * @param journal the journal output stream, which is not closed
+     * @param ds the dataset
+     * @param dataSources the data sources added since the previous entry
+     * @param changed the primitives added or changed since the previous entry
+     * @param removed the primitives removed since the previous entry
+     * @throws IOException in case of I/O error
+     */
+    public static void writeJournalEntry(OutputStream journal, DataSet ds, List<DataSource> dataSources,
+            Collection<? extends OsmPrimitive> changed, Collection<? extends PrimitiveId> removed) throws IOException {
+        List<NodeData> nodes = new ArrayList<>();
+        List<WayData> ways = new ArrayList<>();
+        List<RelationData> relations = new ArrayList<>();
+        List<PrimitiveId> dropped = new ArrayList<>(removed);
+        for (OsmPrimitive p : changed) {
+            PrimitiveData data = p.save();
+            if (!shouldWrite(data)) {
+                dropped.add(data);
+            } else if (data instanceof NodeData) {
+                nodes.add((NodeData) data);
+            } else if (data instanceof WayData) {
+                ways.add((WayData) data);
+            } else {
+                relations.add((RelationData) data);
+            }
+        }
+        ByteArrayOutputStream entry = new ByteArrayOutputStream();
+        try (OsmBinaryWriter w = new OsmBinaryWriter(entry)) {
+            w.writeHeader(ds.getVersion(), ds.getDownloadPolicy(), ds.getUploadPolicy(), ds.isLocked(), dataSources);
+            w.writeSection(nodes, w::writeNode);
+            w.writeSection(ways, w::writeWay);
+            w.writeSection(relations, w::writeRelation);
+            w.writeVarInt(dropped.size());
+            w.resetDeltas();
+            for (PrimitiveId id : dropped) {
+                w.out.writeByte(id.getType().ordinal());
+                w.writeSignedVarInt(id.getUniqueId() - w.lastId);
+                w.lastId = id.getUniqueId();
+            }
+        }
+        // write the entry at once, so that it is either completely written, or truncated
+        ByteArrayOutputStream framed = new ByteArrayOutputStream(entry.size() + 4);
+        new DataOutputStream(framed).writeInt(entry.size());
+        entry.writeTo(framed);
+        framed.writeTo(journal);
+        journal.flush();
+    }
+
+    private void writeHeader(String version, DownloadPolicy downloadPolicy, UploadPolicy uploadPolicy, boolean locked,
+            List<DataSource> dataSources) throws IOException {
+        out.write(MAGIC);
+        writeVarInt(FORMAT_VERSION);
+        writeString(version);
+        writeString(downloadPolicy.getXmlFlag());
+        writeString(uploadPolicy.getXmlFlag());
+        out.writeBoolean(locked);
+        writeVarInt(dataSources.size());
+        for (DataSource source : dataSources) {
+            out.writeDouble(source.bounds.getMinLat());
+            out.writeDouble(source.bounds.getMinLon());
+            out.writeDouble(source.bounds.getMaxLat());
+            out.writeDouble(source.bounds.getMaxLon());
+            writeString(source.origin);
+        }
+    }
+
+    @FunctionalInterface
+    private interface PrimitiveWriter<T extends PrimitiveData> {
+        void write(T data) throws IOException;
+    }
+
+    private <T extends PrimitiveData> void writeSection(List<T> primitives, PrimitiveWriter<T> writer) throws IOException {
+        writeVarInt(primitives.stream().filter(OsmBinaryWriter::shouldWrite).count());
+        resetDeltas();
+        for (T data : primitives) {
+            if (shouldWrite(data)) {
+                writer.write(data);
+            }
+        }
+    }
+
+    private static boolean shouldWrite(PrimitiveData data) {
+        // same rules as the .osm format: new primitives which have been deleted are dropped
+        return !data.isIncomplete() && (!data.isNewOrUndeleted() || !data.isDeleted());
+    }
+
+    private void resetDeltas() {
+        lastId = 0;
+        lastRef = 0;
+        lastLat = 0;
+        lastLon = 0;
+        lastTimestamp = 0;
+    }
+
+    private void writeNode(NodeData nd) throws IOException {
+        int flags = 0;
+        long lat = 0;
+        long lon = 0;
+        if (nd.isLatLonKnown()) {
+            lat = Math.round(nd.lat() * UNITS_PER_DEGREE);
+            lon = Math.round(nd.lon() * UNITS_PER_DEGREE);
+            // only use the fixed-point numbers if they give back the very same coordinates
+            flags = lat / UNITS_PER_DEGREE == nd.lat() && lon / UNITS_PER_DEGREE == nd.lon()
+                    ? FLAG_COORDINATES : FLAG_RAW_COORDINATES;
+        }
+        writeCommon(nd, flags);
+        if (flags == FLAG_COORDINATES) {
+            writeSignedVarInt(lat - lastLat);
+            writeSignedVarInt(lon - lastLon);
+            lastLat = lat;
+            lastLon = lon;
+        } else if (flags == FLAG_RAW_COORDINATES) {
+            out.writeDouble(nd.lat());
+            out.writeDouble(nd.lon());
+        }
+    }
+
+    private void writeWay(WayData wd) throws IOException {
+        writeCommon(wd, 0);
+        List<Long> nodeIds = wd.getNodeIds();
+        writeVarInt(nodeIds.size());
+        for (Long ref : nodeIds) {
+            writeSignedVarInt(ref - lastRef);
+            lastRef = ref;
+        }
+    }
+
+    private void writeRelation(RelationData rd) throws IOException {
+        writeCommon(rd, 0);
+        List<RelationMemberData> members = rd.getMembers();
+        writeVarInt(members.size());
+        for (RelationMemberData member : members) {
+            out.writeByte(member.getMemberType().ordinal());
+            writeSignedVarInt(member.getMemberId() - lastRef);
+            lastRef = member.getMemberId();
+            writeString(member.getRole());
+        }
+    }
+
+    private void writeCommon(PrimitiveData pd, int typeFlags) throws IOException {
+        int flags = typeFlags;
+        if (pd.isModified()) {
+            flags |= FLAG_MODIFIED;
+        }
+        if (pd.isDeleted()) {
+            flags |= FLAG_DELETED;
+        }
+        if (!pd.isVisible()) {
+            flags |= FLAG_INVISIBLE;
+        }
+        User user = pd.getUser();
+        if (user != null && user.isOsmUser()) {
+            flags |= FLAG_OSM_USER;
+        } else if (user != null && user.isLocalUser()) {
+            flags |= FLAG_LOCAL_USER;
+        }
+        writeSignedVarInt(pd.getUniqueId() - lastId);
+        lastId = pd.getUniqueId();
+        writeVarInt(flags);
+        writeVarInt(pd.getVersion());
+        writeVarInt(pd.getChangesetId());
+        writeSignedVarInt(pd.getRawTimestamp() - lastTimestamp);
+        lastTimestamp = pd.getRawTimestamp();
+        if ((flags & FLAG_OSM_USER) != 0) {
+            writeVarInt(user.getId());
+        }
+        if ((flags & (FLAG_OSM_USER | FLAG_LOCAL_USER)) != 0) {
+            writeString(user.getName());
+        }
+        writeVarInt(pd.getNumKeys());
+        for (Map.Entry<String, String> tag : pd.getKeys().entrySet()) {
+            writeString(tag.getKey());
+            writeString(tag.getValue());
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarInt(STRING_NULL);
+            return;
+        }
+        Integer index = strings.get(value);
+        if (index != null) {
+            writeVarInt(STRING_OFFSET + (long) index);
+        } else {
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(STRING_NEW);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private void writeSignedVarInt(long value) throws IOException {
+        writeVarInt((value << 1) ^ (value >> 63));
+    }
+
+    private void writeVarInt(long value) throws IOException {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -3,16 +3,18 @@ package org.openstreetmap.josm.io;
 
 import static org.openstreetmap.josm.tools.I18n.tr;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Map.Entry;
+import java.util.List;
+import java.util.Locale;
 
 import javax.json.Json;
-import javax.json.JsonArray;
-import javax.json.JsonNumber;
 import javax.json.JsonObject;
-import javax.json.JsonString;
-import javax.json.JsonValue;
+import javax.json.JsonObjectBuilder;
 import javax.json.stream.JsonParser;
 import javax.json.stream.JsonParser.Event;
 
@@ -26,17 +28,36 @@ import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
 import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.UncheckedParseException;
+import org.openstreetmap.josm.tools.Utils;
+import org.openstreetmap.josm.tools.collections.LongArrayList;
 
 /**
  * Parser for the Osm API (JSON output). Read from an input stream and construct a dataset out of it.
  *
+ * The elements are read from the events of the JSON parser, one at a time, so that the whole JSON tree of large
+ * responses (e.g. from Overpass API) is never held in memory.
  * For each json element, there is a dedicated method.
  * @since 14086
  */
 public class OsmJsonReader extends AbstractReader {
 
+    /** Number of bytes read between two updates of the progress monitor */
+    private static final int PROGRESS_STEP = 1 << 20;
+
     protected JsonParser parser;
 
+    /** The element being read, reused for all elements */
+    private final Element element = new Element();
+
+    /**
+     * Exception thrown after user cancellation.
+     */
+    private static final class OsmJsonParsingCanceledException extends InterruptedIOException implements ImportCancelException {
+        OsmJsonParsingCanceledException(String msg) {
+            super(msg);
+        }
+    }
+
     /**
      * constructor (for private and subclasses use only)
      *
@@ -54,116 +75,322 @@ public class OsmJsonReader extends AbstractReader {
         while (parser.hasNext()) {
             Event event = parser.next();
             if (event == Event.START_OBJECT) {
-                parseRoot(parser.getObject());
+                parseRoot();
             }
         }
         parser.close();
     }
 
-    private void parseRoot(JsonObject object) throws IllegalDataException {
-        parseVersion(object.get("version").toString());
-        parseDownloadPolicy("download", object.getString("download", null));
-        parseUploadPolicy("upload", object.getString("upload", null));
-        parseLocked(object.getString("locked", null));
-        parseElements(object.getJsonArray("elements"));
-        parseRemark(object.getString("remark", null));
+    private void parseRoot() throws IllegalDataException {
+        boolean version = false;
+        String remark = null;
+        for (Event event = parser.next(); event != Event.END_OBJECT; event = parser.next()) {
+            String key = parser.getString();
+            event = parser.next();
+            switch (key) {
+            case "version":
+                parseVersion(event == Event.VALUE_STRING || event == Event.VALUE_NUMBER ? parser.getString() : null);
+                version = true;
+                break;
+            case "download":
+                parseDownloadPolicy("download", readString(event));
+                break;
+            case "upload":
+                parseUploadPolicy("upload", readString(event));
+                break;
+            case "locked":
+                parseLocked(readString(event));
+                break;
+            case "elements":
+                if (event != Event.START_ARRAY) {
+                    throw new IllegalDataException("Unexpected JSON elements: " + parser.getValue());
+                }
+                parseElements();
+                break;
+            case "remark":
+                remark = readString(event);
+                break;
+            default:
+                skip(event);
+            }
+        }
+        if (!version) {
+            parseVersion(null);
+        }
+        parseRemark(remark);
     }
 
     private void parseRemark(String remark) {
         ds.setRemark(remark);
     }
 
-    private void parseElements(JsonArray jsonArray) throws IllegalDataException {
-        for (JsonValue value : jsonArray) {
-            if (value instanceof JsonObject) {
-                JsonObject item = (JsonObject) value;
-                switch (item.getString("type")) {
-                case "node":
-                    parseNode(item);
+    private void parseElements() throws IllegalDataException {
+        for (Event event = parser.next(); event != Event.END_ARRAY; event = parser.next()) {
+            if (event != Event.START_OBJECT) {
+                throw new IllegalDataException("Unexpected JSON item: " + parser.getValue());
+            }
+            readElement();
+            if (element.type == null) {
+                throw new IllegalDataException("Missing JSON item type");
+            }
+            switch (element.type) {
+            case "node":
+                parseNode();
+                break;
+            case "way":
+                parseWay();
+                break;
+            case "relation":
+                parseRelation();
+                break;
+            default:
+                parseUnknown(element.toJson());
+            }
+            checkCancelled();
+            flushBatchIfNeeded();
+        }
+    }
+
+    private void checkCancelled() throws IllegalDataException {
+        if (cancel) {
+            cancel = false;
+            throw new IllegalDataException(new OsmJsonParsingCanceledException(tr("Reading was canceled")));
+        }
+    }
+
+    /**
+     * Reads the attributes of the current element, from its {@code START_OBJECT} event to its {@code END_OBJECT} event.
+     * @throws IllegalDataException if the types of the attributes are not the expected ones
+     */
+    private void readElement() throws IllegalDataException {
+        Element e = element;
+        e.clear();
+        for (Event event = parser.next(); event != Event.END_OBJECT; event = parser.next()) {
+            String key = parser.getString();
+            event = parser.next();
+            switch (key) {
+            case "type":
+                e.type = readString(event);
+                break;
+            case "id":
+                e.id = readLong(key, event);
+                break;
+            case "lat":
+                e.lat = readDouble(key, event);
+                break;
+            case "lon":
+                e.lon = readDouble(key, event);
+                break;
+            case "timestamp":
+                e.timestamp = readString(event);
+                break;
+            case "uid":
+                e.uid = readLong(key, event);
+                break;
+            case "user":
+                e.user = readString(event);
+                break;
+            case "visible":
+                e.visible = readString(event);
+                break;
+            case "version":
+                e.version = readLong(key, event);
+                break;
+            case "action":
+                e.action = readString(event);
+                break;
+            case "changeset":
+                e.changeset = readLong(key, event);
+                break;
+            case "tags":
+                readTags(event, e.tags);
+                break;
+            case "nodes":
+                readNodes(event, e.nodes);
+                break;
+            case "members":
+                readMembers(event, e);
+                break;
+            default:
+                skip(event);
+            }
+        }
+    }
+
+    private void readTags(Event event, List<String> tags) throws IllegalDataException {
+        if (event != Event.START_OBJECT) {
+            skip(event);
+            return;
+        }
+        for (Event e = parser.next(); e != Event.END_OBJECT; e = parser.next()) {
+            String key = parser.getString();
+            if (parser.next() != Event.VALUE_STRING) {
+                throw new IllegalDataException(tr("Illegal value for tag ''{0}''. Got ''{1}''.", key, parser.getValue()));
+            }
+            tags.add(key);
+            tags.add(parser.getString());
+        }
+    }
+
+    private void readNodes(Event event, LongArrayList nodes) throws IllegalDataException {
+        if (event != Event.START_ARRAY) {
+            throw new IllegalDataException("Unexpected JSON nodes: " + parser.getValue());
+        }
+        for (Event e = parser.next(); e != Event.END_ARRAY; e = parser.next()) {
+            Long id = readLong("nodes", e);
+            if (id == null) {
+                throw new IllegalDataException("Unexpected JSON node: " + parser.getValue());
+            }
+            nodes.add(id.longValue());
+        }
+    }
+
+    private void readMembers(Event event, Element e) throws IllegalDataException {
+        if (event != Event.START_ARRAY) {
+            skip(event);
+            return;
+        }
+        for (Event memberEvent = parser.next(); memberEvent != Event.END_ARRAY; memberEvent = parser.next()) {
+            if (memberEvent != Event.START_OBJECT) {
+                throw new IllegalDataException("Unexpected JSON member: " + parser.getValue());
+            }
+            Long ref = null;
+            String type = null;
+            String role = null;
+            for (Event attribute = parser.next(); attribute != Event.END_OBJECT; attribute = parser.next()) {
+                String key = parser.getString();
+                attribute = parser.next();
+                switch (key) {
+                case "ref":
+                    ref = readLong(key, attribute);
                     break;
-                case "way":
-                    parseWay(item);
+                case "type":
+                    type = readString(attribute);
                     break;
-                case "relation":
-                    parseRelation(item);
+                case "role":
+                    role = readString(attribute);
                     break;
                 default:
-                    parseUnknown(item);
+                    skip(attribute);
+                }
+            }
+            if (ref == null) {
+                throw new IllegalDataException(tr("Missing attribute ''ref'' on member in relation {0}.", String.valueOf(e.id)));
+            }
+            e.memberRefs.add(ref.longValue());
+            e.memberTypes.add(type);
+            e.memberRoles.add(role);
+        }
+    }
+
+    /**
+     * Returns the current string value.
+     * @param event the current event
+     * @return the current string value, or {@code null} if the current value is not a string (it is then skipped)
+     */
+    private String readString(Event event) {
+        if (event == Event.VALUE_STRING) {
+            return parser.getString();
+        }
+        skip(event);
+        return null;
+    }
+
+    private Long readLong(String key, Event event) throws IllegalDataException {
+        if (event == Event.VALUE_NUMBER) {
+            return parser.getLong();
+        } else if (event == Event.VALUE_NULL) {
+            return null;
+        }
+        throw new IllegalDataException(tr("Illegal value for attribute ''{0}''. Got ''{1}''.", key, parser.getValue()));
+    }
+
+    private double readDouble(String key, Event event) throws IllegalDataException {
+        if (event == Event.VALUE_NUMBER) {
+            return parser.getBigDecimal().doubleValue();
+        } else if (event == Event.VALUE_NULL) {
+            return Double.NaN;
+        }
+        throw new IllegalDataException(tr("Illegal value for attribute ''{0}''. Got ''{1}''.", key, parser.getValue()));
+    }
+
+    /**
+     * Skips the current value, including its children.
+     * @param event the current event
+     */
+    private void skip(Event event) {
+        if (event == Event.START_OBJECT || event == Event.START_ARRAY) {
+            for (int depth = 1; depth > 0;) {
+                Event e = parser.next();
+                if (e == Event.START_OBJECT || e == Event.START_ARRAY) {
+                    depth++;
+                } else if (e == Event.END_OBJECT || e == Event.END_ARRAY) {
+                    depth--;
                 }
-            } else {
-                throw new IllegalDataException("Unexpected JSON item: " + value);
             }
         }
     }
 
     /**
      * Read out the common attributes and put them into current OsmPrimitive.
-     * @param item current JSON object
      * @param current primitive to update
      * @throws IllegalDataException if there is an error processing the underlying JSON source
      */
-    private void readCommon(JsonObject item, PrimitiveData current) throws IllegalDataException {
+    private void readCommon(PrimitiveData current) throws IllegalDataException {
+        Element e = element;
         try {
-            parseId(current, item.getJsonNumber("id").longValue());
-            parseTimestamp(current, item.getString("timestamp", null));
-            JsonNumber uid = item.getJsonNumber("uid");
-            if (uid != null) {
-                parseUser(current, item.getString("user", null), uid.longValue());
+            if (e.id == null) {
+                throw new IllegalDataException(tr("Missing required attribute ''{0}''.", "id"));
+            }
+            parseId(current, e.id);
+            parseTimestamp(current, e.timestamp);
+            if (e.uid != null) {
+                parseUser(current, e.user, e.uid);
             }
-            parseVisible(current, item.getString("visible", null));
-            JsonNumber version = item.getJsonNumber("version");
-            if (version != null) {
-                parseVersion(current, version.intValue());
+            parseVisible(current, e.visible);
+            if (e.version != null) {
+                parseVersion(current, e.version.intValue());
             }
-            parseAction(current, item.getString("action", null));
-            JsonNumber changeset = item.getJsonNumber("changeset");
-            if (changeset != null) {
-                parseChangeset(current, changeset.intValue());
+            parseAction(current, e.action);
+            if (e.changeset != null) {
+                parseChangeset(current, e.changeset.intValue());
             }
-        } catch (UncheckedParseException e) {
-            throw new IllegalDataException(e);
+        } catch (UncheckedParseException ex) {
+            throw new IllegalDataException(ex);
         }
     }
 
-    private static void readTags(JsonObject item, Tagged t) {
-        JsonObject tags = item.getJsonObject("tags");
-        if (tags != null) {
-            for (Entry<String, JsonValue> entry : tags.entrySet()) {
-                t.put(entry.getKey(), ((JsonString) entry.getValue()).getString());
-            }
+    private void readTags(Tagged t) {
+        List<String> tags = element.tags;
+        for (int i = 0; i < tags.size(); i += 2) {
+            t.put(tags.get(i), tags.get(i + 1));
         }
     }
 
-    private void parseNode(JsonObject item) throws IllegalDataException {
-        parseNode(item.getJsonNumber("lat").doubleValue(),
-                  item.getJsonNumber("lon").doubleValue(), nd -> readCommon(item, nd), n -> readTags(item, n));
+    private void parseNode() throws IllegalDataException {
+        parseNode(element.lat, element.lon, this::readCommon, this::readTags);
     }
 
-    private void parseWay(JsonObject item) throws IllegalDataException {
-        parseWay(wd -> readCommon(item, wd), (w, nodeIds) -> readWayNodesAndTags(item, w, nodeIds));
+    private void parseWay() throws IllegalDataException {
+        parseWay(this::readCommon, this::readWayNodesAndTags);
     }
 
-    private static void readWayNodesAndTags(JsonObject item, WayData w, Collection<Long> nodeIds) {
-        for (JsonValue v : item.getJsonArray("nodes")) {
-            nodeIds.add(((JsonNumber) v).longValue());
-        }
-        readTags(item, w);
+    private void readWayNodesAndTags(WayData w, Collection<Long> nodeIds) {
+        nodeIds.addAll(element.nodes);
+        readTags(w);
     }
 
-    private void parseRelation(JsonObject item) throws IllegalDataException {
-        parseRelation(rd -> readCommon(item, rd), (r, members) -> readRelationMembersAndTags(item, r, members));
+    private void parseRelation() throws IllegalDataException {
+        parseRelation(this::readCommon, this::readRelationMembersAndTags);
     }
 
-    private void readRelationMembersAndTags(JsonObject item, RelationData r, Collection<RelationMemberData> members)
+    private void readRelationMembersAndTags(RelationData r, Collection<RelationMemberData> members)
             throws IllegalDataException {
-        JsonArray jsonArray = item.getJsonArray("members");
-        if (jsonArray != null) {
-            for (JsonValue v : jsonArray) {
-                JsonObject o = v.asJsonObject();
-                members.add(parseRelationMember(r, ((JsonNumber) o.get("ref")).longValue(), o.getString("type"), o.getString("role")));
-            }
+        Element e = element;
+        for (int i = 0; i < e.memberRefs.size(); i++) {
+            members.add(parseRelationMember(r, e.memberRefs.getLong(i), e.memberTypes.get(i), e.memberRoles.get(i)));
         }
-        readTags(item, r);
+        readTags(r);
     }
 
     protected void parseUnknown(JsonObject element, boolean printWarning) {
@@ -178,7 +405,9 @@ public class OsmJsonReader extends AbstractReader {
 
     @Override
     protected DataSet doParseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
-        return doParseDataSet(source, progressMonitor, ir -> {
+        InputStream in = progressMonitor == null || progressMonitor instanceof NullProgressMonitor
+                ? source : new ProgressCountingInputStream(source, progressMonitor);
+        return doParseDataSet(in, progressMonitor, ir -> {
             setParser(Json.createParser(ir));
             parse();
         });
@@ -197,4 +426,104 @@ public class OsmJsonReader extends AbstractReader {
     public static DataSet parseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
         return new OsmJsonReader().doParseDataSet(source, progressMonitor);
     }
+
+    /**
+     * The attributes of an element, read before the primitive data is built, as their order is not specified.
+     */
+    private static final class Element {
+        String type;
+        Long id;
+        double lat;
+        double lon;
+        String timestamp;
+        Long uid;
+        String user;
+        String visible;
+        Long version;
+        String action;
+        Long changeset;
+        /** Keys and values, alternately */
+        final List<String> tags = new ArrayList<>();
+        final LongArrayList nodes = new LongArrayList();
+        final LongArrayList memberRefs = new LongArrayList();
+        final List<String> memberTypes = new ArrayList<>();
+        final List<String> memberRoles = new ArrayList<>();
+
+        void clear() {
+            type = null;
+            id = null;
+            lat = Double.NaN;
+            lon = Double.NaN;
+            timestamp = null;
+            uid = null;
+            user = null;
+            visible = null;
+            version = null;
+            action = null;
+            changeset = null;
+            tags.clear();
+            nodes.clear();
+            memberRefs.clear();
+            memberTypes.clear();
+            memberRoles.clear();
+        }
+
+        JsonObject toJson() {
+            JsonObjectBuilder builder = Json.createObjectBuilder().add("type", type);
+            if (id != null) {
+                builder.add("id", id);
+            }
+            return builder.build();
+        }
+    }
+
+    /**
+     * Reports the number of bytes consumed by the parser to the progress monitor, as the size of the data is unknown.
+     */
+    private static final class ProgressCountingInputStream extends FilterInputStream {
+        private final ProgressMonitor progressMonitor;
+        private long count;
+        private long nextUpdate = PROGRESS_STEP;
+
+        ProgressCountingInputStream(InputStream in, ProgressMonitor progressMonitor) {
+            super(in);
+            this.progressMonitor = progressMonitor;
+        }
+
+        private void count(long n) {
+            if (n > 0) {
+                count += n;
+                if (count >= nextUpdate) {
+                    nextUpdate = count + PROGRESS_STEP;
+                    progressMonitor.setExtraText(Utils.getSizeString(count, Locale.getDefault()));
+                }
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            count(b >= 0 ? 1 : 0);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            count(n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
 }
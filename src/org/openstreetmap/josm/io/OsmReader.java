@@ -4,16 +4,22 @@ package org.openstreetmap.josm.io;
 import static org.openstreetmap.josm.tools.I18n.tr;
 
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
@@ -22,6 +28,7 @@ import org.openstreetmap.josm.data.osm.Changeset;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.NodeData;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.PrimitiveData;
 import org.openstreetmap.josm.data.osm.Relation;
 import org.openstreetmap.josm.data.osm.RelationData;
@@ -29,10 +36,12 @@ import org.openstreetmap.josm.data.osm.RelationMemberData;
 import org.openstreetmap.josm.data.osm.Tagged;
 import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.data.osm.WayData;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
 import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
 import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.UncheckedParseException;
+import org.openstreetmap.josm.tools.Utils;
 import org.openstreetmap.josm.tools.XmlUtils;
 
 /**
@@ -60,6 +69,19 @@ public class OsmReader extends AbstractReader {
         SAVE_ORIGINAL_ID
     }
 
+    /**
+     * Whether files are read by a pipeline of threads, see {@link #parseDataSetPipelined}
+     * @since xxx
+     */
+    public static final BooleanProperty PIPELINED = new BooleanProperty("osm.reader.pipelined", true);
+
+    /** Number of primitives handed over at once from the parser thread to the builder thread */
+    private static final int PIPELINE_BATCH_SIZE = 1024;
+    /** Number of batches the parser thread can be ahead of the builder thread */
+    private static final int PIPELINE_CAPACITY = 16;
+    private static final List<PrimitiveData> END_OF_PIPELINE = Collections.emptyList();
+    private static final ThreadFactory BUILDER_THREADS = Utils.newThreadFactory("osm-reader-builder-%d", Thread.NORM_PRIORITY);
+
     protected XMLStreamReader parser;
 
     /** The {@link OsmReader.Options} to use when parsing the xml data */
@@ -80,6 +102,15 @@ public class OsmReader extends AbstractReader {
         COMMON_XML_ATTRIBUTES.add("lon");
     }
 
+    /** whether this reader parses with a pipeline of threads */
+    private boolean pipelined;
+    /** the batches of parsed primitives waiting for the builder thread, in pipelined mode */
+    private BlockingQueue<List<PrimitiveData>> pipeline;
+    /** the batch of parsed primitives being filled, in pipelined mode */
+    private List<PrimitiveData> batch;
+    /** the error raised in the builder thread, in pipelined mode */
+    private volatile Throwable builderError;
+
     /**
      * constructor (for private and subclasses use only)
      *
@@ -133,6 +164,97 @@ public class OsmReader extends AbstractReader {
         parser.close();
     }
 
+    /**
+     * Parses the data in pipelined mode: the primitives are built in a dedicated thread,
+     * while this thread goes on parsing.
+     * @throws XMLStreamException if there is an error processing the underlying XML source
+     */
+    private void parsePipelined() throws XMLStreamException {
+        pipeline = new ArrayBlockingQueue<>(PIPELINE_CAPACITY);
+        batch = new ArrayList<>(PIPELINE_BATCH_SIZE);
+        Thread builder = BUILDER_THREADS.newThread(this::buildPipelined);
+        builder.setDaemon(true);
+        builder.start();
+        try {
+            parse();
+            flushBatch();
+        } finally {
+            try {
+                // the builder thread consumes all batches, even after an error, so this cannot block forever
+                pipeline.put(END_OF_PIPELINE);
+                builder.join();
+            } catch (InterruptedException e) {
+                Logging.trace(e);
+                builder.interrupt();
+                Thread.currentThread().interrupt();
+            }
+        }
+        rethrowBuilderError();
+    }
+
+    /**
+     * Builds the primitives parsed by {@link #parsePipelined}. Runs in the builder thread.
+     */
+    private void buildPipelined() {
+        try {
+            List<PrimitiveData> primitives;
+            while ((primitives = pipeline.take()) != END_OF_PIPELINE) {
+                if (builderError == null) {
+                    try {
+                        for (PrimitiveData pd : primitives) {
+                            super.buildPrimitive(pd);
+                        }
+                    } catch (RuntimeException | Error e) { // NOPMD
+                        builderError = e;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Logging.trace(e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushBatch() {
+        rethrowBuilderError();
+        if (!batch.isEmpty()) {
+            try {
+                pipeline.put(batch);
+            } catch (InterruptedException e) {
+                Logging.trace(e);
+                Thread.currentThread().interrupt();
+                cancel = true;
+            }
+            batch = new ArrayList<>(PIPELINE_BATCH_SIZE);
+        }
+    }
+
+    private void rethrowBuilderError() {
+        Throwable e = builderError;
+        if (e instanceof Error) {
+            throw (Error) e;
+        } else if (e != null) {
+            throw (RuntimeException) e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * In pipelined mode, the primitive is built later in the builder thread, and {@code null} is returned.
+     */
+    @Override
+    protected OsmPrimitive buildPrimitive(PrimitiveData pd) {
+        if (!pipelined) {
+            return super.buildPrimitive(pd);
+        }
+        batch.add(pd);
+        if (batch.size() >= PIPELINE_BATCH_SIZE) {
+            flushBatch();
+        }
+        return null;
+    }
+
     protected void parseRoot() throws XMLStreamException {
         if ("osm".equals(parser.getLocalName())) {
             parseOsm();
@@ -186,12 +308,21 @@ public class OsmReader extends AbstractReader {
                 default:
                     parseUnknown();
                 }
+                flushIncrementalBatch();
             } else if (event == XMLStreamConstants.END_ELEMENT) {
                 return;
             }
         }
     }
 
+    private void flushIncrementalBatch() throws XMLStreamException {
+        try {
+            flushBatchIfNeeded();
+        } catch (IllegalDataException e) {
+            handleIllegalDataException(e);
+        }
+    }
+
     private void handleIllegalDataException(IllegalDataException e) throws XMLStreamException {
         Throwable cause = e.getCause();
         if (cause instanceof XMLStreamException) {
@@ -488,26 +619,45 @@ public class OsmReader extends AbstractReader {
 
     @Override
     protected DataSet doParseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
-        return doParseDataSet(source, progressMonitor, ir -> {
-            try {
-                setParser(XmlUtils.newSafeXMLInputFactory().createXMLStreamReader(ir));
+        if (source instanceof MappedFileInputStream) {
+            // local file: the XML parser decodes the bytes itself, without the copies of an InputStreamReader.
+            // No read-ahead is needed, the operating system pages the file in
+            return doParseByteDataSet(source, progressMonitor,
+                    (in, encoding) -> parseXml(factory -> factory.createXMLStreamReader(in, encoding)));
+        }
+        // in pipelined mode, the source stream (and its decompression) is read in another thread
+        return doParseDataSet(pipelined && source != null ? new ReadAheadInputStream(source) : source, progressMonitor,
+                ir -> parseXml(factory -> factory.createXMLStreamReader(ir)));
+    }
+
+    @FunctionalInterface
+    private interface XMLStreamReaderFactory {
+        XMLStreamReader create(XMLInputFactory factory) throws XMLStreamException;
+    }
+
+    private void parseXml(XMLStreamReaderFactory parserFactory) throws IllegalDataException {
+        try {
+            setParser(parserFactory.create(XmlUtils.newSafeXMLInputFactory()));
+            if (pipelined) {
+                parsePipelined();
+            } else {
                 parse();
-            } catch (XmlStreamParsingException | UncheckedParseException e) {
-                throw new IllegalDataException(e.getMessage(), e);
-            } catch (XMLStreamException e) {
-                String msg = e.getMessage();
-                Pattern p = Pattern.compile("Message: (.+)");
-                Matcher m = p.matcher(msg);
-                if (m.find()) {
-                    msg = m.group(1);
-                }
-                if (e.getLocation() != null)
-                    throw new IllegalDataException(tr("Line {0} column {1}: ",
-                            e.getLocation().getLineNumber(), e.getLocation().getColumnNumber()) + msg, e);
-                else
-                    throw new IllegalDataException(msg, e);
             }
-        });
+        } catch (XmlStreamParsingException | UncheckedParseException e) {
+            throw new IllegalDataException(e.getMessage(), e);
+        } catch (XMLStreamException e) {
+            String msg = e.getMessage();
+            Pattern p = Pattern.compile("Message: (.+)");
+            Matcher m = p.matcher(msg);
+            if (m.find()) {
+                msg = m.group(1);
+            }
+            if (e.getLocation() != null)
+                throw new IllegalDataException(tr("Line {0} column {1}: ",
+                        e.getLocation().getLineNumber(), e.getLocation().getColumnNumber()) + msg, e);
+            else
+                throw new IllegalDataException(msg, e);
+        }
     }
 
     /**
@@ -540,4 +690,28 @@ public class OsmReader extends AbstractReader {
             throws IllegalDataException {
         return new OsmReader(options).doParseDataSet(source, progressMonitor);
     }
+
+    /**
+     * Parse the given input source and return the dataset, using a pipeline of threads.
+     * <p>
+     * The source stream is read (and decompressed, if needed) in a first thread, the XML is parsed in the calling thread,
+     * and the primitives are built in a third thread. The stages are connected by bounded buffers.
+     * This is faster than {@link #parseDataSet(InputStream, ProgressMonitor, Options...)} for large files,
+     * especially compressed ones.
+     *
+     * @param source the source input stream. Must not be null.
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     * @param options The options to use when parsing the dataset
+     *
+     * @return the dataset with the parsed data
+     * @throws IllegalDataException if an error was found while parsing the data from the source
+     * @throws IllegalArgumentException if source is null
+     * @since xxx
+     */
+    public static DataSet parseDataSetPipelined(InputStream source, ProgressMonitor progressMonitor, Options... options)
+            throws IllegalDataException {
+        OsmReader reader = new OsmReader(options);
+        reader.pipelined = true;
+        return reader.doParseDataSet(source, progressMonitor);
+    }
 }
@@ -17,17 +17,22 @@ import org.openstreetmap.josm.data.coor.conversion.DecimalDegreesCoordinateForma
 import org.openstreetmap.josm.data.osm.AbstractPrimitive;
 import org.openstreetmap.josm.data.osm.Changeset;
 import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.DataSetSnapshot;
 import org.openstreetmap.josm.data.osm.DownloadPolicy;
 import org.openstreetmap.josm.data.osm.INode;
 import org.openstreetmap.josm.data.osm.IPrimitive;
 import org.openstreetmap.josm.data.osm.IRelation;
 import org.openstreetmap.josm.data.osm.IWay;
 import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.NodeData;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
 import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationData;
 import org.openstreetmap.josm.data.osm.Tagged;
 import org.openstreetmap.josm.data.osm.UploadPolicy;
 import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.WayData;
 import org.openstreetmap.josm.data.osm.visitor.PrimitiveVisitor;
 
 /**
@@ -163,6 +168,44 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
         footer();
     }
 
+    /**
+     * Writes the full OSM file for the given dataset snapshot (header, data sources, osm data, footer).
+     * Unlike {@link #write(DataSet)}, this does not need the read lock of the dataset.
+     * @param snapshot snapshot of an OSM data set
+     * @since xxx
+     */
+    public void write(DataSetSnapshot snapshot) {
+        header(snapshot.getDownloadPolicy(), snapshot.getUploadPolicy(), snapshot.isLocked());
+        writeDataSources(snapshot.getDataSources());
+        writeContent(snapshot);
+        footer();
+    }
+
+    /**
+     * Writes the contents of the given dataset snapshot (nodes, then ways, then relations)
+     * @param snapshot The dataset snapshot to write
+     * @since xxx
+     */
+    public void writeContent(DataSetSnapshot snapshot) {
+        setWithVisible(UploadPolicy.NORMAL == snapshot.getUploadPolicy());
+        // the snapshot is already sorted by id
+        for (NodeData n : snapshot.getNodes()) {
+            if (shouldWrite(n)) {
+                visit(n);
+            }
+        }
+        for (WayData w : snapshot.getWays()) {
+            if (shouldWrite(w)) {
+                visit(w);
+            }
+        }
+        for (RelationData r : snapshot.getRelations()) {
+            if (shouldWrite(r)) {
+                visit(r);
+            }
+        }
+    }
+
     /**
      * Writes the contents of the given dataset (nodes, then ways, then relations)
      * @param ds The dataset to write
@@ -217,12 +260,20 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
         return !osm.isNewOrUndeleted() || !osm.isDeleted();
     }
 
+    private static boolean shouldWrite(PrimitiveData data) {
+        return !data.isNewOrUndeleted() || !data.isDeleted();
+    }
+
     /**
      * Writes data sources with their respective bounds.
      * @param ds data set
      */
     public void writeDataSources(DataSet ds) {
-        for (DataSource s : ds.getDataSources()) {
+        writeDataSources(ds.getDataSources());
+    }
+
+    private void writeDataSources(Collection<DataSource> dataSources) {
+        for (DataSource s : dataSources) {
             out.append("  <bounds minlat='").append(DecimalDegreesCoordinateFormat.INSTANCE.latToString(s.bounds.getMin()));
             out.append("' minlon='").append(DecimalDegreesCoordinateFormat.INSTANCE.lonToString(s.bounds.getMin()));
             out.append("' maxlat='").append(DecimalDegreesCoordinateFormat.INSTANCE.latToString(s.bounds.getMax()));
@@ -391,7 +391,7 @@ public class OverpassDownloadReader extends BoundingBoxDownloader {
         if (reader == null) {
             reader = new OverpassOsmReader();
         }
-        return reader.doParseDataSet(source, progressMonitor);
+        return parseDataSet(reader, source, progressMonitor);
     }
 
     @Override
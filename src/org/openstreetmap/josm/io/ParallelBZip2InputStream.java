@@ -0,0 +1,239 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Decompresses a bzip2 file with several threads.
+ * <p>
+ * A bzip2 stream is a sequence of independently compressed blocks of at most 900 kB, each one starting with a 48 bits magic number.
+ * The blocks are not aligned on byte boundaries, so the compressed data is scanned bit by bit for the magic numbers.
+ * Each block is then wrapped in a stream of its own, and decompressed on a thread pool.
+ * Files made of several bzip2 streams (as written by {@code pbzip2}) are supported.
+ * <p>
+ * The magic numbers may appear by chance in the compressed data. The decompression of the affected block then fails,
+ * and the rest of the file is decompressed by a single thread.
+ * @since xxx
+ */
+public class ParallelBZip2InputStream extends ParallelDecompressorInputStream {
+
+    private static final long BLOCK_MAGIC = 0x314159265359L;
+    private static final long END_OF_STREAM_MAGIC = 0x177245385090L;
+    private static final long MAGIC_MASK = 0xFFFFFFFFFFFFL;
+    private static final byte[] STREAM_HEADER = {'B', 'Z', 'h', '9'};
+
+    private final Path path;
+    private final InputStream in;
+    private final byte[] readBuffer = new byte[64 * 1024];
+    private int readLength;
+    private int readPosition;
+
+    /** the compressed bytes of the current segment */
+    private byte[] segment = new byte[1024 * 1024];
+    private int segmentLength;
+    /** bit offset in {@link #segment} of the magic number starting the current segment, -1 if there is none */
+    private long segmentStart = -1;
+    private boolean segmentIsBlock;
+    /** the last 8 bytes read */
+    private long register;
+    private boolean endOfFile;
+
+    /**
+     * Constructs a new {@code ParallelBZip2InputStream}.
+     * @param path the bzip2 file
+     * @throws IOException if the file cannot be read, or if it is not in the bzip2 format
+     */
+    public ParallelBZip2InputStream(Path path) throws IOException {
+        this.path = path;
+        this.in = Files.newInputStream(path);
+        try {
+            byte[] header = new byte[3];
+            if (in.read(header) != 3 || header[0] != 'B' || header[1] != 'Z' || header[2] != 'h') {
+                throw new IOException("Stream is not in the BZip2 format");
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private int readByte() throws IOException {
+        if (readPosition == readLength) {
+            readLength = in.read(readBuffer);
+            readPosition = 0;
+            if (readLength <= 0) {
+                readLength = 0;
+                return -1;
+            }
+        }
+        return readBuffer[readPosition++] & 0xFF;
+    }
+
+    @Override
+    protected Callable<byte[]> nextTask() throws IOException {
+        while (!endOfFile) {
+            int b = readByte();
+            if (b < 0) {
+                endOfFile = true;
+                // truncated file: the decompression reports the error
+                return segmentIsBlock ? endSegment(segmentLength * 8L) : null;
+            }
+            if (segmentLength == segment.length) {
+                segment = Arrays.copyOf(segment, segment.length * 2);
+            }
+            segment[segmentLength++] = (byte) b;
+            register = register << 8 | b;
+            for (int shift = 7; shift >= 0; shift--) {
+                long candidate = (register >>> shift) & MAGIC_MASK;
+                if (candidate == BLOCK_MAGIC || candidate == END_OF_STREAM_MAGIC) {
+                    long start = segmentLength * 8L - shift - 48;
+                    if (start >= 0 && start > segmentStart) {
+                        Callable<byte[]> task = segmentIsBlock ? endSegment(start) : null;
+                        startSegment(start, candidate == BLOCK_MAGIC);
+                        if (task != null) {
+                            return task;
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void startSegment(long start, boolean isBlock) {
+        // discard the bytes before the magic number
+        int first = (int) (start >>> 3);
+        System.arraycopy(segment, first, segment, 0, segmentLength - first);
+        segmentLength -= first;
+        segmentStart = start & 7;
+        segmentIsBlock = isBlock;
+    }
+
+    private Callable<byte[]> endSegment(long end) {
+        byte[] data = Arrays.copyOf(segment, (int) ((end + 7) >>> 3));
+        long start = segmentStart;
+        return () -> {
+            try (InputStream block = new BZip2CompressorInputStream(new ByteArrayInputStream(wrapBlock(data, start, end)), false)) {
+                return Utils.readBytesFromStream(block);
+            }
+        };
+    }
+
+    /**
+     * Wraps a compressed block in a bzip2 stream.
+     * @param data the compressed data
+     * @param start the bit offset of the block magic number
+     * @param end the bit offset of the end of the block
+     * @return a bzip2 stream containing only this block
+     */
+    private static byte[] wrapBlock(byte[] data, long start, long end) {
+        long bits = end - start;
+        BitWriter out = new BitWriter((int) (bits / 8) + STREAM_HEADER.length + 12);
+        for (byte b : STREAM_HEADER) {
+            out.write(8, b);
+        }
+        long bit = start;
+        for (; bit + 8 <= end; bit += 8) {
+            out.write(8, readBits(data, bit, 8));
+        }
+        if (bit < end) {
+            out.write((int) (end - bit), readBits(data, bit, (int) (end - bit)));
+        }
+        out.write(48, END_OF_STREAM_MAGIC);
+        // the combined CRC of a stream with one block is the CRC of the block, which follows its magic number
+        out.write(32, readBits(data, start + 48, 32));
+        return out.toByteArray();
+    }
+
+    private static long readBits(byte[] data, long bit, int count) {
+        long value = 0;
+        int index = (int) (bit >>> 3);
+        int available = 8 - (int) (bit & 7);
+        int remaining = count;
+        while (remaining > 0) {
+            int b = data[index++] & ((1 << available) - 1);
+            if (available <= remaining) {
+                value = value << available | b;
+                remaining -= available;
+            } else {
+                value = value << remaining | b >>> (available - remaining);
+                remaining = 0;
+            }
+            available = 8;
+        }
+        return value;
+    }
+
+    /**
+     * Writes bits, most significant bit first.
+     */
+    private static final class BitWriter {
+        private byte[] buffer;
+        private int length;
+        private long pending;
+        private int pendingBits;
+
+        BitWriter(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void write(int count, long value) {
+            for (int remaining = count; remaining > 0;) {
+                int n = Math.min(remaining, 56 - pendingBits);
+                remaining -= n;
+                pending = pending << n | ((value >>> remaining) & ((1L << n) - 1));
+                pendingBits += n;
+                while (pendingBits >= 8) {
+                    pendingBits -= 8;
+                    if (length == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2 + 8);
+                    }
+                    buffer[length++] = (byte) (pending >>> pendingBits);
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            if (pendingBits > 0) {
+                write(8 - pendingBits, 0);
+            }
+            return Arrays.copyOf(buffer, length);
+        }
+    }
+
+    @Override
+    protected InputStream recover(long offset, IOException e) throws IOException {
+        Logging.warn("Parallel decompression of " + path + " failed at offset " + offset + ", falling back to a single thread: " + e);
+        Logging.debug(e);
+        InputStream fallback = Compression.getBZip2InputStream(Files.newInputStream(path));
+        try {
+            long skipped = 0;
+            while (skipped < offset) {
+                long n = fallback.skip(offset - skipped);
+                if (n <= 0) {
+                    throw new IOException(e);
+                }
+                skipped += n;
+            }
+        } catch (IOException ex) {
+            Utils.close(fallback);
+            throw ex;
+        }
+        return fallback;
+    }
+
+    @Override
+    protected void closeSource() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,153 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Base class of the output streams compressing chunks of data on a thread pool.
+ * <p>
+ * The data is split in chunks of a fixed size, compressed by the tasks returned by {@link #compress}, and written in order.
+ * The thread pool is only created for data larger than one chunk.
+ * @since xxx
+ */
+abstract class ParallelCompressorOutputStream extends OutputStream {
+
+    protected final OutputStream out;
+    private final int chunkSize;
+    private byte[] chunk;
+    private int length;
+    private byte[] previous;
+    private ForkJoinPool pool;
+    private int window;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private boolean closed;
+
+    /**
+     * Constructs a new {@code ParallelCompressorOutputStream}.
+     * @param out the stream to write the compressed data to
+     * @param chunkSize the size of the chunks compressed independently
+     */
+    protected ParallelCompressorOutputStream(OutputStream out, int chunkSize) {
+        this.out = out;
+        this.chunkSize = chunkSize;
+        this.chunk = new byte[chunkSize];
+    }
+
+    /**
+     * Returns the task compressing a chunk. Called on the writing thread, in order.
+     * @param data the chunk. It is not modified afterwards
+     * @param dataLength the number of bytes in the chunk
+     * @param previousData the previous chunk (always full), or {@code null} for the first one
+     * @param last {@code true} for the last chunk, which may be empty
+     * @return the task compressing the chunk, or {@code null} if nothing must be written for it
+     */
+    protected abstract Callable<byte[]> compress(byte[] data, int dataLength, byte[] previousData, boolean last);
+
+    /**
+     * Writes the end of the compressed data, after the last chunk.
+     * @throws IOException if an I/O error occurs
+     */
+    protected abstract void finish() throws IOException;
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            int n = Math.min(remaining, chunkSize - length);
+            System.arraycopy(b, offset, chunk, length, n);
+            length += n;
+            offset += n;
+            remaining -= n;
+            if (length == chunkSize) {
+                submit(false);
+            }
+        }
+    }
+
+    private void submit(boolean last) throws IOException {
+        Callable<byte[]> task = compress(chunk, length, previous, last);
+        if (task != null) {
+            if (last && pool == null) {
+                // small data, no need of other threads
+                out.write(call(task));
+            } else {
+                if (pool == null) {
+                    pool = Utils.newForkJoinPool(Compression.THREADS_PREF, "compression-%d", Thread.NORM_PRIORITY);
+                    window = 2 * pool.getParallelism();
+                }
+                pending.add(pool.submit(task));
+                while (pending.size() > window) {
+                    writeNext();
+                }
+            }
+        }
+        previous = chunk;
+        chunk = new byte[chunkSize];
+        length = 0;
+    }
+
+    private static byte[] call(Callable<byte[]> task) throws IOException {
+        try {
+            return task.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) { // NOPMD
+            throw new IOException(e);
+        }
+    }
+
+    private void writeNext() throws IOException {
+        try {
+            out.write(pending.removeFirst().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            throw ParallelDecompressorInputStream.toIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            submit(true);
+            while (!pending.isEmpty()) {
+                writeNext();
+            }
+            finish();
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+            out.close();
+        }
+    }
+}
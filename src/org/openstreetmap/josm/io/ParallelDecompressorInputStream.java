@@ -0,0 +1,192 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Base class of the input streams decompressing independent parts of a file on a thread pool.
+ * <p>
+ * Subclasses split the compressed data into tasks, see {@link #nextTask()}. The tasks are run on a {@link ForkJoinPool},
+ * at most two per thread ahead of the consumer, and their results are returned in order.
+ * @since xxx
+ */
+abstract class ParallelDecompressorInputStream extends InputStream {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ForkJoinPool pool;
+    private final int window;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private byte[] current = EMPTY;
+    private int position;
+    /** number of bytes returned by the completed tasks, before {@link #current} */
+    private long offset;
+    private boolean lastTask;
+    private boolean closed;
+    /** the stream replacing the tasks after an error, see {@link #recover} */
+    private InputStream fallback;
+
+    /**
+     * Constructs a new {@code ParallelDecompressorInputStream}.
+     */
+    protected ParallelDecompressorInputStream() {
+        this.pool = Utils.newForkJoinPool(Compression.THREADS_PREF, "decompression-%d", Thread.NORM_PRIORITY);
+        this.window = 2 * pool.getParallelism();
+    }
+
+    /**
+     * Returns the next part of the file to decompress. Called on the consumer thread.
+     * @return the task decompressing the next part of the file, or {@code null} at the end of the file
+     * @throws IOException if an I/O error occurs
+     */
+    protected abstract Callable<byte[]> nextTask() throws IOException;
+
+    /**
+     * Called when a task failed, to continue with another way of decompressing the file.
+     * The default implementation throws {@code e}.
+     * @param offset the position of the first byte produced by the failed task, in the decompressed data
+     * @param e the error
+     * @return a stream of the decompressed data, positioned at {@code offset}
+     * @throws IOException if the file cannot be decompressed
+     */
+    protected InputStream recover(long offset, IOException e) throws IOException {
+        throw e;
+    }
+
+    /**
+     * Closes the resources of the subclass.
+     * @throws IOException if an I/O error occurs
+     */
+    protected abstract void closeSource() throws IOException;
+
+    private boolean ensureAvailable() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (position >= current.length) {
+            while (!lastTask && pending.size() < window) {
+                Callable<byte[]> task = nextTask();
+                if (task == null) {
+                    lastTask = true;
+                } else {
+                    pending.add(pool.submit(task));
+                }
+            }
+            Future<byte[]> next = pending.poll();
+            if (next == null) {
+                return false;
+            }
+            offset += current.length;
+            current = EMPTY;
+            position = 0;
+            try {
+                current = get(next);
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                cancelPending();
+                fallback = recover(offset, e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] get(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            throw toIOException(e);
+        }
+    }
+
+    /**
+     * Returns the {@link IOException} that caused a task to fail.
+     * @param e the exception thrown by {@link Future#get()}
+     * @return the exception thrown by the task. The {@link ForkJoinPool} wraps checked exceptions
+     */
+    static IOException toIOException(ExecutionException e) {
+        Throwable cause = e.getCause();
+        while (cause != null && !(cause instanceof IOException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof IOException ? (IOException) cause : new IOException(e.getCause());
+    }
+
+    private void cancelPending() {
+        for (Future<byte[]> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+        lastTask = true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (fallback != null) {
+            return fallback.read();
+        }
+        if (!ensureAvailable()) {
+            return fallback != null ? fallback.read() : -1;
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (fallback != null) {
+            return fallback.read(b, off, len);
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return fallback != null ? fallback.read(b, off, len) : -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (fallback != null) {
+            return fallback.available();
+        }
+        return closed ? 0 : current.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        cancelPending();
+        pool.shutdownNow();
+        try {
+            if (fallback != null) {
+                fallback.close();
+            }
+        } catch (IOException e) {
+            Logging.trace(e);
+        } finally {
+            closeSource();
+        }
+    }
+}
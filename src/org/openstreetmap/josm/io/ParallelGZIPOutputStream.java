@@ -0,0 +1,84 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes gzip compressed data with several threads, as {@code pigz} does.
+ * <p>
+ * The data is deflated in chunks of 128 kB. Each chunk uses the end of the previous one as dictionary,
+ * so that the compression ratio is nearly the one of {@link java.util.zip.GZIPOutputStream}.
+ * The chunks are ended by a sync flush, and written in a single deflate stream.
+ * @since xxx
+ */
+public class ParallelGZIPOutputStream extends ParallelCompressorOutputStream {
+
+    private static final int CHUNK_SIZE = 128 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final CRC32 crc = new CRC32();
+    private long size;
+
+    /**
+     * Constructs a new {@code ParallelGZIPOutputStream}.
+     * @param out the stream to write the compressed data to
+     * @throws IOException if an I/O error occurs while writing the header
+     */
+    public ParallelGZIPOutputStream(OutputStream out) throws IOException {
+        super(out, CHUNK_SIZE);
+        out.write(HEADER);
+    }
+
+    @Override
+    protected Callable<byte[]> compress(byte[] data, int dataLength, byte[] previousData, boolean last) {
+        crc.update(data, 0, dataLength);
+        size += dataLength;
+        return () -> {
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                if (previousData != null) {
+                    deflater.setDictionary(previousData, previousData.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+                }
+                deflater.setInput(data, 0, dataLength);
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(dataLength / 4 + 64);
+                byte[] buffer = new byte[16 * 1024];
+                if (last) {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        compressed.write(buffer, 0, deflater.deflate(buffer));
+                    }
+                } else {
+                    int n;
+                    do {
+                        n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                        compressed.write(buffer, 0, n);
+                    } while (n == buffer.length);
+                }
+                return compressed.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        };
+    }
+
+    @Override
+    protected void finish() throws IOException {
+        byte[] trailer = new byte[8];
+        writeInt(trailer, 0, crc.getValue());
+        writeInt(trailer, 4, size);
+        out.write(trailer);
+    }
+
+    private static void writeInt(byte[] buffer, int offset, long value) {
+        // little endian
+        for (int i = 0; i < 4; i++) {
+            buffer[offset + i] = (byte) (value >>> (8 * i));
+        }
+    }
+}
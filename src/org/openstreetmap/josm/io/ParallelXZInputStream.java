@@ -0,0 +1,98 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+import org.openstreetmap.josm.tools.Logging;
+import org.tukaani.xz.SeekableFileInputStream;
+import org.tukaani.xz.SeekableXZInputStream;
+
+/**
+ * Decompresses a xz file made of several blocks with several threads.
+ * <p>
+ * Files written by {@code xz -T} or {@link ParallelXZOutputStream} are made of independent blocks, listed with their sizes
+ * in the index at the end of the file. Each block is decompressed on a thread pool.
+ * Files with a single block, as written by default by {@code xz}, cannot be decompressed in parallel, see {@link #isSupported}.
+ * @since xxx
+ */
+public class ParallelXZInputStream extends ParallelDecompressorInputStream {
+
+    /** Maximal uncompressed size of a block, since each block is decompressed in memory */
+    private static final long MAX_BLOCK_SIZE = 64L << 20;
+
+    private final File file;
+    private final int blockCount;
+    private int nextBlock;
+
+    /**
+     * Constructs a new {@code ParallelXZInputStream}.
+     * @param path the xz file
+     * @throws IOException if the file cannot be read, or if it is not in the xz format
+     * @see #isSupported
+     */
+    public ParallelXZInputStream(Path path) throws IOException {
+        this.file = path.toFile();
+        try (SeekableXZInputStream xz = new SeekableXZInputStream(new SeekableFileInputStream(file))) {
+            this.blockCount = xz.getBlockCount();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Determines if the given file can be decompressed in parallel: it must have several blocks, and the blocks must be small
+     * enough to be decompressed in memory.
+     * @param path the xz file
+     * @return {@code true} if the file can be decompressed in parallel
+     */
+    public static boolean isSupported(Path path) {
+        try (SeekableXZInputStream xz = new SeekableXZInputStream(new SeekableFileInputStream(path.toFile()))) {
+            if (xz.getBlockCount() < 2) {
+                return false;
+            }
+            for (int i = 0; i < xz.getBlockCount(); i++) {
+                if (xz.getBlockSize(i) > MAX_BLOCK_SIZE) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            // let the single threaded decompression report the error
+            Logging.debug(e);
+            return false;
+        }
+    }
+
+    @Override
+    protected Callable<byte[]> nextTask() {
+        if (nextBlock >= blockCount) {
+            return null;
+        }
+        int block = nextBlock++;
+        return () -> {
+            try (SeekableXZInputStream xz = new SeekableXZInputStream(new SeekableFileInputStream(file))) {
+                xz.seekToBlock(block);
+                byte[] data = new byte[(int) xz.getBlockSize(block)];
+                int length = 0;
+                while (length < data.length) {
+                    int read = xz.read(data, length, data.length - length);
+                    if (read < 0) {
+                        throw new EOFException();
+                    }
+                    length += read;
+                }
+                return data;
+            }
+        };
+    }
+
+    @Override
+    protected void closeSource() {
+        // each task opens and closes the file
+    }
+}
@@ -0,0 +1,60 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.UnsupportedOptionsException;
+import org.tukaani.xz.XZOutputStream;
+
+/**
+ * Writes xz compressed data with several threads.
+ * <p>
+ * The data is compressed in independent chunks of 2 MB, each one written as a xz stream of its own.
+ * The concatenated streams form a valid xz file, which can be decompressed in parallel by {@link ParallelXZInputStream}.
+ * The dictionary is limited to the chunk size, to bound the memory used by each thread.
+ * @since xxx
+ */
+public class ParallelXZOutputStream extends ParallelCompressorOutputStream {
+
+    private static final int CHUNK_SIZE = 2 * 1024 * 1024;
+
+    private final LZMA2Options options;
+    private boolean empty = true;
+
+    /**
+     * Constructs a new {@code ParallelXZOutputStream}, with the default preset.
+     * @param out the stream to write the compressed data to
+     */
+    public ParallelXZOutputStream(OutputStream out) {
+        super(out, CHUNK_SIZE);
+        try {
+            options = new LZMA2Options(LZMA2Options.PRESET_DEFAULT);
+            options.setDictSize(CHUNK_SIZE);
+        } catch (UnsupportedOptionsException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    protected Callable<byte[]> compress(byte[] data, int dataLength, byte[] previousData, boolean last) {
+        if (dataLength == 0 && !empty) {
+            return null;
+        }
+        empty = false;
+        return () -> {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(dataLength / 4 + 64);
+            try (XZOutputStream xz = new XZOutputStream(compressed, options)) {
+                xz.write(data, 0, dataLength);
+            }
+            return compressed.toByteArray();
+        };
+    }
+
+    @Override
+    protected void finish() {
+        // each chunk is a complete stream
+    }
+}
@@ -0,0 +1,888 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.NodeData;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.RelationData;
+import org.openstreetmap.josm.data.osm.RelationMemberData;
+import org.openstreetmap.josm.data.osm.TagMap;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.WayData;
+import org.openstreetmap.josm.data.protobuf.ProtobufPacked;
+import org.openstreetmap.josm.data.protobuf.ProtobufParser;
+import org.openstreetmap.josm.data.protobuf.ProtobufRecord;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+import org.openstreetmap.josm.tools.collections.LongArrayList;
+import org.openstreetmap.josm.tools.collections.LongObjectMap;
+
+/**
+ * Parser for the OSM PBF format. Read from an input stream and construct a dataset out of it.
+ * <p>
+ * The file is a sequence of blobs, each one holding a block of up to a few thousands primitives. The blobs are read
+ * sequentially, then decompressed and decoded in parallel. The decoded blocks are merged in file order.
+ * @see <a href="https://wiki.openstreetmap.org/wiki/PBF_Format">PBF Format</a>
+ * @since xxx
+ */
+public class PbfReader extends AbstractReader {
+
+    /** Maximum size of a blob header, as defined by the specification */
+    private static final int MAX_BLOB_HEADER_SIZE = 64 * 1024;
+    /** Maximum size of a blob, as defined by the specification */
+    private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+
+    private static final String OSM_HEADER = "OSMHeader";
+    private static final String OSM_DATA = "OSMData";
+    private static final Collection<String> SUPPORTED_FEATURES = Arrays.asList("OsmSchema-V0.6", "DenseNodes");
+
+    /** Coordinates are stored in nanodegrees */
+    private static final double NANO = 1e-9;
+
+    private final int threads;
+
+    /**
+     * constructor (for private and subclasses use only)
+     *
+     * @see #parseDataSet(InputStream, ProgressMonitor)
+     */
+    protected PbfReader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new {@code PbfReader} decoding the blocks with the given number of threads.
+     * @param threads the number of decoding threads
+     */
+    PbfReader(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Exception thrown after user cancellation.
+     */
+    private static final class PbfParsingCanceledException extends InterruptedIOException implements ImportCancelException {
+        PbfParsingCanceledException(String msg) {
+            super(msg);
+        }
+    }
+
+    /**
+     * A raw blob, as read from the file.
+     */
+    private static final class Blob {
+        final String type;
+        final byte[] data;
+
+        Blob(String type, byte[] data) {
+            this.type = type;
+            this.data = data;
+        }
+    }
+
+    /**
+     * The primitives decoded from a block, not yet added to the data set.
+     */
+    private static final class Block {
+        final List<NodeData> nodes = new ArrayList<>();
+        final List<WayData> ways = new ArrayList<>();
+        final List<LongArrayList> wayNodes = new ArrayList<>();
+        final List<RelationData> relations = new ArrayList<>();
+        final List<Collection<RelationMemberData>> relationMembers = new ArrayList<>();
+    }
+
+    protected void parse(InputStream source) throws IllegalDataException, IOException {
+        ds.setVersion("0.6");
+        DataInputStream in = new DataInputStream(source instanceof BufferedInputStream ? source : new BufferedInputStream(source));
+        ExecutorService executor = threads > 1
+                ? Executors.newFixedThreadPool(threads, Utils.newThreadFactory("pbf-reader-%d", Thread.NORM_PRIORITY))
+                : null;
+        // bounds the memory used by the blocks decoded ahead of the merge
+        int maxPending = 2 * threads;
+        Deque<Future<Block>> pending = new ArrayDeque<>(maxPending);
+        try {
+            boolean header = false;
+            Blob blob;
+            while ((blob = readBlob(in)) != null) {
+                if (cancel) {
+                    cancel = false;
+                    throw new PbfParsingCanceledException(tr("Reading was canceled"));
+                }
+                if (OSM_HEADER.equals(blob.type)) {
+                    parseHeader(inflate(blob.data));
+                    header = true;
+                } else if (OSM_DATA.equals(blob.type)) {
+                    if (!header) {
+                        throw new IllegalDataException(tr("Missing header block in PBF file."));
+                    }
+                    final byte[] data = blob.data;
+                    if (executor == null) {
+                        merge(decode(data));
+                    } else {
+                        pending.add(executor.submit(() -> decode(data)));
+                        if (pending.size() >= maxPending) {
+                            merge(pending.removeFirst());
+                        }
+                    }
+                } else {
+                    // unknown blobs must be skipped, as required by the specification
+                    Logging.debug("Skipping PBF blob of type {0}", blob.type);
+                }
+            }
+            while (!pending.isEmpty()) {
+                merge(pending.removeFirst());
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static Blob readBlob(DataInputStream in) throws IOException, IllegalDataException {
+        int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        int headerSize = first << 24 | in.readUnsignedByte() << 16 | in.readUnsignedShort();
+        if (headerSize < 0 || headerSize > MAX_BLOB_HEADER_SIZE) {
+            throw new IllegalDataException(tr("Invalid PBF blob header size: {0}", headerSize));
+        }
+        byte[] headerBytes = new byte[headerSize];
+        in.readFully(headerBytes);
+        String type = null;
+        int dataSize = -1;
+        try (ProtobufParser parser = new ProtobufParser(headerBytes)) {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(4);
+            while (parser.hasNext()) {
+                try (ProtobufRecord next = new ProtobufRecord(byteArrayOutputStream, parser)) {
+                    if (next.getField() == 1) {
+                        type = next.asString();
+                    } else if (next.getField() == 3) {
+                        dataSize = next.asUnsignedVarInt().intValue();
+                    }
+                }
+            }
+        }
+        if (type == null || dataSize < 0 || dataSize > MAX_BLOB_SIZE) {
+            throw new IllegalDataException(tr("Invalid PBF blob header: type={0}, size={1}", type, dataSize));
+        }
+        byte[] data = new byte[dataSize];
+        in.readFully(data);
+        return new Blob(type, data);
+    }
+
+    private static byte[] inflate(byte[] blob) throws IOException, IllegalDataException {
+        byte[] raw = null;
+        byte[] zlib = null;
+        int rawSize = -1;
+        try (ProtobufParser parser = new ProtobufParser(blob)) {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(4);
+            while (parser.hasNext()) {
+                try (ProtobufRecord next = new ProtobufRecord(byteArrayOutputStream, parser)) {
+                    switch (next.getField()) {
+                    case 1:
+                        raw = next.getBytes();
+                        break;
+                    case 2:
+                        rawSize = next.asUnsignedVarInt().intValue();
+                        break;
+                    case 3:
+                        zlib = next.getBytes();
+                        break;
+                    default:
+                        // lzma, bzip2, lz4, zstd
+                        throw new IllegalDataException(tr("Unsupported compression in PBF blob."));
+                    }
+                }
+            }
+        }
+        if (raw != null) {
+            return raw;
+        } else if (zlib == null || rawSize < 0 || rawSize > MAX_BLOB_SIZE) {
+            throw new IllegalDataException(tr("Invalid PBF blob."));
+        }
+        byte[] data = new byte[rawSize];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(zlib);
+            int length = 0;
+            while (length < rawSize && !inflater.finished()) {
+                int n = inflater.inflate(data, length, rawSize - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != rawSize) {
+                throw new IllegalDataException(tr("Invalid PBF blob."));
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalDataException(e);
+        } finally {
+            inflater.end();
+        }
+        return data;
+    }
+
+    private void parseHeader(byte[] data) throws IOException, IllegalDataException {
+        long[] bbox = null;
+        String writingProgram = null;
+        String source = null;
+        try (ProtobufParser parser = new ProtobufParser(data)) {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(4);
+            while (parser.hasNext()) {
+                try (ProtobufRecord next = new ProtobufRecord(byteArrayOutputStream, parser)) {
+                    switch (next.getField()) {
+                    case 1:
+                        bbox = parseHeaderBBox(next.getBytes());
+                        break;
+                    case 4:
+                        String feature = next.asString();
+                        if (!SUPPORTED_FEATURES.contains(feature)) {
+                            throw new IllegalDataException(tr("Unsupported feature in PBF file: {0}", feature));
+                        }
+                        break;
+                    case 16:
+                        writingProgram = next.asString();
+                        break;
+                    case 17:
+                        source = next.asString();
+                        break;
+                    default:
+                        // optional features, replication information
+                    }
+                }
+            }
+        }
+        if (bbox != null) {
+            Bounds bounds = new Bounds(NANO * bbox[3], NANO * bbox[0], NANO * bbox[2], NANO * bbox[1]);
+            if (bounds.isOutOfTheWorld()) {
+                Bounds copy = new Bounds(bounds);
+                bounds.normalize();
+                Logging.info("Bbox " + copy + " is out of the world, normalized to " + bounds);
+            }
+            ds.addDataSource(new DataSource(bounds, source != null ? source : writingProgram));
+        }
+    }
+
+    /**
+     * Parses a bounding box.
+     * @param data the header bbox message
+     * @return left, right, top and bottom, in nanodegrees
+     * @throws IOException in case of I/O error
+     */
+    private static long[] parseHeaderBBox(byte[] data) throws IOException {
+        long[] bbox = new long[4];
+        try (ProtobufParser parser = new ProtobufParser(data)) {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(4);
+            while (parser.hasNext()) {
+                try (ProtobufRecord next = new ProtobufRecord(byteArrayOutputStream, parser)) {
+                    if (next.getField() >= 1 && next.getField() <= 4) {
+                        bbox[next.getField() - 1] = next.asSignedVarInt().longValue();
+                    }
+                }
+            }
+        }
+        return bbox;
+    }
+
+    private Block decode(byte[] blob) throws IOException, IllegalDataException {
+        try {
+            return new BlockDecoder().decode(inflate(blob));
+        } catch (IndexOutOfBoundsException | NegativeArraySizeException e) {
+            // malformed messages, for instance truncated var ints
+            throw new IllegalDataException(e);
+        }
+    }
+
+    private void merge(Future<Block> future) throws IOException, IllegalDataException {
+        try {
+            merge(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (InterruptedIOException) new InterruptedIOException().initCause(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IllegalDataException) {
+                throw (IllegalDataException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalDataException(cause);
+        }
+    }
+
+    private void merge(Block block) {
+        for (NodeData nd : block.nodes) {
+            buildPrimitive(nd);
+        }
+        for (int i = 0; i < block.ways.size(); i++) {
+            WayData wd = block.ways.get(i);
+            ways.put(wd.getUniqueId(), block.wayNodes.get(i));
+            buildPrimitive(wd);
+        }
+        for (int i = 0; i < block.relations.size(); i++) {
+            RelationData rd = block.relations.get(i);
+            relations.put(rd.getUniqueId(), block.relationMembers.get(i));
+            buildPrimitive(rd);
+        }
+    }
+
+    /**
+     * Decodes a primitive block. Runs in the decoding threads, so it must not modify the state of the reader.
+     */
+    private final class BlockDecoder {
+        private final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(4);
+        private final Block block = new Block();
+        private final LongObjectMap<User> users = new LongObjectMap<>();
+        private String[] strings = new String[0];
+        private long granularity = 100;
+        private long dateGranularity = 1000;
+        private long latOffset;
+        private long lonOffset;
+
+        Block decode(byte[] data) throws IOException, IllegalDataException {
+            // the primitive groups are before the granularity and offsets in the stream
+            List<byte[]> groups = new ArrayList<>();
+            try (ProtobufParser parser = new ProtobufParser(data)) {
+                while (parser.hasNext()) {
+                    try (ProtobufRecord next = new ProtobufRecord(byteArrayOutputStream, parser)) {
+                        switch (next.getField()) {
+                        case 1:
+                            strings = parseStringTable(next.getBytes());
+                            break;
+                        case 2:
+                            groups.add(next.getBytes());
+                            break;
+                        case 17:
+                            granularity = next.asUnsignedVarInt().longValue();
+                            break;
+                        case 18:
+                            dateGranularity = next.asUnsignedVarInt().longValue();
+                            break;
+                        case 19:
+                            latOffset = next.asUnsignedVarInt().longValue();
+                            break;
+                        case 20:
+                            lonOffset = next.asUnsignedVarInt().longValue();
+                            break;
+                        default:
+                            // unknown field
+                        }
+                    }
+                }
+            }
+            for (byte[] group : groups) {
+                parseGroup(group);
+            }
+            return block;
+        }
+
+        private String[] parseStringTable(byte[] data) throws IOException {
+            List<String> table = new ArrayList<>();
+            try (ProtobufParser parser = new ProtobufParser(data)) {
+                while (parser.hasNext()) {
+                    try (ProtobufRecord next = new ProtobufRecord(byteArrayOutputStream, parser)) {
+                        if (next.getField() == 1) {
+                            table.add(next.asString());
+                        }
+                    }
+                }
+            }
+            return table.toArray(new String[0]);
+        }
+
+        private String string(long index) throws IllegalDataException {
+            if (index < 0 || index >= strings.length) {
+                throw new IllegalDataException(tr("Invalid string table index in PBF block: {0}", index));
+            }
+            return strings[(int) index];
+        }
+
+        private void parseGroup(byte[] data) throws IOException, IllegalDataException {
+            try (ProtobufParser parser = new ProtobufParser(data)) {
+                while (parser.hasNext()) {
+                    try (ProtobufRecord next = new ProtobufRecord(byteArrayOutputStream, parser)) {
+                        switch (next.getField()) {
+                        case 1:
+                            parseNode(next.getBytes());
+                            break;
+                        case 2:
+                            parseDenseNodes(next.getBytes());
+                            break;
+                        case 3:
+                            parseWay(next.getBytes());
+                            break;
+                        case 4:
+                            parseRelation(next.getBytes());
+                            break;
+                        default:
+                            // changesets are not supported by the format
+                        }
+                    }
+                }
+            }
+        }
+
+        private LatLon latLon(long lat, long lon, long id) throws IllegalDataException {
+            LatLon ll = new LatLon(NANO * (latOffset + granularity * lat), NANO * (lonOffset + granularity * lon));
+            if (!ll.isValid()) {
+                throw new IllegalDataException(tr("Illegal value for attributes ''lat'', ''lon'' on node with ID {0}. Got ''{1}'', ''{2}''.",
+                        Long.toString(id), ll.lat(), ll.lon()));
+            }
+            return ll;
+        }
+
+        private void parseNode(byte[] data) throws IOException, IllegalDataException {
+            NodeData nd = new NodeData(0);
+            long lat = 0;
+            long lon = 0;
+            long[] keys = null;
+            long[] values = null;
+            try (ProtobufParser parser = new ProtobufParser(data)) {
+                while (parser.hasNext()) {
+                    try (ProtobufRecord next = new ProtobufRecord(byteArrayOutputStream, parser)) {
+                        switch (next.getField()) {
+                        case 1:
+                            parseId(nd, next.asSignedVarInt().longValue());
+                            break;
+                        case 2:
+                            keys = ProtobufPacked.decodeVarInts(next.getBytes());
+                            break;
+                        case 3:
+                            values = ProtobufPacked.decodeVarInts(next.getBytes());
+                            break;
+                        case 4:
+                            parseInfo(nd, next.getBytes());
+                            break;
+                        case 8:
+                            lat = next.asSignedVarInt().longValue();
+                            break;
+                        case 9:
+                            lon = next.asSignedVarInt().longValue();
+                            break;
+                        default:
+                            // unknown field
+                        }
+                    }
+                }
+            }
+            checkVersion(nd);
+            nd.setCoor(latLon(lat, lon, nd.getId()));
+            parseTags(nd, keys, values);
+            block.nodes.add(nd);
+        }
+
+        private void parseDenseNodes(byte[] data) throws IOException, IllegalDataException {
+            long[] ids = null;
+            long[] lats = null;
+            long[] lons = null;
+            long[] keysValues = null;
+            byte[] denseInfo = null;
+            try (ProtobufParser parser = new ProtobufParser(data)) {
+                while (parser.hasNext()) {
+                    try (ProtobufRecord next = new ProtobufRecord(byteArrayOutputStream, parser)) {
+                        switch (next.getField()) {
+                        case 1:
+                            ids = ProtobufPacked.decodeSignedVarInts(next.getBytes());
+                            break;
+                        case 5:
+                            denseInfo = next.getBytes();
+                            break;
+                        case 8:
+                            lats = ProtobufPacked.decodeSignedVarInts(next.getBytes());
+                            break;
+                        case 9:
+                            lons = ProtobufPacked.decodeSignedVarInts(next.getBytes());
+                            break;
+                        case 10:
+                            keysValues = ProtobufPacked.decodeVarInts(next.getBytes());
+                            break;
+                        default:
+                            // unknown field
+                        }
+                    }
+                }
+            }
+            if (ids == null) {
+                return;
+            } else if (lats == null || lons == null || lats.length != ids.length || lons.length != ids.length) {
+                throw new IllegalDataException(tr("Invalid dense nodes in PBF block."));
+            }
+            DenseInfo info = denseInfo != null ? new DenseInfo(denseInfo, ids.length) : null;
+            long id = 0;
+            long lat = 0;
+            long lon = 0;
+            int kv = 0;
+            for (int i = 0; i < ids.length; i++) {
+                id += ids[i];
+                lat += lats[i];
+                lon += lons[i];
+                NodeData nd = new NodeData(0);
+                parseId(nd, id);
+                if (info != null) {
+                    info.apply(nd, i);
+                }
+                checkVersion(nd);
+                nd.setCoor(latLon(lat, lon, id));
+                if (keysValues != null) {
+                    kv = parseDenseTags(nd, keysValues, kv);
+                }
+                block.nodes.add(nd);
+            }
+        }
+
+        /**
+         * Sets the tags of a dense node.
+         * @param nd the node
+         * @param keysValues the keys and values of all nodes: key and value indexes, followed by 0 after each node
+         * @param start the index of the first key of the node in {@code keysValues}
+         * @return the index of the first key of the next node
+         * @throws IllegalDataException in case of invalid string index
+         */
+        private int parseDenseTags(NodeData nd, long[] keysValues, int start) throws IllegalDataException {
+            int end = start;
+            while (end < keysValues.length && keysValues[end] != 0) {
+                end += 2;
+            }
+            if (end > keysValues.length) {
+                throw new IllegalDataException(tr("Invalid dense nodes in PBF block."));
+            }
+            if (end > start) {
+                String[] tags = new String[end - start];
+                int n = 0;
+                for (int i = start; i < end; i += 2) {
+                    n = addTag(nd, tags, n, keysValues[i], keysValues[i + 1]);
+                }
+                setTags(nd, tags, n);
+            }
+            // skip the delimiter
+            return end + 1;
+        }
+
+        private void parseWay(byte[] data) throws IOException, IllegalDataException {
+            WayData wd = new WayData(0);
+            long[] keys = null;
+            long[] values = null;
+            long[] refs = null;
+            try (ProtobufParser parser = new ProtobufParser(data)) {
+                while (parser.hasNext()) {
+                    try (ProtobufRecord next = new ProtobufRecord(byteArrayOutputStream, parser)) {
+                        switch (next.getField()) {
+                        case 1:
+                            parseId(wd, next.asUnsignedVarInt().longValue());
+                            break;
+                        case 2:
+                            keys = ProtobufPacked.decodeVarInts(next.getBytes());
+                            break;
+                        case 3:
+                            values = ProtobufPacked.decodeVarInts(next.getBytes());
+                            break;
+                        case 4:
+                            parseInfo(wd, next.getBytes());
+                            break;
+                        case 8:
+                            refs = ProtobufPacked.decodeSignedVarInts(next.getBytes());
+                            break;
+                        default:
+                            // unknown field, or node locations of the LocationsOnWays optional feature
+                        }
+                    }
+                }
+            }
+            checkVersion(wd);
+            parseTags(wd, keys, values);
+            LongArrayList nodeIds = new LongArrayList(refs != null ? refs.length : 0);
+            if (refs != null) {
+                long ref = 0;
+                for (long delta : refs) {
+                    ref += delta;
+                    nodeIds.add(ref);
+                }
+            }
+            block.ways.add(wd);
+            block.wayNodes.add(nodeIds);
+        }
+
+        private void parseRelation(byte[] data) throws IOException, IllegalDataException {
+            RelationData rd = new RelationData(0);
+            long[] keys = null;
+            long[] values = null;
+            long[] roles = null;
+            long[] memberIds = null;
+            long[] types = null;
+            try (ProtobufParser parser = new ProtobufParser(data)) {
+                while (parser.hasNext()) {
+                    try (ProtobufRecord next = new ProtobufRecord(byteArrayOutputStream, parser)) {
+                        switch (next.getField()) {
+                        case 1:
+                            parseId(rd, next.asUnsignedVarInt().longValue());
+                            break;
+                        case 2:
+                            keys = ProtobufPacked.decodeVarInts(next.getBytes());
+                            break;
+                        case 3:
+                            values = ProtobufPacked.decodeVarInts(next.getBytes());
+                            break;
+                        case 4:
+                            parseInfo(rd, next.getBytes());
+                            break;
+                        case 8:
+                            roles = ProtobufPacked.decodeVarInts(next.getBytes());
+                            break;
+                        case 9:
+                            memberIds = ProtobufPacked.decodeSignedVarInts(next.getBytes());
+                            break;
+                        case 10:
+                            types = ProtobufPacked.decodeVarInts(next.getBytes());
+                            break;
+                        default:
+                            // unknown field
+                        }
+                    }
+                }
+            }
+            checkVersion(rd);
+            parseTags(rd, keys, values);
+            int count = memberIds != null ? memberIds.length : 0;
+            if (count > 0 && (roles == null || types == null || roles.length != count || types.length != count)) {
+                throw new IllegalDataException(tr("Invalid members of relation {0} in PBF block.", Long.toString(rd.getUniqueId())));
+            }
+            List<RelationMemberData> members = new ArrayList<>(count);
+            long memberId = 0;
+            for (int i = 0; i < count; i++) {
+                memberId += memberIds[i];
+                if (memberId == 0) {
+                    throw new IllegalDataException(tr("Incomplete <member> specification with ref=0"));
+                }
+                members.add(new RelationMemberData(string(roles[i]), memberType(types[i], rd), memberId));
+            }
+            block.relations.add(rd);
+            block.relationMembers.add(members);
+        }
+
+        private OsmPrimitiveType memberType(long type, RelationData rd) throws IllegalDataException {
+            switch ((int) type) {
+            case 0: return OsmPrimitiveType.NODE;
+            case 1: return OsmPrimitiveType.WAY;
+            case 2: return OsmPrimitiveType.RELATION;
+            default:
+                throw new IllegalDataException(tr("Illegal member type {0} in relation {1}.", type, Long.toString(rd.getUniqueId())));
+            }
+        }
+
+        private void parseTags(PrimitiveData pd, long[] keys, long[] values) throws IllegalDataException {
+            if (keys == null && values == null) {
+                return;
+            } else if (keys == null || values == null || keys.length != values.length) {
+                throw new IllegalDataException(tr("Invalid tags of primitive {0} in PBF block.", Long.toString(pd.getUniqueId())));
+            }
+            String[] tags = new String[2 * keys.length];
+            int n = 0;
+            for (int i = 0; i < keys.length; i++) {
+                n = addTag(pd, tags, n, keys[i], values[i]);
+            }
+            setTags(pd, tags, n);
+        }
+
+        private int addTag(PrimitiveData pd, String[] tags, int n, long key, long value) throws IllegalDataException {
+            String k = string(key);
+            if (Utils.isStripEmpty(k)) {
+                // #14199: Empty keys as ignored by AbstractPrimitive#put, but it causes problems to fix existing data
+                // Drop the tag on import, but flag the primitive as modified
+                pd.setModified(true);
+                return n;
+            }
+            tags[n] = k;
+            tags[n + 1] = string(value);
+            return n + 2;
+        }
+
+        private void setTags(PrimitiveData pd, String[] tags, int n) {
+            if (n > 0) {
+                // set all tags at once, rather than copying the tag array for each tag
+                pd.setKeys(new TagMap(n == tags.length ? tags : Arrays.copyOf(tags, n)));
+            }
+        }
+
+        private void parseInfo(PrimitiveData pd, byte[] data) throws IOException, IllegalDataException {
+            int version = -1;
+            long timestamp = 0;
+            long changeset = 0;
+            int uid = 0;
+            int userSid = 0;
+            boolean visible = true;
+            try (ProtobufParser parser = new ProtobufParser(data)) {
+                while (parser.hasNext()) {
+                    try (ProtobufRecord next = new ProtobufRecord(byteArrayOutputStream, parser)) {
+                        switch (next.getField()) {
+                        case 1:
+                            version = next.asUnsignedVarInt().intValue();
+                            break;
+                        case 2:
+                            timestamp = next.asUnsignedVarInt().longValue();
+                            break;
+                        case 3:
+                            changeset = next.asUnsignedVarInt().longValue();
+                            break;
+                        case 4:
+                            uid = next.asUnsignedVarInt().intValue();
+                            break;
+                        case 5:
+                            userSid = next.asUnsignedVarInt().intValue();
+                            break;
+                        case 6:
+                            visible = next.asUnsignedVarInt().intValue() != 0;
+                            break;
+                        default:
+                            // unknown field
+                        }
+                    }
+                }
+            }
+            setInfo(pd, version, timestamp, changeset, uid, userSid, visible);
+        }
+
+        private void setInfo(PrimitiveData pd, int version, long timestamp, long changeset, int uid, int userSid, boolean visible)
+                throws IllegalDataException {
+            if (version >= 0) {
+                parseVersion(pd, version);
+            }
+            pd.setRawTimestamp((int) (timestamp * dateGranularity / 1000));
+            if (changeset != 0) {
+                // a missing changeset is stored as 0, e.g. for new primitives
+                parseChangeset(pd, (int) changeset);
+            }
+            if (uid > 0) {
+                User user = users.get(uid);
+                if (user == null) {
+                    user = User.createOsmUser(uid, string(userSid));
+                    users.put(uid, user);
+                }
+                pd.setUser(user);
+            }
+            pd.setVisible(visible);
+        }
+
+        /**
+         * Version expected for OSM primitives with an id assigned by the server (id &gt; 0), since API 0.6
+         * @param pd the primitive
+         * @throws IllegalDataException if the version is missing
+         */
+        private void checkVersion(PrimitiveData pd) throws IllegalDataException {
+            if (!pd.isNew() && pd.getVersion() <= 0) {
+                throw new IllegalDataException(
+                        tr("Missing attribute ''version'' on OSM primitive with ID {0}.", Long.toString(pd.getUniqueId())));
+            }
+        }
+
+        /**
+         * The delta coded metadata of dense nodes.
+         */
+        private final class DenseInfo {
+            private final long[] versions;
+            private final long[] timestamps;
+            private final long[] changesets;
+            private final long[] uids;
+            private final long[] userSids;
+            private final long[] visibles;
+            private long timestamp;
+            private long changeset;
+            private long uid;
+            private long userSid;
+
+            DenseInfo(byte[] data, int count) throws IOException, IllegalDataException {
+                long[][] fields = new long[6][];
+                try (ProtobufParser parser = new ProtobufParser(data)) {
+                    while (parser.hasNext()) {
+                        try (ProtobufRecord next = new ProtobufRecord(byteArrayOutputStream, parser)) {
+                            int field = next.getField();
+                            if (field == 1 || field == 6) {
+                                fields[field - 1] = ProtobufPacked.decodeVarInts(next.getBytes());
+                            } else if (field >= 2 && field <= 5) {
+                                fields[field - 1] = ProtobufPacked.decodeSignedVarInts(next.getBytes());
+                            }
+                        }
+                    }
+                }
+                for (long[] values : fields) {
+                    if (values != null && values.length != count) {
+                        throw new IllegalDataException(tr("Invalid dense nodes in PBF block."));
+                    }
+                }
+                versions = fields[0];
+                timestamps = fields[1];
+                changesets = fields[2];
+                uids = fields[3];
+                userSids = fields[4];
+                visibles = fields[5];
+            }
+
+            /**
+             * Sets the metadata of the given node. Must be called for each node in order, to decode the deltas.
+             * @param nd the node
+             * @param i the index of the node
+             * @throws IllegalDataException in case of invalid data
+             */
+            void apply(NodeData nd, int i) throws IllegalDataException {
+                timestamp += timestamps != null ? timestamps[i] : 0;
+                changeset += changesets != null ? changesets[i] : 0;
+                uid += uids != null ? uids[i] : 0;
+                userSid += userSids != null ? userSids[i] : 0;
+                setInfo(nd, versions != null ? (int) versions[i] : -1, timestamp, changeset, (int) uid, (int) userSid,
+                        visibles == null || visibles[i] != 0);
+            }
+        }
+    }
+
+    @Override
+    protected DataSet doParseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        return doParseBinaryDataSet(source, progressMonitor, this::parse);
+    }
+
+    /**
+     * Parse the given input source and return the dataset.
+     *
+     * @param source the source input stream. Must not be null.
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     *
+     * @return the dataset with the parsed data
+     * @throws IllegalDataException if an error was found while parsing the data from the source
+     * @throws IllegalArgumentException if source is null
+     */
+    public static DataSet parseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        return new PbfReader().doParseDataSet(source, progressMonitor);
+    }
+}
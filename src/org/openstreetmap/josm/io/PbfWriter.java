@@ -0,0 +1,413 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.DataSetSnapshot;
+import org.openstreetmap.josm.data.osm.NodeData;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.RelationData;
+import org.openstreetmap.josm.data.osm.RelationMemberData;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.WayData;
+import org.openstreetmap.josm.data.protobuf.ProtobufWriter;
+import org.openstreetmap.josm.tools.Utils;
+import org.openstreetmap.josm.tools.collections.LongArrayList;
+
+/**
+ * Save the dataset into a stream in the OSM PBF format.
+ * <p>
+ * The primitives are written in blocks of {@value #BLOCK_SIZE} primitives of the same type, nodes being written as
+ * dense nodes. The blocks are encoded and compressed in parallel, then written in order.
+ * <p>
+ * The format cannot store the local modifications: deleted primitives are not written, and the modified primitives
+ * are written as if they were not modified. Incomplete primitives are not written, but they are still referenced by
+ * their parent ways and relations, so that they are incomplete again once the file is read.
+ * @see PbfReader
+ * @see <a href="https://wiki.openstreetmap.org/wiki/PBF_Format">PBF Format</a>
+ * @since xxx
+ */
+public class PbfWriter implements Closeable {
+
+    /** The number of primitives per block, as recommended by the specification */
+    public static final int BLOCK_SIZE = 8000;
+
+    private static final String OSM_HEADER = "OSMHeader";
+    private static final String OSM_DATA = "OSMData";
+    /** Coordinates are written with the default granularity of 100 nanodegrees, the precision of the OSM API */
+    private static final double UNITS_PER_DEGREE = 1e7;
+    private static final double NANO_PER_DEGREE = 1e9;
+
+    private final OutputStream out;
+
+    /**
+     * Constructs a new {@code PbfWriter}.
+     * @param out the output stream, closed by {@link #close()}
+     */
+    public PbfWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the given dataset. The dataset is not locked while it is written, see {@link DataSet#snapshot()}.
+     * @param ds the dataset
+     * @throws IOException in case of I/O error
+     */
+    public void write(DataSet ds) throws IOException {
+        try (DataSetSnapshot snapshot = ds.snapshot()) {
+            write(snapshot);
+        }
+    }
+
+    /**
+     * Writes the given dataset snapshot: a header with the bounds of the data sources, then the nodes, ways and relations.
+     * @param snapshot the dataset snapshot
+     * @throws IOException in case of I/O error
+     */
+    public void write(DataSetSnapshot snapshot) throws IOException {
+        out.write(blob(OSM_HEADER, header(snapshot.getDataSources())));
+        ForkJoinPool pool = Utils.newForkJoinPool("pbf.writer.threads", "pbf-writer-%d", Thread.NORM_PRIORITY);
+        // bounds the memory used by the blocks encoded ahead of the output
+        int maxPending = 2 * pool.getParallelism();
+        Deque<Future<byte[]>> pending = new ArrayDeque<>(maxPending);
+        try {
+            submit(pool, pending, maxPending, snapshot.getNodes(), PbfWriter::nodes);
+            submit(pool, pending, maxPending, snapshot.getWays(), PbfWriter::ways);
+            submit(pool, pending, maxPending, snapshot.getRelations(), PbfWriter::relations);
+            while (!pending.isEmpty()) {
+                writeNext(pending);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        out.flush();
+    }
+
+    private <T extends PrimitiveData> void submit(ForkJoinPool pool, Deque<Future<byte[]>> pending, int maxPending,
+            List<T> primitives, Function<List<T>, ProtobufWriter> encoder) throws IOException {
+        for (int from = 0; from < primitives.size(); from += BLOCK_SIZE) {
+            // the state of the primitives is read from the snapshot by the encoding threads
+            List<T> block = primitives.subList(from, Math.min(from + BLOCK_SIZE, primitives.size()));
+            pending.add(pool.submit(() -> {
+                ProtobufWriter data = encoder.apply(block);
+                return data != null ? blob(OSM_DATA, data) : null;
+            }));
+            if (pending.size() >= maxPending) {
+                writeNext(pending);
+            }
+        }
+    }
+
+    private void writeNext(Deque<Future<byte[]>> pending) throws IOException {
+        try {
+            byte[] blob = pending.removeFirst().get();
+            if (blob != null) {
+                out.write(blob);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (InterruptedIOException) new InterruptedIOException().initCause(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Compresses the given block, and frames it with its blob header.
+     * @param type the block type
+     * @param data the block
+     * @return the bytes to write
+     */
+    private static byte[] blob(String type, ProtobufWriter data) {
+        byte[] raw = data.toByteArray();
+        Deflater deflater = new Deflater();
+        byte[] compressed = new byte[raw.length / 2 + 64];
+        int length = 0;
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            while (!deflater.finished()) {
+                if (length == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+        } finally {
+            deflater.end();
+        }
+        ProtobufWriter blob = new ProtobufWriter(length + 16)
+                .writeVarInt(2, raw.length)
+                .writeBytes(3, compressed, 0, length);
+        ProtobufWriter header = new ProtobufWriter()
+                .writeString(1, type)
+                .writeVarInt(3, blob.size());
+        byte[] result = new byte[4 + header.size() + blob.size()];
+        int n = header.size();
+        result[0] = (byte) (n >>> 24);
+        result[1] = (byte) (n >>> 16);
+        result[2] = (byte) (n >>> 8);
+        result[3] = (byte) n;
+        System.arraycopy(header.toByteArray(), 0, result, 4, n);
+        System.arraycopy(blob.toByteArray(), 0, result, 4 + n, blob.size());
+        return result;
+    }
+
+    private static ProtobufWriter header(List<DataSource> dataSources) {
+        ProtobufWriter header = new ProtobufWriter();
+        Bounds bounds = null;
+        for (DataSource source : dataSources) {
+            if (bounds == null) {
+                bounds = new Bounds(source.bounds);
+            } else {
+                bounds.extend(source.bounds);
+            }
+        }
+        if (bounds != null) {
+            header.writeMessage(1, new ProtobufWriter()
+                    .writeSignedVarInt(1, Math.round(bounds.getMinLon() * NANO_PER_DEGREE))
+                    .writeSignedVarInt(2, Math.round(bounds.getMaxLon() * NANO_PER_DEGREE))
+                    .writeSignedVarInt(3, Math.round(bounds.getMaxLat() * NANO_PER_DEGREE))
+                    .writeSignedVarInt(4, Math.round(bounds.getMinLat() * NANO_PER_DEGREE)));
+        }
+        return header
+                .writeString(4, "OsmSchema-V0.6")
+                .writeString(4, "DenseNodes")
+                .writeString(16, "JOSM");
+    }
+
+    private static boolean shouldWrite(PrimitiveData data) {
+        return !data.isDeleted() && !data.isIncomplete();
+    }
+
+    /**
+     * The string table of a block. The first string is empty, as index 0 is used as delimiter.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final ProtobufWriter table = new ProtobufWriter(1024);
+
+        StringTable() {
+            index("");
+        }
+
+        int index(String s) {
+            Integer index = indexes.get(s);
+            if (index == null) {
+                index = indexes.size();
+                indexes.put(s, index);
+                table.writeString(1, s);
+            }
+            return index;
+        }
+
+        int user(User user) {
+            return user != null ? index(user.getName()) : 0;
+        }
+
+        ProtobufWriter block(int field, ProtobufWriter group) {
+            ProtobufWriter block = new ProtobufWriter(table.size() + group.size() + 16);
+            return block.writeMessage(1, table)
+                    .writeMessage(2, new ProtobufWriter(group.size() + 16).writeMessage(field, group));
+        }
+    }
+
+    private static ProtobufWriter nodes(List<NodeData> nodes) {
+        StringTable strings = new StringTable();
+        int size = nodes.size();
+        long[] ids = new long[size];
+        long[] lats = new long[size];
+        long[] lons = new long[size];
+        long[] versions = new long[size];
+        long[] timestamps = new long[size];
+        long[] changesets = new long[size];
+        long[] uids = new long[size];
+        long[] userSids = new long[size];
+        LongArrayList keysValues = new LongArrayList();
+        boolean tagged = false;
+        long[] last = new long[7];
+        int n = 0;
+        for (NodeData node : nodes) {
+            if (!shouldWrite(node) || !node.isLatLonKnown()) {
+                continue;
+            }
+            // dense nodes are delta coded
+            long lat = Math.round(node.lat() * UNITS_PER_DEGREE);
+            long lon = Math.round(node.lon() * UNITS_PER_DEGREE);
+            long uid = node.getUser() != null ? node.getUser().getId() : 0;
+            long userSid = strings.user(node.getUser());
+            ids[n] = node.getUniqueId() - last[0];
+            lats[n] = lat - last[1];
+            lons[n] = lon - last[2];
+            versions[n] = node.getVersion();
+            timestamps[n] = Integer.toUnsignedLong(node.getRawTimestamp()) - last[3];
+            changesets[n] = node.getChangesetId() - last[4];
+            uids[n] = uid - last[5];
+            userSids[n] = userSid - last[6];
+            last[0] = node.getUniqueId();
+            last[1] = lat;
+            last[2] = lon;
+            last[3] = Integer.toUnsignedLong(node.getRawTimestamp());
+            last[4] = node.getChangesetId();
+            last[5] = uid;
+            last[6] = userSid;
+            if (node.hasKeys()) {
+                tagged = true;
+                node.visitKeys((p, k, v) -> {
+                    keysValues.add(strings.index(k));
+                    keysValues.add(strings.index(v));
+                });
+            }
+            keysValues.add(0);
+            n++;
+        }
+        if (n == 0) {
+            return null;
+        }
+        ProtobufWriter dense = new ProtobufWriter(n * 16);
+        dense.writePackedSignedVarInts(1, ids, n)
+             .writeMessage(5, new ProtobufWriter(n * 8)
+                     .writePackedVarInts(1, versions, n)
+                     .writePackedSignedVarInts(2, timestamps, n)
+                     .writePackedSignedVarInts(3, changesets, n)
+                     .writePackedSignedVarInts(4, uids, n)
+                     .writePackedSignedVarInts(5, userSids, n))
+             .writePackedSignedVarInts(8, lats, n)
+             .writePackedSignedVarInts(9, lons, n);
+        if (tagged) {
+            // may be omitted if no node has tags
+            dense.writePackedVarInts(10, keysValues.toLongArray(), keysValues.size());
+        }
+        return strings.block(2, dense);
+    }
+
+    private static ProtobufWriter ways(List<WayData> ways) {
+        StringTable strings = new StringTable();
+        ProtobufWriter group = new ProtobufWriter(ways.size() * 32);
+        ProtobufWriter way = new ProtobufWriter();
+        long[] refs = new long[16];
+        for (WayData w : ways) {
+            if (!shouldWrite(w)) {
+                continue;
+            }
+            way.reset();
+            way.writeVarInt(1, w.getUniqueId());
+            writeTags(way, w, strings);
+            writeInfo(way, w, strings);
+            List<Long> nodeIds = w.getNodeIds();
+            if (refs.length < nodeIds.size()) {
+                refs = new long[nodeIds.size()];
+            }
+            long last = 0;
+            for (int i = 0; i < nodeIds.size(); i++) {
+                long id = nodeIds.get(i);
+                refs[i] = id - last;
+                last = id;
+            }
+            way.writePackedSignedVarInts(8, refs, nodeIds.size());
+            group.writeMessage(3, way);
+        }
+        return group.size() > 0 ? strings.block(3, group) : null;
+    }
+
+    private static ProtobufWriter relations(List<RelationData> relations) {
+        StringTable strings = new StringTable();
+        ProtobufWriter group = new ProtobufWriter(relations.size() * 64);
+        ProtobufWriter relation = new ProtobufWriter();
+        for (RelationData r : relations) {
+            if (!shouldWrite(r)) {
+                continue;
+            }
+            relation.reset();
+            relation.writeVarInt(1, r.getUniqueId());
+            writeTags(relation, r, strings);
+            writeInfo(relation, r, strings);
+            List<RelationMemberData> members = r.getMembers();
+            int size = members.size();
+            long[] roles = new long[size];
+            long[] memberIds = new long[size];
+            long[] types = new long[size];
+            long last = 0;
+            for (int i = 0; i < size; i++) {
+                RelationMemberData member = members.get(i);
+                roles[i] = strings.index(member.getRole());
+                memberIds[i] = member.getMemberId() - last;
+                last = member.getMemberId();
+                types[i] = memberType(member.getMemberType());
+            }
+            relation.writePackedVarInts(8, roles, size)
+                    .writePackedSignedVarInts(9, memberIds, size)
+                    .writePackedVarInts(10, types, size);
+            group.writeMessage(4, relation);
+        }
+        return group.size() > 0 ? strings.block(4, group) : null;
+    }
+
+    private static int memberType(OsmPrimitiveType type) {
+        switch (type) {
+        case NODE: return 0;
+        case WAY: return 1;
+        case RELATION: return 2;
+        default: throw new IllegalArgumentException(type.toString());
+        }
+    }
+
+    private static void writeTags(ProtobufWriter writer, PrimitiveData data, StringTable strings) {
+        if (!data.hasKeys()) {
+            return;
+        }
+        long[] keys = new long[data.getNumKeys()];
+        long[] values = new long[keys.length];
+        int[] n = {0};
+        data.visitKeys((p, k, v) -> {
+            keys[n[0]] = strings.index(k);
+            values[n[0]++] = strings.index(v);
+        });
+        writer.writePackedVarInts(2, keys, n[0])
+              .writePackedVarInts(3, values, n[0]);
+    }
+
+    private static void writeInfo(ProtobufWriter writer, PrimitiveData data, StringTable strings) {
+        ProtobufWriter info = new ProtobufWriter()
+                .writeVarInt(1, data.getVersion());
+        if (!data.isTimestampEmpty()) {
+            info.writeVarInt(2, Integer.toUnsignedLong(data.getRawTimestamp()));
+        }
+        if (data.getChangesetId() != 0) {
+            info.writeVarInt(3, data.getChangesetId());
+        }
+        if (data.getUser() != null) {
+            info.writeVarInt(4, data.getUser().getId())
+                .writeVarInt(5, strings.user(data.getUser()));
+        }
+        writer.writeMessage(4, info);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
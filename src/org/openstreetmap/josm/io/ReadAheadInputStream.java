@@ -0,0 +1,194 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.openstreetmap.josm.tools.CheckParameterUtil;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * An input stream reading another stream ahead, in a background thread.
+ * <p>
+ * The work done by the wrapped stream (typically decompression, see {@link Compression}) is thus done
+ * concurrently with the work of the consumer (typically parsing). A fixed ring of buffers connects both
+ * threads, so that the background thread never gets more than a few buffers ahead.
+ * @since xxx
+ */
+public class ReadAheadInputStream extends InputStream {
+
+    /** Default size of a buffer */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    /** Default number of buffers */
+    public static final int DEFAULT_BUFFER_COUNT = 8;
+
+    private static final class Chunk {
+        final byte[] data;
+        /** number of bytes in {@link #data}, or -1 at the end of the stream */
+        int length;
+
+        Chunk(int size) {
+            data = new byte[size];
+        }
+    }
+
+    private final InputStream in;
+    private final BlockingQueue<Chunk> filled;
+    private final BlockingQueue<Chunk> free;
+    private final Thread thread;
+    private volatile Exception error;
+    private volatile boolean closed;
+    private Chunk current;
+    private int position;
+
+    /**
+     * Constructs a new {@code ReadAheadInputStream} with the default buffers, and starts reading.
+     * @param in the stream to read ahead. Must not be null
+     */
+    public ReadAheadInputStream(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT);
+    }
+
+    /**
+     * Constructs a new {@code ReadAheadInputStream}, and starts reading.
+     * @param in the stream to read ahead. Must not be null
+     * @param bufferSize the size of each buffer
+     * @param bufferCount the number of buffers, at least 2
+     */
+    public ReadAheadInputStream(InputStream in, int bufferSize, int bufferCount) {
+        CheckParameterUtil.ensureParameterNotNull(in, "in");
+        CheckParameterUtil.ensureThat(bufferSize > 0, "bufferSize > 0");
+        CheckParameterUtil.ensureThat(bufferCount >= 2, "bufferCount >= 2");
+        this.in = in;
+        this.filled = new ArrayBlockingQueue<>(bufferCount);
+        this.free = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 0; i < bufferCount; i++) {
+            free.add(new Chunk(bufferSize));
+        }
+        this.thread = Utils.newThreadFactory("read-ahead-%d", Thread.NORM_PRIORITY).newThread(this::readAhead);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void readAhead() {
+        try {
+            while (true) {
+                Chunk chunk = free.take();
+                chunk.length = fill(chunk.data);
+                filled.put(chunk);
+                if (chunk.length < 0) {
+                    return;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!closed) {
+                error = e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        // signal the error to the consumer
+        Chunk end = new Chunk(0);
+        end.length = -1;
+        filled.offer(end);
+    }
+
+    /**
+     * Reads as many bytes as possible in the buffer, to keep the number of hand-offs low
+     * @param buffer the buffer
+     * @return the number of bytes read, or -1 at the end of the stream
+     * @throws IOException in case of I/O error
+     */
+    private int fill(byte[] buffer) throws IOException {
+        int length = 0;
+        while (length < buffer.length && !closed) {
+            int read = in.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        return length == 0 ? -1 : length;
+    }
+
+    /**
+     * Makes sure that {@link #current} has bytes to read
+     * @return {@code false} at the end of the stream
+     * @throws IOException in case of I/O error in the background thread
+     */
+    private boolean ensureAvailable() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (current != null && position < current.length) {
+            return true;
+        }
+        if (current != null) {
+            if (current.length < 0) {
+                return false;
+            }
+            free.offer(current);
+        }
+        try {
+            current = filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+        position = 0;
+        if (current.length < 0) {
+            if (error != null) {
+                throw new IOException(error);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return ensureAvailable() ? current.data[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current.data, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return !closed && current != null && current.length > 0 ? current.length - position : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        thread.interrupt();
+        try {
+            // the wrapped stream is not thread-safe, wait for the pending read to complete
+            thread.join();
+        } catch (InterruptedException e) {
+            Logging.trace(e);
+            Thread.currentThread().interrupt();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -37,10 +37,24 @@ public final class UTFInputStreamReader extends InputStreamReader {
      * @throws IOException if any I/O error occurs
      */
     public static UTFInputStreamReader create(InputStream input, String defaultEncoding) throws IOException {
+        PushbackInputStream pushbackStream = new PushbackInputStream(input, 4);
+        return new UTFInputStreamReader(pushbackStream, detectEncoding(pushbackStream, defaultEncoding));
+    }
+
+    /**
+     * Detects the encoding of a stream from its byte order mark, and skips the byte order mark.
+     * <p>
+     * This allows parsers decoding the bytes themselves to skip the intermediate {@link InputStreamReader}.
+     * @param pushbackStream input stream, with a pushback buffer of at least 4 bytes
+     * @param defaultEncoding Used, when no BOM was recognized. Can be null.
+     * @return the encoding of the stream. The stream is positioned after the BOM.
+     * @throws IOException if any I/O error occurs
+     * @since xxx
+     */
+    public static String detectEncoding(PushbackInputStream pushbackStream, String defaultEncoding) throws IOException {
         byte[] bom = new byte[4];
         String encoding = defaultEncoding;
         int unread;
-        PushbackInputStream pushbackStream = new PushbackInputStream(input, 4);
         int n = pushbackStream.read(bom, 0, 4);
 
         if ((bom[0] == (byte) 0xEF) && (bom[1] == (byte) 0xBB) && (bom[2] == (byte) 0xBF)) {
@@ -67,6 +81,6 @@ public final class UTFInputStreamReader extends InputStreamReader {
         } else if (unread < -1) {
             pushbackStream.unread(bom, 0, 0);
         }
-        return new UTFInputStreamReader(pushbackStream, Optional.ofNullable(encoding).orElse("UTF-8"));
+        return Optional.ofNullable(encoding).orElse("UTF-8");
     }
 }
@@ -1,6 +1,7 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.io.session;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -8,7 +9,10 @@ import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 
 import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.DataSetSnapshot;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
 import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.io.OsmBinaryWriter;
 import org.openstreetmap.josm.io.OsmWriter;
 import org.openstreetmap.josm.io.OsmWriterFactory;
 
@@ -18,17 +22,34 @@ import org.openstreetmap.josm.io.OsmWriterFactory;
  */
 public class OsmDataSessionExporter extends GenericSessionExporter<OsmDataLayer> {
 
+    /**
+     * Defines if the data included in session files is saved in the JOSM binary format instead of the .osm format
+     * @since xxx
+     */
+    public static final BooleanProperty PROP_BINARY = new BooleanProperty("session.osm-data.binary", false);
+
+    private final boolean binary;
+
     /**
      * Constructs a new {@code OsmDataSessionExporter}.
      * @param layer Data layer to export
      */
     public OsmDataSessionExporter(OsmDataLayer layer) { // NO_UCD (test only)
-        super(layer, "osm-data", "0.1", "osm");
+        this(layer, PROP_BINARY.get());
+    }
+
+    private OsmDataSessionExporter(OsmDataLayer layer, boolean binary) {
+        super(layer, "osm-data", "0.1", binary ? "osmb" : "osm");
+        this.binary = binary;
     }
 
     @Override
-    protected void addDataFile(OutputStream out) {
-        exportData(layer.data, out);
+    protected void addDataFile(OutputStream out) throws IOException {
+        if (binary) {
+            exportBinaryData(layer.data, out);
+        } else {
+            exportData(layer.data, out);
+        }
     }
 
     /**
@@ -40,12 +61,24 @@ public class OsmDataSessionExporter extends GenericSessionExporter<OsmDataLayer>
     public static void exportData(DataSet data, OutputStream out) {
         Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
         OsmWriter w = OsmWriterFactory.createOsmWriter(new PrintWriter(writer), false, data.getVersion());
-        data.getReadLock().lock();
-        try {
-            w.write(data);
+        try (DataSetSnapshot snapshot = data.snapshot()) {
+            w.write(snapshot);
             w.flush();
-        } finally {
-            data.getReadLock().unlock();
+        }
+    }
+
+    /**
+     * Exports OSM data to the given output stream, in the JOSM binary format.
+     * @param data data set
+     * @param out output stream, which is not closed
+     * @throws IOException in case of I/O error
+     * @since xxx
+     */
+    public static void exportBinaryData(DataSet data, OutputStream out) throws IOException {
+        // the writer is not closed, as it would close the output stream
+        OsmBinaryWriter w = new OsmBinaryWriter(out);
+        try (DataSetSnapshot snapshot = data.snapshot()) {
+            w.write(snapshot);
         }
     }
 }
@@ -12,6 +12,7 @@ import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
+import org.openstreetmap.josm.gui.io.importexport.OsmBinaryImporter;
 import org.openstreetmap.josm.gui.io.importexport.OsmImporter;
 import org.openstreetmap.josm.gui.layer.Layer;
 import org.openstreetmap.josm.gui.layer.OsmDataLayer;
@@ -31,7 +32,8 @@ public class OsmDataSessionImporter implements SessionLayerImporter {
     public Layer load(Element elem, ImportSupport support, ProgressMonitor progressMonitor) throws IOException, IllegalDataException {
         checkMetaVersion(elem);
         String fileStr = extractFileName(elem, support);
-        return importData(new OsmImporter(), support, fileStr, progressMonitor);
+        OsmImporter importer = OsmBinaryImporter.FILE_FILTER.acceptName(fileStr) ? new OsmBinaryImporter() : new OsmImporter();
+        return importData(importer, support, fileStr, progressMonitor);
     }
 
     /**
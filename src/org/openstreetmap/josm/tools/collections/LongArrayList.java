@@ -0,0 +1,173 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools.collections;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.function.LongConsumer;
+
+/**
+ * A list of {@code long} values backed by an array, without boxing.
+ * <p>
+ * The methods taking or returning a {@code long} should be preferred. The {@link java.util.List List&lt;Long&gt;}
+ * methods are provided for compatibility with existing APIs; they box and unbox the values.
+ * @since xxx
+ */
+public class LongArrayList extends AbstractList<Long> implements RandomAccess {
+
+    private static final long[] EMPTY = new long[0];
+
+    private long[] elements;
+    private int size;
+
+    /**
+     * Constructs a new empty {@code LongArrayList}.
+     */
+    public LongArrayList() {
+        elements = EMPTY;
+    }
+
+    /**
+     * Constructs a new empty {@code LongArrayList} with the given initial capacity.
+     * @param capacity the initial capacity
+     */
+    public LongArrayList(int capacity) {
+        elements = capacity == 0 ? EMPTY : new long[capacity];
+    }
+
+    /**
+     * Constructs a new {@code LongArrayList} containing the given values.
+     * @param values the values, copied
+     */
+    public LongArrayList(long... values) {
+        elements = values.length == 0 ? EMPTY : values.clone();
+        size = values.length;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void checkIndex(int index, int max) {
+        if (index < 0 || index >= max)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    /**
+     * Returns the value at the given index.
+     * @param index the index
+     * @return the value
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public long getLong(int index) {
+        checkIndex(index, size);
+        return elements[index];
+    }
+
+    @Override
+    public Long get(int index) {
+        return getLong(index);
+    }
+
+    /**
+     * Replaces the value at the given index.
+     * @param index the index
+     * @param value the new value
+     * @return the previous value
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public long setLong(int index, long value) {
+        checkIndex(index, size);
+        long old = elements[index];
+        elements[index] = value;
+        return old;
+    }
+
+    @Override
+    public Long set(int index, Long value) {
+        return setLong(index, value);
+    }
+
+    /**
+     * Makes sure this list can hold the given number of values without growing again.
+     * @param capacity the expected number of values
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(capacity, Math.max(10, elements.length + (elements.length >> 1))));
+        }
+    }
+
+    /**
+     * Appends the given value.
+     * @param value the value
+     * @return {@code true}
+     */
+    public boolean add(long value) {
+        ensureCapacity(size + 1);
+        elements[size++] = value;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean add(Long value) {
+        return add(value.longValue());
+    }
+
+    @Override
+    public void add(int index, Long value) {
+        if (index != size) {
+            checkIndex(index, size);
+        }
+        ensureCapacity(size + 1);
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Long remove(int index) {
+        checkIndex(index, size);
+        long old = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Calls the given consumer for each value, in order.
+     * @param consumer the consumer
+     */
+    public void forEachLong(LongConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(elements[i]);
+        }
+    }
+
+    /**
+     * Returns the values of this list.
+     * @return a new array containing the values, in order
+     */
+    public long[] toLongArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * Trims the capacity of this list to its size, to minimize the memory used by lists kept for a long time.
+     */
+    public void trimToSize() {
+        if (elements.length > size) {
+            elements = size == 0 ? EMPTY : Arrays.copyOf(elements, size);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools.collections;
+
+/**
+ * Helper methods shared by the open-addressing hash tables of this package.
+ * @since xxx
+ */
+final class LongHashing {
+
+    /** The maximum ratio of used slots, including removed ones, before the table is rebuilt */
+    static final double LOAD_FACTOR = 0.6d;
+    static final int DEFAULT_CAPACITY = 16;
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** Slot states, for the tables that cannot mark free or removed slots in their arrays of keys or values */
+    static final byte FREE = 0;
+    static final byte FULL = 1;
+    static final byte REMOVED = 2;
+
+    private LongHashing() {
+        // Hide default constructor for utilities classes
+    }
+
+    /**
+     * Returns the hash of the given key. The bits are spread so that sequential ids do not cluster.
+     * @param key the key
+     * @return the hash, to be masked with the table size
+     */
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Returns the table size needed to hold the given number of elements without being rebuilt.
+     * @param elements the expected number of elements
+     * @return the table size, a power of two
+     */
+    static int capacityFor(int elements) {
+        int cap = DEFAULT_CAPACITY;
+        while (cap < MAXIMUM_CAPACITY && cap * LOAD_FACTOR <= elements) {
+            cap <<= 1;
+        }
+        return cap;
+    }
+
+    /**
+     * Determines if a table must be rebuilt before a free slot can be used.
+     * @param used the number of used slots, including removed ones
+     * @param capacity the table size
+     * @return {@code true} if one more slot cannot be used
+     */
+    static boolean isFull(int used, int capacity) {
+        return used + 1 > capacity * LOAD_FACTOR;
+    }
+}
@@ -0,0 +1,407 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools.collections;
+
+import static org.openstreetmap.josm.tools.collections.LongHashing.capacityFor;
+import static org.openstreetmap.josm.tools.collections.LongHashing.hash;
+import static org.openstreetmap.josm.tools.collections.LongHashing.isFull;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.LongFunction;
+
+/**
+ * A map from {@code long} keys to objects, without boxing the keys.
+ * <p>
+ * This map does not support {@code null} values: {@link #get} returns {@code null} if there is no mapping for a key.
+ *
+ * @param <V> the type of values
+ * @since xxx
+ */
+public class LongObjectMap<V> {
+
+    /** Marks a removed slot in {@link #values}. Free slots are {@code null}. */
+    private static final Object REMOVED = new Object();
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    /** Number of slots that are not free, including the removed ones */
+    private int used;
+
+    /**
+     * A consumer of the entries of a {@link LongObjectMap}.
+     * @param <V> the type of values
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        /**
+         * Accepts an entry.
+         * @param key the key
+         * @param value the value
+         */
+        void accept(long key, V value);
+    }
+
+    /**
+     * An entry of a {@link LongObjectMap}, see {@link LongObjectMap#entries()}.
+     * @param <V> the type of values
+     */
+    public interface Entry<V> {
+        /**
+         * Returns the key of the entry.
+         * @return the key
+         */
+        long getKey();
+
+        /**
+         * Returns the value of the entry.
+         * @return the value
+         */
+        V getValue();
+    }
+
+    /**
+     * Constructs a new empty {@code LongObjectMap}.
+     */
+    public LongObjectMap() {
+        this(0);
+    }
+
+    /**
+     * Constructs a new empty {@code LongObjectMap} that can hold the given number of entries without being rebuilt.
+     * @param expectedSize the expected number of entries
+     */
+    public LongObjectMap(int expectedSize) {
+        int cap = capacityFor(expectedSize);
+        keys = new long[cap];
+        values = new Object[cap];
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Determines if this map is empty.
+     * @return {@code true} if this map contains no entry
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        // terminates, as the load factor guarantees that there is at least one free slot
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            Object v = values[i];
+            if (v == null) {
+                return -1;
+            } else if (v != REMOVED && keys[i] == key) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Returns the value for the given key.
+     * @param key the key
+     * @return the value, or {@code null} if there is no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int i = indexOf(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    /**
+     * Returns the value for the given key, or the given default value.
+     * @param key the key
+     * @param defaultValue the default value
+     * @return the value, or {@code defaultValue} if there is no mapping for the key
+     */
+    public V getOrDefault(long key, V defaultValue) {
+        V v = get(key);
+        return v != null ? v : defaultValue;
+    }
+
+    /**
+     * Determines if this map contains a mapping for the given key.
+     * @param key the key
+     * @return {@code true} if there is a mapping for the key
+     */
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Maps the given key to the given value.
+     * @param key the key
+     * @param value the value, must not be {@code null}
+     * @return the previous value, or {@code null}
+     */
+    public V put(long key, V value) {
+        return insert(key, Objects.requireNonNull(value, "value"), true);
+    }
+
+    /**
+     * Maps the given key to the given value, unless there is already a mapping for the key.
+     * @param key the key
+     * @param value the value, must not be {@code null}
+     * @return the current value, or {@code null} if the key was not mapped before
+     */
+    public V putIfAbsent(long key, V value) {
+        return insert(key, Objects.requireNonNull(value, "value"), false);
+    }
+
+    /**
+     * Returns the value for the given key, computing and adding it if there is no mapping for the key yet.
+     * @param key the key
+     * @param mappingFunction the function to compute the value. If it returns {@code null}, no mapping is added.
+     * @return the current or computed value
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        V v = get(key);
+        if (v == null) {
+            v = mappingFunction.apply(key);
+            if (v != null) {
+                insert(key, v, false);
+            }
+        }
+        return v;
+    }
+
+    /**
+     * Copies all entries of the given map into this map, replacing the existing mappings.
+     * @param other the other map
+     */
+    public void putAll(LongObjectMap<? extends V> other) {
+        ensureCapacity(size + other.size);
+        other.forEach(this::put);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V insert(long key, Object value, boolean replace) {
+        int mask = keys.length - 1;
+        int free = -1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            Object v = values[i];
+            if (v == null) {
+                if (free < 0) {
+                    if (isFull(used, keys.length)) {
+                        rebuild(capacityFor(2 * (size + 1)));
+                        return insert(key, value, replace);
+                    }
+                    used++;
+                    free = i;
+                }
+                keys[free] = key;
+                values[free] = value;
+                size++;
+                return null;
+            } else if (v == REMOVED) {
+                if (free < 0) {
+                    free = i;
+                }
+            } else if (keys[i] == key) {
+                if (replace) {
+                    values[i] = value;
+                }
+                return (V) v;
+            }
+        }
+    }
+
+    /**
+     * Makes sure this map can hold the given number of entries without being rebuilt again.
+     * Use this before adding many entries at once.
+     * @param expectedSize the expected number of entries
+     */
+    public void ensureCapacity(int expectedSize) {
+        int cap = capacityFor(expectedSize);
+        if (cap > keys.length) {
+            rebuild(cap);
+        }
+    }
+
+    private void rebuild(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldValues.length; j++) {
+            Object v = oldValues[j];
+            if (v != null && v != REMOVED) {
+                int i = hash(oldKeys[j]) & mask;
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = v;
+            }
+        }
+        used = size;
+    }
+
+    /**
+     * Removes the mapping for the given key.
+     * @param key the key
+     * @return the removed value, or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int i = indexOf(key);
+        if (i < 0)
+            return null;
+        V v = (V) values[i];
+        values[i] = REMOVED;
+        size--;
+        return v;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+        used = 0;
+    }
+
+    /**
+     * Calls the given consumer for each entry. The map must not be modified by the consumer.
+     * @param consumer the consumer
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        long[] k = keys;
+        Object[] v = values;
+        for (int i = 0; i < v.length; i++) {
+            if (v[i] != null && v[i] != REMOVED) {
+                consumer.accept(k[i], (V) v[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the keys of this map.
+     * @return a new array containing the keys, in no particular order
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null && values[i] != REMOVED) {
+                result[n++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a view of the values of this map. Removing values through the view removes the entries from this map.
+     * @return the values, in no particular order
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Iter<V>() {
+                    @Override
+                    V element(int slot) {
+                        return valueAt(slot);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Returns the entries of this map. Removing entries through the iterator removes them from this map.
+     * The returned entries are not updated if the map is modified afterwards.
+     * @return the entries, in no particular order
+     */
+    public Iterable<Entry<V>> entries() {
+        return () -> new Iter<Entry<V>>() {
+            @Override
+            Entry<V> element(int slot) {
+                final long key = keys[slot];
+                final V value = valueAt(slot);
+                return new Entry<V>() {
+                    @Override
+                    public long getKey() {
+                        return key;
+                    }
+
+                    @Override
+                    public V getValue() {
+                        return value;
+                    }
+                };
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    /**
+     * Iterates over the slots of a table. Entries removed from the map during the iteration are skipped.
+     * @param <E> the type of returned elements
+     */
+    private abstract class Iter<E> implements Iterator<E> {
+        /** The table iterated, to detect rebuilds which would make this iterator return entries twice */
+        private final Object[] tab = values;
+        private int slot = -1;
+        private int next;
+
+        abstract E element(int slot);
+
+        private void checkTable() {
+            if (tab != values)
+                throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next < tab.length && (tab[next] == null || tab[next] == REMOVED)) {
+                next++;
+            }
+            return next < tab.length;
+        }
+
+        @Override
+        public E next() {
+            checkTable();
+            if (!hasNext())
+                throw new NoSuchElementException();
+            slot = next++;
+            return element(slot);
+        }
+
+        @Override
+        public void remove() {
+            checkTable();
+            if (slot < 0 || tab[slot] == REMOVED)
+                throw new IllegalStateException();
+            tab[slot] = REMOVED;
+            size--;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools.collections;
+
+import static org.openstreetmap.josm.tools.collections.LongHashing.FREE;
+import static org.openstreetmap.josm.tools.collections.LongHashing.FULL;
+import static org.openstreetmap.josm.tools.collections.LongHashing.REMOVED;
+import static org.openstreetmap.josm.tools.collections.LongHashing.capacityFor;
+import static org.openstreetmap.josm.tools.collections.LongHashing.hash;
+import static org.openstreetmap.josm.tools.collections.LongHashing.isFull;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+
+/**
+ * A set of {@code long} values, without boxing.
+ * <p>
+ * The methods taking a {@code long} should be preferred. The {@link java.util.Set Set&lt;Long&gt;} methods are
+ * provided for compatibility with existing APIs; they box and unbox the values.
+ * @since xxx
+ */
+public class LongSet extends AbstractSet<Long> {
+
+    private long[] keys;
+    private byte[] states;
+    private int size;
+    /** Number of slots that are not free, including the removed ones */
+    private int used;
+
+    /**
+     * Constructs a new empty {@code LongSet}.
+     */
+    public LongSet() {
+        this(0);
+    }
+
+    /**
+     * Constructs a new empty {@code LongSet} that can hold the given number of values without being rebuilt.
+     * @param expectedSize the expected number of values
+     */
+    public LongSet(int expectedSize) {
+        int cap = capacityFor(expectedSize);
+        keys = new long[cap];
+        states = new byte[cap];
+    }
+
+    /**
+     * Constructs a new {@code LongSet} containing the given values.
+     * @param values the values
+     */
+    public LongSet(Collection<Long> values) {
+        this(values.size());
+        addAll(values);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private int indexOf(long value) {
+        int mask = keys.length - 1;
+        // terminates, as the load factor guarantees that there is at least one free slot
+        for (int i = hash(value) & mask; ; i = (i + 1) & mask) {
+            byte s = states[i];
+            if (s == FREE) {
+                return -1;
+            } else if (s == FULL && keys[i] == value) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Determines if this set contains the given value.
+     * @param value the value
+     * @return {@code true} if this set contains the value
+     */
+    public boolean contains(long value) {
+        return indexOf(value) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long && contains(((Long) o).longValue());
+    }
+
+    /**
+     * Adds the given value.
+     * @param value the value
+     * @return {@code true} if this set did not already contain the value
+     */
+    public boolean add(long value) {
+        int mask = keys.length - 1;
+        int free = -1;
+        for (int i = hash(value) & mask; ; i = (i + 1) & mask) {
+            byte s = states[i];
+            if (s == FREE) {
+                if (free < 0) {
+                    if (isFull(used, keys.length)) {
+                        rebuild(capacityFor(2 * (size + 1)));
+                        return add(value);
+                    }
+                    used++;
+                    free = i;
+                }
+                keys[free] = value;
+                states[free] = FULL;
+                size++;
+                return true;
+            } else if (s == REMOVED) {
+                if (free < 0) {
+                    free = i;
+                }
+            } else if (keys[i] == value) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public boolean add(Long value) {
+        return add(value.longValue());
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Long> c) {
+        ensureCapacity(size + c.size());
+        if (c instanceof LongSet) {
+            int oldSize = size;
+            ((LongSet) c).forEachLong(this::add);
+            return size != oldSize;
+        }
+        return super.addAll(c);
+    }
+
+    /**
+     * Makes sure this set can hold the given number of values without being rebuilt again.
+     * Use this before adding many values at once.
+     * @param expectedSize the expected number of values
+     */
+    public void ensureCapacity(int expectedSize) {
+        int cap = capacityFor(expectedSize);
+        if (cap > keys.length) {
+            rebuild(cap);
+        }
+    }
+
+    private void rebuild(int capacity) {
+        long[] oldKeys = keys;
+        byte[] oldStates = states;
+        keys = new long[capacity];
+        states = new byte[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldStates.length; j++) {
+            if (oldStates[j] == FULL) {
+                int i = hash(oldKeys[j]) & mask;
+                while (states[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                states[i] = FULL;
+            }
+        }
+        used = size;
+    }
+
+    /**
+     * Removes the given value.
+     * @param value the value
+     * @return {@code true} if this set contained the value
+     */
+    public boolean remove(long value) {
+        int i = indexOf(value);
+        if (i < 0)
+            return false;
+        states[i] = REMOVED;
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Long && remove(((Long) o).longValue());
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        // unlike AbstractSet, never iterate over this set: c is usually a subset, e.g. a package extracted from this set
+        int oldSize = size;
+        if (c instanceof LongSet) {
+            ((LongSet) c).forEachLong(this::remove);
+        } else {
+            for (Object o : c) {
+                remove(o);
+            }
+        }
+        return size != oldSize;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(states, FREE);
+        size = 0;
+        used = 0;
+    }
+
+    /**
+     * Calls the given consumer for each value. The set must not be modified by the consumer.
+     * @param consumer the consumer
+     */
+    public void forEachLong(LongConsumer consumer) {
+        long[] k = keys;
+        byte[] s = states;
+        for (int i = 0; i < s.length; i++) {
+            if (s[i] == FULL) {
+                consumer.accept(k[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the values of this set.
+     * @return a new array containing the values, in no particular order
+     */
+    public long[] toLongArray() {
+        long[] result = new long[size];
+        int n = 0;
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] == FULL) {
+                result[n++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns an iterator over the values, in no particular order. Values removed from the set during the iteration
+     * are skipped.
+     */
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<Long>() {
+            /** The table iterated, to detect rebuilds which would make this iterator return values twice */
+            private final byte[] tab = states;
+            private int slot = -1;
+            private int next;
+
+            private void checkTable() {
+                if (tab != states)
+                    throw new ConcurrentModificationException();
+            }
+
+            @Override
+            public boolean hasNext() {
+                while (next < tab.length && tab[next] != FULL) {
+                    next++;
+                }
+                return next < tab.length;
+            }
+
+            @Override
+            public Long next() {
+                checkTable();
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                slot = next++;
+                return keys[slot];
+            }
+
+            @Override
+            public void remove() {
+                checkTable();
+                if (slot < 0 || tab[slot] != FULL)
+                    throw new IllegalStateException();
+                tab[slot] = REMOVED;
+                size--;
+            }
+        };
+    }
+}
@@ -0,0 +1,9 @@
+// License: GPL. For details, see LICENSE file.
+
+/**
+ * Collections of primitive {@code long} values, for hot paths dealing with many OSM ids.
+ * <p>
+ * The hash based collections use open addressing with linear probing in plain arrays, so that neither the keys
+ * nor the entries are boxed. None of the collections is thread-safe.
+ */
+package org.openstreetmap.josm.tools.collections;
@@ -0,0 +1,154 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.command.AddPrimitivesCommand;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.visitor.paint.StyledMapRenderer;
+import org.openstreetmap.josm.gui.NavigatableComponent;
+import org.openstreetmap.josm.gui.mappaint.MapPaintStyles;
+
+/**
+ * Measures the latency of read operations on a {@link DataSet} while a background thread performs bulk writes
+ * through {@link AddPrimitivesCommand}.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class DataSetConcurrentReadPerformanceTest {
+    private static final int SEARCH_RUNS = 20000;
+    private static final int RENDER_RUNS = 50;
+    private static final int NODES_PER_COMMAND = 20000;
+    private static final Bounds BOUNDS = new Bounds(53.51, 13.20, 53.59, 13.34);
+
+    private static DataSet dsCity;
+
+    /**
+     * Prepare the test.
+     * @throws Exception if the test data cannot be loaded
+     */
+    @BeforeAll
+    public static void load() throws Exception {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        MapPaintStyles.readFromPreferences();
+        dsCity = PerformanceTestUtils.getNeubrandenburgDataSet();
+    }
+
+    /**
+     * Repeatedly adds and removes a large number of nodes located in the tested bounds, each in a single bulk write.
+     */
+    private static final class BulkWriter extends Thread {
+        private final DataSet ds;
+        private final AtomicBoolean stop = new AtomicBoolean();
+        private final AtomicInteger commands = new AtomicInteger();
+
+        BulkWriter(DataSet ds) {
+            super("bulk-writer");
+            this.ds = ds;
+        }
+
+        @Override
+        public void run() {
+            while (!stop.get()) {
+                List<PrimitiveData> data = new ArrayList<>(NODES_PER_COMMAND);
+                for (int i = 0; i < NODES_PER_COMMAND; i++) {
+                    NodeData nd = new NodeData();
+                    nd.setCoor(new LatLon(BOUNDS.getMinLat() + BOUNDS.getHeight() * i / NODES_PER_COMMAND,
+                            BOUNDS.getMinLon() + BOUNDS.getWidth() * (NODES_PER_COMMAND - i) / NODES_PER_COMMAND));
+                    data.add(nd);
+                }
+                AddPrimitivesCommand cmd = new AddPrimitivesCommand(data, null, ds);
+                ds.update(cmd::executeCommand);
+                ds.update(cmd::undoCommand);
+                commands.incrementAndGet();
+            }
+        }
+
+        int finish() throws InterruptedException {
+            stop.set(true);
+            join();
+            return commands.get();
+        }
+    }
+
+    private static void report(String name, long[] nanos) {
+        Arrays.sort(nanos);
+        PerformanceTestUtils.measurementPlotsPluginOutput(name + " median (µs)", nanos[nanos.length / 2] / 1000d);
+        PerformanceTestUtils.measurementPlotsPluginOutput(name + " p99 (µs)", nanos[nanos.length * 99 / 100] / 1000d);
+        PerformanceTestUtils.measurementPlotsPluginOutput(name + " max (µs)", nanos[nanos.length - 1] / 1000d);
+    }
+
+    /**
+     * Measures {@link DataSet#searchNodes} and {@link DataSet#searchWays} latency during bulk writes.
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    void testSearchDuringBulkWrite() throws InterruptedException {
+        BBox bbox = BOUNDS.toBBox();
+        long[] nanos = new long[SEARCH_RUNS];
+        BulkWriter writer = new BulkWriter(dsCity);
+        writer.start();
+        for (int i = 0; i < SEARCH_RUNS; i++) {
+            long start = System.nanoTime();
+            assertFalse(dsCity.searchNodes(bbox).isEmpty());
+            assertFalse(dsCity.searchWays(bbox).isEmpty());
+            nanos[i] = System.nanoTime() - start;
+        }
+        System.out.println("Background commands: " + writer.finish());
+        report("searchNodes+searchWays during bulk write", nanos);
+    }
+
+    /**
+     * Measures {@link StyledMapRenderer} latency during bulk writes.
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    void testRenderDuringBulkWrite() throws InterruptedException {
+        BufferedImage img = new BufferedImage(1400, 1050, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        g.setClip(0, 0, img.getWidth(), img.getHeight());
+        NavigatableComponent nc = new NavigatableComponent() {
+            {
+                setBounds(0, 0, img.getWidth(), img.getHeight());
+                updateLocationState();
+            }
+
+            @Override
+            protected boolean isVisibleOnScreen() {
+                return true;
+            }
+
+            @Override
+            public Point getLocationOnScreen() {
+                return new Point(0, 0);
+            }
+        };
+        nc.zoomTo(BOUNDS);
+        StyledMapRenderer renderer = new StyledMapRenderer(g, nc, false);
+        long[] nanos = new long[RENDER_RUNS];
+        BulkWriter writer = new BulkWriter(dsCity);
+        writer.start();
+        for (int i = 0; i < RENDER_RUNS; i++) {
+            long start = System.nanoTime();
+            renderer.render(dsCity, true, BOUNDS);
+            nanos[i] = System.nanoTime() - start;
+        }
+        System.out.println("Background commands: " + writer.finish());
+        report("StyledMapRenderer during bulk write", nanos);
+    }
+}
@@ -0,0 +1,136 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+
+/**
+ * Measures the heap allocated by bbox searches of the kind done on every mouse move (hover highlighting, snapping)
+ * and on every repaint, comparing the list-returning searches to the visitor and reusable-buffer overloads.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class DataSetSearchAllocationPerformanceTest {
+    private static final int QUERIES = 20_000;
+    /** about 10 pixels around the mouse at a typical editing zoom level */
+    private static final double HOVER_SIZE = 0.0002;
+
+    private static DataSet ds;
+    private static List<BBox> hoverBoxes;
+    private static List<BBox> viewportBoxes;
+
+    /**
+     * Prepare the test.
+     * @throws Exception if the data file cannot be loaded
+     */
+    @BeforeAll
+    public static void load() throws Exception {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        ds = PerformanceTestUtils.getNeubrandenburgDataSet();
+        BBox extent = new BBox();
+        ds.getNodes().forEach(n -> extent.add(n.lon(), n.lat()));
+        Random random = new Random(1);
+        hoverBoxes = createBoxes(random, extent, HOVER_SIZE, HOVER_SIZE);
+        viewportBoxes = createBoxes(random, extent, extent.width() / 20, extent.height() / 20);
+    }
+
+    private static List<BBox> createBoxes(Random random, BBox extent, double w, double h) {
+        List<BBox> boxes = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            double x = extent.getMinLon() + random.nextDouble() * (extent.width() - w);
+            double y = extent.getMinLat() + random.nextDouble() * (extent.height() - h);
+            boxes.add(new BBox(x, y, x + w, y + h));
+        }
+        return boxes;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled());
+        return sunBean;
+    }
+
+    /**
+     * Runs the given search for all boxes and returns the average number of bytes allocated per search.
+     * @param name the measurement name
+     * @param boxes the bboxes to search
+     * @param search the search to run
+     * @return the average number of bytes allocated per search
+     */
+    private static double bytesPerSearch(String name, List<BBox> boxes, Consumer<BBox> search) {
+        com.sun.management.ThreadMXBean bean = threadBean();
+        long thread = Thread.currentThread().getId();
+        // warm up, so that the measured searches run compiled code
+        for (int i = 0; i < 5; i++) {
+            boxes.forEach(search);
+        }
+        long before = bean.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < boxes.size(); i++) {
+            search.accept(boxes.get(i));
+        }
+        double result = (double) (bean.getThreadAllocatedBytes(thread) - before) / boxes.size();
+        PerformanceTestUtils.measurementPlotsPluginOutput(name + " (bytes/search)", result);
+        return result;
+    }
+
+    private static final class Counter implements Consumer<OsmPrimitive> {
+        int count;
+
+        @Override
+        public void accept(OsmPrimitive t) {
+            count++;
+        }
+    }
+
+    /**
+     * Measures the allocations of the hover path: node and way searches in a small bbox around the mouse.
+     */
+    @Test
+    void testHoverSearch() {
+        Counter counter = new Counter();
+
+        double list = bytesPerSearch("hover search (list)", hoverBoxes, bbox -> {
+            ds.searchNodes(bbox);
+            ds.searchWays(bbox);
+        });
+        double visitor = bytesPerSearch("hover search (visitor)", hoverBoxes, bbox -> {
+            ds.searchNodes(bbox, counter);
+            ds.searchWays(bbox, counter);
+        });
+        assertTrue(counter.count > 0);
+        assertTrue(visitor < 16, "visitor search allocates " + visitor + " bytes");
+        assertTrue(visitor < list);
+    }
+
+    /**
+     * Measures the allocations of the repaint path: node and way searches in a viewport with many results.
+     */
+    @Test
+    void testViewportSearch() {
+        Counter counter = new Counter();
+        double list = bytesPerSearch("viewport search (list)", viewportBoxes, bbox -> {
+            ds.searchNodes(bbox);
+            ds.searchWays(bbox);
+        });
+        double visitor = bytesPerSearch("viewport search (visitor)", viewportBoxes, bbox -> {
+            ds.searchNodes(bbox, counter);
+            ds.searchWays(bbox, counter);
+        });
+        assertTrue(visitor < 16, "visitor search allocates " + visitor + " bytes");
+        assertTrue(visitor < list);
+    }
+}
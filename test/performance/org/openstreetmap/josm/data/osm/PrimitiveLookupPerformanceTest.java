@@ -0,0 +1,114 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+
+/**
+ * Measures lookups of primitives by id from several threads at once, as done by merges, conflict resolution and
+ * multi-fetch, comparing a synchronized {@link Storage} to {@link ConcurrentPrimitiveStorage}.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class PrimitiveLookupPerformanceTest {
+    private static final int ROUNDS = 20;
+
+    private static List<OsmPrimitive> primitives;
+    private static long[] ids;
+    private static OsmPrimitiveType[] types;
+
+    /**
+     * Prepare the test.
+     * @throws Exception if the data file cannot be loaded
+     */
+    @BeforeAll
+    public static void load() throws Exception {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        primitives = new ArrayList<>(PerformanceTestUtils.getNeubrandenburgDataSet().allPrimitives());
+        // look up in random order, as done when merging an other dataset
+        Collections.shuffle(primitives, new Random(1));
+        ids = new long[primitives.size()];
+        types = new OsmPrimitiveType[primitives.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = primitives.get(i).getUniqueId();
+            types[i] = primitives.get(i).getType();
+        }
+    }
+
+    /**
+     * Looks up all primitives {@link #ROUNDS} times from each of the given number of threads.
+     * @param name the measurement name
+     * @param threads the number of threads
+     * @param lookup looks up the primitive with the given index, returns 1 if it is found
+     * @throws Exception if a lookup fails
+     */
+    private static void runLookups(String name, int threads, IntUnaryOperator lookup) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            PerformanceTestTimer timer = PerformanceTestUtils.startTimer(name + " with " + threads + " threads");
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    int found = 0;
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (int i = 0; i < ids.length; i++) {
+                            found += lookup.applyAsInt(i);
+                        }
+                    }
+                    return found;
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(ROUNDS * ids.length, result.get().intValue());
+            }
+            timer.done();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Measures lookups with a synchronized {@link Storage}, as previously used by {@link DataSet}.
+     * @throws Exception if a lookup fails
+     */
+    @Test
+    void testStorage() throws Exception {
+        Storage<OsmPrimitive> storage = new Storage<>(new Storage.PrimitiveIdHash(), true);
+        Map<PrimitiveId, OsmPrimitive> map = storage.foreignKey(new Storage.PrimitiveIdHash());
+        storage.addAll(primitives);
+        for (int threads = 1; threads <= 8; threads *= 2) {
+            runLookups("Storage lookup", threads,
+                    i -> map.get(new SimplePrimitiveId(ids[i], types[i])) != null ? 1 : 0);
+        }
+    }
+
+    /**
+     * Measures lookups with {@link ConcurrentPrimitiveStorage}.
+     * @throws Exception if a lookup fails
+     */
+    @Test
+    void testConcurrentPrimitiveStorage() throws Exception {
+        ConcurrentPrimitiveStorage<OsmPrimitive> storage = new ConcurrentPrimitiveStorage<>();
+        storage.addAll(primitives);
+        for (int threads = 1; threads <= 8; threads *= 2) {
+            runLookups("ConcurrentPrimitiveStorage lookup", threads,
+                    i -> storage.get(ids[i], types[i]) != null ? 1 : 0);
+        }
+    }
+}
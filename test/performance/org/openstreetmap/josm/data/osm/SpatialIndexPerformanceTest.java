@@ -0,0 +1,142 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+
+/**
+ * Compares the {@link SpatialIndex} implementations {@link QuadBuckets} and {@link PackedRTree}
+ * for inserts, removals and viewport queries on the nodes and ways of the neubrandenburg file.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class SpatialIndexPerformanceTest {
+    private static final int QUERIES = 2000;
+
+    private static List<Node> nodes;
+    private static List<Way> ways;
+    private static List<BBox> viewports;
+
+    /**
+     * Prepare the test.
+     * @throws Exception if the data file cannot be loaded
+     */
+    @BeforeAll
+    public static void load() throws Exception {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        DataSet ds = PerformanceTestUtils.getNeubrandenburgDataSet();
+        nodes = new ArrayList<>(ds.getNodes());
+        ways = new ArrayList<>(ds.getWays());
+        BBox extent = new BBox();
+        nodes.forEach(n -> extent.add(n.lon(), n.lat()));
+        // random viewports of about 1/20th of the data extent, as used when editing at high zoom
+        Random random = new Random(1);
+        viewports = new ArrayList<>(QUERIES);
+        double w = extent.width() / 20;
+        double h = extent.height() / 20;
+        for (int i = 0; i < QUERIES; i++) {
+            double x = extent.getMinLon() + random.nextDouble() * (extent.width() - w);
+            double y = extent.getMinLat() + random.nextDouble() * (extent.height() - h);
+            viewports.add(new BBox(x, y, x + w, y + h));
+        }
+    }
+
+    private static void testInsert(String name, Supplier<SpatialIndex<Node>> factory) {
+        PerformanceTestUtils.runPerformanceTest(name + " insert nodes one by one", () -> {
+            SpatialIndex<Node> index = factory.get();
+            nodes.forEach(index::add);
+            assertEquals(nodes.size(), index.size());
+        });
+        PerformanceTestUtils.runPerformanceTest(name + " insert nodes in bulk", () -> {
+            SpatialIndex<Node> index = factory.get();
+            index.addAll(nodes);
+            assertEquals(nodes.size(), index.size());
+        });
+    }
+
+    private static void testRemove(String name, Supplier<SpatialIndex<Node>> factory) {
+        PerformanceTestUtils.runPerformanceTest(name + " remove half of the nodes", () -> {
+            SpatialIndex<Node> index = factory.get();
+            index.addAll(nodes);
+            for (int i = 0; i < nodes.size(); i += 2) {
+                index.remove(nodes.get(i));
+            }
+            assertEquals(nodes.size() / 2, index.size());
+        });
+    }
+
+    private static void testQuery(String name, SpatialIndex<Node> nodeIndex, SpatialIndex<Way> wayIndex) {
+        nodeIndex.addAll(nodes);
+        wayIndex.addAll(ways);
+        int[] found = new int[1];
+        PerformanceTestUtils.runPerformanceTest(name + " viewport queries (list)", () -> {
+            for (BBox bbox : viewports) {
+                found[0] += nodeIndex.search(bbox).size() + wayIndex.search(bbox).size();
+            }
+        });
+        PerformanceTestUtils.runPerformanceTest(name + " viewport queries (visitor)", () -> {
+            for (BBox bbox : viewports) {
+                nodeIndex.search(bbox, n -> found[0]++);
+                wayIndex.search(bbox, w -> found[0]++);
+            }
+        });
+    }
+
+    /**
+     * Measures inserts with {@link QuadBuckets}.
+     */
+    @Test
+    void testQuadBucketsInsert() {
+        testInsert("QuadBuckets", QuadBuckets::new);
+    }
+
+    /**
+     * Measures inserts with {@link PackedRTree}.
+     */
+    @Test
+    void testPackedRTreeInsert() {
+        testInsert("PackedRTree", PackedRTree::new);
+    }
+
+    /**
+     * Measures removals with {@link QuadBuckets}.
+     */
+    @Test
+    void testQuadBucketsRemove() {
+        testRemove("QuadBuckets", QuadBuckets::new);
+    }
+
+    /**
+     * Measures removals with {@link PackedRTree}.
+     */
+    @Test
+    void testPackedRTreeRemove() {
+        testRemove("PackedRTree", PackedRTree::new);
+    }
+
+    /**
+     * Measures viewport queries with {@link QuadBuckets}.
+     */
+    @Test
+    void testQuadBucketsQuery() {
+        testQuery("QuadBuckets", new QuadBuckets<>(), new QuadBuckets<>());
+    }
+
+    /**
+     * Measures viewport queries with {@link PackedRTree}.
+     */
+    @Test
+    void testPackedRTreeQuery() {
+        testQuery("PackedRTree", new PackedRTree<>(), new PackedRTree<>());
+    }
+}
@@ -8,6 +8,11 @@ import javax.imageio.ImageIO;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.coor.EastNorth;
 import org.openstreetmap.josm.gui.mappaint.MapPaintStyles;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -34,6 +39,78 @@ class StyledMapRendererPerformanceTest extends AbstractMapRendererPerformanceTes
         return new StyledMapRenderer(g, nc, false);
     }
 
+    /**
+     * Compares the sequential and the tiled draw of the city
+     */
+    @Test
+    void testCityTiledDraw() {
+        Bounds bounds = new Bounds(53.51, 13.20, 53.59, 13.34);
+        nc.zoomTo(bounds);
+        Rendering renderer = buildRenderer();
+        try {
+            for (boolean tiled : new boolean[] {false, true}) {
+                StyledMapRenderer.PREFERENCE_TILED_DRAW.put(tiled);
+                // warm up
+                renderer.render(dsCity, true, bounds);
+                PerformanceTestTimer timer = PerformanceTestUtils.startTimer((tiled ? "tiled" : "sequential") + " draw of city");
+                for (int i = 0; i < 20; i++) {
+                    renderer.render(dsCity, true, bounds);
+                }
+                timer.done();
+            }
+        } finally {
+            StyledMapRenderer.PREFERENCE_TILED_DRAW.put(false);
+        }
+    }
+
+    /**
+     * Compares the paint of a pan sequence over the city, with and without retaining the style records
+     */
+    @Test
+    void testCityPan() {
+        for (boolean cached : new boolean[] {false, true}) {
+            StyledMapRenderer renderer = new StyledMapRenderer(g, nc, false);
+            if (cached) {
+                renderer.setStyleRecordCache(new StyleRecordCache());
+            }
+            nc.zoomTo(new Bounds(53.55, 13.25, 53.57, 13.28));
+            EastNorth start = nc.getCenter();
+            double step = 10 * nc.getScale();
+            PerformanceTestTimer timer = PerformanceTestUtils.startTimer((cached ? "cached" : "uncached") + " pan over city");
+            for (int i = 0; i < 50; i++) {
+                nc.zoomTo(start.add(i * step, i * step / 2));
+                renderer.render(dsCity, true, nc.getRealBounds());
+            }
+            timer.done();
+        }
+    }
+
+    /**
+     * Compares the draw of the whole city when zoomed out, with and without simplified geometries
+     */
+    @Test
+    void testCityZoomedOutSimplified() {
+        Bounds bounds = new Bounds(52, 11, 55, 14);
+        nc.zoomTo(bounds);
+        Rendering renderer = buildRenderer();
+        try {
+            for (double maxError : new double[] {0, 0.5}) {
+                SimplifiedGeometryCache.PROP_MAX_ERROR.put(maxError);
+                // warm up, fills the cache
+                renderer.render(dsCity, true, bounds);
+                PerformanceTestTimer timer = PerformanceTestUtils.startTimer(
+                        (maxError > 0 ? "simplified" : "full") + " draw of zoomed out city");
+                for (int i = 0; i < 20; i++) {
+                    renderer.render(dsCity, true, bounds);
+                }
+                timer.done();
+            }
+        } finally {
+            SimplifiedGeometryCache.PROP_MAX_ERROR.put(0.0);
+            SimplifiedGeometryCache.getInstance().clear();
+        }
+    }
+
     /**
      * run this manually to verify that the rendering is set up properly
      * @throws IOException if any I/O error occurs
@@ -5,6 +5,10 @@ import java.util.EnumSet;
 
 import org.junit.jupiter.api.Test;
 import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.osm.Tag;
+import org.openstreetmap.josm.data.osm.Tagged;
+import org.openstreetmap.josm.gui.mappaint.mapcss.Condition.Context;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.KeyValueCondition;
 import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.Op;
 
 /**
@@ -28,6 +32,26 @@ class MapCSSConditionPerformanceTest {
         }
     }
 
+    /**
+     * Compares the numeric key/value condition to the generic one.
+     */
+    @Test
+    void testNumericCondition() {
+        Tagged[] tagged = {
+                new Tag("width", "0.2"), new Tag("width", "192.312"), new Tag("width", "nan"), new Tag("name", "x")};
+        Condition generic = new KeyValueCondition("width", "2.5", Op.GREATER_OR_EQUAL, false);
+        Condition numeric = ConditionFactory.createKeyValueCondition("width", "2.5", Op.GREATER_OR_EQUAL, Context.PRIMITIVE, false);
+        for (Condition condition : new Condition[] {generic, numeric}) {
+            PerformanceTestUtils.runPerformanceTest("Condition " + condition.getClass().getSimpleName(), () -> {
+                for (int i = 0; i < 100000; i++) {
+                    for (Tagged t : tagged) {
+                        condition.applies(t);
+                    }
+                }
+            });
+        }
+    }
+
     private void runTest(Op op) {
         Runnable r = getRunner(op);
         PerformanceTestUtils.runPerformanceTest("Condition.Op." + op, r);
@@ -0,0 +1,140 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * This test compares the single threaded compression streams with the parallel ones of {@link Compression}.
+ * <p>
+ * For this, we repeat the neubrandenburg-file until it is about 500 MB large (see {@code josm.test.compression.size}).
+ */
+@Timeout(value = 60*60, unit = TimeUnit.SECONDS)
+class CompressionPerformanceTest {
+    private static final long SIZE = Long.getLong("josm.test.compression.size", 500L << 20);
+
+    private static Path directory;
+    private static Path plain;
+
+    @FunctionalInterface
+    private interface OutputFactory {
+        OutputStream create(OutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface InputFactory {
+        InputStream create(Path file) throws IOException;
+    }
+
+    /**
+     * Prepare the test.
+     * @throws IOException if an error occurs
+     */
+    @BeforeAll
+    static void setUp() throws IOException {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        byte[] data;
+        try (InputStream in = Compression.getUncompressedFileInputStream(Paths.get(PerformanceTestUtils.DATA_FILE))) {
+            data = Utils.readBytesFromStream(in);
+        }
+        directory = Files.createTempDirectory("josm-compression");
+        plain = directory.resolve("data.osm");
+        try (OutputStream out = Files.newOutputStream(plain)) {
+            for (long written = 0; written < SIZE; written += data.length) {
+                out.write(data);
+            }
+        }
+    }
+
+    /**
+     * Removes the temporary files.
+     */
+    @AfterAll
+    static void tearDown() {
+        if (directory != null) {
+            Utils.deleteDirectory(directory.toFile());
+        }
+    }
+
+    private static Path compress(String name, String extension, OutputFactory factory) throws IOException {
+        Path file = directory.resolve(name + extension);
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("compress " + (Files.size(plain) >> 20) + " MB with " + name);
+        try (OutputStream out = factory.create(Files.newOutputStream(file))) {
+            Files.copy(plain, out);
+        }
+        timer.done();
+        PerformanceTestUtils.measurementPlotsPluginOutput(name + " size (MB)", Files.size(file) / (double) (1 << 20));
+        return file;
+    }
+
+    private static void decompress(String name, Path file, InputFactory factory) throws IOException {
+        long size = 0;
+        byte[] buffer = new byte[64 * 1024];
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("decompress " + file.getFileName() + " with " + name);
+        try (InputStream in = factory.create(file)) {
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                size += n;
+            }
+        }
+        timer.done();
+        assertEquals(Files.size(plain), size);
+    }
+
+    /**
+     * Compares the gzip streams.
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testGzip() throws IOException {
+        Path serial = compress("GZIPOutputStream", ".gz", out -> new GZIPOutputStream(out, 64 * 1024));
+        Path parallel = compress("ParallelGZIPOutputStream", ".gz", ParallelGZIPOutputStream::new);
+        decompress("GZIPInputStream", serial, file -> new GZIPInputStream(Files.newInputStream(file), 64 * 1024));
+        decompress("GZIPInputStream", parallel, file -> new GZIPInputStream(Files.newInputStream(file), 64 * 1024));
+    }
+
+    /**
+     * Compares the bzip2 streams.
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testBZip2() throws IOException {
+        Path file = compress("BZip2CompressorOutputStream", ".bz2", BZip2CompressorOutputStream::new);
+        decompress("BZip2CompressorInputStream", file, f -> new BZip2CompressorInputStream(Files.newInputStream(f), true));
+        decompress("ParallelBZip2InputStream", file, ParallelBZip2InputStream::new);
+    }
+
+    /**
+     * Compares the xz streams.
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testXZ() throws IOException {
+        Path serial = compress("XZCompressorOutputStream", ".xz", XZCompressorOutputStream::new);
+        Path parallel = compress("ParallelXZOutputStream", ".xz", ParallelXZOutputStream::new);
+        decompress("XZCompressorInputStream", serial, file -> new XZCompressorInputStream(Files.newInputStream(file), true));
+        decompress("XZCompressorInputStream", parallel, file -> new XZCompressorInputStream(Files.newInputStream(file), true));
+        decompress("ParallelXZInputStream", parallel, ParallelXZInputStream::new);
+    }
+}
@@ -0,0 +1,120 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Measures how fast a {@link DataSet} is populated by the readers, which use the bulk-load path
+ * {@link DataSet#addPrimitives}, and compares it to adding the primitives one by one.
+ * <p>
+ * The neubrandenburg-file is used, see {@link OsmReaderPerformanceTest}. We ignore disk access times.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class DataSetBulkLoadPerformanceTest {
+
+    /**
+     * Prepare the test.
+     */
+    @BeforeAll
+    public static void createJOSMFixture() {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+    }
+
+    /**
+     * Measures the end-to-end load time of the uncompressed .osm file, from memory.
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testEndToEndLoad() throws IOException {
+        byte[] data;
+        try (InputStream is = Compression.getUncompressedFileInputStream(new File(PerformanceTestUtils.DATA_FILE))) {
+            data = Utils.readBytesFromStream(is);
+        }
+        PerformanceTestUtils.runPerformanceTest("load .osm-file (bulk)", () -> {
+            try {
+                OsmReader.parseDataSet(new ByteArrayInputStream(data), null);
+            } catch (IllegalDataException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * Compares the time needed to fill a data set with the primitives of the neubrandenburg file,
+     * one by one and in bulk.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testPopulate() throws Exception {
+        DataSet source = PerformanceTestUtils.getNeubrandenburgDataSet();
+        int expected = source.allPrimitives().size();
+
+        PerformanceTestUtils.runPerformanceTest("populate data set one by one", () ->
+            assertEquals(expected, copy(source, false).allPrimitives().size()));
+        PerformanceTestUtils.runPerformanceTest("populate data set in bulk", () ->
+            assertEquals(expected, copy(source, true).allPrimitives().size()));
+    }
+
+    /**
+     * Copies the primitives of {@code source} (relations without their members), the way {@link DataSet#clonePrimitives} does.
+     * @param source the data set to copy
+     * @param bulk if {@code true}, use {@link DataSet#addPrimitives}, otherwise {@link DataSet#addPrimitive}
+     * @return the new data set
+     */
+    private static DataSet copy(DataSet source, boolean bulk) {
+        DataSet ds = new DataSet();
+        Map<Node, Node> nodeMap = new HashMap<>();
+        List<OsmPrimitive> nodes = new ArrayList<>();
+        for (Node n : source.getNodes()) {
+            Node copy = new Node(n);
+            nodeMap.put(n, copy);
+            nodes.add(copy);
+        }
+        List<OsmPrimitive> ways = new ArrayList<>();
+        for (Way w : source.getWays()) {
+            Way copy = new Way(w, false, false);
+            List<Node> wayNodes = new ArrayList<>(w.getNodesCount());
+            for (Node n : w.getNodes()) {
+                wayNodes.add(nodeMap.get(n));
+            }
+            copy.setNodes(wayNodes);
+            ways.add(copy);
+        }
+        List<OsmPrimitive> relations = new ArrayList<>();
+        source.getRelations().forEach(r -> relations.add(new Relation(r, false, false)));
+        ds.update(() -> {
+            if (bulk) {
+                ds.addPrimitives(nodes);
+                ds.addPrimitives(ways);
+                ds.addPrimitives(relations);
+            } else {
+                nodes.forEach(ds::addPrimitive);
+                ways.forEach(ds::addPrimitive);
+                relations.forEach(ds::addPrimitive);
+            }
+        });
+        return ds;
+    }
+}
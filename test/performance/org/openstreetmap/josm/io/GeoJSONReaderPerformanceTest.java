@@ -0,0 +1,95 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+import org.openstreetmap.josm.data.osm.DataSet;
+
+/**
+ * This test measures how fast {@link GeoJSONReader} converts large GeoJSON files.
+ * <p>
+ * For this, we generate a FeatureCollection and the same features as newline-delimited GeoJSON,
+ * made of line strings sharing some of their coordinates.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class GeoJSONReaderPerformanceTest {
+    private static final int FEATURES = 200_000;
+
+    private static byte[] featureCollection;
+    private static byte[] lineDelimited;
+
+    /**
+     * Prepare the test.
+     */
+    @BeforeAll
+    static void setUp() {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        Random random = new Random(42);
+        StringBuilder collection = new StringBuilder("{\"type\": \"FeatureCollection\", \"features\": [");
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < FEATURES; i++) {
+            StringBuilder feature = new StringBuilder(200)
+                    .append("{\"type\": \"Feature\", \"properties\": {\"highway\": \"residential\", \"ref\": ").append(i)
+                    .append("}, \"geometry\": {\"type\": \"LineString\", \"coordinates\": [");
+            for (int j = 0; j < 5; j++) {
+                // coordinates on a grid, so that ways share nodes
+                feature.append(j == 0 ? "[" : ", [")
+                       .append(13.2 + random.nextInt(1000) / 10_000.0).append(", ")
+                       .append(53.5 + random.nextInt(1000) / 10_000.0).append(']');
+            }
+            feature.append("]}}");
+            collection.append(i == 0 ? "" : ", ").append(feature);
+            lines.append('\u001e').append(feature).append('\n');
+        }
+        featureCollection = collection.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+        lineDelimited = lines.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static DataSet parse(byte[] data, int threads) throws Exception {
+        try (InputStream in = new ByteArrayInputStream(data)) {
+            return new GeoJSONReader(threads).doParseDataSet(in, null);
+        }
+    }
+
+    /**
+     * Measures the time needed to convert a FeatureCollection.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testFeatureCollection() throws Exception {
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("read FeatureCollection of " + FEATURES + " features");
+        DataSet ds = parse(featureCollection, 1);
+        timer.done();
+        assertEquals(FEATURES, ds.getWays().size());
+    }
+
+    /**
+     * Compares the time needed to convert newline-delimited GeoJSON with one and with several threads.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testLineDelimited() throws Exception {
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("read " + FEATURES + " newline-delimited features with 1 thread");
+        DataSet serial = parse(lineDelimited, 1);
+        timer.done();
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        timer = PerformanceTestUtils.startTimer("read " + FEATURES + " newline-delimited features with " + threads + " threads");
+        DataSet parallel = parse(lineDelimited, threads);
+        timer.done();
+        assertEquals(serial.getWays().size(), parallel.getWays().size());
+        assertEquals(serial.getNodes().size(), parallel.getNodes().size());
+    }
+}
@@ -0,0 +1,185 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.PrimitiveId;
+import org.openstreetmap.josm.data.osm.PrimitiveIdMap;
+import org.openstreetmap.josm.data.osm.SimplePrimitiveId;
+import org.openstreetmap.josm.tools.collections.LongArrayList;
+
+/**
+ * Measures the throughput and the heap allocated when loading one million primitives, and compares the id collections
+ * used by {@link AbstractReader} to the boxed collections previously used: allocations and time of the lookups by
+ * external id, and heap retained by the node id lists of the ways.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class IdCollectionsPerformanceTest {
+    private static final int NODES = 800_000;
+    private static final int WAYS = 200_000;
+    private static final int NODES_PER_WAY = 8;
+
+    private static byte[] data;
+    private static long[][] wayNodeIds;
+
+    /**
+     * Prepare the test: generates an .osm file with one million primitives.
+     */
+    @BeforeAll
+    public static void createData() {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        StringBuilder sb = new StringBuilder(100_000_000);
+        sb.append("<?xml version='1.0' encoding='UTF-8'?>\n<osm version='0.6' generator='test'>\n");
+        for (int i = 1; i <= NODES; i++) {
+            sb.append("<node id='").append(i).append("' version='1' lat='").append(53 + (i % 1000) * 1e-4)
+              .append("' lon='").append(13 + (i / 1000) * 1e-4).append("'/>\n");
+        }
+        wayNodeIds = new long[WAYS][NODES_PER_WAY];
+        for (int i = 0; i < WAYS; i++) {
+            sb.append("<way id='").append(i + 1).append("' version='1'>");
+            for (int j = 0; j < NODES_PER_WAY; j++) {
+                // ways share their end nodes with the next way
+                long id = 1 + ((long) i * (NODES_PER_WAY - 1) + j) % NODES;
+                wayNodeIds[i][j] = id;
+                sb.append("<nd ref='").append(id).append("'/>");
+            }
+            sb.append("<tag k='highway' v='residential'/></way>\n");
+        }
+        sb.append("</osm>\n");
+        data = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled());
+        return sunBean;
+    }
+
+    /**
+     * Runs the given task once to warm up, then once measured, and reports its duration and the bytes it allocated.
+     * @param name the measurement name
+     * @param task the task, returning a checksum
+     * @return the number of bytes allocated by the measured run
+     */
+    private static long measure(String name, LongSupplier task) {
+        com.sun.management.ThreadMXBean bean = threadBean();
+        long thread = Thread.currentThread().getId();
+        long expected = task.getAsLong();
+        long before = bean.getThreadAllocatedBytes(thread);
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer(name);
+        assertEquals(expected, task.getAsLong());
+        timer.done();
+        long allocated = bean.getThreadAllocatedBytes(thread) - before;
+        PerformanceTestUtils.measurementPlotsPluginOutput(name + " (MB allocated)", allocated / 1e6);
+        return allocated;
+    }
+
+    /**
+     * Measures the load of the whole file by {@link OsmReader}.
+     */
+    @Test
+    void testLoad() {
+        measure("load 1M primitives", () -> {
+            try {
+                DataSet ds = OsmReader.parseDataSet(new ByteArrayInputStream(data), null);
+                return ds.allPrimitives().size();
+            } catch (IllegalDataException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * Compares the lookups of way nodes by external id, as done by {@link AbstractReader#processWaysAfterParsing()}.
+     */
+    @Test
+    void testExternalIdLookup() {
+        Map<PrimitiveId, OsmPrimitive> hashMap = new HashMap<>();
+        PrimitiveIdMap<OsmPrimitive> primitiveIdMap = new PrimitiveIdMap<>();
+        for (int i = 1; i <= NODES; i++) {
+            Node n = new Node(i);
+            hashMap.put(new SimplePrimitiveId(i, OsmPrimitiveType.NODE), n);
+            primitiveIdMap.put(i, OsmPrimitiveType.NODE, n);
+        }
+        long boxed = measure("way node lookup (HashMap)", () -> {
+            long found = 0;
+            for (long[] ids : wayNodeIds) {
+                for (long id : ids) {
+                    found += hashMap.get(new SimplePrimitiveId(id, OsmPrimitiveType.NODE)).getUniqueId();
+                }
+            }
+            return found;
+        });
+        long unboxed = measure("way node lookup (PrimitiveIdMap)", () -> {
+            long found = 0;
+            for (long[] ids : wayNodeIds) {
+                for (long id : ids) {
+                    found += primitiveIdMap.get(id, OsmPrimitiveType.NODE).getUniqueId();
+                }
+            }
+            return found;
+        });
+        assertTrue(unboxed < boxed, unboxed + " >= " + boxed);
+    }
+
+    /**
+     * Compares the heap retained by the node id lists of the parsed ways, as built by {@link AbstractReader#parseWay}
+     * and kept until all primitives are parsed.
+     */
+    @Test
+    void testWayNodeIdLists() {
+        long boxed = retained("way node id lists (ArrayList)", ArrayList::new);
+        long unboxed = retained("way node id lists (LongArrayList)", LongArrayList::new);
+        assertTrue(unboxed < boxed, unboxed + " >= " + boxed);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long retained(String name, Supplier<Collection<Long>> factory) {
+        long before = usedMemory();
+        List<Collection<Long>> lists = new ArrayList<>(WAYS);
+        for (long[] ids : wayNodeIds) {
+            Collection<Long> list = factory.get();
+            for (long id : ids) {
+                list.add(id);
+            }
+            lists.add(list);
+        }
+        long result = usedMemory() - before;
+        assertEquals(WAYS, lists.size());
+        PerformanceTestUtils.measurementPlotsPluginOutput(name + " (MB retained)", result / 1e6);
+        return result;
+    }
+}
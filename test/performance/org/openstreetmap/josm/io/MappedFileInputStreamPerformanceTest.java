@@ -0,0 +1,125 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * This test compares how fast large uncompressed files are opened through a stream and through a memory mapping.
+ * <p>
+ * For this, we use the uncompressed neubrandenburg-file, and a file repeating it until it is about 500 MB large
+ * (see {@code josm.test.mmap.size}).
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class MappedFileInputStreamPerformanceTest {
+    private static final int TIMES = 4;
+    private static final long SIZE = Long.getLong("josm.test.mmap.size", 500L << 20);
+
+    private static Path directory;
+    private static Path osm;
+    private static Path large;
+
+    /**
+     * Prepare the test.
+     * @throws IOException if an error occurs
+     */
+    @BeforeAll
+    static void setUp() throws IOException {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        byte[] data;
+        try (InputStream in = Compression.getUncompressedFileInputStream(Paths.get(PerformanceTestUtils.DATA_FILE))) {
+            data = Utils.readBytesFromStream(in);
+        }
+        directory = Files.createTempDirectory("josm-mmap");
+        osm = Files.write(directory.resolve("neubrandenburg.osm"), data);
+        large = directory.resolve("large.osm");
+        try (OutputStream out = Files.newOutputStream(large)) {
+            for (long written = 0; written < SIZE; written += data.length) {
+                out.write(data);
+            }
+        }
+    }
+
+    /**
+     * Removes the temporary files.
+     */
+    @AfterAll
+    static void tearDown() {
+        if (directory != null) {
+            Utils.deleteDirectory(directory.toFile());
+        }
+    }
+
+    /**
+     * Compares the time needed to decode a large file, through a stream and a reader, and through a memory mapping.
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testRead() throws IOException {
+        long expected = Files.size(large);
+        char[] chars = new char[64 * 1024];
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("decode " + (expected >> 20) + " MB through a stream and a reader");
+        try (Reader reader = UTFInputStreamReader.create(Files.newInputStream(large))) {
+            while (reader.read(chars) >= 0) {
+                // only decode
+            }
+        }
+        timer.done();
+
+        byte[] bytes = new byte[64 * 1024];
+        timer = PerformanceTestUtils.startTimer("read " + (expected >> 20) + " MB through a memory mapping");
+        long size = 0;
+        try (InputStream in = new MappedFileInputStream(large)) {
+            for (int n = in.read(bytes); n >= 0; n = in.read(bytes)) {
+                size += n;
+            }
+        }
+        timer.done();
+        assertEquals(expected, size);
+    }
+
+    /**
+     * Compares the time needed to parse the uncompressed file, through a stream and through a memory mapping.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testParse() throws Exception {
+        DataSet ds = null;
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("parse .osm-file through a stream " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            try (InputStream in = Files.newInputStream(osm)) {
+                ds = OsmReader.parseDataSet(in, NullProgressMonitor.INSTANCE);
+            }
+        }
+        timer.done();
+        int expected = ds.allPrimitives().size();
+
+        timer = PerformanceTestUtils.startTimer("parse .osm-file through a memory mapping " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            try (InputStream in = new MappedFileInputStream(osm)) {
+                ds = OsmReader.parseDataSet(in, NullProgressMonitor.INSTANCE);
+            }
+        }
+        timer.done();
+        assertEquals(expected, ds.allPrimitives().size());
+    }
+}
@@ -0,0 +1,116 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+import org.openstreetmap.josm.data.osm.DataSet;
+
+/**
+ * This test compares how fast we are at writing and reading the JOSM binary format, with the .osm format
+ * used by autosave and sessions.
+ * <p>
+ * For this, we use the neubrandenburg-file, which is a good real world example of an OSM file.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class OsmBinaryWriterPerformanceTest {
+    private static final int TIMES = 4;
+    private DataSet neubrandenburgDataSet;
+
+    /**
+     * Prepare the test.
+     */
+    @BeforeAll
+    public static void createJOSMFixture() {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+    }
+
+    /**
+     * Setup test
+     * @throws Exception if an error occurs
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        neubrandenburgDataSet = PerformanceTestUtils.getNeubrandenburgDataSet();
+    }
+
+    private byte[] writeBinary() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OsmBinaryWriter writer = new OsmBinaryWriter(out)) {
+            writer.write(neubrandenburgDataSet);
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] writeXml() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // same settings as autosave
+        try (OsmWriter osmWriter = OsmWriterFactory.createOsmWriter(new PrintWriter(new OutputStreamWriter(
+                out, StandardCharsets.UTF_8)), false, OsmWriter.DEFAULT_API_VERSION)) {
+            osmWriter.write(neubrandenburgDataSet);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Compares the time needed to write the data set, and the size of the output
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testWriter() throws Exception {
+        byte[] binary = null;
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("write .osmb-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            binary = writeBinary();
+        }
+        timer.done();
+
+        byte[] xml = null;
+        timer = PerformanceTestUtils.startTimer("write .osm-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            xml = writeXml();
+        }
+        timer.done();
+
+        PerformanceTestUtils.measurementPlotsPluginOutput("size of .osmb-file (bytes)", binary.length);
+        PerformanceTestUtils.measurementPlotsPluginOutput("size of .osm-file (bytes)", xml.length);
+    }
+
+    /**
+     * Compares the time needed to read back the written data set
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testRoundTrip() throws Exception {
+        byte[] binary = writeBinary();
+        byte[] xml = writeXml();
+        int expected = neubrandenburgDataSet.allPrimitives().size();
+
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("read .osmb-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            DataSet ds = OsmBinaryReader.parseDataSet(new ByteArrayInputStream(binary), null);
+            assertEquals(expected, ds.allPrimitives().size());
+        }
+        timer.done();
+
+        timer = PerformanceTestUtils.startTimer("read .osm-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            DataSet ds = OsmReader.parseDataSet(new ByteArrayInputStream(xml), null);
+            assertEquals(expected, ds.allPrimitives().size());
+        }
+        timer.done();
+    }
+}
@@ -0,0 +1,134 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.Way;
+
+/**
+ * This test tests how fast we are at reading an OSM JSON file, as returned by Overpass API.
+ * <p>
+ * For this, we convert the neubrandenburg-file to JSON. We ignore disk access times.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class OsmJsonReaderPerformanceTest {
+    private static final int TIMES = 4;
+
+    private static byte[] plain;
+    private static byte[] compressed;
+    private static int expected;
+
+    /**
+     * Prepare the test.
+     * @throws Exception if an error occurs
+     */
+    @BeforeAll
+    static void setUp() throws Exception {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        DataSet ds = PerformanceTestUtils.getNeubrandenburgDataSet();
+        expected = ds.allPrimitives().size();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(ds, out);
+        plain = out.toByteArray();
+        out = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(plain);
+        }
+        compressed = out.toByteArray();
+    }
+
+    private static void write(DataSet ds, OutputStream out) {
+        try (JsonGenerator json = Json.createGenerator(out)) {
+            json.writeStartObject().write("version", "0.6").write("generator", "JOSM").writeStartArray("elements");
+            for (OsmPrimitive p : ds.allPrimitives()) {
+                json.writeStartObject()
+                    .write("type", p.getType().getAPIName())
+                    .write("id", p.getUniqueId())
+                    .write("version", p.getVersion())
+                    .write("changeset", p.getChangesetId());
+                if (p instanceof Node && ((Node) p).isLatLonKnown()) {
+                    json.write("lat", ((Node) p).lat()).write("lon", ((Node) p).lon());
+                } else if (p instanceof Way) {
+                    json.writeStartArray("nodes");
+                    for (Node n : ((Way) p).getNodes()) {
+                        json.write(n.getUniqueId());
+                    }
+                    json.writeEnd();
+                } else if (p instanceof Relation) {
+                    json.writeStartArray("members");
+                    for (RelationMember m : ((Relation) p).getMembers()) {
+                        json.writeStartObject()
+                            .write("type", m.getType().getAPIName())
+                            .write("ref", m.getUniqueId())
+                            .write("role", m.getRole())
+                            .writeEnd();
+                    }
+                    json.writeEnd();
+                }
+                if (p.hasKeys()) {
+                    json.writeStartObject("tags");
+                    for (Map.Entry<String, String> tag : p.getKeys().entrySet()) {
+                        json.write(tag.getKey(), tag.getValue());
+                    }
+                    json.writeEnd();
+                }
+                json.writeEnd();
+            }
+            json.writeEnd().writeEnd();
+        }
+    }
+
+    /**
+     * Simulates a plain read of a .json file (from memory)
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testPlain() throws Exception {
+        runTest("JSON-file (" + (plain.length >> 20) + " MB)", plain, false);
+    }
+
+    /**
+     * Simulates a read of a gzip compressed .json file (from memory), as downloaded from Overpass API
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testCompressed() throws Exception {
+        runTest("compressed JSON-file (" + (compressed.length >> 20) + " MB)", compressed, true);
+    }
+
+    private static void runTest(String what, byte[] data, boolean gzip) throws IllegalDataException, IOException {
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("load " + what + " " + TIMES + " times");
+        DataSet ds = null;
+        for (int i = 0; i < TIMES; i++) {
+            try (InputStream in = gzip ? new GZIPInputStream(new ByteArrayInputStream(data)) : new ByteArrayInputStream(data)) {
+                ds = OsmJsonReader.parseDataSet(in, null);
+            }
+        }
+        timer.done();
+        assertEquals(expected, ds.allPrimitives().size());
+    }
+}
@@ -56,15 +56,38 @@ class OsmReaderPerformanceTest {
         runTest(".osm-file", true);
     }
 
+    /**
+     * Simulates a pipelined read of a .osm.bz2 file (from memory)
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testCompressedPipelined() throws Exception {
+        runTest("compressed (.osm.bz2), pipelined", false, true);
+    }
+
+    /**
+     * Simulates a pipelined read of a .osm file (from memory)
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testPlainPipelined() throws Exception {
+        runTest(".osm-file, pipelined", true, true);
+    }
+
     private void runTest(String what, boolean decompressBeforeRead) throws IllegalDataException, IOException {
+        runTest(what, decompressBeforeRead, false);
+    }
+
+    private void runTest(String what, boolean decompressBeforeRead, boolean pipelined) throws IllegalDataException, IOException {
         InputStream is = loadFile(decompressBeforeRead);
         PerformanceTestTimer timer = PerformanceTestUtils.startTimer("load " + what + " " + TIMES + " times");
         DataSet ds = null;
         for (int i = 0; i < TIMES; i++) {
             is.reset();
 
-            ds = OsmReader.parseDataSet(decompressBeforeRead ? is : Compression.byExtension(PerformanceTestUtils.DATA_FILE)
-                    .getUncompressedInputStream(is), null);
+            InputStream source = decompressBeforeRead ? is : Compression.byExtension(PerformanceTestUtils.DATA_FILE)
+                    .getUncompressedInputStream(is);
+            ds = pipelined ? OsmReader.parseDataSetPipelined(source, null) : OsmReader.parseDataSet(source, null);
         }
         timer.done();
         assertNotNull(ds);
@@ -0,0 +1,116 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+import org.openstreetmap.josm.data.osm.DataSet;
+
+/**
+ * This test compares how fast we are at writing and reading an OSM PBF file, with the gzip compressed
+ * XML format written in {@link OsmWriterPerformanceTest}.
+ * <p>
+ * For this, we use the neubrandenburg-file, which is a good real world example of an OSM file.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class PbfWriterPerformanceTest {
+    private static final int TIMES = 4;
+    private DataSet neubrandenburgDataSet;
+
+    /**
+     * Prepare the test.
+     */
+    @BeforeAll
+    public static void createJOSMFixture() {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+    }
+
+    /**
+     * Setup test
+     * @throws Exception if an error occurs
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        neubrandenburgDataSet = PerformanceTestUtils.getNeubrandenburgDataSet();
+    }
+
+    private byte[] writePbf() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PbfWriter writer = new PbfWriter(out)) {
+            writer.write(neubrandenburgDataSet);
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] writeGzipXml() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OsmWriter osmWriter = OsmWriterFactory.createOsmWriter(new PrintWriter(new OutputStreamWriter(
+                new GZIPOutputStream(out), StandardCharsets.UTF_8)), true, OsmWriter.DEFAULT_API_VERSION)) {
+            osmWriter.write(neubrandenburgDataSet);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Compares the time needed to write the data set, and the size of the output
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testWriter() throws Exception {
+        byte[] pbf = null;
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("write .osm.pbf-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            pbf = writePbf();
+        }
+        timer.done();
+
+        byte[] xml = null;
+        timer = PerformanceTestUtils.startTimer("write .osm.gz-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            xml = writeGzipXml();
+        }
+        timer.done();
+
+        PerformanceTestUtils.measurementPlotsPluginOutput("size of .osm.pbf-file (bytes)", pbf.length);
+        PerformanceTestUtils.measurementPlotsPluginOutput("size of .osm.gz-file (bytes)", xml.length);
+    }
+
+    /**
+     * Compares the time needed to read back the written data set
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testRoundTrip() throws Exception {
+        byte[] pbf = writePbf();
+        byte[] xml = writeGzipXml();
+        int expected = neubrandenburgDataSet.allPrimitives().size();
+
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("read .osm.pbf-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            DataSet ds = PbfReader.parseDataSet(new ByteArrayInputStream(pbf), null);
+            assertEquals(expected, ds.allPrimitives().size());
+        }
+        timer.done();
+
+        timer = PerformanceTestUtils.startTimer("read .osm.gz-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            DataSet ds = OsmReader.parseDataSet(Compression.GZIP.getUncompressedInputStream(new ByteArrayInputStream(xml)), null);
+            assertEquals(expected, ds.allPrimitives().size());
+        }
+        timer.done();
+    }
+}
@@ -1,14 +1,29 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.actions.downloadtasks;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.SimplePrimitiveId;
+import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.io.BoundingBoxDownloader;
+import org.openstreetmap.josm.io.OsmTransferCanceledException;
+import org.openstreetmap.josm.io.OsmTransferException;
 import org.openstreetmap.josm.testutils.annotations.BasicWiremock;
 
 /**
@@ -50,6 +65,92 @@ class DownloadOsmTaskTest extends AbstractDownloadTaskTestParent {
         assertFalse(ds.getWays().isEmpty());
     }
 
+    /**
+     * A downloader passing a first batch to the batch consumer, then either a last batch or a cancellation.
+     */
+    private static class BatchDownloader extends BoundingBoxDownloader {
+        private final Bounds bounds;
+        private final boolean cancel;
+        private Consumer<DataSet> consumer;
+
+        BatchDownloader(Bounds bounds, boolean cancel) {
+            super(bounds);
+            this.bounds = bounds;
+            this.cancel = cancel;
+        }
+
+        @Override
+        public void setBatchConsumer(Consumer<DataSet> consumer) {
+            super.setBatchConsumer(consumer);
+            this.consumer = consumer;
+        }
+
+        private DataSet batch(long id) {
+            DataSet batch = new DataSet();
+            Node n = new Node(id, 1);
+            n.setCoor(bounds.getCenter());
+            batch.addPrimitive(n);
+            batch.addDataSource(new DataSource(bounds, "test"));
+            return batch;
+        }
+
+        @Override
+        public DataSet parseOsm(ProgressMonitor progressMonitor) throws OsmTransferException {
+            consumer.accept(batch(1));
+            if (cancel) {
+                throw new OsmTransferCanceledException("canceled");
+            }
+            return batch(2);
+        }
+    }
+
+    private static OsmDataLayer downloadProgressive(String layerName, boolean cancel) throws InterruptedException, ExecutionException {
+        Bounds bounds = new Bounds(new LatLon(10, 10), new LatLon(10.01, 10.01));
+        DownloadOsmTask.PROGRESSIVE.put(true);
+        try {
+            DownloadOsmTask task = new DownloadOsmTask();
+            task.setZoomAfterDownload(false);
+            task.download(new BatchDownloader(bounds, cancel), new DownloadParams().withNewLayer(true).withLayerName(layerName),
+                    bounds, NullProgressMonitor.INSTANCE).get();
+        } finally {
+            DownloadOsmTask.PROGRESSIVE.put(false);
+        }
+        return MainApplication.getLayerManager().getLayersOfType(OsmDataLayer.class).stream()
+                .filter(l -> layerName.equals(l.getName())).findFirst().orElse(null);
+    }
+
+    /**
+     * Unit test of a complete progressive download: the downloaded area is marked as downloaded.
+     * @throws ExecutionException if the computation threw an exception
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     */
+    @Test
+    void testProgressiveDownload() throws InterruptedException, ExecutionException {
+        OsmDataLayer layer = downloadProgressive("progressive", false);
+        assertNotNull(layer);
+        DataSet ds = layer.getDataSet();
+        assertNotNull(ds.getPrimitiveById(new SimplePrimitiveId(1, OsmPrimitiveType.NODE)));
+        assertNotNull(ds.getPrimitiveById(new SimplePrimitiveId(2, OsmPrimitiveType.NODE)));
+        assertEquals(2, ds.getDataSources().size());
+        MainApplication.getLayerManager().removeLayer(layer);
+    }
+
+    /**
+     * Unit test of a canceled progressive download: the merged batches stay, but the area is not marked as downloaded.
+     * @throws ExecutionException if the computation threw an exception
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     */
+    @Test
+    void testProgressiveDownloadCanceled() throws InterruptedException, ExecutionException {
+        OsmDataLayer layer = downloadProgressive("progressive canceled", true);
+        assertNotNull(layer);
+        DataSet ds = layer.getDataSet();
+        assertNotNull(ds.getPrimitiveById(new SimplePrimitiveId(1, OsmPrimitiveType.NODE)));
+        assertTrue(ds.getDataSources().isEmpty());
+        assertTrue(ds.getDataSourceBounds().isEmpty());
+        MainApplication.getLayerManager().removeLayer(layer);
+    }
+
     @Override
     protected String getRemoteFile() {
         return "samples/data.osm";
@@ -0,0 +1,183 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link ConcurrentPrimitiveStorage}.
+ */
+class ConcurrentPrimitiveStorageTest {
+
+    /**
+     * Setup test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules();
+
+    /**
+     * Checks lookups by id and type, for primitives of different types with the same id.
+     */
+    @Test
+    void testGet() {
+        ConcurrentPrimitiveStorage<OsmPrimitive> storage = new ConcurrentPrimitiveStorage<>();
+        Node n = new Node(1);
+        Way w = new Way(1);
+        Relation r = new Relation(1);
+        Node newNode = new Node();
+        assertTrue(storage.add(n));
+        assertTrue(storage.add(w));
+        assertTrue(storage.add(r));
+        assertTrue(storage.add(newNode));
+        assertFalse(storage.add(new Node(1)));
+        assertEquals(4, storage.size());
+
+        assertSame(n, storage.get(1, OsmPrimitiveType.NODE));
+        assertSame(w, storage.get(1, OsmPrimitiveType.WAY));
+        assertSame(r, storage.get(new SimplePrimitiveId(1, OsmPrimitiveType.RELATION)));
+        assertSame(newNode, storage.get(newNode.getUniqueId(), OsmPrimitiveType.NODE));
+        assertNull(storage.get(2, OsmPrimitiveType.NODE));
+        assertTrue(storage.contains(new SimplePrimitiveId(1, OsmPrimitiveType.WAY)));
+        assertFalse(storage.contains("w1"));
+
+        Node n2 = new Node(1);
+        assertSame(n, storage.putUnique(n2));
+        assertSame(n, storage.put(n2));
+        assertSame(n2, storage.get(1, OsmPrimitiveType.NODE));
+        assertEquals(4, storage.size());
+    }
+
+    /**
+     * Checks that removed slots do not hide other elements and are reused.
+     */
+    @Test
+    void testAddRemove() {
+        ConcurrentPrimitiveStorage<OsmPrimitive> storage = new ConcurrentPrimitiveStorage<>();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 1; i <= 10_000; i++) {
+            Node n = new Node(i);
+            nodes.add(n);
+            assertTrue(storage.add(n));
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = round % 2; i < nodes.size(); i += 2) {
+                assertTrue(storage.remove(nodes.get(i)));
+                assertFalse(storage.remove(nodes.get(i)));
+            }
+            for (int i = 0; i < nodes.size(); i++) {
+                assertEquals(i % 2 != round % 2, storage.contains(nodes.get(i)));
+            }
+            for (int i = round % 2; i < nodes.size(); i += 2) {
+                assertTrue(storage.add(nodes.get(i)));
+            }
+            assertEquals(nodes.size(), storage.size());
+        }
+        assertEquals(new HashSet<>(nodes), new HashSet<>(storage));
+
+        storage.clear();
+        assertTrue(storage.isEmpty());
+        assertNull(storage.get(1, OsmPrimitiveType.NODE));
+    }
+
+    /**
+     * Checks that all elements can be removed while iterating.
+     */
+    @Test
+    void testIteratorRemove() {
+        ConcurrentPrimitiveStorage<OsmPrimitive> storage = new ConcurrentPrimitiveStorage<>(100);
+        for (int i = 1; i <= 100; i++) {
+            storage.add(new Way(i));
+        }
+        int count = storage.size();
+        for (Iterator<OsmPrimitive> it = storage.iterator(); it.hasNext();) {
+            it.next();
+            it.remove();
+            assertEquals(--count, storage.size());
+        }
+        assertTrue(storage.isEmpty());
+    }
+
+    /**
+     * Checks that iterators return a snapshot of the elements at the time of their creation.
+     */
+    @Test
+    void testIteratorSnapshot() {
+        ConcurrentPrimitiveStorage<OsmPrimitive> storage = new ConcurrentPrimitiveStorage<>();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            Node n = new Node(i);
+            nodes.add(n);
+            storage.add(n);
+        }
+        List<OsmPrimitive> iterated = new ArrayList<>();
+        for (OsmPrimitive p : storage) {
+            iterated.add(p);
+            // removes elements not iterated yet, and adds enough elements to rebuild the table
+            storage.remove(nodes.get(100 - iterated.size()));
+            storage.add(new Way(iterated.size()));
+            storage.add(new Relation(iterated.size()));
+        }
+        assertEquals(new HashSet<>(nodes), new HashSet<>(iterated));
+        assertEquals(200, storage.size());
+        assertTrue(storage.stream().noneMatch(Node.class::isInstance));
+    }
+
+    /**
+     * Checks that lookups running concurrently to inserts and removals of other elements always find the
+     * elements that are not modified.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testConcurrentLookup() throws Exception {
+        ConcurrentPrimitiveStorage<OsmPrimitive> storage = new ConcurrentPrimitiveStorage<>();
+        List<Node> stable = new ArrayList<>();
+        for (int i = 1; i <= 1_000; i++) {
+            Node n = new Node(i);
+            stable.add(n);
+            storage.add(n);
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    for (Node n : stable) {
+                        assertSame(n, storage.get(n.getUniqueId(), OsmPrimitiveType.NODE));
+                    }
+                }
+            } catch (Throwable t) { // NOPMD
+                failure.set(t);
+            }
+        });
+        reader.start();
+        // inserts and removals that go through several rebuilds of the table
+        for (int round = 0; round < 20; round++) {
+            List<Node> others = new ArrayList<>();
+            for (int i = 0; i < 5_000; i++) {
+                Node n = new Node(100_000 + i);
+                others.add(n);
+                storage.add(n);
+            }
+            others.forEach(storage::remove);
+        }
+        reader.interrupt();
+        reader.join();
+        assertNull(failure.get());
+        assertEquals(stable.size(), storage.size());
+    }
+}
@@ -0,0 +1,162 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.io.OsmWriter;
+import org.openstreetmap.josm.io.OsmWriterFactory;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link DataSetSnapshot}.
+ */
+class DataSetSnapshotTest {
+
+    /**
+     * Setup test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules();
+
+    private static DataSet createDataSet(int ways) {
+        DataSet ds = new DataSet();
+        Relation r = new Relation(1, 1);
+        r.put("type", "route");
+        for (int i = 0; i < ways; i++) {
+            Node n1 = new Node(new LatLon(i * 0.001, 0));
+            Node n2 = new Node(new LatLon(i * 0.001, 0.001));
+            Way w = new Way();
+            w.setNodes(Arrays.asList(n1, n2));
+            w.put("highway", "residential");
+            ds.addPrimitive(n1);
+            ds.addPrimitive(n2);
+            ds.addPrimitive(w);
+            r.addMember(new RelationMember("", w));
+        }
+        ds.addPrimitive(r);
+        return ds;
+    }
+
+    private static String write(DataSet ds) {
+        StringWriter out = new StringWriter();
+        OsmWriter w = OsmWriterFactory.createOsmWriter(new PrintWriter(out), false, ds.getVersion());
+        ds.getReadLock().lock();
+        try {
+            w.write(ds);
+        } finally {
+            ds.getReadLock().unlock();
+        }
+        w.flush();
+        return out.toString();
+    }
+
+    private static String write(DataSetSnapshot snapshot) {
+        StringWriter out = new StringWriter();
+        OsmWriter w = OsmWriterFactory.createOsmWriter(new PrintWriter(out), false, snapshot.getVersion());
+        w.write(snapshot);
+        w.flush();
+        return out.toString();
+    }
+
+    /**
+     * Checks that all kinds of modifications made after taking a snapshot are not visible in the snapshot.
+     */
+    @Test
+    void testModificationsAfterSnapshot() {
+        DataSet ds = createDataSet(10);
+        String expected = write(ds);
+        try (DataSetSnapshot snapshot = ds.snapshot()) {
+            List<Way> ways = new ArrayList<>(ds.getWays());
+            Way w0 = ways.get(0);
+            Node n0 = w0.firstNode();
+            n0.setCoor(new LatLon(10, 10));
+            n0.put("name", "moved");
+            w0.removeNode(w0.lastNode());
+            Way w1 = ways.get(1);
+            Node newNode = new Node(new LatLon(5, 5));
+            ds.addPrimitive(newNode);
+            w1.addNode(newNode);
+            ways.get(4).firstNode().setOsmId(1000, 1); // id change of a node, the way is not modified itself
+            Relation r = ds.getRelations().iterator().next();
+            r.removeMembersFor(ways.get(2));
+            r.setModified(true);
+            Way w3 = ways.get(3);
+            for (Relation referrer : w3.referrers(Relation.class).toArray(Relation[]::new)) {
+                referrer.removeMembersFor(w3);
+            }
+            ds.removePrimitive(w3);
+            ds.addDataSource(new DataSource(new Bounds(0, 0, 1, 1), "test"));
+
+            assertNotEquals(expected, write(ds));
+            assertEquals(expected, write(snapshot));
+            assertEquals(20, snapshot.getNodes().size());
+            assertEquals(10, snapshot.getWays().size());
+        }
+    }
+
+    /**
+     * Checks that a snapshot cannot be read once closed.
+     */
+    @Test
+    void testClosed() {
+        DataSet ds = createDataSet(1);
+        DataSetSnapshot snapshot = ds.snapshot();
+        snapshot.close();
+        // modifications after closing are not saved anymore
+        ds.getNodes().iterator().next().setCoor(new LatLon(1, 1));
+        assertThrows(IllegalStateException.class, () -> snapshot.getNodes().get(0));
+    }
+
+    /**
+     * Edits the dataset concurrently during a full export of a snapshot.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testConcurrentEditsDuringExport() throws Exception {
+        DataSet ds = createDataSet(5_000);
+        String expected = write(ds);
+        List<Node> nodes = new ArrayList<>(ds.getNodes());
+        List<Way> ways = new ArrayList<>(ds.getWays());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int round = 0; round < 3; round++) {
+                String before = write(ds);
+                Future<String> export;
+                try (DataSetSnapshot snapshot = ds.snapshot()) {
+                    export = executor.submit(() -> write(snapshot));
+                    // edit while the export runs
+                    for (int i = 0; i < nodes.size(); i += 7) {
+                        Node n = nodes.get(i);
+                        n.setCoor(new LatLon(n.lat() + 0.0001, n.lon()));
+                    }
+                    for (int i = round; i < ways.size(); i += 11) {
+                        ways.get(i).put("name", "round " + round);
+                    }
+                    assertEquals(before, export.get());
+                }
+            }
+            assertNotEquals(expected, write(ds));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -3,10 +3,13 @@ package org.openstreetmap.josm.data.osm;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 
@@ -17,6 +20,10 @@ import org.openstreetmap.josm.TestUtils;
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.DataSource;
 import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent.DatasetEventType;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataSetListenerAdapter;
 import org.openstreetmap.josm.data.osm.event.DataSourceAddedEvent;
 import org.openstreetmap.josm.data.osm.event.DataSourceRemovedEvent;
 import org.openstreetmap.josm.testutils.JOSMTestRules;
@@ -364,4 +371,145 @@ class DataSetTest {
         assertEquals(4, copy.allPrimitives().size());
         assertTrue(copy.isLocked());
     }
+
+    /**
+     * Checks that bbox searches running concurrently to writes always return consistent results.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testSearchNodesDuringConcurrentWrites() throws Exception {
+        DataSet ds = new DataSet();
+        BBox bbox = new BBox(new LatLon(-1.0, -1.0), new LatLon(1.0, 1.0));
+        int count = 2000;
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                Node n = new Node(new LatLon(0.5 * i / count, 0.5 * i / count));
+                ds.update(() -> ds.addPrimitive(n));
+            }
+        });
+        writer.start();
+        int last = 0;
+        while (writer.isAlive()) {
+            int found = ds.searchNodes(bbox).size();
+            assertTrue(found >= last);
+            last = found;
+        }
+        writer.join();
+        assertEquals(count, ds.searchNodes(bbox).size());
+    }
+
+    /**
+     * Checks that a bbox search done while the current thread holds the write lock sees the pending changes.
+     */
+    @Test
+    void testSearchNodesWithinUpdate() {
+        DataSet ds = new DataSet();
+        BBox bbox = new BBox(new LatLon(-1.0, -1.0), new LatLon(1.0, 1.0));
+        ds.update(() -> {
+            ds.addPrimitive(new Node(LatLon.ZERO));
+            assertEquals(1, ds.searchNodes(bbox).size());
+            assertEquals(0, ds.searchWays(bbox).size());
+        });
+        assertEquals(1, ds.searchNodes(bbox).size());
+    }
+
+    /**
+     * Unit test of method {@link DataSet#addPrimitives}.
+     */
+    @Test
+    void testAddPrimitives() {
+        DataSet ds = new DataSet();
+        List<AbstractDatasetChangedEvent> events = new ArrayList<>();
+        ds.addDataSetListener(new DataSetListenerAdapter(events::add));
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            nodes.add(new Node(new LatLon(0.001 * (i % 40), 0.001 * (i / 40))));
+        }
+        ds.addPrimitives(nodes);
+        Way w = new Way();
+        w.setNodes(nodes.subList(0, 10));
+        ds.addPrimitives(Collections.singletonList(w));
+
+        assertEquals(2, events.size());
+        assertEquals(DatasetEventType.DATA_CHANGED, events.get(0).getType());
+        assertEquals(1000, ((DataChangedEvent) events.get(0)).getEvents().get(0).getPrimitives().size());
+        assertEquals(1000, ds.getNodes().size());
+        assertEquals(1000, ds.searchNodes(new BBox(new LatLon(-1.0, -1.0), new LatLon(1.0, 1.0))).size());
+        assertEquals(1, ds.searchWays(w.getBBox()).size());
+        for (Node n : nodes) {
+            assertTrue(ds.containsNode(n));
+            assertEquals(ds, n.getDataSet());
+        }
+    }
+
+    /**
+     * Checks that {@link DataSet#addPrimitives} does not add anything if one of the primitives is a duplicate.
+     */
+    @Test
+    void testAddPrimitivesDuplicate() {
+        DataSet ds = new DataSet();
+        Node existing = new Node(1);
+        ds.addPrimitive(existing);
+        Node n = new Node(2);
+        Node duplicate = new Node(1);
+        assertThrows(DataIntegrityProblemException.class, () -> ds.addPrimitives(Arrays.asList(n, duplicate)));
+        assertEquals(1, ds.allPrimitives().size());
+        assertNull(ds.getPrimitiveById(n));
+        assertThrows(DataIntegrityProblemException.class, () -> ds.addPrimitives(Arrays.asList(n, n)));
+        assertEquals(1, ds.allPrimitives().size());
+        assertNull(n.getDataSet());
+    }
+
+    /**
+     * Checks that {@link DataSet#addPrimitives} rejects a primitive which is already in this dataset,
+     * without indexing it twice.
+     */
+    @Test
+    void testAddPrimitivesAlreadyIncluded() {
+        Node existing = new Node(new LatLon(0.1, 0.1));
+        DataSet ds = new DataSet(existing);
+        Node n = new Node(new LatLon(0.2, 0.2));
+        assertThrows(DataIntegrityProblemException.class, () -> ds.addPrimitives(Arrays.asList(n, existing)));
+        assertEquals(1, ds.allPrimitives().size());
+        assertNull(n.getDataSet());
+        assertEquals(1, ds.searchNodes(new BBox(new LatLon(0, 0), new LatLon(1, 1))).size());
+    }
+
+    /**
+     * Checks that {@link DataSet#addPrimitives} rejects a primitive of another dataset before changing this one.
+     */
+    @Test
+    void testAddPrimitivesOtherDataSet() {
+        Node foreign = new Node(new LatLon(0.1, 0.1));
+        DataSet other = new DataSet(foreign);
+        DataSet ds = new DataSet();
+        Node n = new Node(new LatLon(0.2, 0.2));
+        assertThrows(DataIntegrityProblemException.class, () -> ds.addPrimitives(Arrays.asList(n, foreign)));
+        assertTrue(ds.allPrimitives().isEmpty());
+        assertNull(ds.getPrimitiveById(foreign));
+        assertNull(n.getDataSet());
+        assertEquals(other, foreign.getDataSet());
+        assertTrue(ds.searchNodes(new BBox(new LatLon(0, 0), new LatLon(1, 1))).isEmpty());
+    }
+
+    /**
+     * Unit test of the visitor overloads of {@link DataSet#searchNodes} and {@link DataSet#searchWays}.
+     */
+    @Test
+    void testSearchWithVisitor() {
+        Node a = new Node(new LatLon(0.1, 0.1));
+        Node b = new Node(new LatLon(0.2, 0.2));
+        Node c = new Node(new LatLon(5, 5));
+        Way w = new Way();
+        w.setNodes(Arrays.asList(a, b));
+        DataSet ds = new DataSet(a, b, c, w);
+        BBox bbox = new BBox(new LatLon(0, 0), new LatLon(1, 1));
+
+        List<Node> visited = new ArrayList<>();
+        ds.searchNodes(bbox, visited::add);
+        assertEquals(new HashSet<>(ds.searchNodes(bbox)), new HashSet<>(visited));
+        List<Way> visitedWays = new ArrayList<>();
+        ds.searchWays(bbox, visitedWays::add);
+        assertEquals(Collections.singletonList(w), visitedWays);
+    }
 }
@@ -3,8 +3,10 @@ package org.openstreetmap.josm.data.osm;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.jupiter.api.BeforeAll;
@@ -152,6 +154,38 @@ class OsmPrimitiveTest {
         Assert.assertEquals(n.getReferrers().get(0), w1);
     }
 
+    /**
+     * Test of {@link OsmPrimitive#forEachReferrer} and {@link OsmPrimitive#findReferrer}.
+     */
+    @Test
+    void testForEachAndFindReferrer() {
+        Node n1 = new Node(LatLon.ZERO);
+        Way w1 = new Way();
+        Way w2 = new Way();
+        Relation r1 = new Relation();
+        w1.addNode(n1);
+        w2.addNode(n1);
+        r1.addMember(new RelationMember("", n1));
+        dataSet.addPrimitive(n1);
+        dataSet.addPrimitive(w1);
+        dataSet.addPrimitive(w2);
+        dataSet.addPrimitive(r1);
+        new Way(w1); // referrer outside of the dataset
+
+        List<OsmPrimitive> all = new ArrayList<>();
+        n1.forEachReferrer(OsmPrimitive.class, all::add);
+        Assert.assertEquals(new HashSet<>(Arrays.asList(w1, w2, r1)), new HashSet<>(all));
+        List<Way> ways = new ArrayList<>();
+        n1.forEachReferrer(Way.class, ways::add);
+        Assert.assertEquals(new HashSet<>(Arrays.asList(w1, w2)), new HashSet<>(ways));
+
+        Assert.assertSame(w2, n1.findReferrer(Way.class, w -> w == w2));
+        Assert.assertSame(r1, n1.findReferrer(Relation.class, r -> true));
+        Assert.assertNull(n1.findReferrer(Relation.class, r -> false));
+        Assert.assertNull(w1.findReferrer(OsmPrimitive.class, p -> true));
+        assertThrows(DataIntegrityProblemException.class, () -> new Node().forEachReferrer(Way.class, w -> { }));
+    }
+
     @Test
     void testCheckMustBeInDatasate() {
         Node n = new Node();
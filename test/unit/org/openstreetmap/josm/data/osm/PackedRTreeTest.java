@@ -0,0 +1,208 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link PackedRTree}.
+ */
+class PackedRTreeTest {
+
+    /**
+     * Setup test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules();
+
+    private static List<Node> createNodes(Random random, int count) {
+        List<Node> nodes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Node n = new Node(i + 1);
+            double center = (i % 7) * 5;
+            n.setCoor(new LatLon(center + random.nextDouble(), center + random.nextDouble()));
+            nodes.add(n);
+        }
+        return nodes;
+    }
+
+    private static void assertSameSearchResults(Random random, SpatialIndex<Node> expected, SpatialIndex<Node> actual) {
+        for (int i = 0; i < 200; i++) {
+            double lat = random.nextDouble() * 40;
+            double lon = random.nextDouble() * 40;
+            BBox bbox = new BBox(lon, lat, lon + random.nextDouble() * 3, lat + random.nextDouble() * 3);
+            assertEquals(new HashSet<>(expected.search(bbox)), new HashSet<>(actual.search(bbox)));
+            List<Node> visited = new ArrayList<>();
+            actual.search(bbox, visited::add);
+            assertEquals(new HashSet<>(expected.search(bbox)), new HashSet<>(visited));
+        }
+    }
+
+    /**
+     * Checks that searches return the same results as {@link QuadBuckets}, for bulk and incremental inserts and removals.
+     */
+    @Test
+    void testSearchMatchesQuadBuckets() {
+        Random random = new Random(42);
+        List<Node> nodes = createNodes(random, 20_000);
+        QuadBuckets<Node> qb = new QuadBuckets<>();
+        PackedRTree<Node> tree = new PackedRTree<>();
+        qb.addAll(nodes.subList(0, 15_000));
+        tree.addAll(nodes.subList(0, 15_000));
+        assertSameSearchResults(random, qb, tree);
+
+        // incremental inserts, going through the buffer and some rebuilds
+        for (Node n : nodes.subList(15_000, 20_000)) {
+            qb.add(n);
+            tree.add(n);
+        }
+        assertEquals(qb.size(), tree.size());
+        assertSameSearchResults(random, qb, tree);
+
+        // removals
+        for (int i = 0; i < nodes.size(); i += 3) {
+            assertTrue(qb.remove(nodes.get(i)));
+            assertTrue(tree.remove(nodes.get(i)));
+            assertFalse(tree.contains(nodes.get(i)));
+            assertFalse(tree.remove(nodes.get(i)));
+        }
+        assertEquals(qb.size(), tree.size());
+        assertSameSearchResults(random, qb, tree);
+        for (Node n : qb) {
+            assertTrue(tree.contains(n));
+        }
+    }
+
+    /**
+     * Checks that objects with an invalid bbox are kept, but not found by searches.
+     */
+    @Test
+    void testInvalidBBox() {
+        PackedRTree<Node> tree = new PackedRTree<>();
+        Node incomplete = new Node(1);
+        Node n = new Node(new LatLon(1, 1));
+        tree.add(incomplete);
+        tree.add(n);
+        assertEquals(2, tree.size());
+        assertTrue(tree.contains(incomplete));
+        assertEquals(1, tree.search(new BBox(-180, -90, 180, 90)).size());
+        assertTrue(tree.remove(incomplete));
+        assertEquals(1, tree.size());
+    }
+
+    /**
+     * Checks that all objects can be removed while iterating.
+     */
+    @Test
+    void testIteratorRemove() {
+        List<Node> nodes = createNodes(new Random(1), 5_000);
+        nodes.add(new Node(100_000));
+        PackedRTree<Node> tree = new PackedRTree<>();
+        tree.addAll(nodes.subList(0, 4_000));
+        nodes.subList(4_000, nodes.size()).forEach(tree::add);
+        assertEquals(new HashSet<>(nodes), new HashSet<>(tree));
+
+        int count = tree.size();
+        Iterator<Node> it = tree.iterator();
+        while (it.hasNext()) {
+            it.next();
+            it.remove();
+            assertEquals(--count, tree.size());
+        }
+        assertTrue(tree.isEmpty());
+        assertTrue(tree.search(new BBox(-180, -90, 180, 90)).isEmpty());
+    }
+
+    /**
+     * Checks that searches running concurrently to inserts never fail and see a growing number of objects.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testConcurrentSearch() throws Exception {
+        List<Node> nodes = createNodes(new Random(7), 50_000);
+        PackedRTree<Node> tree = new PackedRTree<>();
+        Thread writer = new Thread(() -> nodes.forEach(tree::add));
+        writer.start();
+        BBox world = new BBox(-180, -90, 180, 90);
+        int last = 0;
+        while (writer.isAlive()) {
+            int found = tree.search(world).size();
+            assertTrue(found >= last);
+            last = found;
+        }
+        writer.join();
+        assertEquals(nodes.size(), tree.search(world).size());
+    }
+
+    /**
+     * Checks that a {@link QuadBucketPrimitiveStore} works with {@link PackedRTree} indexes.
+     */
+    @Test
+    void testPrimitiveStore() {
+        QuadBucketPrimitiveStore<Node, Way, Relation> store =
+                new QuadBucketPrimitiveStore<>(new PackedRTree<>(), new PackedRTree<>());
+        Node a = new Node(new LatLon(1, 1));
+        Node b = new Node(new LatLon(2, 2));
+        Way w = new Way();
+        w.setNodes(Arrays.asList(a, b));
+        store.addPrimitive(a);
+        store.addPrimitive(b);
+        store.addPrimitive(w);
+        assertTrue(store.containsNode(a));
+        assertTrue(store.containsWay(w));
+        assertEquals(1, store.searchWays(new BBox(1.5, 1.5, 1.6, 1.6)).size());
+        assertEquals(2, store.searchNodes(new BBox(0, 0, 3, 3)).size());
+    }
+
+    /**
+     * Checks that a {@link DataSet} indexes its primitives with {@link PackedRTree} when {@link DataSet#PACKED_RTREE_INDEX} is set.
+     */
+    @Test
+    void testDataSet() {
+        DataSet.PACKED_RTREE_INDEX.put(true);
+        try {
+            DataSet ds = new DataSet();
+            List<Node> nodes = createNodes(new Random(2), 1000);
+            ds.update(() -> nodes.forEach(ds::addPrimitive));
+            Way w = new Way();
+            w.setNodes(nodes.subList(0, 2));
+            ds.addPrimitive(w);
+            QuadBuckets<Node> expected = new QuadBuckets<>();
+            expected.addAll(nodes);
+            BBox world = new BBox(-180, -90, 180, 90);
+            assertEquals(nodes.size(), ds.searchNodes(world).size());
+            BBox bbox = new BBox(10, 10, 21, 21);
+            assertEquals(new HashSet<>(expected.search(bbox)), new HashSet<>(ds.searchNodes(bbox)));
+
+            // moved primitives are found at their new position
+            Node moved = nodes.get(0);
+            moved.setCoor(new LatLon(89, 179));
+            BBox corner = new BBox(178, 88, 180, 90);
+            assertEquals(Arrays.asList(moved), ds.searchNodes(corner));
+            assertEquals(Arrays.asList(w), ds.searchWays(corner));
+            ds.removePrimitive(w);
+            ds.removePrimitive(moved);
+            assertTrue(ds.searchNodes(corner).isEmpty());
+            assertTrue(ds.searchWays(corner).isEmpty());
+            assertEquals(nodes.size() - 1, ds.searchNodes(world).size());
+        } finally {
+            DataSet.PACKED_RTREE_INDEX.put(false);
+        }
+    }
+}
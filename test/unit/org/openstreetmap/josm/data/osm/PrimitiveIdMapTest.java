@@ -0,0 +1,90 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of {@link PrimitiveIdMap}.
+ */
+class PrimitiveIdMapTest {
+
+    /**
+     * Checks that keys are compared by unique id and type, whatever the class of the key.
+     */
+    @Test
+    void testKeys() {
+        PrimitiveIdMap<String> map = new PrimitiveIdMap<>();
+        assertNull(map.put(new SimplePrimitiveId(1, OsmPrimitiveType.NODE), "n1"));
+        assertNull(map.put(1, OsmPrimitiveType.WAY, "w1"));
+        assertNull(map.put(-1, OsmPrimitiveType.RELATION, "r-1"));
+        assertEquals(3, map.size());
+        assertEquals("n1", map.get(1, OsmPrimitiveType.NODE));
+        assertEquals("w1", map.get(new SimplePrimitiveId(1, OsmPrimitiveType.WAY)));
+        assertEquals("r-1", map.get(new RelationData(-1)));
+        assertNull(map.get(1, OsmPrimitiveType.RELATION));
+        assertNull(map.get(1, OsmPrimitiveType.CLOSEDWAY));
+        assertNull(map.get("n1"));
+        assertTrue(map.containsKey(new NodeData(1)));
+
+        assertEquals("w1", map.remove(new SimplePrimitiveId(1, OsmPrimitiveType.WAY)));
+        assertNull(map.remove(new SimplePrimitiveId(1, OsmPrimitiveType.WAY)));
+        assertEquals(2, map.size());
+    }
+
+    /**
+     * Checks that keys of the other types than node, way and relation are supported too.
+     */
+    @Test
+    void testOtherTypes() {
+        PrimitiveIdMap<String> map = new PrimitiveIdMap<>();
+        assertNull(map.put(1, OsmPrimitiveType.WAY, "w1"));
+        assertNull(map.put(1, OsmPrimitiveType.CLOSEDWAY, "c1"));
+        assertNull(map.put(new SimplePrimitiveId(1, OsmPrimitiveType.MULTIPOLYGON), "m1"));
+        assertEquals(3, map.size());
+        assertEquals("w1", map.get(1, OsmPrimitiveType.WAY));
+        assertEquals("c1", map.get(new SimplePrimitiveId(1, OsmPrimitiveType.CLOSEDWAY)));
+        assertEquals("m1", map.get(1, OsmPrimitiveType.MULTIPOLYGON));
+
+        Map<PrimitiveId, String> expected = new HashMap<>();
+        expected.put(new SimplePrimitiveId(1, OsmPrimitiveType.WAY), "w1");
+        expected.put(new SimplePrimitiveId(1, OsmPrimitiveType.CLOSEDWAY), "c1");
+        expected.put(new SimplePrimitiveId(1, OsmPrimitiveType.MULTIPOLYGON), "m1");
+        assertEquals(expected, map);
+
+        assertEquals("c1", map.remove(new SimplePrimitiveId(1, OsmPrimitiveType.CLOSEDWAY)));
+        assertEquals(2, map.size());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1, OsmPrimitiveType.MULTIPOLYGON));
+    }
+
+    /**
+     * Checks that the map equals a {@link HashMap} with the same entries.
+     */
+    @Test
+    void testEntries() {
+        PrimitiveIdMap<Integer> map = new PrimitiveIdMap<>();
+        Map<PrimitiveId, Integer> expected = new HashMap<>();
+        for (int i = 1; i <= 100; i++) {
+            for (OsmPrimitiveType type : OsmPrimitiveType.dataValues()) {
+                map.put(i, type, i);
+                expected.put(new SimplePrimitiveId(i, type), i);
+            }
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        map.entrySet().removeIf(e -> e.getKey().getType() == OsmPrimitiveType.WAY);
+        expected.keySet().removeIf(k -> k.getType() == OsmPrimitiveType.WAY);
+        assertEquals(expected, map);
+        assertEquals(200, map.getMap(OsmPrimitiveType.NODE).size() + map.getMap(OsmPrimitiveType.RELATION).size());
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+}
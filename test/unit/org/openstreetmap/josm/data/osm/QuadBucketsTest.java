@@ -10,6 +10,7 @@ import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
@@ -261,4 +262,41 @@ class QuadBucketsTest {
         }
         Assert.assertEquals(0, qb.size());
     }
+
+    /**
+     * Checks that a bulk {@link QuadBuckets#addAll} gives the same results as adding the objects one by one.
+     */
+    @Test
+    void testAddAllMatchesAdd() {
+        Random random = new Random(42);
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Node n = new Node(i + 1);
+            // a few dense clusters to force deep splits
+            double center = (i % 5) * 10;
+            n.setCoor(new LatLon(center + random.nextDouble() * 0.01, center + random.nextDouble() * 0.01));
+            nodes.add(n);
+        }
+        nodes.add(new Node(10_000)); // no coordinates
+        QuadBuckets<Node> bulk = new QuadBuckets<>();
+        bulk.addAll(nodes);
+        QuadBuckets<Node> incremental = new QuadBuckets<>();
+        nodes.forEach(incremental::add);
+
+        Assert.assertEquals(incremental.size(), bulk.size());
+        checkIterator(bulk, nodes.size());
+        for (int i = 0; i < 100; i++) {
+            double lat = random.nextDouble() * 45;
+            double lon = random.nextDouble() * 45;
+            BBox bbox = new BBox(lon, lat, lon + random.nextDouble() * 5, lat + random.nextDouble() * 5);
+            Assert.assertEquals(new HashSet<>(incremental.search(bbox)), new HashSet<>(bulk.search(bbox)));
+        }
+        for (Node n : nodes) {
+            Assert.assertTrue(bulk.contains(n));
+        }
+        for (Node n : nodes) {
+            Assert.assertTrue(bulk.remove(n));
+        }
+        Assert.assertTrue(bulk.isEmpty());
+    }
 }
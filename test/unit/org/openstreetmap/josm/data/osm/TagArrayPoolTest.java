@@ -0,0 +1,91 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of the {@link TagArrayPool} class.
+ */
+@BasicPreferences
+class TagArrayPoolTest {
+
+    /**
+     * Test that primitives with identical tags share the same array.
+     */
+    @Test
+    void testSharedArrays() {
+        Way w1 = new Way();
+        Way w2 = new Way();
+        w1.put("building", "yes");
+        w2.setKeys(Collections.singletonMap("building", "yes"));
+        assertSame(w1.keys, w2.keys);
+
+        w1.put("building", "house");
+        assertNotSame(w1.keys, w2.keys);
+        assertEquals("house", w1.get("building"));
+        assertEquals("yes", w2.get("building"));
+
+        w1.putAll(Collections.singletonMap("building", "yes"));
+        assertSame(w1.keys, w2.keys);
+
+        w2.remove("building");
+        assertNull(w2.keys);
+        assertEquals("yes", w1.get("building"));
+    }
+
+    /**
+     * Test that {@link AbstractPrimitive#putAll} does not modify the shared array.
+     */
+    @Test
+    void testPutAllCopyOnWrite() {
+        Node n1 = new Node(LatLon.ZERO);
+        Node n2 = new Node(LatLon.ZERO);
+        n1.put("amenity", "bench");
+        n2.put("amenity", "bench");
+        n1.putAll(Collections.singletonMap("amenity", "waste_basket"));
+        assertEquals("waste_basket", n1.get("amenity"));
+        assertEquals("bench", n2.get("amenity"));
+    }
+
+    /**
+     * Test {@link TagArrayPool#intern} with empty arrays.
+     */
+    @Test
+    void testInternEmpty() {
+        assertNull(TagArrayPool.intern(null));
+        assertNull(TagArrayPool.intern(new String[0]));
+    }
+
+    /**
+     * Test {@link TagArrayPool#getStatistics}.
+     */
+    @Test
+    void testStatistics() {
+        DataSet ds = new DataSet();
+        for (int i = 0; i < 10; i++) {
+            Way w = new Way();
+            w.put("building", "yes");
+            ds.addPrimitive(w);
+        }
+        Way w = new Way();
+        w.put("highway", "residential");
+        ds.addPrimitive(w);
+        ds.addPrimitive(new Way());
+
+        TagArrayPool.Statistics stats = TagArrayPool.getStatistics(ds);
+        assertEquals(11, stats.getTaggedPrimitives());
+        assertEquals(2, stats.getDistinctArrays());
+        assertTrue(stats.getSharedBytes() < stats.getUnsharedBytes());
+        assertTrue(TagArrayPool.size() >= 2);
+    }
+}
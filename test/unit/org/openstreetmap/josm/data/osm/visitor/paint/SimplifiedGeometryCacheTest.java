@@ -0,0 +1,136 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.visitor.paint;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link SimplifiedGeometryCache} class.
+ */
+class SimplifiedGeometryCacheTest {
+
+    /**
+     * Setup test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences().projection();
+
+    /**
+     * Cleanup test.
+     */
+    @AfterEach
+    void tearDown() {
+        SimplifiedGeometryCache.PROP_MAX_ERROR.put(0.0);
+        SimplifiedGeometryCache.getInstance().clear();
+    }
+
+    /**
+     * Test of the Douglas-Peucker simplification.
+     */
+    @Test
+    void testSimplify() {
+        double[] coords = {0, 0, 1, 0.1, 2, -0.1, 3, 5, 4, 6, 5, 7, 6, 7};
+        assertArrayEquals(new double[] {0, 0, 2, -0.1, 3, 5, 5, 7, 6, 7},
+                SimplifiedGeometryCache.simplify(coords, 7, 0.5), 1e-9);
+        assertArrayEquals(new double[] {0, 0, 6, 7}, SimplifiedGeometryCache.simplify(coords, 7, 10), 1e-9);
+        assertArrayEquals(new double[] {0, 0, 1, 0.1}, SimplifiedGeometryCache.simplify(coords, 2, 10), 1e-9);
+    }
+
+    /**
+     * Test that each sub-path of a path is simplified and stays closed.
+     */
+    @Test
+    void testSimplifyPath() {
+        Path2D.Double path = new Path2D.Double();
+        path.moveTo(0, 0);
+        path.lineTo(5, 0.01);
+        path.lineTo(10, 0);
+        path.lineTo(10, 10);
+        path.lineTo(0, 10);
+        path.closePath();
+        path.moveTo(2, 2);
+        path.lineTo(3, 2);
+        path.lineTo(3, 3);
+        path.closePath();
+        Path2D.Double simplified = SimplifiedGeometryCache.simplify(path, 0.1);
+        List<Integer> types = new ArrayList<>();
+        double[] segment = new double[6];
+        for (PathIterator it = simplified.getPathIterator(null); !it.isDone(); it.next()) {
+            types.add(it.currentSegment(segment));
+        }
+        int m = PathIterator.SEG_MOVETO;
+        int l = PathIterator.SEG_LINETO;
+        int c = PathIterator.SEG_CLOSE;
+        assertEquals(Arrays.asList(m, l, l, l, c, m, l, l, c), types);
+    }
+
+    /**
+     * Test that the simplified geometries are cached per zoom band and dropped when the way changes.
+     */
+    @Test
+    void testGet() {
+        DataSet ds = new DataSet();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < SimplifiedGeometryCache.MIN_NODES; i++) {
+            Node n = new Node(new EastNorth(i, i % 2 == 0 ? 0 : 0.001));
+            ds.addPrimitive(n);
+            nodes.add(n);
+        }
+        Way way = new Way();
+        way.setNodes(nodes);
+        ds.addPrimitive(way);
+        ds.addDataSetListener(SimplifiedGeometryCache.getInstance());
+        try {
+            SimplifiedGeometryCache cache = SimplifiedGeometryCache.getInstance();
+            assertNull(cache.get(way, 1));
+            SimplifiedGeometryCache.PROP_MAX_ERROR.put(0.5);
+            assertEquals(0.5, SimplifiedGeometryCache.getTolerance(1.5), 1e-9);
+            double[] simplified = cache.get(way, 1);
+            assertEquals(4, simplified.length);
+            assertSame(simplified, cache.get(way, 1.5));
+            nodes.get(10).setEastNorth(new EastNorth(10, 5));
+            assertEquals(10, cache.get(way, 1).length);
+        } finally {
+            ds.removeDataSetListener(SimplifiedGeometryCache.getInstance());
+        }
+    }
+
+    /**
+     * Test that no geometry is returned for a way with less than two nodes with known coordinates.
+     */
+    @Test
+    void testGetWithoutCoordinates() {
+        DataSet ds = new DataSet();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < SimplifiedGeometryCache.MIN_NODES; i++) {
+            Node n = i == 0 ? new Node(new EastNorth(0, 0)) : new Node();
+            ds.addPrimitive(n);
+            nodes.add(n);
+        }
+        Way way = new Way();
+        way.setNodes(nodes);
+        ds.addPrimitive(way);
+        SimplifiedGeometryCache.PROP_MAX_ERROR.put(0.5);
+        assertNull(SimplifiedGeometryCache.getInstance().get(way, 1));
+    }
+}
@@ -0,0 +1,186 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.visitor.paint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.BBox;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.IPrimitive;
+import org.openstreetmap.josm.data.osm.IRelation;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.visitor.paint.StyledMapRenderer.StyleRecord;
+import org.openstreetmap.josm.gui.mappaint.ElemStyles;
+import org.openstreetmap.josm.gui.mappaint.styleelement.DefaultStyles;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link StyleRecordCache} class.
+ */
+class StyleRecordCacheTest {
+
+    /**
+     * Setup test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences().projection();
+
+    private static final int[] FLAGS = {
+            StyledMapRenderer.FLAG_NORMAL, StyledMapRenderer.FLAG_DISABLED,
+            StyledMapRenderer.FLAG_MEMBER_OF_SELECTED, StyledMapRenderer.FLAG_SELECTED};
+
+    private DataSet ds;
+    private ElemStyles styles;
+    private int computed;
+
+    /**
+     * Setup test: a grid of nodes, with ways and relations crossing it.
+     */
+    @BeforeEach
+    void setUp() {
+        ds = new DataSet();
+        styles = new ElemStyles();
+        Node[][] grid = new Node[20][20];
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < 20; j++) {
+                grid[i][j] = new Node(new LatLon(0.1 * i, 0.1 * j));
+                ds.addPrimitive(grid[i][j]);
+            }
+        }
+        for (int i = 0; i < 20; i += 3) {
+            Way row = new Way();
+            row.setNodes(Arrays.asList(grid[i][0], grid[i][5], grid[i][10]));
+            ds.addPrimitive(row);
+            Way column = new Way();
+            column.setNodes(Arrays.asList(grid[0][i], grid[10][i]));
+            ds.addPrimitive(column);
+            Relation r = new Relation();
+            r.addMember(new RelationMember("", row));
+            ds.addPrimitive(r);
+        }
+    }
+
+    /**
+     * A fake style computation, giving the primitives different flags so that the order is not trivial.
+     */
+    private StyleRecord[] compute(List<IPrimitive> nodesAndWays, List<? extends IRelation<?>> relations) {
+        computed++;
+        List<StyleRecord> records = new ArrayList<>();
+        for (IPrimitive p : nodesAndWays) {
+            records.add(new StyleRecord(DefaultStyles.SIMPLE_NODE_ELEMSTYLE, p, FLAGS[(int) (-p.getUniqueId() % FLAGS.length)]));
+        }
+        for (IPrimitive p : relations) {
+            records.add(new StyleRecord(DefaultStyles.SIMPLE_NODE_ELEMSTYLE, p, FLAGS[(int) (-p.getUniqueId() % FLAGS.length)]));
+        }
+        StyleRecord[] sorted = records.toArray(new StyleRecord[0]);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private StyleRecord[] computeFull(BBox bbox) {
+        List<IPrimitive> nodesAndWays = new ArrayList<>();
+        ds.searchNodes(bbox, nodesAndWays::add);
+        ds.searchWays(bbox, nodesAndWays::add);
+        return compute(nodesAndWays, ds.searchRelations(bbox));
+    }
+
+    private static void assertSameRecords(StyleRecord[] expected, StyleRecord[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            // records of equal order may be in any order, but the orders must match
+            assertEquals(0, expected[i].compareTo(actual[i]), "record " + i);
+        }
+        List<IPrimitive> expectedPrimitives = new ArrayList<>();
+        List<IPrimitive> actualPrimitives = new ArrayList<>();
+        for (int i = 0; i < expected.length; i++) {
+            expectedPrimitives.add(expected[i].getPrimitive());
+            actualPrimitives.add(actual[i].getPrimitive());
+        }
+        assertTrue(actualPrimitives.containsAll(expectedPrimitives));
+        assertTrue(expectedPrimitives.containsAll(actualPrimitives));
+    }
+
+    /**
+     * Test that the records after a sequence of pans are the ones of a full computation.
+     */
+    @Test
+    void testPans() {
+        StyleRecordCache cache = new StyleRecordCache();
+        double[][] offsets = {{0, 0}, {0.15, 0}, {0.15, 0.25}, {-0.1, 0.3}, {-0.35, -0.05}, {0.05, -0.4}, {0.3, 0.3}};
+        for (double[] offset : offsets) {
+            BBox bbox = new BBox(0.4 + offset[1], 0.4 + offset[0], 1.2 + offset[1], 1.1 + offset[0]);
+            StyleRecord[] cached = cache.get(ds, bbox, 100, styles, this::compute);
+            assertSameRecords(computeFull(bbox), cached);
+        }
+    }
+
+    /**
+     * Test that the records are computed again when the circum or the styles change, or the view does not overlap.
+     */
+    @Test
+    void testInvalidation() {
+        StyleRecordCache cache = new StyleRecordCache();
+        BBox bbox = new BBox(0.4, 0.4, 1.2, 1.1);
+        StyleRecord[] first = cache.get(ds, bbox, 100, styles, this::compute);
+        assertSame(first, cache.get(ds, bbox, 100, styles, this::compute));
+        assertEquals(1, computed);
+
+        StyleRecord[] otherCircum = cache.get(ds, bbox, 101, styles, this::compute);
+        assertEquals(2, computed);
+        assertSameRecords(first, otherCircum);
+
+        cache.get(ds, bbox, 101, new ElemStyles(), this::compute);
+        assertEquals(3, computed);
+
+        BBox far = new BBox(1.5, 1.5, 1.9, 1.9);
+        StyleRecord[] expected = computeFull(far);
+        assertSameRecords(expected, cache.get(ds, far, 101, styles, this::compute));
+        assertEquals(5, computed);
+
+        cache.clear();
+        cache.get(ds, far, 101, styles, this::compute);
+        assertEquals(6, computed);
+    }
+
+    /**
+     * Test that the records are computed again when a drawing preference read by {@link ComputeStyleListWorker} changes.
+     */
+    @Test
+    void testPreferenceChange() {
+        StyleRecordCache cache = new StyleRecordCache();
+        BBox bbox = new BBox(0.4, 0.4, 1.2, 1.1);
+        StyleRecord[] first = cache.get(ds, bbox, 100, styles, this::compute);
+        assertSame(first, cache.get(ds, bbox, 100, styles, this::compute));
+        assertEquals(1, computed);
+
+        Config.getPref().putInt("mappaint.fillareas", 50);
+        cache.get(ds, bbox, 100, styles, this::compute);
+        assertEquals(2, computed);
+
+        Config.getPref().putBoolean("mappaint.multipolygon", false);
+        cache.get(ds, bbox, 100, styles, this::compute);
+        assertEquals(3, computed);
+
+        Config.getPref().putBoolean("mappaint.restriction", false);
+        StyleRecord[] last = cache.get(ds, bbox, 100, styles, this::compute);
+        assertEquals(4, computed);
+        assertSame(last, cache.get(ds, bbox, 100, styles, this::compute));
+        assertEquals(4, computed);
+    }
+}
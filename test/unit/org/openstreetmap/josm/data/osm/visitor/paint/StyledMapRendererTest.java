@@ -1,13 +1,34 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.data.osm.visitor.paint;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.data.osm.visitor.paint.StyledMapRenderer.StyleRecord;
+import org.openstreetmap.josm.gui.NavigatableComponent;
+import org.openstreetmap.josm.gui.mappaint.ElemStyles;
+import org.openstreetmap.josm.gui.mappaint.mapcss.MapCSSStyleSource;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
 
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import nl.jqno.equalsverifier.Warning;
 
@@ -18,6 +39,16 @@ import nl.jqno.equalsverifier.Warning;
  */
 class StyledMapRendererTest {
 
+    /**
+     * Setup test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences().projection();
+
+    private static final int IMG_WIDTH = 800;
+    private static final int IMG_HEIGHT = 600;
+
     /**
      * Tests the floatToFixed function.
      */
@@ -90,4 +121,77 @@ class StyledMapRendererTest {
             .suppress(Warning.NONFINAL_FIELDS)
             .verify();
     }
+
+    /**
+     * Tests that the tiled draw gives the same image as the sequential draw, with labels crossing the tile seams,
+     * and with a disabled label which is sorted before all the other records.
+     */
+    @Test
+    void testTiledDraw() {
+        assumeTrue(Runtime.getRuntime().availableProcessors() > 1, "the tiled draw needs several threads");
+        DataSet ds = new DataSet();
+        for (int i = 0; i < 40; i++) {
+            List<Node> nodes = new ArrayList<>();
+            for (int j = 0; j < 30; j++) {
+                Node n = new Node(new LatLon(0.001 * i, 0.001 * j));
+                n.put("name", "a label which is much wider than the margin of the tiles " + i + "/" + j);
+                ds.addPrimitive(n);
+                nodes.add(n);
+            }
+            Way w = new Way();
+            w.setNodes(nodes);
+            ds.addPrimitive(w);
+        }
+        Node disabled = new Node(new LatLon(0.0205, 0.0155));
+        disabled.put("name", "a disabled label");
+        ds.addPrimitive(disabled);
+        disabled.setDisabledState(false);
+        MapCSSStyleSource source = new MapCSSStyleSource(
+                "node { symbol-shape: square; symbol-size: 4; symbol-fill-color: #ff0000; text: tag(\"name\"); font-size: 12; }\n"
+                + "way { width: 3; color: #0000ff; }");
+        source.loadStyleSource();
+        ElemStyles styles = new ElemStyles(Collections.singleton(source));
+        NavigatableComponent nc = new NavigatableComponent() {
+            {
+                setBounds(0, 0, IMG_WIDTH, IMG_HEIGHT);
+                updateLocationState();
+            }
+
+            @Override
+            protected boolean isVisibleOnScreen() {
+                return true;
+            }
+
+            @Override
+            public Point getLocationOnScreen() {
+                return new Point(0, 0);
+            }
+        };
+        Bounds bounds = new Bounds(0, 0, 0.04, 0.03);
+        nc.zoomTo(bounds);
+
+        StyledMapRenderer.PREFERENCE_ANTIALIASING_USE.put(false);
+        StyledMapRenderer.PREFERENCE_TEXT_ANTIALIASING.put("off");
+        try {
+            int[][] pixels = new int[2][];
+            for (int k = 0; k < 2; k++) {
+                StyledMapRenderer.PREFERENCE_TILED_DRAW.put(k == 1);
+                BufferedImage img = new BufferedImage(IMG_WIDTH, IMG_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g = img.createGraphics();
+                g.setClip(0, 0, IMG_WIDTH, IMG_HEIGHT);
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, IMG_WIDTH, IMG_HEIGHT);
+                StyledMapRenderer renderer = new StyledMapRenderer(g, nc, false);
+                renderer.setStyles(styles);
+                renderer.render(ds, false, bounds);
+                g.dispose();
+                pixels[k] = img.getRGB(0, 0, IMG_WIDTH, IMG_HEIGHT, null, 0, IMG_WIDTH);
+            }
+            assertArrayEquals(pixels[0], pixels[1]);
+        } finally {
+            StyledMapRenderer.PREFERENCE_TILED_DRAW.put(false);
+            StyledMapRenderer.PREFERENCE_ANTIALIASING_USE.put(true);
+            StyledMapRenderer.PREFERENCE_TEXT_ANTIALIASING.put("default");
+        }
+    }
 }
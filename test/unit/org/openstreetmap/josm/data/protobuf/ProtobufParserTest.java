@@ -1,7 +1,13 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.data.protobuf;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
 
 import org.junit.jupiter.api.Test;
 
@@ -48,4 +54,21 @@ class ProtobufParserTest {
         assertEquals(4_294_967_296L, ProtobufParser.encodeZigZag(Integer.MAX_VALUE + 1L).longValue());
         assertEquals(4_294_967_297L, ProtobufParser.encodeZigZag(Integer.MIN_VALUE - 1L).longValue());
     }
+
+    /**
+     * Check that length delimited messages are read completely, and that truncated messages are rejected.
+     * @throws IOException if an IO error occurs
+     */
+    @Test
+    void testNextLengthDelimited() throws IOException {
+        try (ProtobufParser parser = new ProtobufParser(new byte[] {3, 1, 2, 3})) {
+            assertArrayEquals(new byte[] {1, 2, 3}, parser.nextLengthDelimited(new ByteArrayOutputStream()));
+        }
+        try (ProtobufParser parser = new ProtobufParser(new byte[] {5, 1, 2, 3})) {
+            assertThrows(EOFException.class, () -> parser.nextLengthDelimited(new ByteArrayOutputStream()));
+        }
+        try (ProtobufParser parser = new ProtobufParser(new byte[] {1, 2})) {
+            assertThrows(EOFException.class, parser::nextFixed32);
+        }
+    }
 }
@@ -0,0 +1,77 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.protobuf;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link ProtobufWriter}
+ */
+class ProtobufWriterTest {
+    /**
+     * Check the size of var ints
+     */
+    @Test
+    void testVarIntSize() {
+        for (long value : new long[] {0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, Long.MAX_VALUE, -1, Long.MIN_VALUE}) {
+            ProtobufWriter writer = new ProtobufWriter().writeVarInt(1, value);
+            // one byte for the tag
+            assertEquals(writer.size() - 1, ProtobufWriter.varIntSize(value), Long.toString(value));
+        }
+    }
+
+    /**
+     * Check that zig zags are encoded like {@link ProtobufParser#encodeZigZag}
+     */
+    @Test
+    void testEncodeZigZag() {
+        for (long value : new long[] {0, -1, 1, -2, Byte.MAX_VALUE, Byte.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+            assertEquals(ProtobufParser.encodeZigZag(value).longValue(), ProtobufWriter.encodeZigZag(value));
+        }
+    }
+
+    /**
+     * Check that written messages are read by {@link ProtobufParser}
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testRoundTrip() throws IOException {
+        long[] values = {0, 1, 300, -5, Long.MAX_VALUE, Long.MIN_VALUE};
+        ProtobufWriter writer = new ProtobufWriter(1)
+                .writeVarInt(1, 150)
+                .writeSignedVarInt(2, -150)
+                .writeString(3, "testing ✓")
+                .writeMessage(4, new ProtobufWriter().writeVarInt(1, 7))
+                .writePackedVarInts(5, values, values.length)
+                .writePackedSignedVarInts(6, values, values.length)
+                .writePackedVarInts(7, values, 0);
+        try (ProtobufParser parser = new ProtobufParser(writer.toByteArray())) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ProtobufRecord record = new ProtobufRecord(baos, parser);
+            assertEquals(1, record.getField());
+            assertEquals(WireType.VARINT, record.getType());
+            assertEquals(150, record.asUnsignedVarInt().intValue());
+            record = new ProtobufRecord(baos, parser);
+            assertEquals(-150, record.asSignedVarInt().intValue());
+            record = new ProtobufRecord(baos, parser);
+            assertEquals(WireType.LENGTH_DELIMITED, record.getType());
+            assertEquals("testing ✓", record.asString());
+            record = new ProtobufRecord(baos, parser);
+            assertArrayEquals(new byte[] {8, 7}, record.getBytes());
+            record = new ProtobufRecord(baos, parser);
+            assertEquals(5, record.getField());
+            assertArrayEquals(values, ProtobufPacked.decodeVarInts(record.getBytes()));
+            record = new ProtobufRecord(baos, parser);
+            assertEquals(6, record.getField());
+            assertArrayEquals(values, ProtobufPacked.decodeSignedVarInts(record.getBytes()));
+            // empty packed fields are not written
+            assertFalse(parser.hasNext());
+        }
+    }
+}
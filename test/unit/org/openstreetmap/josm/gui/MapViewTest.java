@@ -0,0 +1,138 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.gui.layer.LayerManagerTest.TestLayer;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link MapView} class.
+ */
+class MapViewTest {
+
+    /**
+     * Setup tests
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().main().projection();
+
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 200;
+
+    /**
+     * A layer counting how often it is painted.
+     */
+    private static class CountingLayer extends TestLayer {
+        private int paints;
+
+        @Override
+        public void paint(Graphics2D g, MapView mv, Bounds bbox) {
+            paints++;
+        }
+    }
+
+    private CountingLayer bottom;
+    private CountingLayer top;
+    private MapView mapView;
+
+    /**
+     * Setup test: two layers in a map view with one buffer per layer.
+     */
+    @BeforeEach
+    void setUp() {
+        MapView.PROP_LAYER_BUFFERS.put(true);
+        bottom = new CountingLayer();
+        top = new CountingLayer();
+        MainApplication.getLayerManager().addLayer(bottom);
+        MainApplication.getLayerManager().addLayer(top);
+        mapView = MainApplication.getMap().mapView;
+        mapView.setBounds(0, 0, WIDTH, HEIGHT);
+        mapView.zoomTo(new Bounds(10, 10, 10.1, 10.1));
+        // the first paints fill the buffers
+        paint();
+        paint();
+    }
+
+    /**
+     * Cleanup test.
+     */
+    @AfterEach
+    void tearDown() {
+        MapView.PROP_LAYER_BUFFERS.put(false);
+    }
+
+    private void paint() {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setClip(0, 0, WIDTH, HEIGHT);
+        mapView.paint(g);
+        g.dispose();
+    }
+
+    private void assertPaintedAfter(Runnable change, int bottomPaints, int topPaints) {
+        int bottomBefore = bottom.paints;
+        int topBefore = top.paints;
+        change.run();
+        paint();
+        assertEquals(bottomPaints, bottom.paints - bottomBefore, "bottom layer paints");
+        assertEquals(topPaints, top.paints - topBefore, "top layer paints");
+    }
+
+    /**
+     * Tests that the layers are not painted again if nothing changed.
+     */
+    @Test
+    void testNoChange() {
+        assertPaintedAfter(() -> { }, 0, 0);
+    }
+
+    /**
+     * Tests that only the invalidated layer is painted again.
+     */
+    @Test
+    void testLayerInvalidated() {
+        assertPaintedAfter(bottom::invalidate, 1, 0);
+        assertPaintedAfter(top::invalidate, 0, 1);
+        assertPaintedAfter(() -> { }, 0, 0);
+    }
+
+    /**
+     * Tests that all layers are painted again when the view changes.
+     */
+    @Test
+    void testViewChanged() {
+        assertPaintedAfter(() -> mapView.zoomTo(new Bounds(10.05, 10.05, 10.15, 10.15)), 1, 1);
+        assertPaintedAfter(() -> { }, 0, 0);
+    }
+
+    /**
+     * Tests that only the layer whose opacity changed is painted again.
+     */
+    @Test
+    void testOpacityChanged() {
+        assertPaintedAfter(() -> top.setOpacity(0.5), 0, 1);
+        assertPaintedAfter(() -> { }, 0, 0);
+    }
+
+    /**
+     * Tests that all layers are painted again when a preference changes.
+     */
+    @Test
+    void testPreferenceChanged() {
+        assertPaintedAfter(() -> Config.getPref().put("mapview.test", "changed"), 1, 1);
+        assertPaintedAfter(() -> { }, 0, 0);
+    }
+}
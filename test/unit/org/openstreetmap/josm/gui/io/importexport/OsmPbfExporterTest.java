@@ -0,0 +1,46 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.io.importexport;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+/**
+ * Unit tests of {@link OsmPbfExporter} class.
+ */
+class OsmPbfExporterTest {
+
+    /**
+     * Setup tests
+     */
+    @RegisterExtension
+    public final JOSMTestRules rules = new JOSMTestRules();
+
+    /**
+     * Tests that a layer with local modifications is not completely saved by a PBF export.
+     */
+    @Test
+    void testIsCompleteSave() {
+        DataSet ds = new DataSet();
+        Node n = new Node(1, 1);
+        n.setCoor(LatLon.ZERO);
+        ds.addPrimitive(n);
+        OsmDataLayer layer = new OsmDataLayer(ds, "test", null);
+        OsmPbfExporter exporter = new OsmPbfExporter();
+        assertTrue(exporter.isCompleteSave(layer));
+
+        n.setModified(true);
+        assertFalse(exporter.isCompleteSave(layer));
+
+        n.setModified(false);
+        n.setDeleted(true);
+        assertFalse(exporter.isCompleteSave(layer));
+    }
+}
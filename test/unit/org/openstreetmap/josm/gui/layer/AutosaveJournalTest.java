@@ -0,0 +1,238 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.io.OsmBinaryReader;
+import org.openstreetmap.josm.io.OsmBinaryWriter;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link AutosaveJournal} class.
+ */
+@BasicPreferences
+class AutosaveJournalTest {
+    /**
+     * Temporary directory for the autosave files
+     */
+    @TempDir
+    Path tmp;
+
+    private DataSet ds;
+    private Node n1;
+    private Node n2;
+    private Node n3;
+    private Way way;
+    private File file;
+    private AutosaveJournal journal;
+
+    /**
+     * Setup test: a dataset with a checkpoint.
+     * @throws Exception if an error occurs
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        ds = new DataSet();
+        ds.setVersion("0.6");
+        n1 = new Node(1, 1);
+        n1.setCoor(new LatLon(53, 13));
+        n2 = new Node(2, 1);
+        n2.setCoor(new LatLon(53.1, 13.1));
+        n3 = new Node(3, 1);
+        n3.setCoor(new LatLon(53.2, 13.2));
+        way = new Way(10, 1);
+        way.setNodes(Arrays.asList(n1, n2));
+        way.put("highway", "residential");
+        for (OsmPrimitive p : Arrays.asList(n1, n2, n3, way)) {
+            ds.addPrimitive(p);
+        }
+        file = tmp.resolve("layer.osmb").toFile();
+        journal = new AutosaveJournal(ds);
+        checkpoint();
+    }
+
+    /**
+     * Cleanup test.
+     */
+    @AfterEach
+    void tearDown() {
+        journal.dispose();
+    }
+
+    private void checkpoint() throws Exception {
+        journal.checkpoint(file);
+        try (OutputStream out = Files.newOutputStream(file.toPath()); OsmBinaryWriter w = new OsmBinaryWriter(out)) {
+            w.write(ds);
+        }
+    }
+
+    private DataSet recover() throws Exception {
+        AutosaveJournal.replay(file);
+        assertFalse(AutosaveJournal.getJournalFile(file).exists());
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return OsmBinaryReader.parseDataSet(in, null);
+        }
+    }
+
+    /**
+     * Test that the changes appended to the journal are recovered.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testReplay() throws Exception {
+        assertTrue(journal.canAppend());
+        n1.setCoor(new LatLon(54, 14));
+        way.put("name", "Main Street");
+        Node added = new Node(new LatLon(53.3, 13.3));
+        ds.addPrimitive(added);
+        way.addNode(added);
+        n3.setDeleted(true);
+        Node addedDeleted = new Node(new LatLon(53.4, 13.4));
+        ds.addPrimitive(addedDeleted);
+        ds.addDataSource(new DataSource(new Bounds(53, 13, 54, 14), "test"));
+        journal.append();
+
+        addedDeleted.setDeleted(true);
+        way.put("highway", "primary");
+        journal.append();
+        assertTrue(AutosaveJournal.getJournalFile(file).exists());
+
+        // simulate a crash: recover the layer from the files only
+        DataSet result = recover();
+        assertEquals(new LatLon(54, 14), ((Node) result.getPrimitiveById(1, OsmPrimitiveType.NODE)).getCoor());
+        assertTrue(result.getPrimitiveById(3, OsmPrimitiveType.NODE).isDeleted());
+        Way rway = (Way) result.getPrimitiveById(10, OsmPrimitiveType.WAY);
+        assertEquals("Main Street", rway.get("name"));
+        assertEquals("primary", rway.get("highway"));
+        assertEquals(3, rway.getNodesCount());
+        assertTrue(rway.lastNode().isNew());
+        assertEquals(new LatLon(53.3, 13.3), rway.lastNode().getCoor());
+        // n1, n2, n3 and the added node, the added node which has been deleted is dropped
+        assertEquals(4, result.getNodes().size());
+        assertEquals(1, result.getDataSources().size());
+    }
+
+    /**
+     * Test that the primitives removed from the dataset, like by undo, are removed from the recovered dataset.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testRemoved() throws Exception {
+        Node added = new Node(new LatLon(53.3, 13.3));
+        ds.addPrimitive(added);
+        journal.append();
+        ds.removePrimitive(added);
+        ds.removePrimitive(n3);
+        journal.append();
+
+        DataSet result = recover();
+        assertEquals(2, result.getNodes().size());
+        assertNull(result.getPrimitiveById(3, OsmPrimitiveType.NODE));
+        assertNotNull(result.getPrimitiveById(10, OsmPrimitiveType.WAY));
+    }
+
+    /**
+     * Test that a new primitive which gets an id by an upload is not recovered twice.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testIdChange() throws Exception {
+        Node added = new Node(new LatLon(53.3, 13.3));
+        ds.addPrimitive(added);
+        way.addNode(added);
+        journal.append();
+
+        // upload: the events of the id change are fired after the new id is set
+        ds.beginUpdate();
+        try {
+            added.setOsmId(100, 1);
+            way.setOsmId(10, 2);
+        } finally {
+            ds.endUpdate();
+        }
+        assertFalse(journal.canAppend());
+        checkpoint();
+        way.put("name", "uploaded");
+        assertTrue(journal.canAppend());
+        journal.append();
+
+        DataSet result = recover();
+        assertEquals(4, result.getNodes().size());
+        assertTrue(result.getNodes().stream().noneMatch(Node::isNew));
+        Node rnode = (Node) result.getPrimitiveById(100, OsmPrimitiveType.NODE);
+        assertEquals(new LatLon(53.3, 13.3), rnode.getCoor());
+        Way rway = (Way) result.getPrimitiveById(10, OsmPrimitiveType.WAY);
+        assertEquals("uploaded", rway.get("name"));
+        assertEquals(rnode, rway.lastNode());
+    }
+
+    /**
+     * Test that an entry which has not been completely written, like after a crash, is ignored.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testTruncatedEntry() throws Exception {
+        way.put("name", "first");
+        journal.append();
+        long length = AutosaveJournal.getJournalFile(file).length();
+        way.put("name", "second");
+        n2.setCoor(new LatLon(50, 10));
+        journal.append();
+        try (RandomAccessFile raf = new RandomAccessFile(AutosaveJournal.getJournalFile(file), "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+        assertTrue(AutosaveJournal.getJournalFile(file).length() > length);
+
+        DataSet result = recover();
+        assertEquals("first", result.getPrimitiveById(10, OsmPrimitiveType.WAY).get("name"));
+        assertEquals(new LatLon(53.1, 13.1), ((Node) result.getPrimitiveById(2, OsmPrimitiveType.NODE)).getCoor());
+    }
+
+    /**
+     * Test that the journal is compacted into a new checkpoint after a few entries.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testCompaction() throws Exception {
+        AutosaveTask.PROP_JOURNAL_MAX_ENTRIES.put(2);
+        // make the checkpoint larger than the journal
+        for (int i = 0; i < 100; i++) {
+            ds.addPrimitive(new Node(new LatLon(50 + i / 100.0, 10)));
+        }
+        checkpoint();
+        for (int i = 0; i < 2; i++) {
+            assertTrue(journal.canAppend());
+            way.put("name", Integer.toString(i));
+            journal.append();
+        }
+        assertFalse(journal.canAppend());
+        checkpoint();
+        assertFalse(AutosaveJournal.getJournalFile(file).exists());
+        assertTrue(journal.canAppend());
+        assertEquals("1", recover().getPrimitiveById(10, OsmPrimitiveType.WAY).get("name"));
+    }
+}
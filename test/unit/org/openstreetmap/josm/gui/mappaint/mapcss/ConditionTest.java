@@ -12,6 +12,7 @@ import org.openstreetmap.josm.data.osm.OsmUtils;
 import org.openstreetmap.josm.gui.mappaint.Environment;
 import org.openstreetmap.josm.gui.mappaint.mapcss.Condition.Context;
 import org.openstreetmap.josm.gui.mappaint.mapcss.Condition.TagCondition;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.KeyValueNumericCondition;
 import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.Op;
 import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.SimpleKeyValueCondition;
 import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
@@ -99,6 +100,19 @@ class ConditionTest {
         assertTrue(op.applies(genEnv(node2)));
         assertFalse(op.applies(genEnv(node3)));
         assertFalse(op.applies(genEnv(node4)));
+
+        assertTrue(op instanceof KeyValueNumericCondition);
+    }
+
+    /**
+     * Test that a numeric comparison to a value which is not a number is not specialized
+     */
+    @Test
+    void testKeyValueNotNumeric() {
+        Condition op = ConditionFactory.createKeyValueCondition("f1", "abc", Op.GREATER, Context.PRIMITIVE, false);
+        assertFalse(op instanceof KeyValueNumericCondition);
+        assertFalse(op.applies(genEnv(node0)));
+        assertFalse(op.applies(genEnv(node4)));
     }
 
     /**
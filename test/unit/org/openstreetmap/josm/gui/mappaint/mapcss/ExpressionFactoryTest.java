@@ -1,8 +1,13 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.gui.mappaint.mapcss;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ExpressionFactory.ConstantFunction;
 import org.openstreetmap.josm.testutils.JOSMTestRules;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -10,6 +15,8 @@ import net.trajano.commons.testing.UtilityClassTestUtil;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
 
 /**
  * Unit tests of {@link ExpressionFactory}.
@@ -45,4 +52,27 @@ class ExpressionFactoryTest {
             }
         }
     }
+
+    /**
+     * Tests that functions with constant arguments are evaluated once, and the other functions on evaluation.
+     */
+    @Test
+    void testConstantFunctions() {
+        Expression sum = ExpressionFactory.createFunctionExpression("plus",
+                Arrays.asList(new LiteralExpression(1.0f), new LiteralExpression(2.0f)));
+        Expression concat = ExpressionFactory.createFunctionExpression("concat",
+                Arrays.asList(new LiteralExpression("a"), sum));
+        assertTrue(concat instanceof ConstantFunction);
+        assertEquals("a3.0", concat.evaluate(null));
+
+        assertFalse(ExpressionFactory.createFunctionExpression("tag",
+                Collections.singletonList(new LiteralExpression("name"))) instanceof ConstantFunction);
+        assertFalse(ExpressionFactory.createFunctionExpression("tr",
+                Collections.singletonList(new LiteralExpression("name"))) instanceof ConstantFunction);
+        assertFalse(ExpressionFactory.createFunctionExpression("list",
+                Collections.singletonList(new LiteralExpression("name"))) instanceof ConstantFunction);
+        assertFalse(ExpressionFactory.createFunctionExpression("upper",
+                Collections.singletonList(ExpressionFactory.createFunctionExpression("tag",
+                        Collections.singletonList(new LiteralExpression("name"))))) instanceof ConstantFunction);
+    }
 }
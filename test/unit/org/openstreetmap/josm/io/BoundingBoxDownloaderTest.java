@@ -0,0 +1,142 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.DataSetMerger;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+import org.openstreetmap.josm.testutils.annotations.BasicWiremock;
+import org.openstreetmap.josm.testutils.annotations.HTTP;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+/**
+ * Unit tests of {@link BoundingBoxDownloader} class.
+ */
+@BasicWiremock
+@BasicPreferences
+@HTTP
+class BoundingBoxDownloaderTest {
+    private static final int NODES = 60_000;
+    private static final int WAYS = 6_000;
+    private static final int RELATIONS = 100;
+
+    /**
+     * HTTP mock.
+     */
+    @BasicWiremock
+    WireMockServer wireMockServer;
+
+    private byte[] data;
+
+    /**
+     * Setup test: the server streams a large response, slowly.
+     */
+    @BeforeEach
+    void setUp() {
+        StringBuilder sb = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>\n<osm version='0.6' generator='test'>\n")
+                .append("  <bounds minlat='0' minlon='0' maxlat='1' maxlon='1'/>\n");
+        for (int i = 1; i <= NODES; i++) {
+            sb.append("  <node id='").append(i).append("' version='1' lat='").append((i % 1000) / 1000.0)
+              .append("' lon='").append((i / 1000) / 100.0).append("'/>\n");
+        }
+        for (int i = 1; i <= WAYS; i++) {
+            sb.append("  <way id='").append(i).append("' version='1'>\n");
+            for (int j = 0; j < NODES / WAYS; j++) {
+                sb.append("    <nd ref='").append((i - 1) * (NODES / WAYS) + j + 1).append("'/>\n");
+            }
+            sb.append("    <tag k='highway' v='residential'/>\n  </way>\n");
+        }
+        for (int i = 1; i <= RELATIONS; i++) {
+            sb.append("  <relation id='").append(i).append("' version='1'>\n")
+              .append("    <member type='way' ref='").append(i * (WAYS / RELATIONS)).append("' role='outer'/>\n")
+              .append("    <member type='node' ref='").append(i).append("' role='label'/>\n")
+              .append("    <member type='relation' ref='").append(RELATIONS + 1 - i).append("' role=''/>\n")
+              .append("    <tag k='type' v='multipolygon'/>\n  </relation>\n");
+        }
+        data = sb.append("</osm>\n").toString().getBytes(StandardCharsets.UTF_8);
+        wireMockServer.stubFor(get(urlPathEqualTo("/api/0.6/map"))
+                .willReturn(aResponse()
+                    .withStatus(200)
+                    .withHeader("Content-Type", "text/xml")
+                    .withBody(data)
+                    .withChunkedDribbleDelay(20, 3000)));
+    }
+
+    private BoundingBoxDownloader newDownloader() {
+        return new BoundingBoxDownloader(new Bounds(0, 0, 1, 1)) {
+            @Override
+            protected String getBaseUrl() {
+                return wireMockServer.url("/api/0.6/");
+            }
+        };
+    }
+
+    /**
+     * Test that the incremental mode passes batches which, merged together, give the same data as a plain download.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testIncremental() throws Exception {
+        DataSet expected;
+        try (InputStream in = new ByteArrayInputStream(data)) {
+            expected = OsmReader.parseDataSet(in, NullProgressMonitor.INSTANCE);
+        }
+
+        List<DataSet> batches = new ArrayList<>();
+        BoundingBoxDownloader downloader = newDownloader();
+        downloader.setBatchConsumer(batches::add);
+        DataSet last = downloader.parseOsm(NullProgressMonitor.INSTANCE);
+        assertNotNull(last);
+        assertTrue(batches.size() >= 2, () -> batches.size() + " batches");
+        assertFalse(batches.get(0).getDataSources().isEmpty());
+
+        DataSet merged = new DataSet();
+        batches.add(last);
+        for (DataSet batch : batches) {
+            new DataSetMerger(merged, batch).merge();
+        }
+        assertEquals("0.6", last.getVersion());
+        assertEquals(expected.getNodes().size(), merged.getNodes().size());
+        assertEquals(expected.getWays().size(), merged.getWays().size());
+        assertEquals(expected.getRelations().size(), merged.getRelations().size());
+        assertEquals(1, merged.getDataSources().size());
+        assertTrue(merged.allPrimitives().stream().noneMatch(OsmPrimitive::isIncomplete));
+        assertTrue(merged.allPrimitives().stream().noneMatch(OsmPrimitive::isModified));
+        for (Way way : merged.getWays()) {
+            assertEquals(NODES / WAYS, way.getNodesCount());
+            assertEquals(expected.getPrimitiveById(way).getKeys(), way.getKeys());
+        }
+    }
+
+    /**
+     * Test that a plain download is not altered.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testPlain() throws Exception {
+        DataSet ds = newDownloader().parseOsm(NullProgressMonitor.INSTANCE);
+        assertEquals(NODES, ds.getNodes().size());
+        assertEquals(WAYS, ds.getWays().size());
+        assertEquals(RELATIONS, ds.getRelations().size());
+    }
+}
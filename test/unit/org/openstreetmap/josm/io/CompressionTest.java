@@ -0,0 +1,178 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Unit tests of {@link Compression} class, and of the parallel compression streams.
+ */
+@BasicPreferences
+class CompressionTest {
+    @TempDir
+    Path temporaryDirectory;
+
+    private static byte[] data(int size) {
+        String[] words = {"<node", "<way", "<tag k='highway'", "v='residential'", "lat='53.5'", "/>\n", "id='"};
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(size + 20);
+        while (sb.length() < size) {
+            sb.append(words[random.nextInt(words.length)]).append(random.nextInt(100_000)).append(' ');
+        }
+        return sb.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Test {@link Compression#byExtension}.
+     */
+    @Test
+    void testByExtension() {
+        assertEquals(Compression.BZIP2, Compression.byExtension("foo.osm.bz2"));
+        assertEquals(Compression.XZ, Compression.byExtension("foo.osm.xz"));
+        assertEquals(Compression.GZIP, Compression.byExtension("foo.osm.gz"));
+        assertEquals(Compression.NONE, Compression.byExtension("foo.osm"));
+    }
+
+    /**
+     * Test that {@link ParallelGZIPOutputStream} writes gzip data.
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testParallelGzip() throws IOException {
+        for (int size : new int[] {0, 1000, 128 * 1024, 1_000_000}) {
+            byte[] data = data(size);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (OutputStream gzip = new ParallelGZIPOutputStream(out)) {
+                gzip.write(data, 0, size / 2);
+                gzip.write(data, size / 2, size - size / 2);
+            }
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+                assertArrayEquals(data, Utils.readBytesFromStream(in));
+            }
+        }
+    }
+
+    /**
+     * Test that {@link ParallelBZip2InputStream} reads files made of several blocks and several streams.
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testParallelBZip2() throws IOException {
+        byte[] data = data(1_000_000);
+        Path file = temporaryDirectory.resolve("test.osm.bz2");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            // several blocks of 100 kB
+            try (OutputStream bzip2 = new BZip2CompressorOutputStream(new NonClosingOutputStream(out), 1)) {
+                bzip2.write(data, 0, 600_000);
+            }
+            // another stream
+            try (OutputStream bzip2 = new BZip2CompressorOutputStream(new NonClosingOutputStream(out), 9)) {
+                bzip2.write(data, 600_000, 400_000);
+            }
+        }
+        try (InputStream in = new ParallelBZip2InputStream(file)) {
+            assertArrayEquals(data, Utils.readBytesFromStream(in));
+        }
+
+        // truncated file
+        byte[] compressed = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(compressed, compressed.length / 2));
+        assertThrows(IOException.class, () -> {
+            try (InputStream in = new ParallelBZip2InputStream(file)) {
+                Utils.readBytesFromStream(in);
+            }
+        });
+
+        // not a bzip2 file
+        Files.write(file, data(100));
+        assertThrows(IOException.class, () -> new ParallelBZip2InputStream(file).close());
+    }
+
+    /**
+     * Test that {@link ParallelXZOutputStream} writes data that {@link ParallelXZInputStream} reads.
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testParallelXZ() throws IOException {
+        byte[] data = data(5_000_000);
+        Path file = temporaryDirectory.resolve("test.osm.xz");
+        try (OutputStream out = new ParallelXZOutputStream(Files.newOutputStream(file))) {
+            out.write(data);
+        }
+        assertTrue(ParallelXZInputStream.isSupported(file));
+        try (InputStream in = new ParallelXZInputStream(file)) {
+            assertArrayEquals(data, Utils.readBytesFromStream(in));
+        }
+        try (InputStream in = new XZCompressorInputStream(Files.newInputStream(file), true)) {
+            assertArrayEquals(data, Utils.readBytesFromStream(in));
+        }
+
+        // a single block cannot be read in parallel
+        try (OutputStream out = new ParallelXZOutputStream(Files.newOutputStream(file))) {
+            out.write(data, 0, 1000);
+        }
+        assertFalse(ParallelXZInputStream.isSupported(file));
+    }
+
+    /**
+     * Test the files written and read by {@link Compression}.
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testFiles() throws IOException {
+        byte[] data = data(3_000_000);
+        for (String name : new String[] {"test.osm", "test.osm.gz", "test.osm.bz2", "test.osm.xz", "test.osm.zip"}) {
+            Path file = temporaryDirectory.resolve(name);
+            try (OutputStream out = Compression.getCompressedFileOutputStream(file)) {
+                if (name.endsWith(".zip")) {
+                    ((ZipOutputStream) out).putNextEntry(new ZipEntry("test.osm"));
+                }
+                out.write(data);
+            }
+            try (InputStream in = Compression.getUncompressedFileInputStream(file)) {
+                assertArrayEquals(data, Utils.readBytesFromStream(in), name);
+            }
+        }
+    }
+
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
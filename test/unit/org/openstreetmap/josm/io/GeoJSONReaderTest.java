@@ -14,12 +14,14 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.IntStream;
 
 import org.openstreetmap.josm.TestUtils;
 import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.Relation;
@@ -241,4 +243,90 @@ class GeoJSONReaderTest {
             assertEquals("java.lang.IllegalArgumentException: features must be ARRAY, but is OBJECT", exception.getMessage());
         }
     }
+
+    /**
+     * Tests that the coordinates of a {@code crs} following the features are reprojected.
+     * @throws Exception in case of error
+     */
+    @Test
+    void testCrsAfterFeatures() throws Exception {
+        String feature = "{\"type\": \"Feature\", \"properties\": {}, "
+                + "\"geometry\": {\"type\": \"Point\", \"coordinates\": [%s]}}";
+        String before = "{\"type\": \"FeatureCollection\", "
+                + "\"crs\": {\"type\": \"name\", \"properties\": {\"name\": \"EPSG:3857\"}}, "
+                + "\"features\": [" + String.format(feature, "1113194.908, 7170156.294") + "]}";
+        String after = "{\"type\": \"FeatureCollection\", "
+                + "\"features\": [" + String.format(feature, "1113194.908, 7170156.294") + "], "
+                + "\"crs\": {\"type\": \"name\", \"properties\": {\"name\": \"EPSG:3857\"}}}";
+        LatLon expected = parseNodes(before).get(0).getCoor();
+        assertEquals(54.0, expected.lat(), 1e-7);
+        assertEquals(10.0, expected.lon(), 1e-7);
+        assertTrue(expected.equalsEpsilon(parseNodes(after).get(0).getCoor()));
+    }
+
+    /**
+     * Tests that features sharing coordinates share their nodes.
+     * @throws Exception in case of error
+     */
+    @Test
+    void testSharedCoordinates() throws Exception {
+        String featureCollection = "{\"type\": \"FeatureCollection\", \"features\": ["
+                + "{\"type\": \"Feature\", \"properties\": {\"name\": \"a\"}, "
+                + "\"geometry\": {\"type\": \"LineString\", \"coordinates\": [[1.0, 2.0], [1.5, 2.5]]}}, "
+                + "{\"type\": \"Feature\", \"properties\": {\"name\": \"b\"}, "
+                + "\"geometry\": {\"type\": \"LineString\", \"coordinates\": [[1.5, 2.5], [-1.5, -2.5]]}}, "
+                + "{\"type\": \"Feature\", \"properties\": {\"name\": \"c\"}, "
+                + "\"geometry\": {\"type\": \"LineString\", \"coordinates\": [[-1.5, -2.5], [1.0, 2.0]]}}]}";
+        try (InputStream in = new ByteArrayInputStream(featureCollection.getBytes(StandardCharsets.UTF_8))) {
+            DataSet ds = new GeoJSONReader().doParseDataSet(in, null);
+            assertEquals(3, ds.getWays().size());
+            assertEquals(3, ds.getNodes().size());
+            for (Way way : ds.getWays()) {
+                assertEquals(2, way.getNodesCount());
+                assertEquals(2, way.firstNode().getParentWays().size());
+                assertEquals(2, way.lastNode().getParentWays().size());
+            }
+        }
+    }
+
+    /**
+     * Tests that newline-delimited GeoJSON gives the same result with one and with several threads.
+     * @throws Exception in case of error
+     */
+    @Test
+    void testReadLineDelimitedInParallel() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append('\u001e').append("{\"type\": \"Feature\", \"properties\": {\"ref\": \"").append(i).append("\"}, ")
+              .append("\"geometry\": {\"type\": \"LineString\", \"coordinates\": [[")
+              .append(i % 100).append(", 0], [").append(i % 100 + 1).append(", 1]]}}\n");
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        DataSet serial;
+        try (InputStream in = new ByteArrayInputStream(bytes)) {
+            serial = new GeoJSONReader(1).doParseDataSet(in, null);
+        }
+        DataSet parallel;
+        try (InputStream in = new ByteArrayInputStream(bytes)) {
+            parallel = new GeoJSONReader(4).doParseDataSet(in, null);
+        }
+        assertEquals(1000, serial.getWays().size());
+        assertEquals(200, serial.getNodes().size());
+        List<Way> serialWays = new ArrayList<>(serial.getWays());
+        List<Way> parallelWays = new ArrayList<>(parallel.getWays());
+        serialWays.sort(Comparator.comparing(w -> Integer.valueOf(w.get("ref"))));
+        parallelWays.sort(Comparator.comparing(w -> Integer.valueOf(w.get("ref"))));
+        assertEquals(serialWays.size(), parallelWays.size());
+        assertEquals(serial.getNodes().size(), parallel.getNodes().size());
+        for (int i = 0; i < serialWays.size(); i++) {
+            assertTrue(areEqualWays(serialWays.get(i), parallelWays.get(i)));
+            assertEquals(serialWays.get(i).getKeys(), parallelWays.get(i).getKeys());
+        }
+    }
+
+    private static List<Node> parseNodes(String geojson) throws Exception {
+        try (InputStream in = new ByteArrayInputStream(geojson.getBytes(StandardCharsets.UTF_8))) {
+            return new ArrayList<>(new GeoJSONReader().doParseDataSet(in, null).getNodes());
+        }
+    }
 }
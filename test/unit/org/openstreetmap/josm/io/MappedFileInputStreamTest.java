@@ -0,0 +1,94 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Unit tests of {@link MappedFileInputStream} class.
+ */
+class MappedFileInputStreamTest {
+    @TempDir
+    Path temporaryDirectory;
+
+    private Path createFile(int size) throws IOException {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return Files.write(temporaryDirectory.resolve("data"), data);
+    }
+
+    /**
+     * Test reading a file mapped in several regions.
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testRead() throws IOException {
+        Path file = createFile(10_000);
+        byte[] data = Files.readAllBytes(file);
+        try (InputStream in = new MappedFileInputStream(file, 1000)) {
+            assertTrue(in.markSupported());
+            assertEquals(10_000, in.available());
+            assertEquals(data[0] & 0xff, in.read());
+            byte[] buffer = new byte[1500];
+            // reads stop at the end of a region
+            assertEquals(999, in.read(buffer));
+            assertArrayEquals(Arrays.copyOfRange(data, 1, 1000), Arrays.copyOf(buffer, 999));
+            assertArrayEquals(Arrays.copyOfRange(data, 1000, 10_000), Utils.readBytesFromStream(in));
+            assertEquals(-1, in.read());
+            assertEquals(0, in.available());
+        }
+    }
+
+    /**
+     * Test {@link MappedFileInputStream#skip}, {@link MappedFileInputStream#mark} and {@link MappedFileInputStream#reset}.
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testSkipAndReset() throws IOException {
+        Path file = createFile(10_000);
+        byte[] data = Files.readAllBytes(file);
+        try (InputStream in = new MappedFileInputStream(file, 1000)) {
+            assertEquals(2500, in.skip(2500));
+            in.mark(0);
+            assertEquals(data[2500] & 0xff, in.read());
+            assertEquals(5000, in.skip(5000));
+            assertEquals(data[7501] & 0xff, in.read());
+            in.reset();
+            assertEquals(data[2500] & 0xff, in.read());
+            assertEquals(7499, in.skip(20_000));
+            assertEquals(-1, in.read());
+            in.reset();
+            assertEquals(data[2500] & 0xff, in.read());
+        }
+    }
+
+    /**
+     * Test an empty file, and a closed stream.
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testEmptyAndClosed() throws IOException {
+        Path file = createFile(0);
+        InputStream in = new MappedFileInputStream(file);
+        assertEquals(-1, in.read());
+        assertEquals(-1, in.read(new byte[10]));
+        in.close();
+        assertEquals(0, in.available());
+        assertThrows(IOException.class, in::read);
+        assertThrows(IOException.class, in::reset);
+    }
+}
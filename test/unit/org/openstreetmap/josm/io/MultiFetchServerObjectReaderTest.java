@@ -0,0 +1,56 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link MultiFetchServerObjectReader}.
+ */
+@BasicPreferences
+class MultiFetchServerObjectReaderTest {
+    /**
+     * Test that the ids of the request strings are in ascending order.
+     */
+    @Test
+    void testBuildRequestString() {
+        MultiFetchServerObjectReader reader = new MultiFetchServerObjectReader();
+        Set<Long> ids = new HashSet<>();
+        ids.add(2L);
+        ids.add(1L);
+        assertEquals("nodes?nodes=1,2", reader.buildRequestString(OsmPrimitiveType.NODE, reader.extractIdPackage(ids)));
+        assertTrue(ids.isEmpty());
+
+        ids.add(10_000_000_000L);
+        ids.add(3L);
+        ids.add(5_000_000_000L);
+        assertEquals("relations?relations=3,5000000000,10000000000",
+                reader.buildRequestString(OsmPrimitiveType.RELATION, reader.extractIdPackage(ids)));
+        assertEquals("relations?relations=3,7", reader.buildRequestString(OsmPrimitiveType.RELATION, new HashSet<>(Arrays.asList(7L, 3L))));
+    }
+
+    /**
+     * Test that the ids are split in packages of at most 170.
+     */
+    @Test
+    void testExtractIdPackage() {
+        MultiFetchServerObjectReader reader = new MultiFetchServerObjectReader();
+        Set<Long> ids = LongStream.rangeClosed(1, 250).boxed().collect(Collectors.toCollection(HashSet::new));
+        Set<Long> pkg = reader.extractIdPackage(ids);
+        assertEquals(170, pkg.size());
+        assertEquals(80, ids.size());
+        assertTrue(pkg.stream().noneMatch(ids::contains));
+        String request = reader.buildRequestString(OsmPrimitiveType.WAY, pkg);
+        assertEquals("ways?ways=" + pkg.stream().sorted().map(String::valueOf).collect(Collectors.joining(",")), request);
+    }
+}
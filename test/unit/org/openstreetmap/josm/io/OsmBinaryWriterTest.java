@@ -0,0 +1,165 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.DownloadPolicy;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.UploadPolicy;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link OsmBinaryWriter} and {@link OsmBinaryReader} classes.
+ */
+@BasicPreferences
+class OsmBinaryWriterTest {
+
+    private static DataSet roundTrip(DataSet ds) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OsmBinaryWriter writer = new OsmBinaryWriter(out)) {
+            writer.write(ds);
+        }
+        return OsmBinaryReader.parseDataSet(new ByteArrayInputStream(out.toByteArray()), NullProgressMonitor.INSTANCE);
+    }
+
+    /**
+     * Test that the data read from a written file is the same, including the local modifications.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testRoundTrip() throws Exception {
+        DataSet ds = new DataSet();
+        ds.setVersion("0.6");
+        ds.addDataSource(new DataSource(new Bounds(53, 13, 54, 14), "test"));
+        Node n1 = new Node(1, 3);
+        n1.setCoor(new LatLon(53.5, 13.25));
+        n1.put("amenity", "bench");
+        n1.setUser(User.createOsmUser(42, "alice"));
+        n1.setInstant(Instant.ofEpochSecond(1_600_000_000L));
+        n1.setChangesetId(100);
+        Node n2 = new Node(2, 1);
+        n2.setCoor(new LatLon(-33.9, 151.2));
+        Node deleted = new Node(3, 1);
+        deleted.setCoor(new LatLon(1, 1));
+        Node added = new Node(new LatLon(53.123456789012, 13.987654321098));
+        added.put("name", "new");
+        added.setUser(User.createLocalUser("bob"));
+        Node addedDeleted = new Node(new LatLon(53, 13));
+        Way w = new Way(10, 2);
+        w.setNodes(Arrays.asList(n1, n2, n1));
+        w.put("highway", "residential");
+        Way addedWay = new Way();
+        addedWay.setNodes(Arrays.asList(added, n2));
+        Relation child = new Relation(21);
+        Relation r = new Relation(20, 1);
+        r.setMembers(Arrays.asList(new RelationMember("stop", n1), new RelationMember("", w), new RelationMember("", child)));
+        r.put("type", "route");
+        for (Node n : Arrays.asList(n1, n2, deleted, added, addedDeleted)) {
+            ds.addPrimitive(n);
+        }
+        ds.addPrimitive(w);
+        ds.addPrimitive(addedWay);
+        ds.addPrimitive(child);
+        ds.addPrimitive(r);
+        deleted.setDeleted(true);
+        addedDeleted.setDeleted(true);
+        n2.setModified(true);
+        ds.setUploadPolicy(UploadPolicy.DISCOURAGED);
+        ds.setDownloadPolicy(DownloadPolicy.BLOCKED);
+
+        DataSet result = roundTrip(ds);
+
+        assertEquals("0.6", result.getVersion());
+        assertEquals(UploadPolicy.DISCOURAGED, result.getUploadPolicy());
+        assertEquals(DownloadPolicy.BLOCKED, result.getDownloadPolicy());
+        assertFalse(result.isLocked());
+        assertEquals(new Bounds(53, 13, 54, 14), result.getDataSourceBounds().get(0));
+        assertEquals("test", result.getDataSources().iterator().next().origin);
+
+        Node rn1 = (Node) result.getPrimitiveById(1, OsmPrimitiveType.NODE);
+        assertEquals(new LatLon(53.5, 13.25), rn1.getCoor());
+        assertEquals(3, rn1.getVersion());
+        assertEquals("bench", rn1.get("amenity"));
+        assertEquals(42, rn1.getUser().getId());
+        assertEquals("alice", rn1.getUser().getName());
+        assertEquals(Instant.ofEpochSecond(1_600_000_000L), rn1.getInstant());
+        assertEquals(100, rn1.getChangesetId());
+        assertFalse(rn1.isModified());
+
+        Node rn2 = (Node) result.getPrimitiveById(2, OsmPrimitiveType.NODE);
+        assertTrue(rn2.isModified());
+        assertEquals(-33.9, rn2.lat());
+        assertEquals(151.2, rn2.lon());
+
+        Node rdeleted = (Node) result.getPrimitiveById(3, OsmPrimitiveType.NODE);
+        assertTrue(rdeleted.isDeleted());
+        // new primitives which have been deleted are dropped, like in the .osm format
+        assertEquals(4, result.getNodes().size());
+
+        // new primitives keep their exact coordinates
+        Node radded = result.getNodes().stream().filter(Node::isNew).findFirst().orElseThrow(AssertionError::new);
+        assertTrue(radded.isNew());
+        assertEquals(added.lat(), radded.lat());
+        assertEquals(added.lon(), radded.lon());
+        assertEquals("new", radded.get("name"));
+        assertTrue(radded.getUser().isLocalUser());
+        assertEquals("bob", radded.getUser().getName());
+        Way raddedWay = result.getWays().stream().filter(Way::isNew).findFirst().orElseThrow(AssertionError::new);
+        assertEquals(Arrays.asList(radded, rn2), raddedWay.getNodes());
+
+        Way rw = (Way) result.getPrimitiveById(10, OsmPrimitiveType.WAY);
+        assertEquals(Arrays.asList(rn1, rn2, rn1), rw.getNodes());
+        assertEquals("residential", rw.get("highway"));
+
+        Relation rr = (Relation) result.getPrimitiveById(20, OsmPrimitiveType.RELATION);
+        assertEquals(3, rr.getMembersCount());
+        assertEquals("stop", rr.getMember(0).getRole());
+        assertEquals(rn1, rr.getMember(0).getMember());
+        assertEquals(rw, rr.getMember(1).getMember());
+        assertTrue(rr.getMember(2).getMember().isIncomplete());
+        assertEquals(21, rr.getMember(2).getUniqueId());
+    }
+
+    /**
+     * Test that the locked state is preserved.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testLocked() throws Exception {
+        DataSet ds = new DataSet(new Node(new LatLon(1, 2)));
+        ds.lock();
+        DataSet result = roundTrip(ds);
+        assertTrue(result.isLocked());
+        assertEquals(1, result.getNodes().size());
+    }
+
+    /**
+     * Test that other files are rejected.
+     */
+    @Test
+    void testInvalidFile() {
+        byte[] data = "<?xml version='1.0' encoding='UTF-8'?>".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalDataException.class,
+                () -> OsmBinaryReader.parseDataSet(new ByteArrayInputStream(data), NullProgressMonitor.INSTANCE));
+    }
+}
@@ -3,6 +3,7 @@ package org.openstreetmap.josm.io;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
@@ -246,4 +247,50 @@ class OsmJsonReaderTest {
                 "  \"remark\": \"runtime error: Query ran out of memory in \\\"query\\\" at line 5.\"\n");
         assertEquals("runtime error: Query ran out of memory in \"query\" at line 5.", ds.getRemark());
     }
+
+    /**
+     * Test elements whose attributes are in an unusual order, with unknown attributes and elements.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testAttributeOrder() throws Exception {
+        DataSet ds = parse("{\n" +
+                "  \"id\": 1,\n" +
+                "  \"tags\": {\"highway\": \"bus_stop\"},\n" +
+                "  \"bounds\": {\"minlat\": 1.0, \"minlon\": -4.0, \"extra\": [[1, 2], {}]},\n" +
+                "  \"lon\": -3.0,\n" +
+                "  \"lat\": 2.0,\n" +
+                "  \"type\": \"node\"\n" +
+                "}, {\n" +
+                "  \"type\": \"area\",\n" +
+                "  \"id\": 3600000001,\n" +
+                "  \"tags\": {\"name\": \"Somewhere\"}\n" +
+                "}, {\n" +
+                "  \"members\": [{\"ref\": 1, \"role\": \"stop\", \"type\": \"node\"}],\n" +
+                "  \"id\": 2,\n" +
+                "  \"type\": \"relation\"\n" +
+                "}");
+        Node n = ds.getNodes().iterator().next();
+        assertEquals(1, n.getUniqueId());
+        assertEquals(new LatLon(2.0, -3.0), n.getCoor());
+        assertEquals("bus_stop", n.get("highway"));
+        Relation r = ds.getRelations().iterator().next();
+        assertEquals(2, r.getUniqueId());
+        assertEquals(1, r.getMembersCount());
+        assertEquals(n, r.getMember(0).getMember());
+        assertEquals("stop", r.getMember(0).getRole());
+        assertEquals(2, ds.allPrimitives().size());
+    }
+
+    /**
+     * Test that a missing version is reported.
+     */
+    @Test
+    void testMissingVersion() {
+        assertThrows(IllegalDataException.class, () -> {
+            try (InputStream in = new ByteArrayInputStream("{\"elements\": []}".getBytes(StandardCharsets.UTF_8))) {
+                OsmJsonReader.parseDataSet(in, NullProgressMonitor.INSTANCE);
+            }
+        });
+    }
 }
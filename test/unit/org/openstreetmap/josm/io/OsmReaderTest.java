@@ -14,12 +14,14 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 
 import org.openstreetmap.josm.TestUtils;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.Relation;
 import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
@@ -27,12 +29,16 @@ import org.openstreetmap.josm.io.OsmReader.Options;
 import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * Unit tests of {@link OsmReader} class.
  */
 @BasicPreferences
 class OsmReaderTest {
+    @TempDir
+    Path temporaryDirectory;
+
     private static Options[][] options() {
         return new Options[][]{
                 new Options[]{},
@@ -153,6 +159,13 @@ class OsmReaderTest {
         } catch (IllegalDataException e) {
             assertEquals(expectedError, e.getMessage());
         }
+        try (InputStream in = new ByteArrayInputStream(
+                ("<?xml version='1.0' encoding='UTF-8'?>" + osm).getBytes(StandardCharsets.UTF_8))) {
+            OsmReader.parseDataSetPipelined(in, NullProgressMonitor.INSTANCE);
+            fail("should throw exception");
+        } catch (IllegalDataException e) {
+            assertEquals(expectedError, e.getMessage());
+        }
     }
 
     /**
@@ -404,4 +417,58 @@ class OsmReaderTest {
             }
         }
     }
+
+    /**
+     * Test that the pipelined mode reads the same data as the default mode.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testPipelined() throws Exception {
+        StringBuilder osm = new StringBuilder("<osm version='0.6'>");
+        // more primitives than a batch of the pipeline
+        for (int i = 1; i <= 3000; i++) {
+            osm.append("<node id='").append(i).append("' version='1' lat='").append(i * 1e-4).append("' lon='1'>")
+               .append("<tag k='ref' v='").append(i).append("'/></node>");
+        }
+        for (int i = 1; i < 3000; i++) {
+            osm.append("<way id='").append(i).append("' version='2'><nd ref='").append(i).append("'/><nd ref='").append(i + 1)
+               .append("'/><nd ref='-1'/></way>");
+        }
+        osm.append("<node id='-1' lat='0' lon='0'/>");
+        osm.append("<relation id='1' version='1'><member type='way' ref='1' role='outer'/><member type='relation' ref='2' role=''/>")
+           .append("</relation></osm>");
+        for (Options[] options : options()) {
+            byte[] data = ("<?xml version='1.0' encoding='UTF-8'?>" + osm).getBytes(StandardCharsets.UTF_8);
+            DataSet expected = OsmReader.parseDataSet(new ByteArrayInputStream(data), NullProgressMonitor.INSTANCE, options);
+            DataSet ds = OsmReader.parseDataSetPipelined(new ByteArrayInputStream(data), NullProgressMonitor.INSTANCE, options);
+            assertEquals(expected.allPrimitives().size(), ds.allPrimitives().size());
+            assertEquals(3001, ds.getNodes().size());
+            for (Way w : expected.getWays()) {
+                Way way = (Way) ds.getPrimitiveById(w);
+                assertTrue(w.hasEqualSemanticAttributes(way), way::toString);
+                assertTrue(w.hasEqualTechnicalAttributes(way), way::toString);
+            }
+            assertEquals(2, ds.getRelations().size());
+            assertEquals(2, ds.getRelations().stream().mapToInt(Relation::getMembersCount).sum());
+        }
+    }
+
+    /**
+     * Test that a memory mapped file is decoded by the XML parser, including its byte order mark.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testMappedFile() throws Exception {
+        Path file = temporaryDirectory.resolve("test.osm");
+        Files.write(file, ("\uFEFF<?xml version='1.0' encoding='UTF-8'?><osm version='0.6'>"
+                + "<node id='1' version='1' lat='1' lon='2'><tag k='name' v='Stra\u00DFe \u5317\u4EAC'/></node></osm>")
+                .getBytes(StandardCharsets.UTF_8));
+        for (boolean pipelined : new boolean[] {false, true}) {
+            try (InputStream in = new MappedFileInputStream(file)) {
+                DataSet ds = pipelined ? OsmReader.parseDataSetPipelined(in, NullProgressMonitor.INSTANCE)
+                        : OsmReader.parseDataSet(in, NullProgressMonitor.INSTANCE);
+                assertEquals("Stra\u00DFe \u5317\u4EAC", ds.getNodes().iterator().next().get("name"));
+            }
+        }
+    }
 }
@@ -0,0 +1,306 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link PbfReader} class.
+ */
+@BasicPreferences
+class PbfReaderTest {
+
+    private static final List<String> STRINGS = Arrays.asList(
+            "", "amenity", "bench", "highway", "residential", "type", "route", "stop", "alice");
+
+    /**
+     * Minimal protobuf encoder, to write the test files.
+     */
+    private static final class Message {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        private void writeVarInt(long value) {
+            long v = value;
+            while ((v & ~0x7FL) != 0) {
+                out.write((int) (v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            out.write((int) v);
+        }
+
+        private static long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        Message varInt(int field, long value) {
+            writeVarInt((long) field << 3);
+            writeVarInt(value);
+            return this;
+        }
+
+        Message signed(int field, long value) {
+            return varInt(field, zigZag(value));
+        }
+
+        Message bytes(int field, byte[] bytes) {
+            writeVarInt((long) field << 3 | 2);
+            writeVarInt(bytes.length);
+            out.write(bytes, 0, bytes.length);
+            return this;
+        }
+
+        Message string(int field, String value) {
+            return bytes(field, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Message message(int field, Message message) {
+            return bytes(field, message.toByteArray());
+        }
+
+        Message packed(int field, long... values) {
+            Message packed = new Message();
+            for (long value : values) {
+                packed.writeVarInt(value);
+            }
+            return message(field, packed);
+        }
+
+        Message packedSigned(int field, long... values) {
+            Message packed = new Message();
+            for (long value : values) {
+                packed.writeVarInt(zigZag(value));
+            }
+            return message(field, packed);
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    private static void writeBlob(DataOutputStream file, String type, Message content, boolean compress) throws IOException {
+        byte[] data = content.toByteArray();
+        Message blob = new Message();
+        if (compress) {
+            Deflater deflater = new Deflater();
+            deflater.setInput(data);
+            deflater.finish();
+            byte[] buffer = new byte[data.length + 64];
+            int length = deflater.deflate(buffer);
+            deflater.end();
+            blob.varInt(2, data.length).bytes(3, Arrays.copyOf(buffer, length));
+        } else {
+            blob.bytes(1, data);
+        }
+        byte[] blobBytes = blob.toByteArray();
+        byte[] header = new Message().string(1, type).varInt(3, blobBytes.length).toByteArray();
+        file.writeInt(header.length);
+        file.write(header);
+        file.write(blobBytes);
+    }
+
+    private static Message header(String... features) {
+        Message header = new Message()
+                .message(1, new Message().signed(1, 13_000_000_000L).signed(2, 14_000_000_000L)
+                        .signed(3, 54_000_000_000L).signed(4, 53_000_000_000L));
+        for (String feature : features) {
+            header.string(4, feature);
+        }
+        return header.string(16, "test");
+    }
+
+    private static Message block(Message... groups) {
+        Message strings = new Message();
+        for (String s : STRINGS) {
+            strings.string(1, s);
+        }
+        Message block = new Message().message(1, strings);
+        for (Message group : groups) {
+            block.message(2, group);
+        }
+        return block;
+    }
+
+    private static Message info(int version, long timestamp, long changeset) {
+        return new Message().varInt(1, version).varInt(2, timestamp).varInt(3, changeset).varInt(4, 42).varInt(5, 8);
+    }
+
+    private static Message denseNodes() {
+        // nodes 1, 2, 3 at (53.5, 13.25), (53.51, 13.26), (-33.9, 151.2), with the default granularity of 100 nanodegrees
+        return new Message().message(2, new Message()
+                .packedSigned(1, 1, 1, 1)
+                .message(5, new Message()
+                        .packed(1, 1, 2, 1)
+                        .packedSigned(2, 1_600_000_000L, 10, 5)
+                        .packedSigned(3, 100, 1, 1)
+                        .packedSigned(4, 42, 0, 0)
+                        .packedSigned(5, 8, 0, 0))
+                .packedSigned(8, 535_000_000L, 100_000L, -874_100_000L)
+                .packedSigned(9, 132_500_000L, 100_000L, 1_379_400_000L)
+                .packed(10, 1, 2, 0, 0, 0));
+    }
+
+    private static Message way() {
+        return new Message().message(3, new Message()
+                .varInt(1, 10).packed(2, 3).packed(3, 4)
+                .message(4, info(3, 1_600_000_100L, 105))
+                .packedSigned(8, 1, 1, 1));
+    }
+
+    private static Message relation() {
+        return new Message().message(4, new Message()
+                .varInt(1, 20).packed(2, 5).packed(3, 6)
+                .message(4, info(1, 1_600_000_200L, 106))
+                .packed(8, 7, 0, 0)
+                .packedSigned(9, 1, 9, 11)
+                .packed(10, 0, 1, 2));
+    }
+
+    private static byte[] file(boolean compress, Message header, Message... blocks) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DataOutputStream file = new DataOutputStream(out)) {
+            if (header != null) {
+                writeBlob(file, "OSMHeader", header, compress);
+            }
+            for (Message block : blocks) {
+                writeBlob(file, "OSMData", block, compress);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static DataSet parse(byte[] data) throws IllegalDataException {
+        return PbfReader.parseDataSet(new ByteArrayInputStream(data), NullProgressMonitor.INSTANCE);
+    }
+
+    private static void assertTestData(DataSet ds) {
+        assertEquals("0.6", ds.getVersion());
+
+        Node n1 = (Node) ds.getPrimitiveById(1, OsmPrimitiveType.NODE);
+        assertTrue(new LatLon(53.5, 13.25).equalsEpsilon(n1.getCoor()));
+        assertEquals("bench", n1.get("amenity"));
+        assertEquals(1, n1.getVersion());
+        assertEquals(Instant.ofEpochSecond(1_600_000_000L), n1.getInstant());
+        assertEquals(100, n1.getChangesetId());
+        assertEquals(42, n1.getUser().getId());
+        assertEquals("alice", n1.getUser().getName());
+
+        Node n2 = (Node) ds.getPrimitiveById(2, OsmPrimitiveType.NODE);
+        assertTrue(new LatLon(53.51, 13.26).equalsEpsilon(n2.getCoor()));
+        assertFalse(n2.hasKeys());
+        assertEquals(2, n2.getVersion());
+        assertEquals(Instant.ofEpochSecond(1_600_000_010L), n2.getInstant());
+        assertEquals(101, n2.getChangesetId());
+
+        Node n3 = (Node) ds.getPrimitiveById(3, OsmPrimitiveType.NODE);
+        assertTrue(new LatLon(-33.9, 151.2).equalsEpsilon(n3.getCoor()));
+        assertEquals(102, n3.getChangesetId());
+        assertEquals(42, n3.getUser().getId());
+
+        Way w = (Way) ds.getPrimitiveById(10, OsmPrimitiveType.WAY);
+        assertEquals(Arrays.asList(n1, n2, n3), w.getNodes());
+        assertEquals("residential", w.get("highway"));
+        assertEquals(3, w.getVersion());
+        assertEquals(105, w.getChangesetId());
+
+        Relation r = (Relation) ds.getPrimitiveById(20, OsmPrimitiveType.RELATION);
+        assertEquals("route", r.get("type"));
+        List<RelationMember> members = r.getMembers();
+        assertEquals(3, members.size());
+        assertEquals("stop", members.get(0).getRole());
+        assertEquals(n1, members.get(0).getMember());
+        assertEquals("", members.get(1).getRole());
+        assertEquals(w, members.get(1).getMember());
+        Relation child = (Relation) members.get(2).getMember();
+        assertEquals(21, child.getId());
+        assertTrue(child.isIncomplete());
+    }
+
+    /**
+     * Test a file with zlib compressed blobs.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testCompressed() throws Exception {
+        DataSet ds = parse(file(true, header("OsmSchema-V0.6", "DenseNodes"), block(denseNodes(), way(), relation())));
+        assertTestData(ds);
+        assertEquals(1, ds.getDataSources().size());
+        Bounds bounds = ds.getDataSourceBounds().get(0);
+        assertEquals(new Bounds(53, 13, 54, 14), bounds);
+    }
+
+    /**
+     * Test a file with raw blobs, the primitives being split in several blocks decoded in parallel.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testRawBlocksInParallel() throws Exception {
+        byte[] data = file(false, header("OsmSchema-V0.6", "DenseNodes"), block(denseNodes()), block(way()), block(relation()));
+        for (int threads : new int[] {1, 4}) {
+            assertTestData(new PbfReader(threads).doParseDataSet(new ByteArrayInputStream(data), NullProgressMonitor.INSTANCE));
+        }
+    }
+
+    /**
+     * Test that non-zero granularity and offsets are applied to the coordinates.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testGranularityAndOffsets() throws Exception {
+        Message block = block(new Message().message(1, new Message()
+                .signed(1, 5).message(4, info(1, 0, 1)).signed(8, 1).signed(9, -2)))
+                .varInt(17, 1000).varInt(19, 50_000_000_000L).varInt(20, 10_000_000_000L);
+        DataSet ds = parse(file(true, header(), block));
+        Node n = (Node) ds.getPrimitiveById(5, OsmPrimitiveType.NODE);
+        assertTrue(new LatLon(50.000001, 9.999998).equalsEpsilon(n.getCoor()));
+    }
+
+    /**
+     * Test invalid files.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testInvalid() throws Exception {
+        // missing header
+        assertThrows(IllegalDataException.class, () -> parse(file(true, null, block(denseNodes()))));
+        // unsupported feature
+        assertThrows(IllegalDataException.class, () -> parse(file(true, header("HistoricalInformation"), block(denseNodes()))));
+        // unsupported compression (lzma)
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DataOutputStream file = new DataOutputStream(out)) {
+            byte[] blob = new Message().varInt(2, 10).bytes(4, new byte[10]).toByteArray();
+            byte[] blobHeader = new Message().string(1, "OSMHeader").varInt(3, blob.length).toByteArray();
+            file.writeInt(blobHeader.length);
+            file.write(blobHeader);
+            file.write(blob);
+        }
+        assertThrows(IllegalDataException.class, () -> parse(out.toByteArray()));
+        // truncated file
+        byte[] data = file(true, header(), block(denseNodes()));
+        assertThrows(IllegalDataException.class, () -> parse(Arrays.copyOf(data, data.length - 5)));
+    }
+}
@@ -0,0 +1,154 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link PbfWriter} class.
+ */
+@BasicPreferences
+class PbfWriterTest {
+
+    private static DataSet roundTrip(DataSet ds) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PbfWriter writer = new PbfWriter(out)) {
+            writer.write(ds);
+        }
+        return PbfReader.parseDataSet(new ByteArrayInputStream(out.toByteArray()), NullProgressMonitor.INSTANCE);
+    }
+
+    /**
+     * Test that the data read from a written file is the same.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testRoundTrip() throws Exception {
+        DataSet ds = new DataSet();
+        ds.addDataSource(new DataSource(new Bounds(53, 13, 54, 14), "test"));
+        Node n1 = new Node(1, 3);
+        n1.setCoor(new LatLon(53.5, 13.25));
+        n1.put("amenity", "bench");
+        n1.setUser(User.createOsmUser(42, "alice"));
+        n1.setInstant(Instant.ofEpochSecond(1_600_000_000L));
+        n1.setChangesetId(100);
+        Node n2 = new Node(2, 1);
+        n2.setCoor(new LatLon(-33.9, 151.2));
+        Node deleted = new Node(3, 1);
+        deleted.setCoor(new LatLon(1, 1));
+        Node added = new Node(new LatLon(53.25, 13.5));
+        added.put("name", "new");
+        Way w = new Way(10, 2);
+        w.setNodes(Arrays.asList(n1, n2, n1));
+        w.put("highway", "residential");
+        Relation child = new Relation(21);
+        Relation r = new Relation(20, 1);
+        r.setMembers(Arrays.asList(new RelationMember("stop", n1), new RelationMember("", w), new RelationMember("", child)));
+        r.put("type", "route");
+        for (Node n : Arrays.asList(n1, n2, deleted, added)) {
+            ds.addPrimitive(n);
+        }
+        ds.addPrimitive(w);
+        ds.addPrimitive(child);
+        ds.addPrimitive(r);
+        deleted.setDeleted(true);
+
+        DataSet result = roundTrip(ds);
+
+        Bounds bounds = result.getDataSourceBounds().get(0);
+        assertEquals(new Bounds(53, 13, 54, 14), bounds);
+
+        Node n1r = (Node) result.getPrimitiveById(1, OsmPrimitiveType.NODE);
+        assertTrue(n1.getCoor().equalsEpsilon(n1r.getCoor()));
+        assertEquals("bench", n1r.get("amenity"));
+        assertEquals(3, n1r.getVersion());
+        assertEquals(42, n1r.getUser().getId());
+        assertEquals("alice", n1r.getUser().getName());
+        assertEquals(Instant.ofEpochSecond(1_600_000_000L), n1r.getInstant());
+        assertEquals(100, n1r.getChangesetId());
+        Node n2r = (Node) result.getPrimitiveById(2, OsmPrimitiveType.NODE);
+        assertTrue(n2.getCoor().equalsEpsilon(n2r.getCoor()));
+        assertNull(n2r.getUser());
+
+        // deleted primitives cannot be stored
+        assertNull(result.getPrimitiveById(3, OsmPrimitiveType.NODE));
+
+        Node addedR = result.getNodes().stream().filter(Node::isNew).findFirst().orElseThrow(AssertionError::new);
+        assertEquals("new", addedR.get("name"));
+        assertTrue(added.getCoor().equalsEpsilon(addedR.getCoor()));
+
+        Way wr = (Way) result.getPrimitiveById(10, OsmPrimitiveType.WAY);
+        assertEquals(Arrays.asList(n1r, n2r, n1r), wr.getNodes());
+        assertEquals("residential", wr.get("highway"));
+        assertEquals(2, wr.getVersion());
+
+        Relation rr = (Relation) result.getPrimitiveById(20, OsmPrimitiveType.RELATION);
+        assertEquals("route", rr.get("type"));
+        List<RelationMember> members = rr.getMembers();
+        assertEquals(3, members.size());
+        assertEquals("stop", members.get(0).getRole());
+        assertEquals(n1r, members.get(0).getMember());
+        assertEquals(wr, members.get(1).getMember());
+        assertEquals(21, members.get(2).getMember().getId());
+        assertTrue(members.get(2).getMember().isIncomplete());
+    }
+
+    /**
+     * Test a data set written in several blocks.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testSeveralBlocks() throws Exception {
+        DataSet ds = new DataSet();
+        int count = 2 * PbfWriter.BLOCK_SIZE + 10;
+        Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = new Node(i + 1, 1);
+            nodes[i].setCoor(new LatLon(-80 + i * 1e-3, 170 - i * 1e-3));
+            if (i % 3 == 0) {
+                nodes[i].put("ref", Integer.toString(i));
+            }
+            ds.addPrimitive(nodes[i]);
+        }
+        for (int i = 0; i + 1 < count; i++) {
+            Way w = new Way(i + 1, 1);
+            w.setNodes(Arrays.asList(nodes[i], nodes[i + 1]));
+            ds.addPrimitive(w);
+        }
+
+        DataSet result = roundTrip(ds);
+
+        assertEquals(count, result.getNodes().size());
+        assertEquals(count - 1, result.getWays().size());
+        for (int i = 0; i < count; i++) {
+            Node n = (Node) result.getPrimitiveById(i + 1, OsmPrimitiveType.NODE);
+            assertTrue(nodes[i].getCoor().equalsEpsilon(n.getCoor()), n::toString);
+            assertEquals(i % 3 == 0 ? Integer.toString(i) : null, n.get("ref"));
+        }
+        for (Way w : result.getWays()) {
+            assertEquals(w.getId(), w.firstNode().getId());
+            assertEquals(w.getId() + 1, w.lastNode().getId());
+        }
+    }
+}
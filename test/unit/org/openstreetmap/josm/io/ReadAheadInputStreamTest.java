@@ -0,0 +1,111 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of {@link ReadAheadInputStream} class.
+ */
+class ReadAheadInputStreamTest {
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Test that all bytes are read, in order.
+     * @throws IOException never
+     */
+    @Test
+    void testRead() throws IOException {
+        byte[] data = data(10_000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new ReadAheadInputStream(new ByteArrayInputStream(data), 100, 3)) {
+            assertEquals(data[0] & 0xFF, in.read());
+            out.write(data[0]);
+            byte[] buffer = new byte[77];
+            int read;
+            while ((read = in.read(buffer, 0, buffer.length)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            assertEquals(-1, in.read());
+        }
+        assertArrayEquals(data, out.toByteArray());
+    }
+
+    /**
+     * Test an empty stream.
+     * @throws IOException never
+     */
+    @Test
+    void testEmpty() throws IOException {
+        try (InputStream in = new ReadAheadInputStream(new ByteArrayInputStream(new byte[0]))) {
+            assertEquals(-1, in.read());
+            assertEquals(-1, in.read(new byte[10], 0, 10));
+        }
+    }
+
+    /**
+     * Test that an error of the wrapped stream is thrown to the consumer.
+     */
+    @Test
+    void testError() {
+        InputStream failing = new InputStream() {
+            private int count;
+
+            @Override
+            public int read() throws IOException {
+                if (++count > 250) {
+                    throw new IOException("test");
+                }
+                return 1;
+            }
+        };
+        IOException e = assertThrows(IOException.class, () -> {
+            try (InputStream in = new ReadAheadInputStream(failing, 100, 2)) {
+                while (in.read() != -1) {
+                    // consume
+                }
+            }
+        });
+        assertEquals("test", e.getCause().getMessage());
+    }
+
+    /**
+     * Test that closing the stream before the end stops the background thread, and closes the wrapped stream.
+     * @throws IOException never
+     */
+    @Test
+    void testClose() throws IOException {
+        boolean[] closed = {false};
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                return 0;
+            }
+
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        InputStream in = new ReadAheadInputStream(endless, 10, 2);
+        assertEquals(0, in.read());
+        in.close();
+        assertTrue(closed[0]);
+        assertThrows(IOException.class, in::read);
+    }
+}
@@ -0,0 +1,75 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools.collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of {@link LongArrayList} class.
+ */
+class LongArrayListTest {
+
+    /**
+     * Test of the primitive methods.
+     */
+    @Test
+    void testList() {
+        LongArrayList list = new LongArrayList();
+        assertTrue(list.isEmpty());
+        for (long i = 0; i < 100; i++) {
+            list.add(i * 1_000_000_000L);
+        }
+        assertEquals(100, list.size());
+        assertEquals(5_000_000_000L, list.getLong(5));
+        assertEquals(5_000_000_000L, list.setLong(5, -5));
+        assertEquals(-5, list.getLong(5));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.getLong(100));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.getLong(-1));
+        long[] array = list.toLongArray();
+        assertEquals(100, array.length);
+        long[] sum = {0};
+        list.forEachLong(v -> sum[0] += v);
+        assertEquals(Arrays.stream(array).sum(), sum[0]);
+        list.trimToSize();
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertArrayEquals(new long[] {1, 2, 3}, new LongArrayList(1, 2, 3).toLongArray());
+    }
+
+    /**
+     * Checks that the list behaves like an {@link ArrayList} of boxed values.
+     */
+    @Test
+    void testListOfLong() {
+        LongArrayList list = new LongArrayList(2);
+        List<Long> expected = new ArrayList<>();
+        for (long i = 0; i < 10; i++) {
+            list.add(Long.valueOf(i));
+            expected.add(i);
+        }
+        list.add(0, -1L);
+        expected.add(0, -1L);
+        list.add(list.size(), 100L);
+        expected.add(expected.size(), 100L);
+        assertEquals(Long.valueOf(3), list.remove(4));
+        expected.remove(4);
+        list.set(1, 42L);
+        expected.set(1, 42L);
+        assertEquals(expected, list);
+        assertEquals(list, expected);
+        assertEquals(expected.hashCode(), list.hashCode());
+        assertTrue(list.contains(42L));
+        assertEquals(expected.indexOf(100L), list.indexOf(100L));
+        list.subList(0, 2).clear();
+        expected.subList(0, 2).clear();
+        assertEquals(expected, list);
+    }
+}
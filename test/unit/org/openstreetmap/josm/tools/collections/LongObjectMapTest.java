@@ -0,0 +1,105 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools.collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of {@link LongObjectMap} class.
+ */
+class LongObjectMapTest {
+
+    /**
+     * Test of the basic methods, with special keys.
+     */
+    @Test
+    void testMap() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(Long.MIN_VALUE, "min"));
+        assertNull(map.put(-1, "minus one"));
+        assertEquals("zero", map.put(0, "0"));
+        assertEquals("0", map.putIfAbsent(0, "zero"));
+        assertEquals(3, map.size());
+        assertEquals("0", map.get(0));
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertNull(map.get(1));
+        assertEquals("default", map.getOrDefault(1, "default"));
+        assertTrue(map.containsKey(-1));
+        assertEquals("1", map.computeIfAbsent(1, Long::toString));
+        assertNull(map.computeIfAbsent(2, k -> null));
+        assertFalse(map.containsKey(2));
+        assertEquals("minus one", map.remove(-1));
+        assertNull(map.remove(-1));
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(new long[] {Long.MIN_VALUE, 0, 1}, keys);
+        assertThrows(NullPointerException.class, () -> map.put(3, null));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+    }
+
+    /**
+     * Compares random modifications to a {@link HashMap}, through several rebuilds of the table.
+     */
+    @Test
+    void testRandomModifications() {
+        Random random = new Random(1);
+        LongObjectMap<Integer> map = new LongObjectMap<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(10_000) - 5_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        Map<Long, Integer> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+
+        LongObjectMap<Integer> copy = new LongObjectMap<>();
+        copy.putAll(map);
+        expected.forEach((k, v) -> assertEquals(v, copy.get(k)));
+    }
+
+    /**
+     * Checks that entries can be removed while iterating.
+     */
+    @Test
+    void testIteratorRemove() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        for (long i = 0; i < 1000; i++) {
+            map.put(i, Long.toString(i));
+        }
+        for (Iterator<LongObjectMap.Entry<String>> it = map.entries().iterator(); it.hasNext();) {
+            LongObjectMap.Entry<String> e = it.next();
+            assertEquals(Long.toString(e.getKey()), e.getValue());
+            if (e.getKey() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(500, map.size());
+        map.values().removeIf(v -> v.endsWith("1"));
+        assertEquals(400, map.size());
+        assertEquals(400, map.values().size());
+        assertNull(map.get(11));
+        assertEquals("13", map.get(13));
+    }
+}
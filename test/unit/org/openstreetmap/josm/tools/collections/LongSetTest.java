@@ -0,0 +1,87 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools.collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of {@link LongSet} class.
+ */
+class LongSetTest {
+
+    /**
+     * Test of the basic methods, with special values.
+     */
+    @Test
+    void testSet() {
+        LongSet set = new LongSet();
+        assertTrue(set.add(0));
+        assertTrue(set.add(Long.MAX_VALUE));
+        assertTrue(set.add(Long.valueOf(-1)));
+        assertFalse(set.add(0));
+        assertEquals(3, set.size());
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(Long.valueOf(Long.MAX_VALUE)));
+        assertFalse(set.contains(1));
+        assertFalse(set.contains("0"));
+        assertTrue(set.remove(-1));
+        assertFalse(set.remove(Long.valueOf(-1)));
+        long[] values = set.toLongArray();
+        Arrays.sort(values);
+        assertArrayEquals(new long[] {0, Long.MAX_VALUE}, values);
+        assertEquals(new HashSet<>(Arrays.asList(0L, Long.MAX_VALUE)), set);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0));
+    }
+
+    /**
+     * Compares random modifications to a {@link HashSet}, through several rebuilds of the table.
+     */
+    @Test
+    void testRandomModifications() {
+        Random random = new Random(1);
+        LongSet set = new LongSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextInt(10_000) - 5_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+        assertEquals(expected, set);
+        assertEquals(expected, new LongSet(set));
+        assertEquals(expected, new LongSet(expected));
+    }
+
+    /**
+     * Checks the removal of values while iterating and by {@link LongSet#removeAll}.
+     */
+    @Test
+    void testRemove() {
+        LongSet set = new LongSet();
+        for (long i = 0; i < 1000; i++) {
+            set.add(i);
+        }
+        assertTrue(set.removeIf(v -> v % 2 == 0));
+        assertEquals(500, set.size());
+        LongSet odd = new LongSet(Arrays.asList(1L, 3L, 5L));
+        assertTrue(set.removeAll(odd));
+        assertFalse(set.removeAll(odd));
+        assertTrue(set.removeAll(Arrays.asList(7L, 8L)));
+        assertEquals(496, set.size());
+        assertFalse(set.contains(7));
+        assertTrue(set.contains(9));
+    }
+}